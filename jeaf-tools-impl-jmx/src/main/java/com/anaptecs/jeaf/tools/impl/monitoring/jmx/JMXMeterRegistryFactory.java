@@ -40,6 +40,6 @@ public class JMXMeterRegistryFactory implements MeterRegistryFactory {
     JmxReporter lReporter = JmxReporter.forRegistry(lRegistry).createsObjectNamesWith(new ObjectNameFactoryImpl())
         .inDomain(lConfig.domain()).build();
 
-    return new JmxMeterRegistry(lConfig, Clock.SYSTEM, ( id, convention ) -> id.getName(), lRegistry, lReporter);
+    return new JmxMeterRegistry(lConfig, Clock.SYSTEM, new TaggedNameMapper(), lRegistry, lReporter);
   }
 }
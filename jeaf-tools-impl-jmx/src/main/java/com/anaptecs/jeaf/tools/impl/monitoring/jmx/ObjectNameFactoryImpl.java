@@ -5,6 +5,9 @@
  */
 package com.anaptecs.jeaf.tools.impl.monitoring.jmx;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 
@@ -15,6 +18,20 @@ import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
 import com.codahale.metrics.jmx.ObjectNameFactory;
 
 public class ObjectNameFactoryImpl implements ObjectNameFactory {
+  /**
+   * Key property that contains the type of a meter.
+   */
+  private static final String TYPE_KEY = "type";
+
+  /**
+   * Key property that contains the name of a meter.
+   */
+  private static final String NAME_KEY = "name";
+
+  /**
+   * Prefix that is added to tag keys that collide with other key properties.
+   */
+  public static final String TAG_KEY_PREFIX = "tag_";
 
   @Override
   public ObjectName createName( String pType, String pDomain, String pName ) {
@@ -22,6 +39,17 @@ public class ObjectNameFactoryImpl implements ObjectNameFactory {
     Check.checkInvalidParameterNull(pType, "pType");
     Check.checkInvalidParameterNull(pName, "pName");
 
+    // Tags of the meter become additional key properties (see TaggedNameMapper).
+    String lTags;
+    int lTagsStart = pName.indexOf(TaggedNameMapper.TAGS_START);
+    if (lTagsStart > 0 && pName.charAt(pName.length() - 1) == TaggedNameMapper.TAGS_END) {
+      lTags = pName.substring(lTagsStart + 1, pName.length() - 1);
+      pName = pName.substring(0, lTagsStart);
+    }
+    else {
+      lTags = null;
+    }
+
     int lLastIndex = pName.lastIndexOf('.');
     String lDomainSuffix;
     String lType;
@@ -61,10 +89,17 @@ public class ObjectNameFactoryImpl implements ObjectNameFactory {
       lBuilder.append("default");
     }
 
-    lBuilder.append(":type=");
+    lBuilder.append(':');
+    lBuilder.append(TYPE_KEY);
+    lBuilder.append('=');
     lBuilder.append(lType);
-    lBuilder.append(",name=");
+    lBuilder.append(',');
+    lBuilder.append(NAME_KEY);
+    lBuilder.append('=');
     lBuilder.append(pName);
+    if (lTags != null && lTags.isEmpty() == false) {
+      this.appendTags(lBuilder, lTags);
+    }
     String lObjectName = lBuilder.toString();
     try {
       return new ObjectName(lObjectName);
@@ -74,4 +109,39 @@ public class ObjectNameFactoryImpl implements ObjectNameFactory {
     }
   }
 
+  /**
+   * Method appends the passed tags as additional key properties. Keys that collide with the key properties
+   * <code>type</code> and <code>name</code> or with a previous tag are prefixed with {@link #TAG_KEY_PREFIX}. Values
+   * are always quoted so that any tag value results in a valid object name.
+   * 
+   * @param pBuilder Builder to which the key properties should be appended. The parameter must not be null.
+   * @param pTags Tags in the form <code>key1=value1,key2=value2</code> as created by {@link TaggedNameMapper}. The
+   * parameter must not be null.
+   */
+  private void appendTags( StringBuilder pBuilder, String pTags ) {
+    Set<String> lKeys = new HashSet<>();
+    lKeys.add(TYPE_KEY);
+    lKeys.add(NAME_KEY);
+    for (String lNextTag : pTags.split(String.valueOf(TaggedNameMapper.TAG_SEPARATOR))) {
+      int lSeparator = lNextTag.indexOf(TaggedNameMapper.KEY_VALUE_SEPARATOR);
+      String lKey;
+      String lValue;
+      if (lSeparator >= 0) {
+        lKey = lNextTag.substring(0, lSeparator);
+        lValue = lNextTag.substring(lSeparator + 1);
+      }
+      else {
+        lKey = lNextTag;
+        lValue = "";
+      }
+      while (lKeys.add(lKey) == false) {
+        lKey = TAG_KEY_PREFIX + lKey;
+      }
+      pBuilder.append(TaggedNameMapper.TAG_SEPARATOR);
+      pBuilder.append(lKey);
+      pBuilder.append(TaggedNameMapper.KEY_VALUE_SEPARATOR);
+      pBuilder.append(ObjectName.quote(lValue));
+    }
+  }
+
 }
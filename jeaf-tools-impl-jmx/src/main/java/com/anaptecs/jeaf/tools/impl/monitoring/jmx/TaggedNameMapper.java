@@ -0,0 +1,102 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring.jmx;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.NamingConvention;
+import io.micrometer.core.instrument.util.HierarchicalNameMapper;
+
+/**
+ * Class maps Micrometer meter ids to names of Dropwizard metrics. Meters without tags are just mapped to their name.
+ * Tags are appended in the form <code>name[key1=value1,key2=value2]</code> so that meters that only differ in their
+ * tags (e.g. the percentiles of a timer) get different names. {@link ObjectNameFactoryImpl} turns the tags into
+ * additional key properties of the JMX object name.
+ *
+ * @author JEAF Development Team
+ */
+public class TaggedNameMapper implements HierarchicalNameMapper {
+  /**
+   * Character that starts the tags of a name.
+   */
+  public static final char TAGS_START = '[';
+
+  /**
+   * Character that ends the tags of a name.
+   */
+  public static final char TAGS_END = ']';
+
+  /**
+   * Character that separates tags.
+   */
+  public static final char TAG_SEPARATOR = ',';
+
+  /**
+   * Character that separates key and value of a tag.
+   */
+  public static final char KEY_VALUE_SEPARATOR = '=';
+
+  /**
+   * Method returns the name of the Dropwizard metric for the passed id.
+   * 
+   * @param pId Id of the meter. The parameter must not be null.
+   * @param pConvention Naming convention. The parameter is ignored as the name is used as it is.
+   * @return {@link String} Name of the Dropwizard metric. The method never returns null.
+   */
+  @Override
+  public String toHierarchicalName( Meter.Id pId, NamingConvention pConvention ) {
+    String lName;
+    if (pId.getTags().isEmpty() == true) {
+      lName = pId.getName();
+    }
+    else {
+      StringBuilder lBuilder = new StringBuilder(pId.getName());
+      lBuilder.append(TAGS_START);
+      boolean lFirst = true;
+      for (Tag lNext : pId.getTagsAsIterable()) {
+        if (lFirst == false) {
+          lBuilder.append(TAG_SEPARATOR);
+        }
+        this.appendSanitized(lBuilder, lNext.getKey());
+        lBuilder.append(KEY_VALUE_SEPARATOR);
+        this.appendSanitized(lBuilder, lNext.getValue());
+        lFirst = false;
+      }
+      lBuilder.append(TAGS_END);
+      lName = lBuilder.toString();
+    }
+    return lName;
+  }
+
+  /**
+   * Method appends the passed string. All characters that are not allowed inside a key property of a JMX object name or
+   * that are used to structure the tags are replaced with '_'.
+   * 
+   * @param pBuilder Builder to which the string should be appended. The parameter must not be null.
+   * @param pString String that should be appended. The parameter must not be null.
+   */
+  private void appendSanitized( StringBuilder pBuilder, String pString ) {
+    for (int i = 0; i < pString.length(); i++) {
+      char lChar = pString.charAt(i);
+      switch (lChar) {
+        case TAGS_START:
+        case TAGS_END:
+        case TAG_SEPARATOR:
+        case KEY_VALUE_SEPARATOR:
+        case ':':
+        case '"':
+        case '*':
+        case '?':
+        case '\n':
+          pBuilder.append('_');
+          break;
+
+        default:
+          pBuilder.append(lChar);
+      }
+    }
+  }
+}
@@ -6,11 +6,13 @@
 package com.anaptecs.jeaf.tools.test.impl.monitoring;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.JMException;
 import javax.management.MBeanServer;
@@ -21,9 +23,12 @@ import com.anaptecs.jeaf.tools.api.Tools;
 import com.anaptecs.jeaf.tools.api.ToolsMessages;
 import com.anaptecs.jeaf.tools.api.monitoring.GaugeInfo;
 import com.anaptecs.jeaf.tools.api.monitoring.MonitoringTools;
+import com.anaptecs.jeaf.tools.api.monitoring.Tag;
 import com.anaptecs.jeaf.tools.api.monitoring.TimerSample;
 import com.anaptecs.jeaf.tools.impl.monitoring.MonitoringToolsConfiguration;
 import com.anaptecs.jeaf.tools.impl.monitoring.MonitoringToolsImpl;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerHandle;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerHistogramConfig;
 import com.anaptecs.jeaf.tools.impl.monitoring.jmx.JMXMeterRegistryFactory;
 import com.anaptecs.jeaf.tools.impl.monitoring.jmx.ObjectNameFactoryImpl;
 import com.anaptecs.jeaf.xfun.api.XFun;
@@ -70,6 +75,46 @@ public class JMXMonitoringToolsTest {
     }
   }
 
+  @Test
+  public void testTaggedObjectNames( ) throws JMException {
+    ObjectNameFactoryImpl lObjectNameFactory = new ObjectNameFactoryImpl();
+
+    // Tags become additional key properties.
+    ObjectName lName = lObjectNameFactory.createName("Meter", "", "my.first.Timer.percentile[phi=0.95]");
+    assertEquals("my.first:name=percentile,phi=\"0.95\",type=Timer", lName.getCanonicalName());
+    lName = lObjectNameFactory.createName("Meter", "", "Counters[env=prod,host=docker001]");
+    assertEquals("default:env=\"prod\",host=\"docker001\",name=Counters,type=Meter", lName.getCanonicalName());
+
+    // Tag keys that collide with type or name are prefixed and values are always quoted.
+    lName = lObjectNameFactory.createName("Meter", "", "my.Counter[type=http,name=login,tag_name=x,empty=]");
+    assertEquals("Counter", lName.getKeyProperty("name"));
+    assertEquals("my", lName.getKeyProperty("type"));
+    assertEquals("\"http\"", lName.getKeyProperty("tag_type"));
+    assertEquals("login", ObjectName.unquote(lName.getKeyProperty("tag_name")));
+    assertEquals("x", ObjectName.unquote(lName.getKeyProperty("tag_tag_name")));
+    assertEquals("", ObjectName.unquote(lName.getKeyProperty("empty")));
+
+    // Timers with percentiles are published with one MBean per percentile.
+    MonitoringToolsConfiguration lConfiguration = new MonitoringToolsConfiguration("JMXMonitoring", "META-INF", true);
+    MonitoringToolsImpl lMonitoringTools = new MonitoringToolsImpl(lConfiguration);
+    TimerHistogramConfig lHistogramConfig = new TimerHistogramConfig(new double[] { 0.5, 0.99 });
+    lMonitoringTools.configureTimerHistogram("my.percentile.Timer", lHistogramConfig);
+    TimerHandle lTimerHandle = lMonitoringTools.getTimer("my.percentile.Timer", Tag.of("env", "prod"));
+    lTimerHandle.record(5, TimeUnit.MILLISECONDS);
+
+    MBeanServer lMBeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName lTimerName = new ObjectName("my.percentile:type=Timer,name=percentile,env=\"prod\",phi=\"0.99\"");
+    Double lValue = (Double) lMBeanServer.getAttribute(lTimerName, "Value");
+    assertTrue(lValue > 0);
+    lTimerName = new ObjectName("my.percentile:type=Timer,name=percentile,env=\"prod\",phi=\"0.5\"");
+    assertTrue(lMBeanServer.isRegistered(lTimerName));
+
+    // Registration of meters with tags that collide with type or name must work as well.
+    lMonitoringTools.incrementCounter("my.collision.Counter", Tag.of("type", "http"), Tag.of("name", "login"));
+    ObjectName lCounterName = new ObjectName("my:type=collision,name=Counter,tag_type=\"http\",tag_name=\"login\"");
+    assertEquals(1L, lMBeanServer.getAttribute(lCounterName, "Count"));
+  }
+
   @Test
   public void testJMXTimers( ) throws JMException, InterruptedException {
     XFun.getTrace().info("Hellow World!");
@@ -0,0 +1,342 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring.prometheus;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Class periodically writes snapshots of all meters of a registry to a file. Every meter is written as one JSON object
+ * per line. Once the file exceeds its max. size it is rolled over to <code>&lt;file&gt;.1</code>,
+ * <code>&lt;file&gt;.2</code> and so on. Only the configured number of rolled files is kept.
+ *
+ * The static part of every line (name, type and tags of a meter) is rendered only once and then cached. Snapshots are
+ * rendered into a reused buffer that is written to the file in chunks so that the complete snapshot never has to be
+ * kept in memory.
+ *
+ * @author JEAF Development Team
+ */
+public final class JsonLinesFileExporter implements AutoCloseable {
+  /**
+   * Size of the buffer after which it will be written to the file.
+   */
+  private static final int FLUSH_THRESHOLD = 8192;
+
+  /**
+   * Meter registry whose meters are exported.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * File to which the snapshots are written.
+   */
+  private final Path file;
+
+  /**
+   * Max. size of the file in bytes before it is rolled over.
+   */
+  private final long maxFileSize;
+
+  /**
+   * Max. number of rolled files that are kept.
+   */
+  private final int maxFiles;
+
+  /**
+   * Cache with the static part of the JSON object of every meter.
+   */
+  private final Map<Meter.Id, String> prefixCache = new ConcurrentHashMap<>();
+
+  /**
+   * Buffer that is used to render a snapshot.
+   */
+  private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+
+  /**
+   * Character array that is used to pass the content of the buffer to the writer.
+   */
+  private char[] chars = new char[FLUSH_THRESHOLD * 2];
+
+  /**
+   * Executor that triggers the export.
+   */
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Initialize object and schedule the periodic export.
+   *
+   * @param pMeterRegistry Meter registry whose meters should be exported. The parameter must not be null.
+   * @param pFile File to which the snapshots should be written. The parameter must not be null.
+   * @param pIntervalMillis Interval in milliseconds in which snapshots are written. The value must be greater zero.
+   * @param pMaxFileSize Max. size of the file in bytes before it is rolled over. The value must be greater zero.
+   * @param pMaxFiles Max. number of rolled files that are kept. The value must be greater zero.
+   */
+  public JsonLinesFileExporter( MeterRegistry pMeterRegistry, Path pFile, long pIntervalMillis, long pMaxFileSize,
+      int pMaxFiles ) {
+    // Check parameters
+    Check.checkInvalidParameterNull(pMeterRegistry, "pMeterRegistry");
+    Check.checkInvalidParameterNull(pFile, "pFile");
+    Check.checkIsGreaterZero(pIntervalMillis, "pIntervalMillis");
+    Check.checkIsGreaterZero(pMaxFileSize, "pMaxFileSize");
+    Check.checkIsGreaterZero(pMaxFiles, "pMaxFiles");
+
+    meterRegistry = pMeterRegistry;
+    file = pFile;
+    maxFileSize = pMaxFileSize;
+    maxFiles = pMaxFiles;
+    executor = Executors.newSingleThreadScheduledExecutor(pRunnable -> {
+      Thread lThread = new Thread(pRunnable, "JEAF-Metric-File-Exporter");
+      lThread.setDaemon(true);
+      return lThread;
+    });
+    executor.scheduleAtFixedRate(this::exportSafely, pIntervalMillis, pIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Method returns the file to which the snapshots are written.
+   *
+   * @return {@link Path} File to which the snapshots are written. The method never returns null.
+   */
+  public Path getFile( ) {
+    return file;
+  }
+
+  /**
+   * Method writes a snapshot of all meters to the file and rolls it over if it exceeds its max. size.
+   *
+   * @throws IOException if the snapshot can not be written.
+   */
+  public synchronized void export( ) throws IOException {
+    try {
+      Path lParent = file.toAbsolutePath().getParent();
+      if (lParent != null) {
+        Files.createDirectories(lParent);
+      }
+
+      // Render all meters. Percentiles are part of the line of their timer. All lines share the same timestamp.
+      try (Writer lWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND)) {
+        long lTimestamp = System.currentTimeMillis();
+        for (Meter lNext : meterRegistry.getMeters()) {
+          if (PrometheusTextFormat.isHistogramGauge(lNext) == false) {
+            this.appendMeter(lNext, lTimestamp);
+            this.flush(lWriter, FLUSH_THRESHOLD);
+          }
+        }
+        this.flush(lWriter, 0);
+      }
+
+      // Roll over file if required.
+      if (Files.size(file) >= maxFileSize) {
+        this.rollOver();
+      }
+    }
+    finally {
+      buffer.setLength(0);
+    }
+  }
+
+  /**
+   * Method stops the periodic export and writes a last snapshot.
+   */
+  @Override
+  public void close( ) {
+    executor.shutdownNow();
+    this.exportSafely();
+  }
+
+  /**
+   * Method exports all meters and traces errors instead of throwing them.
+   */
+  private void exportSafely( ) {
+    try {
+      this.export();
+    }
+    catch (IOException | RuntimeException e) {
+      XFun.getTrace().error("Unable to export metrics to file " + file + ". " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Method writes the content of the buffer to the passed writer if it exceeds the passed threshold.
+   *
+   * @param pWriter Writer to which the buffer should be written. The parameter must not be null.
+   * @param pThreshold Threshold in characters.
+   * @throws IOException if an I/O error occurs when writing to the writer.
+   */
+  private void flush( Writer pWriter, int pThreshold ) throws IOException {
+    int lLength = buffer.length();
+    if (lLength > pThreshold) {
+      if (chars.length < lLength) {
+        chars = new char[lLength];
+      }
+      buffer.getChars(0, lLength, chars, 0);
+      pWriter.write(chars, 0, lLength);
+      buffer.setLength(0);
+    }
+  }
+
+  /**
+   * Method rolls over the file. The oldest rolled file will be deleted.
+   *
+   * @throws IOException if a file can not be moved or deleted.
+   */
+  private void rollOver( ) throws IOException {
+    Files.deleteIfExists(this.getRolledFile(maxFiles));
+    for (int i = maxFiles - 1; i >= 1; i--) {
+      Path lRolledFile = this.getRolledFile(i);
+      if (Files.exists(lRolledFile) == true) {
+        Files.move(lRolledFile, this.getRolledFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+      else {
+        // Nothing to do.
+      }
+    }
+    Files.move(file, this.getRolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Method returns the path of the rolled file with the passed index.
+   *
+   * @param pIndex Index of the rolled file.
+   * @return {@link Path} Path of the rolled file. The method never returns null.
+   */
+  public Path getRolledFile( int pIndex ) {
+    return file.resolveSibling(file.getFileName().toString() + '.' + pIndex);
+  }
+
+  /**
+   * Method appends the JSON object of the passed meter to the buffer. Timer values are written in seconds.
+   *
+   * @param pMeter Meter that should be appended. The parameter must not be null.
+   * @param pTimestamp Timestamp of the snapshot.
+   */
+  private void appendMeter( Meter pMeter, long pTimestamp ) {
+    String lPrefix = prefixCache.get(pMeter.getId());
+    if (lPrefix == null) {
+      lPrefix = this.createPrefix(pMeter);
+      prefixCache.put(pMeter.getId(), lPrefix);
+    }
+    buffer.append("{\"timestamp\":").append(pTimestamp).append(lPrefix);
+    for (Measurement lNext : pMeter.measure()) {
+      buffer.append(",\"").append(lNext.getStatistic().name().toLowerCase()).append("\":");
+      this.appendNumber(lNext.getValue());
+    }
+
+    // Add percentiles of timers and distribution summaries.
+    ValueAtPercentile[] lPercentiles;
+    if (pMeter instanceof Timer) {
+      lPercentiles = ((Timer) pMeter).takeSnapshot().percentileValues();
+    }
+    else if (pMeter instanceof DistributionSummary) {
+      lPercentiles = ((DistributionSummary) pMeter).takeSnapshot().percentileValues();
+    }
+    else {
+      lPercentiles = new ValueAtPercentile[0];
+    }
+    if (lPercentiles.length > 0) {
+      buffer.append(",\"percentiles\":{");
+      for (int i = 0; i < lPercentiles.length; i++) {
+        if (i > 0) {
+          buffer.append(',');
+        }
+        buffer.append('"').append(lPercentiles[i].percentile()).append("\":");
+        if (pMeter instanceof Timer) {
+          this.appendNumber(lPercentiles[i].value(TimeUnit.SECONDS));
+        }
+        else {
+          this.appendNumber(lPercentiles[i].value());
+        }
+      }
+      buffer.append('}');
+    }
+    buffer.append("}\n");
+  }
+
+  /**
+   * Method creates the static part of the JSON object of the passed meter.
+   *
+   * @param pMeter Meter whose static part should be rendered. The parameter must not be null.
+   * @return {@link String} Rendered static part starting with a comma. The method never returns null.
+   */
+  private String createPrefix( Meter pMeter ) {
+    StringBuilder lBuilder = new StringBuilder(",\"name\":");
+    appendString(lBuilder, pMeter.getId().getName());
+    lBuilder.append(",\"type\":");
+    appendString(lBuilder, pMeter.getId().getType().name().toLowerCase());
+    lBuilder.append(",\"tags\":{");
+    boolean lFirst = true;
+    for (Tag lNext : pMeter.getId().getTagsAsIterable()) {
+      if (lFirst == false) {
+        lBuilder.append(',');
+      }
+      appendString(lBuilder, lNext.getKey());
+      lBuilder.append(':');
+      appendString(lBuilder, lNext.getValue());
+      lFirst = false;
+    }
+    lBuilder.append('}');
+    return lBuilder.toString();
+  }
+
+  /**
+   * Method appends the passed number. As JSON does not support NaN and infinity such values are written as null.
+   *
+   * @param pValue Value that should be appended.
+   */
+  private void appendNumber( double pValue ) {
+    if (Double.isNaN(pValue) == true || Double.isInfinite(pValue) == true) {
+      buffer.append("null");
+    }
+    else {
+      PrometheusTextFormat.appendValue(buffer, pValue);
+    }
+  }
+
+  /**
+   * Method appends the passed string as quoted and escaped JSON string.
+   *
+   * @param pBuilder Builder to which the string should be appended. The parameter must not be null.
+   * @param pValue String that should be appended. The parameter must not be null.
+   */
+  private static void appendString( StringBuilder pBuilder, String pValue ) {
+    pBuilder.append('"');
+    for (int i = 0; i < pValue.length(); i++) {
+      char lChar = pValue.charAt(i);
+      if (lChar == '"' || lChar == '\\') {
+        pBuilder.append('\\').append(lChar);
+      }
+      else if (lChar < 0x20) {
+        pBuilder.append(String.format("\\u%04x", (int) lChar));
+      }
+      else {
+        pBuilder.append(lChar);
+      }
+    }
+    pBuilder.append('"');
+  }
+}
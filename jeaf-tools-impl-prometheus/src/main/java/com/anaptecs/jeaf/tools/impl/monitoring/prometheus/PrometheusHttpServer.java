@@ -0,0 +1,141 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring.prometheus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Class provides an embedded HTTP endpoint that exposes all meters of a registry using the Prometheus text format. The
+ * endpoint is based on the HTTP server of the JDK so that no further dependencies are required. Requests are handled
+ * by a single daemon thread which is sufficient for scrapes and avoids concurrent rendering.
+ *
+ * @author JEAF Development Team
+ */
+public final class PrometheusHttpServer implements AutoCloseable {
+  /**
+   * Path under which metrics are exposed.
+   */
+  public static final String METRICS_PATH = "/metrics";
+
+  /**
+   * Size of the buffer that is used for responses.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Embedded HTTP server.
+   */
+  private final HttpServer server;
+
+  /**
+   * Executor that handles all requests.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Renderer that is used to create the responses.
+   */
+  private final PrometheusTextFormat textFormat;
+
+  /**
+   * Initialize object and start the HTTP server.
+   *
+   * @param pTextFormat Renderer that is used to create the responses. The parameter must not be null.
+   * @param pHost Host name or address to which the server is bound. The parameter must not be null.
+   * @param pPort Port to which the server is bound. 0 means that a free port is chosen.
+   * @throws IOException if the server can not be bound to the passed address.
+   */
+  public PrometheusHttpServer( PrometheusTextFormat pTextFormat, String pHost, int pPort ) throws IOException {
+    // Check parameters
+    Check.checkInvalidParameterNull(pTextFormat, "pTextFormat");
+    Check.checkInvalidParameterNull(pHost, "pHost");
+
+    textFormat = pTextFormat;
+    server = HttpServer.create(new InetSocketAddress(pHost, pPort), 0);
+    executor = Executors.newSingleThreadExecutor(pRunnable -> {
+      Thread lThread = new Thread(pRunnable, "JEAF-Prometheus-Endpoint");
+      lThread.setDaemon(true);
+      return lThread;
+    });
+    server.setExecutor(executor);
+    server.createContext(METRICS_PATH, this::handle);
+    server.start();
+  }
+
+  /**
+   * Method returns the port to which the server is bound.
+   *
+   * @return int Port of the server.
+   */
+  public int getPort( ) {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Method stops the HTTP server.
+   */
+  @Override
+  public void close( ) {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Method handles a single scrape request.
+   *
+   * @param pExchange HTTP exchange. The parameter must not be null.
+   */
+  private void handle( HttpExchange pExchange ) {
+    try {
+      String lMethod = pExchange.getRequestMethod();
+      if ("GET".equals(lMethod) == true || "HEAD".equals(lMethod) == true) {
+        pExchange.getResponseHeaders().set("Content-Type", PrometheusTextFormat.CONTENT_TYPE);
+
+        // Compress response if client supports it. Content length is unknown as output is streamed.
+        String lAcceptEncoding = pExchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean lGzip = lAcceptEncoding != null && lAcceptEncoding.contains("gzip");
+        if (lGzip == true) {
+          pExchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        if ("HEAD".equals(lMethod) == true) {
+          pExchange.sendResponseHeaders(200, -1);
+        }
+        else {
+          pExchange.sendResponseHeaders(200, 0);
+          OutputStream lStream = pExchange.getResponseBody();
+          if (lGzip == true) {
+            lStream = new GZIPOutputStream(lStream, BUFFER_SIZE);
+          }
+          try (Writer lWriter = new OutputStreamWriter(lStream, StandardCharsets.UTF_8)) {
+            textFormat.write(lWriter);
+          }
+        }
+      }
+      else {
+        pExchange.sendResponseHeaders(405, -1);
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      XFun.getTrace().error("Unable to expose metrics. " + e.getMessage(), e);
+    }
+    finally {
+      pExchange.close();
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring.prometheus;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import com.anaptecs.jeaf.tools.api.monitoring.MeterRegistryFactory;
+import com.anaptecs.jeaf.xfun.api.XFun;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Class implements a MeterRegistryFactory that exposes all meters using the Prometheus text format on a local HTTP
+ * endpoint. In addition snapshots of all meters can be written periodically to a rolling file with one JSON object per
+ * line. Both exporters are configured using system properties.
+ *
+ * Endpoint and file export are stopped when the created meter registry is closed. In addition a shutdown hook closes
+ * the registry when the JVM terminates so that a last snapshot is written to the export file.
+ *
+ * @author JEAF Development Team
+ */
+public class PrometheusMeterRegistryFactory implements MeterRegistryFactory {
+  /**
+   * Constant for name of system property that can be used to define the port of the Prometheus endpoint. 0 means that
+   * a free port is chosen and a negative value disables the endpoint.
+   */
+  public static final String PORT_PROPERTY = "jeaf.tools.monitoring.prometheus.port";
+
+  /**
+   * Constant for name of system property that can be used to define the host name or address to which the Prometheus
+   * endpoint is bound.
+   */
+  public static final String HOST_PROPERTY = "jeaf.tools.monitoring.prometheus.host";
+
+  /**
+   * Constant for name of system property that can be used to define the file to which snapshots of all meters are
+   * written. If the property is not set no snapshots are written.
+   */
+  public static final String EXPORT_FILE_PROPERTY = "jeaf.tools.monitoring.export.file";
+
+  /**
+   * Constant for name of system property that can be used to define the interval in seconds in which snapshots are
+   * written.
+   */
+  public static final String EXPORT_INTERVAL_PROPERTY = "jeaf.tools.monitoring.export.interval";
+
+  /**
+   * Constant for name of system property that can be used to define the max. size of the export file in bytes.
+   */
+  public static final String EXPORT_MAX_FILE_SIZE_PROPERTY = "jeaf.tools.monitoring.export.max.file.size";
+
+  /**
+   * Constant for name of system property that can be used to define the number of rolled export files that are kept.
+   */
+  public static final String EXPORT_MAX_FILES_PROPERTY = "jeaf.tools.monitoring.export.max.files";
+
+  /**
+   * Default port of the Prometheus endpoint.
+   */
+  public static final int DEFAULT_PORT = 9464;
+
+  /**
+   * Default host of the Prometheus endpoint. By default the endpoint is only reachable locally.
+   */
+  public static final String DEFAULT_HOST = "localhost";
+
+  /**
+   * Default export interval in seconds.
+   */
+  public static final int DEFAULT_EXPORT_INTERVAL = 60;
+
+  /**
+   * Default max. size of the export file in bytes.
+   */
+  public static final long DEFAULT_EXPORT_MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+  /**
+   * Default number of rolled export files that are kept.
+   */
+  public static final int DEFAULT_EXPORT_MAX_FILES = 5;
+
+  /**
+   * Prometheus endpoint that was started by this factory. The field is null if the endpoint is disabled.
+   */
+  private PrometheusHttpServer httpServer;
+
+  /**
+   * File exporter that was started by this factory. The field is null if the export is disabled.
+   */
+  private JsonLinesFileExporter fileExporter;
+
+  /**
+   * Shutdown hook that closes the created meter registry. The field is null if neither endpoint nor file export were
+   * started.
+   */
+  private Thread shutdownHook;
+
+  @Override
+  public MeterRegistry createMeterRegistry( String pDomain ) {
+    // Meters are kept in a simple registry with cumulative values as expected by Prometheus. Closing the registry also
+    // stops the exporters.
+    MeterRegistry lRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, Clock.SYSTEM) {
+      @Override
+      public void close( ) {
+        PrometheusMeterRegistryFactory.this.closeExporters();
+        super.close();
+      }
+    };
+
+    // Start Prometheus endpoint. Monitoring must not prevent the application from starting if the port is in use.
+    int lPort = Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+    if (lPort >= 0) {
+      String lHost = System.getProperty(HOST_PROPERTY, DEFAULT_HOST);
+      try {
+        httpServer = new PrometheusHttpServer(new PrometheusTextFormat(lRegistry, pDomain), lHost, lPort);
+      }
+      catch (IOException e) {
+        XFun.getTrace().error("Unable to start Prometheus endpoint on " + lHost + ":" + lPort + ". " + e.getMessage(),
+            e);
+      }
+    }
+    else {
+      // Nothing to do.
+    }
+
+    // Start file export.
+    String lFile = System.getProperty(EXPORT_FILE_PROPERTY);
+    if (lFile != null && lFile.trim().isEmpty() == false) {
+      long lInterval = Integer.getInteger(EXPORT_INTERVAL_PROPERTY, DEFAULT_EXPORT_INTERVAL) * 1000L;
+      long lMaxFileSize = Long.getLong(EXPORT_MAX_FILE_SIZE_PROPERTY, DEFAULT_EXPORT_MAX_FILE_SIZE);
+      int lMaxFiles = Integer.getInteger(EXPORT_MAX_FILES_PROPERTY, DEFAULT_EXPORT_MAX_FILES);
+      fileExporter = new JsonLinesFileExporter(lRegistry, Paths.get(lFile.trim()), lInterval, lMaxFileSize, lMaxFiles);
+    }
+    else {
+      // Nothing to do.
+    }
+
+    // Ensure that exporters are stopped when the JVM terminates.
+    if (httpServer != null || fileExporter != null) {
+      shutdownHook = new Thread(lRegistry::close, "JEAF-Metric-Exporter-Shutdown");
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+    return lRegistry;
+  }
+
+  /**
+   * Method stops the Prometheus endpoint and the file export. The file export writes a last snapshot. Calling this
+   * method more than once has no effect.
+   */
+  private synchronized void closeExporters( ) {
+    if (httpServer != null) {
+      httpServer.close();
+      httpServer = null;
+    }
+    if (fileExporter != null) {
+      fileExporter.close();
+      fileExporter = null;
+    }
+    if (shutdownHook != null) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      }
+      // Shutdown hooks can not be removed while the JVM is already shutting down.
+      catch (IllegalStateException e) {
+        // Nothing to do.
+      }
+      shutdownHook = null;
+    }
+  }
+
+  /**
+   * Method returns the Prometheus endpoint that was started by this factory.
+   *
+   * @return {@link PrometheusHttpServer} Started endpoint. The method returns null if the endpoint is disabled, could
+   * not be started or was already stopped.
+   */
+  public synchronized PrometheusHttpServer getHttpServer( ) {
+    return httpServer;
+  }
+
+  /**
+   * Method returns the file exporter that was started by this factory.
+   *
+   * @return {@link JsonLinesFileExporter} Started file exporter. The method returns null if the export is disabled or
+   * was already stopped.
+   */
+  public synchronized JsonLinesFileExporter getFileExporter( ) {
+    return fileExporter;
+  }
+}
@@ -0,0 +1,714 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring.prometheus;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Class renders all meters of a meter registry using the Prometheus text exposition format (version 0.0.4).
+ *
+ * As scrapes happen frequently and registries may contain tens of thousands of series, rendering is incremental. Metric
+ * names and labels of every meter are rendered only once and then cached. The order of the series is only
+ * recalculated if meters were added or removed. Output is collected in a reused buffer that is written to the target
+ * in chunks so that the complete output never has to be kept in memory.
+ *
+ * A metric family can only have one type. If meters of different types are mapped to the same family name then only
+ * the series of the first type are rendered and all others are skipped. Skipped meters are traced once.
+ *
+ * Instances of this class are thread safe. Concurrent scrapes are serialized.
+ *
+ * @author JEAF Development Team
+ */
+public final class PrometheusTextFormat {
+  /**
+   * Content type of the Prometheus text exposition format.
+   */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  /**
+   * Size of the buffer after which it will be written to the target.
+   */
+  private static final int FLUSH_THRESHOLD = 8192;
+
+  /**
+   * Values with a lower absolute value are rendered as long if they do not have a fraction.
+   */
+  private static final double MAX_INTEGRAL_VALUE = 1.0E15;
+
+  /**
+   * Comparator defines the order of series. All series of a metric family have to be rendered as one group. Series
+   * whose meters are of different kind but have the same family name are separated by their kind.
+   */
+  private static final Comparator<Series> SERIES_ORDER = Comparator.comparing(( Series pSeries ) -> pSeries.family)
+      .thenComparing(pSeries -> pSeries.kind).thenComparing(pSeries -> pSeries.labels);
+
+  /**
+   * Meter registry whose meters are rendered.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Prefix for all metric names. The prefix is already sanitized and may be empty.
+   */
+  private final String prefix;
+
+  /**
+   * Cache with the rendered names and labels of all meters.
+   */
+  private final Map<Meter.Id, Series> seriesCache = new ConcurrentHashMap<>();
+
+  /**
+   * All series in the order in which they are rendered.
+   */
+  private final List<Series> sortedSeries = new ArrayList<>();
+
+  /**
+   * Buffer that is used to render the output.
+   */
+  private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+
+  /**
+   * Character array that is used to pass the content of the buffer to the writer.
+   */
+  private char[] chars = new char[FLUSH_THRESHOLD * 2];
+
+  /**
+   * Initialize object.
+   *
+   * @param pMeterRegistry Meter registry whose meters should be rendered. The parameter must not be null.
+   * @param pPrefix Prefix that is added to all metric names. The parameter may be null.
+   */
+  public PrometheusTextFormat( MeterRegistry pMeterRegistry, String pPrefix ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pMeterRegistry, "pMeterRegistry");
+
+    meterRegistry = pMeterRegistry;
+    if (pPrefix != null && pPrefix.trim().isEmpty() == false) {
+      prefix = sanitizeName(pPrefix.trim()) + '_';
+    }
+    else {
+      prefix = "";
+    }
+  }
+
+  /**
+   * Method writes all meters of the registry to the passed writer. The writer will be flushed but not closed.
+   *
+   * @param pWriter Writer to which the meters should be written. The parameter must not be null.
+   * @throws IOException if an I/O error occurs when writing to the writer.
+   */
+  public synchronized void write( Writer pWriter ) throws IOException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pWriter, "pWriter");
+
+    try {
+      this.updateSeries();
+      int lSize = sortedSeries.size();
+      int lGroupStart = 0;
+      String lPreviousFamily = null;
+      while (lGroupStart < lSize) {
+        // Resolve all series of the same metric family and kind.
+        Series lFirst = sortedSeries.get(lGroupStart);
+        int lGroupEnd = lGroupStart + 1;
+        while (lGroupEnd < lSize && lFirst.isSameGroup(sortedSeries.get(lGroupEnd)) == true) {
+          lGroupEnd++;
+        }
+
+        // Series of another kind than the first one of a family are skipped.
+        if (lFirst.family.equals(lPreviousFamily) == false) {
+          this.writeFamily(pWriter, lGroupStart, lGroupEnd);
+        }
+        else {
+          // Nothing to do.
+        }
+        lPreviousFamily = lFirst.family;
+        lGroupStart = lGroupEnd;
+      }
+      this.flush(pWriter, 0);
+      pWriter.flush();
+    }
+    finally {
+      buffer.setLength(0);
+    }
+  }
+
+  /**
+   * Method updates the cached series. The order of the series is only calculated again if meters were added or
+   * removed.
+   */
+  private void updateSeries( ) {
+    List<Meter> lMeters = meterRegistry.getMeters();
+    int lExposedMeters = 0;
+    boolean lChanged = false;
+    for (Meter lNext : lMeters) {
+      if (isHistogramGauge(lNext) == false) {
+        lExposedMeters++;
+        Series lSeries = seriesCache.get(lNext.getId());
+        if (lSeries == null || lSeries.meter != lNext) {
+          seriesCache.put(lNext.getId(), this.createSeries(lNext));
+          lChanged = true;
+        }
+      }
+    }
+    if (lChanged == true || lExposedMeters != sortedSeries.size()) {
+      // Remove cached series of meters that do not exist any longer.
+      if (seriesCache.size() > lExposedMeters) {
+        seriesCache.clear();
+        for (Meter lNext : lMeters) {
+          if (isHistogramGauge(lNext) == false) {
+            seriesCache.put(lNext.getId(), this.createSeries(lNext));
+          }
+        }
+      }
+      sortedSeries.clear();
+      sortedSeries.addAll(seriesCache.values());
+      sortedSeries.sort(SERIES_ORDER);
+      this.traceConflicts();
+    }
+  }
+
+  /**
+   * Method traces all meters that are skipped as their metric family is already used by meters of another kind. Every
+   * meter is only traced once.
+   */
+  private void traceConflicts( ) {
+    Series lFamilyStart = null;
+    for (Series lNext : sortedSeries) {
+      if (lFamilyStart == null || lFamilyStart.family.equals(lNext.family) == false) {
+        lFamilyStart = lNext;
+      }
+      else if (lFamilyStart.kind != lNext.kind && lNext.conflictTraced == false) {
+        lNext.conflictTraced = true;
+        XFun.getTrace().warn("Meter " + lNext.meter.getId() + " is not exposed as metric family " + lNext.family
+            + " is already used by meters of type " + lFamilyStart.kind + ".");
+      }
+      else {
+        // Nothing to do.
+      }
+    }
+  }
+
+  /**
+   * Method checks if the passed meter is one of the gauges that are registered by Micrometer for every percentile or
+   * histogram bucket of a timer or distribution summary. These values are already part of the snapshot of the timer or
+   * distribution summary itself.
+   *
+   * @param pMeter Meter that should be checked. The parameter must not be null.
+   * @return boolean Method returns true if the meter is a percentile or histogram gauge and false otherwise.
+   */
+  static boolean isHistogramGauge( Meter pMeter ) {
+    boolean lHistogramGauge;
+    if (pMeter instanceof Gauge) {
+      Meter.Id lId = pMeter.getId();
+      String lName = lId.getName();
+      lHistogramGauge = (lName.endsWith(".percentile") == true && lId.getTag("phi") != null)
+          || (lName.endsWith(".histogram") == true && lId.getTag("le") != null);
+    }
+    else {
+      lHistogramGauge = false;
+    }
+    return lHistogramGauge;
+  }
+
+  /**
+   * Method creates the series for the passed meter.
+   *
+   * @param pMeter Meter for which a series should be created. The parameter must not be null.
+   * @return {@link Series} Created series. The method never returns null.
+   */
+  private Series createSeries( Meter pMeter ) {
+    // Resolve name of metric family according to Prometheus naming conventions.
+    StringBuilder lFamily = new StringBuilder(prefix).append(sanitizeName(pMeter.getId().getName()));
+    if (pMeter instanceof Timer || pMeter instanceof FunctionTimer || pMeter instanceof TimeGauge) {
+      lFamily.append("_seconds");
+    }
+
+    // Render labels.
+    StringBuilder lLabels = new StringBuilder();
+    for (Tag lNext : pMeter.getId().getTagsAsIterable()) {
+      if (lLabels.length() > 0) {
+        lLabels.append(',');
+      }
+      lLabels.append(sanitizeLabelName(lNext.getKey())).append("=\"");
+      appendEscaped(lLabels, lNext.getValue());
+      lLabels.append('"');
+    }
+    return new Series(pMeter, MeterKind.of(pMeter), lFamily.toString(), lLabels.toString());
+  }
+
+  /**
+   * Method writes all series of one metric family.
+   *
+   * @param pWriter Writer to which the output is written. The parameter must not be null.
+   * @param pStart Index of the first series of the family.
+   * @param pEnd Index after the last series of the family.
+   * @throws IOException if an I/O error occurs when writing to the writer.
+   */
+  private void writeFamily( Writer pWriter, int pStart, int pEnd ) throws IOException {
+    Series lFirst = sortedSeries.get(pStart);
+    MeterKind lKind = lFirst.kind;
+    if (lKind == MeterKind.COUNTER) {
+      this.appendType(lFirst.family, "_total", "counter");
+      for (int i = pStart; i < pEnd; i++) {
+        Series lSeries = sortedSeries.get(i);
+        double lValue;
+        if (lSeries.meter instanceof Counter) {
+          lValue = ((Counter) lSeries.meter).count();
+        }
+        else {
+          lValue = ((FunctionCounter) lSeries.meter).count();
+        }
+        this.appendSample(lSeries, "_total", lValue);
+        this.flush(pWriter, FLUSH_THRESHOLD);
+      }
+    }
+    else if (lKind == MeterKind.GAUGE) {
+      this.appendType(lFirst.family, "", "gauge");
+      for (int i = pStart; i < pEnd; i++) {
+        Series lSeries = sortedSeries.get(i);
+        double lValue;
+        if (lSeries.meter instanceof TimeGauge) {
+          lValue = ((TimeGauge) lSeries.meter).value(TimeUnit.SECONDS);
+        }
+        else {
+          lValue = ((Gauge) lSeries.meter).value();
+        }
+        this.appendSample(lSeries, "", lValue);
+        this.flush(pWriter, FLUSH_THRESHOLD);
+      }
+    }
+    else if (lKind == MeterKind.TIMER || lKind == MeterKind.DISTRIBUTION_SUMMARY) {
+      this.writeDistributionFamily(pWriter, pStart, pEnd);
+    }
+    else if (lKind == MeterKind.FUNCTION_TIMER) {
+      this.appendType(lFirst.family, "", "summary");
+      for (int i = pStart; i < pEnd; i++) {
+        Series lSeries = sortedSeries.get(i);
+        FunctionTimer lTimer = (FunctionTimer) lSeries.meter;
+        this.appendSample(lSeries, "_count", lTimer.count());
+        this.appendSample(lSeries, "_sum", lTimer.totalTime(TimeUnit.SECONDS));
+        this.flush(pWriter, FLUSH_THRESHOLD);
+      }
+    }
+    else {
+      // All other meters are rendered based on their measurements.
+      this.appendType(lFirst.family, "", "untyped");
+      for (int i = pStart; i < pEnd; i++) {
+        Series lSeries = sortedSeries.get(i);
+        for (Measurement lNext : lSeries.meter.measure()) {
+          this.appendSample(lSeries, "", "statistic", lNext.getStatistic().name().toLowerCase(), lNext.getValue());
+        }
+        this.flush(pWriter, FLUSH_THRESHOLD);
+      }
+    }
+  }
+
+  /**
+   * Method writes all series of a family of timers or distribution summaries. If histogram buckets are available the
+   * family is rendered as histogram, otherwise as summary. Max. values are rendered as separate gauge family.
+   *
+   * @param pWriter Writer to which the output is written. The parameter must not be null.
+   * @param pStart Index of the first series of the family.
+   * @param pEnd Index after the last series of the family.
+   * @throws IOException if an I/O error occurs when writing to the writer.
+   */
+  private void writeDistributionFamily( Writer pWriter, int pStart, int pEnd ) throws IOException {
+    // Take snapshots once as they are also needed for max values.
+    HistogramSnapshot[] lSnapshots = new HistogramSnapshot[pEnd - pStart];
+    boolean lHistogram = false;
+    for (int i = pStart; i < pEnd; i++) {
+      HistogramSnapshot lSnapshot = this.takeSnapshot(sortedSeries.get(i).meter);
+      lSnapshots[i - pStart] = lSnapshot;
+      lHistogram = lHistogram || lSnapshot.histogramCounts().length > 0;
+    }
+    Series lFirst = sortedSeries.get(pStart);
+    boolean lTimer = lFirst.kind == MeterKind.TIMER;
+    if (lHistogram == true) {
+      this.appendType(lFirst.family, "", "histogram");
+    }
+    else {
+      this.appendType(lFirst.family, "", "summary");
+    }
+    for (int i = pStart; i < pEnd; i++) {
+      Series lSeries = sortedSeries.get(i);
+      HistogramSnapshot lSnapshot = lSnapshots[i - pStart];
+      if (lHistogram == true) {
+        for (CountAtBucket lNext : lSnapshot.histogramCounts()) {
+          double lBucket;
+          if (lTimer == true) {
+            lBucket = lNext.bucket(TimeUnit.SECONDS);
+          }
+          else {
+            lBucket = lNext.bucket();
+          }
+          this.appendSample(lSeries, "_bucket", "le", lBucket, lNext.count());
+        }
+        this.appendSample(lSeries, "_bucket", "le", Double.POSITIVE_INFINITY, lSnapshot.count());
+      }
+      else {
+        for (ValueAtPercentile lNext : lSnapshot.percentileValues()) {
+          double lValue;
+          if (lTimer == true) {
+            lValue = lNext.value(TimeUnit.SECONDS);
+          }
+          else {
+            lValue = lNext.value();
+          }
+          this.appendSample(lSeries, "", "quantile", lNext.percentile(), lValue);
+        }
+      }
+      this.appendSample(lSeries, "_count", lSnapshot.count());
+      if (lTimer == true) {
+        this.appendSample(lSeries, "_sum", lSnapshot.total(TimeUnit.SECONDS));
+      }
+      else {
+        this.appendSample(lSeries, "_sum", lSnapshot.total());
+      }
+      this.flush(pWriter, FLUSH_THRESHOLD);
+    }
+
+    // Max values are a separate family.
+    this.appendType(lFirst.family, "_max", "gauge");
+    for (int i = pStart; i < pEnd; i++) {
+      HistogramSnapshot lSnapshot = lSnapshots[i - pStart];
+      double lMax;
+      if (lTimer == true) {
+        lMax = lSnapshot.max(TimeUnit.SECONDS);
+      }
+      else {
+        lMax = lSnapshot.max();
+      }
+      this.appendSample(sortedSeries.get(i), "_max", lMax);
+      this.flush(pWriter, FLUSH_THRESHOLD);
+    }
+  }
+
+  /**
+   * Method takes a snapshot of the passed timer or distribution summary.
+   *
+   * @param pMeter Timer or distribution summary. The parameter must not be null.
+   * @return {@link HistogramSnapshot} Snapshot of the meter. The method never returns null.
+   */
+  private HistogramSnapshot takeSnapshot( Meter pMeter ) {
+    HistogramSnapshot lSnapshot;
+    if (pMeter instanceof Timer) {
+      lSnapshot = ((Timer) pMeter).takeSnapshot();
+    }
+    else {
+      lSnapshot = ((DistributionSummary) pMeter).takeSnapshot();
+    }
+    return lSnapshot;
+  }
+
+  /**
+   * Method appends the TYPE line of a metric family.
+   *
+   * @param pFamily Name of the metric family. The parameter must not be null.
+   * @param pSuffix Suffix of the name. The parameter must not be null.
+   * @param pType Prometheus type of the family. The parameter must not be null.
+   */
+  private void appendType( String pFamily, String pSuffix, String pType ) {
+    buffer.append("# TYPE ").append(pFamily).append(pSuffix).append(' ').append(pType).append('\n');
+  }
+
+  /**
+   * Method appends one sample without additional labels.
+   *
+   * @param pSeries Series to which the sample belongs. The parameter must not be null.
+   * @param pSuffix Suffix of the metric name. The parameter must not be null.
+   * @param pValue Value of the sample.
+   */
+  private void appendSample( Series pSeries, String pSuffix, double pValue ) {
+    buffer.append(pSeries.family).append(pSuffix);
+    if (pSeries.labels.isEmpty() == false) {
+      buffer.append('{').append(pSeries.labels).append('}');
+    }
+    buffer.append(' ');
+    appendValue(buffer, pValue);
+    buffer.append('\n');
+  }
+
+  /**
+   * Method appends one sample with an additional numeric label like "le" or "quantile".
+   *
+   * @param pSeries Series to which the sample belongs. The parameter must not be null.
+   * @param pSuffix Suffix of the metric name. The parameter must not be null.
+   * @param pLabelName Name of the additional label. The parameter must not be null.
+   * @param pLabelValue Value of the additional label.
+   * @param pValue Value of the sample.
+   */
+  private void appendSample( Series pSeries, String pSuffix, String pLabelName, double pLabelValue, double pValue ) {
+    this.startLabel(pSeries, pSuffix, pLabelName);
+    appendValue(buffer, pLabelValue);
+    this.endLabel(pValue);
+  }
+
+  /**
+   * Method appends one sample with an additional label.
+   *
+   * @param pSeries Series to which the sample belongs. The parameter must not be null.
+   * @param pSuffix Suffix of the metric name. The parameter must not be null.
+   * @param pLabelName Name of the additional label. The parameter must not be null.
+   * @param pLabelValue Value of the additional label. The value must not require escaping. The parameter must not be
+   * null.
+   * @param pValue Value of the sample.
+   */
+  private void appendSample( Series pSeries, String pSuffix, String pLabelName, String pLabelValue, double pValue ) {
+    this.startLabel(pSeries, pSuffix, pLabelName);
+    buffer.append(pLabelValue);
+    this.endLabel(pValue);
+  }
+
+  /**
+   * Method appends the metric name and all labels of a sample up to the value of the additional label.
+   *
+   * @param pSeries Series to which the sample belongs. The parameter must not be null.
+   * @param pSuffix Suffix of the metric name. The parameter must not be null.
+   * @param pLabelName Name of the additional label. The parameter must not be null.
+   */
+  private void startLabel( Series pSeries, String pSuffix, String pLabelName ) {
+    buffer.append(pSeries.family).append(pSuffix).append('{').append(pSeries.labels);
+    if (pSeries.labels.isEmpty() == false) {
+      buffer.append(',');
+    }
+    buffer.append(pLabelName).append("=\"");
+  }
+
+  /**
+   * Method appends the end of a sample after the value of the additional label.
+   *
+   * @param pValue Value of the sample.
+   */
+  private void endLabel( double pValue ) {
+    buffer.append("\"} ");
+    appendValue(buffer, pValue);
+    buffer.append('\n');
+  }
+
+  /**
+   * Method writes the content of the buffer to the passed writer if it exceeds the passed threshold.
+   *
+   * @param pWriter Writer to which the buffer should be written. The parameter must not be null.
+   * @param pThreshold Threshold in characters.
+   * @throws IOException if an I/O error occurs when writing to the writer.
+   */
+  private void flush( Writer pWriter, int pThreshold ) throws IOException {
+    int lLength = buffer.length();
+    if (lLength > pThreshold) {
+      if (chars.length < lLength) {
+        chars = new char[lLength];
+      }
+      buffer.getChars(0, lLength, chars, 0);
+      pWriter.write(chars, 0, lLength);
+      buffer.setLength(0);
+    }
+  }
+
+  /**
+   * Method appends the passed value as it is defined by the Prometheus text format.
+   *
+   * @param pBuilder Builder to which the value should be appended. The parameter must not be null.
+   * @param pValue Value that should be appended.
+   */
+  static void appendValue( StringBuilder pBuilder, double pValue ) {
+    if (Double.isNaN(pValue) == true) {
+      pBuilder.append("NaN");
+    }
+    else if (pValue == Double.POSITIVE_INFINITY) {
+      pBuilder.append("+Inf");
+    }
+    else if (pValue == Double.NEGATIVE_INFINITY) {
+      pBuilder.append("-Inf");
+    }
+    else if (pValue == Math.rint(pValue) && Math.abs(pValue) < MAX_INTEGRAL_VALUE) {
+      pBuilder.append((long) pValue);
+    }
+    else {
+      pBuilder.append(pValue);
+    }
+  }
+
+  /**
+   * Method appends the passed label value and escapes backslashes, double quotes and line feeds.
+   *
+   * @param pBuilder Builder to which the value should be appended. The parameter must not be null.
+   * @param pValue Label value that should be appended. The parameter must not be null.
+   */
+  private static void appendEscaped( StringBuilder pBuilder, String pValue ) {
+    for (int i = 0; i < pValue.length(); i++) {
+      char lChar = pValue.charAt(i);
+      switch (lChar) {
+        case '\\':
+          pBuilder.append("\\\\");
+          break;
+
+        case '"':
+          pBuilder.append("\\\"");
+          break;
+
+        case '\n':
+          pBuilder.append("\\n");
+          break;
+
+        default:
+          pBuilder.append(lChar);
+      }
+    }
+  }
+
+  /**
+   * Method converts the passed meter name into a valid Prometheus metric name. All invalid characters are replaced with
+   * '_'.
+   *
+   * @param pName Name that should be converted. The parameter must not be null.
+   * @return {@link String} Valid metric name. The method never returns null.
+   */
+  static String sanitizeName( String pName ) {
+    StringBuilder lBuilder = new StringBuilder(pName.length() + 1);
+    for (int i = 0; i < pName.length(); i++) {
+      char lChar = pName.charAt(i);
+      boolean lValid = (lChar >= 'a' && lChar <= 'z') || (lChar >= 'A' && lChar <= 'Z') || lChar == '_' || lChar == ':'
+          || (lChar >= '0' && lChar <= '9' && i > 0);
+      if (lValid == true) {
+        lBuilder.append(lChar);
+      }
+      else if (lChar >= '0' && lChar <= '9') {
+        lBuilder.append('_').append(lChar);
+      }
+      else {
+        lBuilder.append('_');
+      }
+    }
+    return lBuilder.toString();
+  }
+
+  /**
+   * Method converts the passed tag key into a valid Prometheus label name.
+   *
+   * @param pName Name that should be converted. The parameter must not be null.
+   * @return {@link String} Valid label name. The method never returns null.
+   */
+  private static String sanitizeLabelName( String pName ) {
+    return sanitizeName(pName).replace(':', '_');
+  }
+
+  /**
+   * Enumeration defines the kinds of meters that are rendered differently. Meters of different kind can not be part of
+   * the same metric family.
+   */
+  private enum MeterKind {
+    COUNTER, GAUGE, TIMER, DISTRIBUTION_SUMMARY, FUNCTION_TIMER, OTHER;
+
+    /**
+     * Method returns the kind of the passed meter.
+     *
+     * @param pMeter Meter whose kind should be returned. The parameter must not be null.
+     * @return {@link MeterKind} Kind of the meter. The method never returns null.
+     */
+    static MeterKind of( Meter pMeter ) {
+      MeterKind lKind;
+      if (pMeter instanceof Counter || pMeter instanceof FunctionCounter) {
+        lKind = COUNTER;
+      }
+      else if (pMeter instanceof Gauge) {
+        lKind = GAUGE;
+      }
+      else if (pMeter instanceof Timer) {
+        lKind = TIMER;
+      }
+      else if (pMeter instanceof DistributionSummary) {
+        lKind = DISTRIBUTION_SUMMARY;
+      }
+      else if (pMeter instanceof FunctionTimer) {
+        lKind = FUNCTION_TIMER;
+      }
+      else {
+        lKind = OTHER;
+      }
+      return lKind;
+    }
+  }
+
+  /**
+   * Class contains the cached information about the series of one meter.
+   */
+  private static final class Series {
+    /**
+     * Meter that is rendered.
+     */
+    private final Meter meter;
+
+    /**
+     * Kind of the meter.
+     */
+    private final MeterKind kind;
+
+    /**
+     * Name of the metric family to which the meter belongs.
+     */
+    private final String family;
+
+    /**
+     * Rendered labels of the meter without surrounding braces.
+     */
+    private final String labels;
+
+    /**
+     * Flag indicates whether it was already traced that the series is skipped due to a conflicting metric family.
+     */
+    private boolean conflictTraced;
+
+    /**
+     * Initialize object.
+     *
+     * @param pMeter Meter that is rendered. The parameter must not be null.
+     * @param pKind Kind of the meter. The parameter must not be null.
+     * @param pFamily Name of the metric family. The parameter must not be null.
+     * @param pLabels Rendered labels. The parameter must not be null.
+     */
+    Series( Meter pMeter, MeterKind pKind, String pFamily, String pLabels ) {
+      meter = pMeter;
+      kind = pKind;
+      family = pFamily;
+      labels = pLabels;
+    }
+
+    /**
+     * Method checks if the passed series is rendered in the same group as this series.
+     *
+     * @param pOther Series that should be checked. The parameter must not be null.
+     * @return boolean Method returns true if both series have the same metric family and kind and false otherwise.
+     */
+    boolean isSameGroup( Series pOther ) {
+      return kind == pOther.kind && family.equals(pOther.family);
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.test.impl.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import com.anaptecs.jeaf.tools.annotations.MonitoringToolsConfig;
+import com.anaptecs.jeaf.tools.api.monitoring.Tag;
+import com.anaptecs.jeaf.tools.impl.monitoring.MonitoringToolsConfiguration;
+import com.anaptecs.jeaf.tools.impl.monitoring.MonitoringToolsImpl;
+import com.anaptecs.jeaf.tools.impl.monitoring.prometheus.JsonLinesFileExporter;
+import com.anaptecs.jeaf.tools.impl.monitoring.prometheus.PrometheusHttpServer;
+import com.anaptecs.jeaf.tools.impl.monitoring.prometheus.PrometheusMeterRegistryFactory;
+import com.anaptecs.jeaf.tools.impl.monitoring.prometheus.PrometheusTextFormat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+@MonitoringToolsConfig(meterRegistryFactory = PrometheusMeterRegistryFactory.class)
+public class PrometheusMonitoringToolsTest {
+
+  @Test
+  public void testPrometheusTextFormat( ) throws IOException {
+    MeterRegistry lRegistry = new SimpleMeterRegistry();
+    Counter.builder("http.requests").tag("method", "GET").tag("path", "/a\"b").register(lRegistry).increment(3);
+    Counter.builder("http.requests").tag("method", "POST").tag("path", "/").register(lRegistry).increment();
+    lRegistry.gauge("queue.size", 42);
+    Timer lTimer = Timer.builder("db.query").publishPercentiles(0.5).register(lRegistry);
+    lTimer.record(250, TimeUnit.MILLISECONDS);
+    Timer lHistogram = Timer.builder("db.update").serviceLevelObjectives(Duration.ofMillis(100)).register(lRegistry);
+    lHistogram.record(50, TimeUnit.MILLISECONDS);
+    lHistogram.record(500, TimeUnit.MILLISECONDS);
+
+    PrometheusTextFormat lFormat = new PrometheusTextFormat(lRegistry, "my-app");
+    StringWriter lWriter = new StringWriter();
+    lFormat.write(lWriter);
+    String lOutput = lWriter.toString();
+
+    // TYPE line must only be written once per family.
+    assertEquals(lOutput.indexOf("# TYPE my_app_http_requests_total counter\n"),
+        lOutput.lastIndexOf("# TYPE my_app_http_requests_total"));
+    assertTrue(lOutput.contains("my_app_http_requests_total{method=\"GET\",path=\"/a\\\"b\"} 3\n"), lOutput);
+    assertTrue(lOutput.contains("my_app_http_requests_total{method=\"POST\",path=\"/\"} 1\n"), lOutput);
+    assertTrue(lOutput.contains("# TYPE my_app_queue_size gauge\nmy_app_queue_size 42\n"), lOutput);
+    assertTrue(lOutput.contains("# TYPE my_app_db_query_seconds summary\n"), lOutput);
+    assertTrue(lOutput.contains("my_app_db_query_seconds{quantile=\"0.5\"} "), lOutput);
+    assertTrue(lOutput.contains("my_app_db_query_seconds_count 1\n"), lOutput);
+    assertTrue(lOutput.contains("my_app_db_query_seconds_sum 0.25\n"), lOutput);
+    assertTrue(lOutput.contains("# TYPE my_app_db_query_seconds_max gauge\nmy_app_db_query_seconds_max 0.25\n"));
+    assertTrue(lOutput.contains("# TYPE my_app_db_update_seconds histogram\n"), lOutput);
+    assertTrue(lOutput.contains("my_app_db_update_seconds_bucket{le=\"0.1\"} 1\n"), lOutput);
+    assertTrue(lOutput.contains("my_app_db_update_seconds_bucket{le=\"+Inf\"} 2\n"), lOutput);
+
+    // Repeated rendering must return the current values.
+    lTimer.record(250, TimeUnit.MILLISECONDS);
+    lRegistry.counter("new.counter").increment();
+    lWriter = new StringWriter();
+    lFormat.write(lWriter);
+    lOutput = lWriter.toString();
+    assertTrue(lOutput.contains("my_app_db_query_seconds_count 2\n"), lOutput);
+    assertTrue(lOutput.contains("my_app_new_counter_total 1\n"), lOutput);
+
+    // Meters of different types with the same name must not break rendering. Conflicting series are skipped.
+    lRegistry.counter("conflict", "source", "counter").increment();
+    lRegistry.gauge("conflict", Tags.of("source", "gauge"), 7);
+    Timer.builder("conflict").tag("source", "timer").register(lRegistry).record(1, TimeUnit.SECONDS);
+    lWriter = new StringWriter();
+    lFormat.write(lWriter);
+    lOutput = lWriter.toString();
+    assertTrue(lOutput.contains("# TYPE my_app_conflict_total counter\n"), lOutput);
+    assertTrue(lOutput.contains("my_app_conflict_total{source=\"counter\"} 1\n"), lOutput);
+    assertFalse(lOutput.contains("source=\"gauge\""), lOutput);
+    assertTrue(lOutput.contains("my_app_conflict_seconds_count{source=\"timer\"} 1\n"), lOutput);
+    assertTrue(lOutput.contains("my_app_db_query_seconds_count 2\n"), lOutput);
+  }
+
+  @Test
+  public void testPrometheusEndpoint( ) throws IOException {
+    Path lExportFile = Files.createTempDirectory("jeaf-metrics").resolve("metrics.jsonl");
+    System.setProperty(PrometheusMeterRegistryFactory.PORT_PROPERTY, "0");
+    System.setProperty(PrometheusMeterRegistryFactory.EXPORT_FILE_PROPERTY, lExportFile.toString());
+    PrometheusMeterRegistryFactory lFactory = new PrometheusMeterRegistryFactory();
+    MeterRegistry lRegistry;
+    MonitoringToolsImpl lMonitoringTools;
+    try {
+      lRegistry = lFactory.createMeterRegistry("test");
+
+      // Monitoring tools must not start a second endpoint or export.
+      System.setProperty(PrometheusMeterRegistryFactory.PORT_PROPERTY, "-1");
+      System.clearProperty(PrometheusMeterRegistryFactory.EXPORT_FILE_PROPERTY);
+      MonitoringToolsConfiguration lConfiguration =
+          new MonitoringToolsConfiguration("PrometheusMonitoring", "META-INF", true);
+      lMonitoringTools = new MonitoringToolsImpl(lConfiguration);
+    }
+    finally {
+      System.clearProperty(PrometheusMeterRegistryFactory.PORT_PROPERTY);
+      System.clearProperty(PrometheusMeterRegistryFactory.EXPORT_FILE_PROPERTY);
+    }
+    lRegistry.counter("my.counter", "env", "prod").increment();
+
+    PrometheusHttpServer lServer = lFactory.getHttpServer();
+    assertNotNull(lServer);
+    assertNotNull(lFactory.getFileExporter());
+    URL lURL = new URL("http://localhost:" + lServer.getPort() + PrometheusHttpServer.METRICS_PATH);
+    try {
+      HttpURLConnection lConnection = (HttpURLConnection) lURL.openConnection();
+      assertEquals(200, lConnection.getResponseCode());
+      assertEquals(PrometheusTextFormat.CONTENT_TYPE, lConnection.getContentType());
+      try (InputStream lStream = lConnection.getInputStream()) {
+        String lOutput = new String(lStream.readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(lOutput.contains("test_my_counter_total{env=\"prod\"} 1\n"), lOutput);
+      }
+
+      // Compressed response
+      lConnection = (HttpURLConnection) lURL.openConnection();
+      lConnection.setRequestProperty("Accept-Encoding", "gzip");
+      assertEquals("gzip", lConnection.getContentEncoding());
+      try (InputStream lStream = new GZIPInputStream(lConnection.getInputStream())) {
+        String lOutput = new String(lStream.readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(lOutput.contains("test_my_counter_total{env=\"prod\"} 1\n"), lOutput);
+      }
+
+      // Other methods are not supported.
+      lConnection = (HttpURLConnection) lURL.openConnection();
+      lConnection.setRequestMethod("DELETE");
+      assertEquals(405, lConnection.getResponseCode());
+    }
+    finally {
+      lRegistry.close();
+    }
+
+    // Closing the registry stops the endpoint and writes a last snapshot.
+    assertNull(lFactory.getHttpServer());
+    assertNull(lFactory.getFileExporter());
+    try {
+      ((HttpURLConnection) lURL.openConnection()).getResponseCode();
+      fail("Exception expected.");
+    }
+    catch (IOException e) {
+      // Expected
+    }
+    assertTrue(Files.readAllLines(lExportFile).get(0).contains("\"name\":\"my.counter\""));
+
+    // Monitoring tools can use the factory.
+    lMonitoringTools.incrementCounter("my.counter", Tag.of("env", "prod"));
+    assertEquals(1, lMonitoringTools.getCounterInfo("my.counter", Tag.of("env", "prod")).getCount());
+  }
+
+  @Test
+  public void testRollingFileExport( ) throws IOException {
+    MeterRegistry lRegistry = new SimpleMeterRegistry();
+    lRegistry.counter("file.counter", "env", "prod").increment(2);
+    Timer.builder("file.timer").publishPercentiles(0.99).register(lRegistry).record(2, TimeUnit.SECONDS);
+
+    Path lDirectory = Files.createTempDirectory("jeaf-metrics");
+    Path lFile = lDirectory.resolve("metrics.jsonl");
+    JsonLinesFileExporter lExporter = new JsonLinesFileExporter(lRegistry, lFile, 3600000, 1024, 2);
+    try {
+      lExporter.export();
+      List<String> lLines = Files.readAllLines(lFile);
+      assertEquals(2, lLines.size());
+      String lCounterLine = lLines.stream().filter(pLine -> pLine.contains("file.counter")).findFirst().get();
+      assertTrue(lCounterLine.startsWith("{\"timestamp\":"), lCounterLine);
+      assertTrue(lCounterLine.endsWith(
+          ",\"name\":\"file.counter\",\"type\":\"counter\",\"tags\":{\"env\":\"prod\"},\"count\":2}"), lCounterLine);
+      String lTimerLine = lLines.stream().filter(pLine -> pLine.contains("file.timer")).findFirst().get();
+      assertTrue(lTimerLine.contains("\"total_time\":2,"), lTimerLine);
+      assertTrue(lTimerLine.contains("\"percentiles\":{\"0.99\":"), lTimerLine);
+
+      // Files are rolled over once they exceed their max. size.
+      for (int i = 0; i < 20; i++) {
+        lExporter.export();
+      }
+      assertTrue(Files.exists(lExporter.getRolledFile(1)));
+      assertTrue(Files.exists(lExporter.getRolledFile(2)));
+      assertFalse(Files.exists(lExporter.getRolledFile(3)));
+      assertTrue(Files.size(lExporter.getRolledFile(1)) >= 1024);
+    }
+    finally {
+      lExporter.close();
+    }
+  }
+}
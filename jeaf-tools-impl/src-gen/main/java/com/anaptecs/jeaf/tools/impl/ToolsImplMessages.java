@@ -0,0 +1,50 @@
+package com.anaptecs.jeaf.tools.impl;
+
+import com.anaptecs.jeaf.xfun.annotations.MessageResource;
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.errorhandling.ErrorCode;
+import com.anaptecs.jeaf.xfun.api.messages.MessageRepository;
+
+/**
+ * Class contains all generated constants for messages that are only used by the implementation of JEAF Tools.
+ *
+ * @author JEAF Development Team
+ * @version JEAF Release 1.8
+ */
+@MessageResource(path = "ToolsImplMessages.xml")
+public final class ToolsImplMessages {
+  /**
+   * Constant for XML file that contains all messages that are defined within this class.
+   */
+  private static final String MESSAGE_RESOURCE = "ToolsImplMessages.xml";
+
+  /**
+   * Exceptions with this error code are thrown if an XPath expression can not be compiled.
+   */
+  public static final ErrorCode INVALID_XPATH_EXPRESSION;
+
+  /**
+   * Exceptions with this error code are thrown if a valid XPath expression can not be evaluated, e.g. as its result
+   * does not have the expected type.
+   */
+  public static final ErrorCode UNABLE_TO_EVALUATE_XPATH_EXPRESSION;
+  /**
+   * Static initializer contains initialization for all generated constants.
+   */
+  static {
+    MessageRepository lRepository = XFun.getMessageRepository();
+    lRepository.loadResource(MESSAGE_RESOURCE);
+    // Handle all info messages.
+    // Handle all messages for errors.
+    INVALID_XPATH_EXPRESSION = lRepository.getErrorCode(199930);
+    UNABLE_TO_EVALUATE_XPATH_EXPRESSION = lRepository.getErrorCode(199931);
+    // Handle all localized strings.
+  }
+
+  /**
+   * Constructor is private to ensure that no instances of this class will be created.
+   */
+  private ToolsImplMessages( ) {
+    // Nothing to do.
+  }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+
+import com.anaptecs.jeaf.tools.api.Tools;
+import com.anaptecs.jeaf.tools.api.ToolsMessages;
+import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
+
+/**
+ * Class implements the asynchronous copy of a file. Reads from the source file and writes to the destination file
+ * alternate using one and the same direct byte buffer. As for the synchronous copy the destination file must not
+ * exist.
+ *
+ * @author JEAF Development Team
+ */
+class AsyncFileCopyOperation extends AsyncFileOperation<Long> {
+  /**
+   * File that should be copied.
+   */
+  private final File source;
+
+  /**
+   * Destination of the copy.
+   */
+  private final File destination;
+
+  /**
+   * Executor that is used by the channels. May be null.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Channel to read the source file.
+   */
+  private AsynchronousFileChannel sourceChannel;
+
+  /**
+   * Channel to write the destination file.
+   */
+  private AsynchronousFileChannel destinationChannel;
+
+  /**
+   * Flag indicates whether the currently running transfer is a read or write.
+   */
+  private boolean reading;
+
+  /**
+   * Position within the source file.
+   */
+  private long readPosition;
+
+  /**
+   * Position within the destination file.
+   */
+  private long writePosition;
+
+  /**
+   * Start of the copy operation. Only required for tracing.
+   */
+  private long start;
+
+  /**
+   * Initialize object.
+   *
+   * @param pSource File that should be copied. The parameter must not be null.
+   * @param pDestination Destination of the copy. The parameter must not be null.
+   * @param pExecutor Executor that should be used. The parameter may be null.
+   * @param pBuffer Buffer that should be used. The parameter must not be null.
+   */
+  AsyncFileCopyOperation( File pSource, File pDestination, ExecutorService pExecutor, PoolableByteBuffer pBuffer ) {
+    super(pBuffer);
+    source = pSource;
+    destination = pDestination;
+    executor = pExecutor;
+  }
+
+  @Override
+  protected void startTransfer( ) throws IOException {
+    start = System.nanoTime();
+    sourceChannel = this.openChannel(source.toPath(), executor, StandardOpenOption.READ);
+
+    // Destination file must not exist yet.
+    try {
+      destinationChannel = this.openChannel(destination.toPath(), executor, StandardOpenOption.WRITE,
+          StandardOpenOption.CREATE_NEW);
+    }
+    catch (FileAlreadyExistsException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CREATE_NEW_FILE, e, destination.getName());
+    }
+
+    // Start with first read.
+    reading = true;
+    sourceChannel.read(buffer.getByteBuffer(), readPosition, null, this);
+  }
+
+  @Override
+  protected void transferred( int pBytes ) throws IOException {
+    ByteBuffer lByteBuffer = buffer.getByteBuffer();
+    if (reading == true) {
+      // End of source file reached.
+      if (pBytes < 0) {
+        Tools.getStreamTools().traceIOSummary(source.getName(), writePosition, System.nanoTime() - start,
+            ToolsMessages.TRANSFERED_FILE_CONTENT);
+        this.complete(writePosition);
+      }
+      // Write what we just read.
+      else {
+        readPosition = readPosition + pBytes;
+        lByteBuffer.flip();
+        reading = false;
+        destinationChannel.write(lByteBuffer, writePosition, null, this);
+      }
+    }
+    else {
+      writePosition = writePosition + pBytes;
+
+      // Channel might not have written the whole buffer.
+      if (lByteBuffer.hasRemaining()) {
+        destinationChannel.write(lByteBuffer, writePosition, null, this);
+      }
+      // Continue reading.
+      else {
+        lByteBuffer.clear();
+        reading = true;
+        sourceChannel.read(lByteBuffer, readPosition, null, this);
+      }
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+
+/**
+ * Class is the base class for all asynchronous file operations that are based on {@link AsynchronousFileChannel}. Each
+ * operation works on exactly one pooled direct byte buffer and is driven by the completion callbacks of the channels it
+ * uses. As soon as the operation is finished, no matter if successful or not, the byte buffer is returned to its pool,
+ * all channels are closed and the future that is returned to the caller is completed.
+ *
+ * @author JEAF Development Team
+ */
+abstract class AsyncFileOperation<T> implements CompletionHandler<Integer, Void> {
+  /**
+   * Future that will be completed as soon as the operation is finished.
+   */
+  private final CompletableFuture<T> future = new CompletableFuture<>();
+
+  /**
+   * Flag indicates whether the operation is already finished.
+   */
+  private final AtomicBoolean finished = new AtomicBoolean(false);
+
+  /**
+   * Channels that are used by this operation. They will be closed when the operation is finished.
+   */
+  private final List<AsynchronousFileChannel> channels = new ArrayList<>(2);
+
+  /**
+   * Pooled direct byte buffer that is used for the whole operation.
+   */
+  protected final PoolableByteBuffer buffer;
+
+  /**
+   * Initialize object.
+   *
+   * @param pBuffer Pooled byte buffer that should be used by the operation. The parameter must not be null.
+   */
+  AsyncFileOperation( PoolableByteBuffer pBuffer ) {
+    buffer = pBuffer;
+  }
+
+  /**
+   * Method returns the future that represents the result of this operation.
+   *
+   * @return {@link CompletableFuture} Future of this operation. The method never returns null.
+   */
+  final CompletableFuture<T> getFuture( ) {
+    return future;
+  }
+
+  /**
+   * Method opens an asynchronous file channel. The channel will automatically be closed when the operation is finished.
+   *
+   * @param pPath Path of the file that should be opened. The parameter must not be null.
+   * @param pExecutor Executor that should be used by the channel. The parameter may be null. In this case the default
+   * thread pool of the JVM will be used.
+   * @param pOptions Options that should be used to open the file. The parameter must not be null.
+   * @return {@link AsynchronousFileChannel} Opened channel. The method never returns null.
+   * @throws IOException in case that the file could not be opened.
+   */
+  final AsynchronousFileChannel openChannel( Path pPath, ExecutorService pExecutor, OpenOption... pOptions )
+    throws IOException {
+
+    AsynchronousFileChannel lChannel;
+    if (pExecutor != null) {
+      Set<OpenOption> lOptions = new HashSet<>(Arrays.asList(pOptions));
+      lChannel = AsynchronousFileChannel.open(pPath, lOptions, pExecutor);
+    }
+    else {
+      lChannel = AsynchronousFileChannel.open(pPath, pOptions);
+    }
+    channels.add(lChannel);
+    return lChannel;
+  }
+
+  /**
+   * Method starts the operation. All exceptions that occur will be reported through the future of this operation.
+   */
+  final void start( ) {
+    try {
+      this.startTransfer();
+    }
+    catch (IOException | RuntimeException e) {
+      this.fail(e);
+    }
+  }
+
+  /**
+   * Method is called by the channel as soon as a read or write operation completed.
+   *
+   * @param pResult Number of bytes that were transferred or -1 in case that the end of the file was reached.
+   * @param pAttachment Not used.
+   */
+  @Override
+  public final void completed( Integer pResult, Void pAttachment ) {
+    try {
+      this.transferred(pResult);
+    }
+    catch (IOException | RuntimeException e) {
+      this.fail(e);
+    }
+  }
+
+  /**
+   * Method is called by the channel in case that a read or write operation failed.
+   *
+   * @param pException Exception that caused the failure.
+   * @param pAttachment Not used.
+   */
+  @Override
+  public final void failed( Throwable pException, Void pAttachment ) {
+    this.fail(pException);
+  }
+
+  /**
+   * Method opens the required channels and starts the first transfer.
+   *
+   * @throws IOException in case that the operation could not be started.
+   */
+  protected abstract void startTransfer( ) throws IOException;
+
+  /**
+   * Method is called after each completed read or write operation.
+   *
+   * @param pBytes Number of bytes that were transferred or -1 in case that the end of the file was reached.
+   * @throws IOException in case that the operation can not be continued.
+   */
+  protected abstract void transferred( int pBytes ) throws IOException;
+
+  /**
+   * Method finishes the operation successfully.
+   *
+   * @param pResult Result of the operation. The parameter may be null.
+   */
+  protected final void complete( T pResult ) {
+    if (this.finish() == true) {
+      future.complete(pResult);
+    }
+  }
+
+  /**
+   * Method finishes the operation with the passed exception.
+   *
+   * @param pException Exception that caused the failure. The parameter must not be null.
+   */
+  protected final void fail( Throwable pException ) {
+    if (this.finish() == true) {
+      future.completeExceptionally(pException);
+    }
+  }
+
+  /**
+   * Method releases all resources of this operation. Resources are only released once.
+   *
+   * @return boolean Method returns true if this call actually finished the operation and false if it was already
+   * finished before.
+   */
+  private boolean finish( ) {
+    boolean lFinished = finished.compareAndSet(false, true);
+    if (lFinished == true) {
+      // Close all channels.
+      for (AsynchronousFileChannel lChannel : channels) {
+        try {
+          lChannel.close();
+        }
+        catch (IOException e) {
+          XFun.getTrace().error(e.getMessage(), e);
+        }
+      }
+
+      // Return buffer back to pool.
+      buffer.release();
+    }
+    return lFinished;
+  }
+}
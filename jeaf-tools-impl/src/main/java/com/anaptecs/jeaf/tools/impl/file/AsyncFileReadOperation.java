@@ -0,0 +1,111 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Class implements the asynchronous read of the whole content of a file into a byte array.
+ *
+ * @author JEAF Development Team
+ */
+class AsyncFileReadOperation extends AsyncFileOperation<byte[]> {
+  /**
+   * Maximum size of a file that can be read into a byte array.
+   */
+  private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  /**
+   * Path of the file that should be read.
+   */
+  private final Path path;
+
+  /**
+   * Executor that is used by the channel. May be null.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Channel that is used to read the file.
+   */
+  private AsynchronousFileChannel channel;
+
+  /**
+   * Content of the file that was read so far.
+   */
+  private byte[] content;
+
+  /**
+   * Number of bytes that were already read.
+   */
+  private int position;
+
+  /**
+   * Initialize object.
+   *
+   * @param pPath Path of the file that should be read. The parameter must not be null.
+   * @param pExecutor Executor that should be used. The parameter may be null.
+   * @param pBuffer Buffer that should be used. The parameter must not be null.
+   */
+  AsyncFileReadOperation( Path pPath, ExecutorService pExecutor, PoolableByteBuffer pBuffer ) {
+    super(pBuffer);
+    path = pPath;
+    executor = pExecutor;
+  }
+
+  @Override
+  protected void startTransfer( ) throws IOException {
+    // Open file and allocate byte array based on the current file size.
+    channel = this.openChannel(path, executor, StandardOpenOption.READ);
+    long lSize = channel.size();
+    if (lSize > MAX_ARRAY_SIZE) {
+      throw new IOException("File '" + path + "' is too large (" + lSize + " bytes) to be read into a byte array.");
+    }
+    content = new byte[(int) lSize];
+
+    // Start reading.
+    channel.read(buffer.getByteBuffer(), position, null, this);
+  }
+
+  @Override
+  protected void transferred( int pBytes ) throws IOException {
+    // End of file reached.
+    if (pBytes < 0) {
+      if (position == content.length) {
+        this.complete(content);
+      }
+      // File was truncated while it was read.
+      else {
+        this.complete(Arrays.copyOf(content, position));
+      }
+    }
+    else {
+      // File might have grown since we opened it.
+      ByteBuffer lByteBuffer = buffer.getByteBuffer();
+      lByteBuffer.flip();
+      int lRequiredSize = position + lByteBuffer.remaining();
+      if (lRequiredSize > content.length) {
+        if (lRequiredSize > MAX_ARRAY_SIZE) {
+          throw new IOException("File '" + path + "' is too large to be read into a byte array.");
+        }
+        content = Arrays.copyOf(content, lRequiredSize);
+      }
+
+      // Copy data from buffer and continue reading.
+      int lLength = lByteBuffer.remaining();
+      lByteBuffer.get(content, position, lLength);
+      position = position + lLength;
+      lByteBuffer.clear();
+      channel.read(lByteBuffer, position, null, this);
+    }
+  }
+}
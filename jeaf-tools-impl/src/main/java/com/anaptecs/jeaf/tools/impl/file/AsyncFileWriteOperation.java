@@ -0,0 +1,111 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Class implements the asynchronous write of a byte array into a file. Existing files will be overwritten.
+ *
+ * @author JEAF Development Team
+ */
+class AsyncFileWriteOperation extends AsyncFileOperation<Void> {
+  /**
+   * Path of the file that should be written.
+   */
+  private final Path path;
+
+  /**
+   * Executor that is used by the channel. May be null.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Content that should be written.
+   */
+  private final byte[] content;
+
+  /**
+   * Channel that is used to write the file.
+   */
+  private AsynchronousFileChannel channel;
+
+  /**
+   * Offset within the content up to which data was already put into the buffer.
+   */
+  private int contentOffset;
+
+  /**
+   * Number of bytes that were already written to the file.
+   */
+  private long filePosition;
+
+  /**
+   * Initialize object.
+   *
+   * @param pPath Path of the file that should be written. The parameter must not be null.
+   * @param pContent Content that should be written. The parameter must not be null.
+   * @param pExecutor Executor that should be used. The parameter may be null.
+   * @param pBuffer Buffer that should be used. The parameter must not be null.
+   */
+  AsyncFileWriteOperation( Path pPath, byte[] pContent, ExecutorService pExecutor, PoolableByteBuffer pBuffer ) {
+    super(pBuffer);
+    path = pPath;
+    content = pContent;
+    executor = pExecutor;
+  }
+
+  @Override
+  protected void startTransfer( ) throws IOException {
+    channel = this.openChannel(path, executor, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    // Nothing to write at all.
+    if (content.length == 0) {
+      this.complete(null);
+    }
+    else {
+      this.writeNextChunk();
+    }
+  }
+
+  @Override
+  protected void transferred( int pBytes ) throws IOException {
+    filePosition = filePosition + pBytes;
+    ByteBuffer lByteBuffer = buffer.getByteBuffer();
+
+    // Channel might not have written the whole buffer.
+    if (lByteBuffer.hasRemaining()) {
+      channel.write(lByteBuffer, filePosition, null, this);
+    }
+    // Continue with next chunk of the content.
+    else if (contentOffset < content.length) {
+      this.writeNextChunk();
+    }
+    // Everything is written.
+    else {
+      this.complete(null);
+    }
+  }
+
+  /**
+   * Method puts the next chunk of the content into the buffer and writes it.
+   */
+  private void writeNextChunk( ) {
+    ByteBuffer lByteBuffer = buffer.getByteBuffer();
+    lByteBuffer.clear();
+    int lLength = Math.min(lByteBuffer.capacity(), content.length - contentOffset);
+    lByteBuffer.put(content, contentOffset, lLength);
+    lByteBuffer.flip();
+    contentOffset = contentOffset + lLength;
+    channel.write(lByteBuffer, filePosition, null, this);
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Class represents an immutable snapshot of the basic attributes of a file. All attributes are resolved with one single
+ * file system access. Times are represented as milliseconds since epoch (1970-01-01T00:00:00Z) in order to avoid the
+ * creation of {@link java.util.Date} or {@link java.util.Calendar} objects.
+ *
+ * @author JEAF Development Team
+ */
+public final class FileAttributeSnapshot {
+  /**
+   * File to which the attributes belong.
+   */
+  private final File file;
+
+  /**
+   * Size of the file in bytes.
+   */
+  private final long size;
+
+  /**
+   * Creation time in milliseconds since epoch.
+   */
+  private final long creationTime;
+
+  /**
+   * Last modification time in milliseconds since epoch.
+   */
+  private final long lastModificationTime;
+
+  /**
+   * Last access time in milliseconds since epoch.
+   */
+  private final long lastAccessTime;
+
+  /**
+   * Flag indicates whether the file is a regular file.
+   */
+  private final boolean regularFile;
+
+  /**
+   * Flag indicates whether the file is a directory.
+   */
+  private final boolean directory;
+
+  /**
+   * Flag indicates whether the file is a symbolic link.
+   */
+  private final boolean symbolicLink;
+
+  /**
+   * Flag indicates whether the file is something else than a regular file, directory or symbolic link.
+   */
+  private final boolean other;
+
+  /**
+   * Initialize object.
+   *
+   * @param pFile File to which the attributes belong. The parameter must not be null.
+   * @param pAttributes Attributes of the file. The parameter must not be null.
+   */
+  FileAttributeSnapshot( File pFile, BasicFileAttributes pAttributes ) {
+    file = pFile;
+    size = pAttributes.size();
+    creationTime = pAttributes.creationTime().toMillis();
+    lastModificationTime = pAttributes.lastModifiedTime().toMillis();
+    lastAccessTime = pAttributes.lastAccessTime().toMillis();
+    regularFile = pAttributes.isRegularFile();
+    directory = pAttributes.isDirectory();
+    symbolicLink = pAttributes.isSymbolicLink();
+    other = pAttributes.isOther();
+  }
+
+  /**
+   * Method returns the file to which the attributes belong.
+   *
+   * @return {@link File} File of this snapshot. The method never returns null.
+   */
+  public File getFile( ) {
+    return file;
+  }
+
+  /**
+   * Method returns the size of the file.
+   *
+   * @return long Size of the file in bytes.
+   */
+  public long getSize( ) {
+    return size;
+  }
+
+  /**
+   * Method returns the creation time of the file.
+   *
+   * @return long Creation time in milliseconds since epoch.
+   */
+  public long getCreationTime( ) {
+    return creationTime;
+  }
+
+  /**
+   * Method returns the last modification time of the file.
+   *
+   * @return long Last modification time in milliseconds since epoch.
+   */
+  public long getLastModificationTime( ) {
+    return lastModificationTime;
+  }
+
+  /**
+   * Method returns the last access time of the file.
+   *
+   * @return long Last access time in milliseconds since epoch.
+   */
+  public long getLastAccessTime( ) {
+    return lastAccessTime;
+  }
+
+  /**
+   * Method checks whether the file is a regular file.
+   *
+   * @return boolean Method returns true if the file is a regular file and false otherwise.
+   */
+  public boolean isRegularFile( ) {
+    return regularFile;
+  }
+
+  /**
+   * Method checks whether the file is a directory.
+   *
+   * @return boolean Method returns true if the file is a directory and false otherwise.
+   */
+  public boolean isDirectory( ) {
+    return directory;
+  }
+
+  /**
+   * Method checks whether the file is a symbolic link.
+   *
+   * @return boolean Method returns true if the file is a symbolic link and false otherwise.
+   */
+  public boolean isSymbolicLink( ) {
+    return symbolicLink;
+  }
+
+  /**
+   * Method checks whether the file is something else than a regular file, directory or symbolic link.
+   *
+   * @return boolean Method returns true if the file is something else and false otherwise.
+   */
+  public boolean isOther( ) {
+    return other;
+  }
+
+  @Override
+  public String toString( ) {
+    return file.getPath() + " [size=" + size + ", creationTime=" + creationTime + ", lastModificationTime="
+        + lastModificationTime + ", lastAccessTime=" + lastAccessTime + ", regularFile=" + regularFile + ", directory="
+        + directory + ", symbolicLink=" + symbolicLink + ", other=" + other + "]";
+  }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.anaptecs.jeaf.tools.api.ToolsMessages;
+import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
+
+/**
+ * Class implements hashing of files based on memory mapped chunks. As the content of a file is never copied to the
+ * heap even very large files can be hashed without increasing the heap usage.
+ *
+ * Besides standard digests the class also supports a tree hash. There the file is split into chunks of equal size that
+ * are hashed in parallel (leaves). Afterwards the hashes are combined pairwise until only the root hash is left. A hash
+ * without partner is moved up to the next level unchanged. To avoid collisions between leaves and inner nodes leaves
+ * are prefixed with byte 0x00 and inner nodes with 0x01 (like in RFC 6962).
+ *
+ * @author JEAF Development Team
+ */
+public final class FileHasher {
+  /**
+   * Algorithm that is used for tree hashes.
+   */
+  static final String TREE_HASH_ALGORITHM = "SHA-256";
+
+  /**
+   * Size of the chunks that are mapped into memory one after the other when a standard digest is calculated.
+   */
+  private static final int SEQUENTIAL_CHUNK_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * Prefix of leaf nodes of a tree hash.
+   */
+  private static final byte LEAF_PREFIX = 0x00;
+
+  /**
+   * Prefix of inner nodes of a tree hash.
+   */
+  private static final byte NODE_PREFIX = 0x01;
+
+  /**
+   * Constructor of this class is private in order to ensure that no instances of this class can be created.
+   */
+  private FileHasher( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method calculates the digest of the passed file using the passed algorithm. The file is mapped into memory chunk by
+   * chunk.
+   *
+   * @param pFile File whose digest should be calculated. The parameter must not be null.
+   * @param pAlgorithm Name of the digest algorithm, e.g. "SHA-256". The parameter must not be null.
+   * @return byte[] Digest of the file. The method never returns null.
+   * @throws IOException in case that the file could not be read.
+   */
+  public static byte[] hash( File pFile, String pAlgorithm ) throws IOException {
+    MessageDigest lDigest = createDigest(pAlgorithm);
+    try (FileChannel lChannel = FileChannel.open(pFile.toPath(), StandardOpenOption.READ)) {
+      long lSize = lChannel.size();
+      long lPosition = 0;
+      while (lPosition < lSize) {
+        long lLength = Math.min(SEQUENTIAL_CHUNK_SIZE, lSize - lPosition);
+        MappedByteBuffer lBuffer = lChannel.map(MapMode.READ_ONLY, lPosition, lLength);
+        lDigest.update(lBuffer);
+        lPosition = lPosition + lLength;
+      }
+    }
+    return lDigest.digest();
+  }
+
+  /**
+   * Method calculates the SHA-256 tree hash of the passed file. Leaves are calculated in parallel using the passed
+   * executor.
+   *
+   * @param pFile File whose tree hash should be calculated. The parameter must not be null.
+   * @param pChunkSize Size of the chunks (leaves) in bytes. The resulting hash depends on the chunk size. The parameter
+   * must be greater than 0.
+   * @param pExecutor Executor that is used to hash the chunks. The parameter must not be null.
+   * @return byte[] Root hash of the file. The method never returns null.
+   * @throws IOException in case that the file could not be read.
+   */
+  static byte[] treeHash( File pFile, int pChunkSize, ExecutorService pExecutor ) throws IOException {
+    try (FileChannel lChannel = FileChannel.open(pFile.toPath(), StandardOpenOption.READ)) {
+      // Hash all chunks in parallel. Even an empty file has exactly one (empty) leaf.
+      long lSize = lChannel.size();
+      List<Future<byte[]>> lFutures = new ArrayList<>();
+      List<byte[]> lLevel = new ArrayList<>();
+      try {
+        long lPosition = 0;
+        do {
+          long lChunkPosition = lPosition;
+          long lChunkLength = Math.min(pChunkSize, lSize - lPosition);
+          lFutures.add(pExecutor.submit(( ) -> hashLeaf(lChannel, lChunkPosition, lChunkLength)));
+          lPosition = lPosition + lChunkLength;
+        }
+        while (lPosition < lSize);
+
+        // Collect hashes of all leaves.
+        for (Future<byte[]> lFuture : lFutures) {
+          lLevel.add(waitForLeaf(lFuture));
+        }
+      }
+      // If one leaf fails then the remaining ones are not needed any more. As the channel will be closed they would
+      // fail anyway but they should not occupy the executor.
+      catch (IOException | RuntimeException e) {
+        for (Future<byte[]> lFuture : lFutures) {
+          lFuture.cancel(false);
+        }
+        throw e;
+      }
+
+      // Combine hashes level by level until only the root is left.
+      MessageDigest lDigest = createDigest(TREE_HASH_ALGORITHM);
+      while (lLevel.size() > 1) {
+        List<byte[]> lNextLevel = new ArrayList<>((lLevel.size() + 1) / 2);
+        for (int i = 0; i < lLevel.size(); i = i + 2) {
+          if (i + 1 < lLevel.size()) {
+            lDigest.update(NODE_PREFIX);
+            lDigest.update(lLevel.get(i));
+            lDigest.update(lLevel.get(i + 1));
+            lNextLevel.add(lDigest.digest());
+          }
+          // Odd hash is moved up unchanged.
+          else {
+            lNextLevel.add(lLevel.get(i));
+          }
+        }
+        lLevel = lNextLevel;
+      }
+      return lLevel.get(0);
+    }
+  }
+
+  /**
+   * Method calculates the hash of one leaf of a tree hash.
+   *
+   * @param pChannel Channel of the file. The parameter must not be null.
+   * @param pPosition Start position of the chunk.
+   * @param pLength Length of the chunk.
+   * @return byte[] Hash of the leaf. The method never returns null.
+   * @throws IOException in case that the chunk could not be mapped.
+   */
+  private static byte[] hashLeaf( FileChannel pChannel, long pPosition, long pLength ) throws IOException {
+    MessageDigest lDigest = createDigest(TREE_HASH_ALGORITHM);
+    lDigest.update(LEAF_PREFIX);
+    if (pLength > 0) {
+      lDigest.update(pChannel.map(MapMode.READ_ONLY, pPosition, pLength));
+    }
+    return lDigest.digest();
+  }
+
+  /**
+   * Method waits for the hash of a leaf.
+   *
+   * @param pFuture Future of the leaf. The parameter must not be null.
+   * @return byte[] Hash of the leaf. The method never returns null.
+   * @throws IOException in case that the leaf could not be hashed or the current thread was interrupted.
+   */
+  private static byte[] waitForLeaf( Future<byte[]> pFuture ) throws IOException {
+    try {
+      return pFuture.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for hash of file chunk.");
+    }
+    catch (ExecutionException e) {
+      Throwable lCause = e.getCause();
+      if (lCause instanceof IOException) {
+        throw (IOException) lCause;
+      }
+      else if (lCause instanceof RuntimeException) {
+        throw (RuntimeException) lCause;
+      }
+      else {
+        throw new IOException(lCause);
+      }
+    }
+  }
+
+  /**
+   * Method creates a new message digest for the passed algorithm.
+   *
+   * @param pAlgorithm Name of the algorithm. The parameter must not be null.
+   * @return {@link MessageDigest} Message digest. The method never returns null.
+   */
+  private static MessageDigest createDigest( String pAlgorithm ) {
+    try {
+      return MessageDigest.getInstance(pAlgorithm);
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new JEAFSystemException(ToolsMessages.UNKNOWN_ALGORITHM, e, pAlgorithm);
+    }
+  }
+}
@@ -0,0 +1,400 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+/**
+ * Class implements a reader that follows a growing file (like "tail -F"). The reader remembers the byte offset up to
+ * which the file was already read. So every call of {@link #poll()} only reads the data that was appended since the
+ * last call. All complete lines that were read are passed as one batch to the consumer of this reader. Incomplete
+ * lines at the end of the file are kept until the line is completed.
+ *
+ * The reader also detects if the file was rotated (file was renamed or deleted and a new file with the same name was
+ * created) or truncated. In case of a rotation the remaining data of the old file is read first and then the reader
+ * continues at the beginning of the new file. In case of a truncation the reader also restarts at the beginning of the
+ * file.
+ *
+ * Lines are split at '\n'. A trailing '\r' will be removed. Therefore the reader only supports charsets where these
+ * characters are encoded as single bytes (e.g. UTF-8 or ISO-8859-1).
+ *
+ * Instances of this class are thread-safe.
+ *
+ * @author JEAF Development Team
+ */
+public class FileTailReader implements Closeable {
+  /**
+   * Initial size of the buffer that is used to collect the bytes of the current line.
+   */
+  private static final int INITIAL_LINE_BUFFER_SIZE = 256;
+
+  /**
+   * File that is followed by this reader.
+   */
+  private final Path path;
+
+  /**
+   * Charset that is used to decode lines.
+   */
+  private final Charset charset;
+
+  /**
+   * Consumer to which all lines will be passed.
+   */
+  private final Consumer<List<String>> consumer;
+
+  /**
+   * Supplier for the direct byte buffers that are used to read the file.
+   */
+  private final Supplier<PoolableByteBuffer> bufferSupplier;
+
+  /**
+   * Flag defines whether the reader should start at the current end of the file when it is opened for the first time.
+   */
+  private boolean startAtEnd;
+
+  /**
+   * Channel of the file that is currently followed. Reference is null if the file does not exist (yet).
+   */
+  private FileChannel channel;
+
+  /**
+   * Identity (file key) of the file that is currently followed. Reference is null if the file system does not support
+   * file keys. In this case rotations are detected based on the file size.
+   */
+  private Object fileIdentity;
+
+  /**
+   * Position in bytes up to which the current file was already read.
+   */
+  private long position;
+
+  /**
+   * Buffer containing the bytes of the current incomplete line.
+   */
+  private byte[] lineBuffer = new byte[INITIAL_LINE_BUFFER_SIZE];
+
+  /**
+   * Number of bytes in {@link #lineBuffer}.
+   */
+  private int lineLength;
+
+  /**
+   * Future of the scheduled polling. Reference is null if polling is not scheduled.
+   */
+  private ScheduledFuture<?> scheduledPolling;
+
+  /**
+   * Flag indicates whether this reader is already closed.
+   */
+  private boolean closed;
+
+  /**
+   * Initialize object.
+   *
+   * @param pFile File that should be followed. The file does not have to exist yet. The parameter must not be null.
+   * @param pCharset Charset that should be used to decode lines. The parameter must not be null.
+   * @param pStartAtEnd If the parameter is set to true then only lines that are appended after the file was opened for
+   * the first time will be delivered. Otherwise the reader starts at the beginning of the file.
+   * @param pConsumer Consumer to which all new lines are passed as batch. The parameter must not be null.
+   * @param pBufferSupplier Supplier for the direct byte buffers that are used to read the file. The parameter must not
+   * be null.
+   */
+  FileTailReader( File pFile, Charset pCharset, boolean pStartAtEnd, Consumer<List<String>> pConsumer,
+      Supplier<PoolableByteBuffer> pBufferSupplier ) {
+
+    // Check parameters.
+    Check.checkInvalidParameterNull(pFile, "pFile");
+    Check.checkInvalidParameterNull(pCharset, "pCharset");
+    Check.checkInvalidParameterNull(pConsumer, "pConsumer");
+    Check.checkInvalidParameterNull(pBufferSupplier, "pBufferSupplier");
+
+    path = pFile.toPath();
+    charset = pCharset;
+    startAtEnd = pStartAtEnd;
+    consumer = pConsumer;
+    bufferSupplier = pBufferSupplier;
+  }
+
+  /**
+   * Method returns the file that is followed by this reader.
+   *
+   * @return {@link File} File that is followed. The method never returns null.
+   */
+  public File getFile( ) {
+    return path.toFile();
+  }
+
+  /**
+   * Method returns the position in bytes up to which the current file was already read.
+   *
+   * @return long Current read position.
+   */
+  public synchronized long getPosition( ) {
+    return position;
+  }
+
+  /**
+   * Method reads all data that was appended to the file since the last call and passes all complete lines as one batch
+   * to the consumer. The consumer will only be called if there is at least one new line.
+   *
+   * @return int Number of lines that were passed to the consumer.
+   * @throws IOException in case that the file could not be read.
+   */
+  public synchronized int poll( ) throws IOException {
+    List<String> lLines = new ArrayList<>();
+    if (closed == false) {
+      // Open file if this did not happen yet.
+      if (channel == null) {
+        this.openFile();
+      }
+
+      if (channel != null) {
+        // Read all data that was appended to the current file.
+        this.readAppendedData(lLines);
+
+        // Check if file was rotated. In this case we continue with the new file.
+        BasicFileAttributes lAttributes = this.readAttributes();
+        if (lAttributes != null && this.isRotated(lAttributes) == true) {
+          // Incomplete last line of the old file will not be completed any more.
+          if (lineLength > 0) {
+            lLines.add(this.createLine());
+          }
+          this.closeChannel();
+          this.openFile();
+          if (channel != null) {
+            this.readAppendedData(lLines);
+          }
+        }
+      }
+    }
+
+    // Pass new lines to consumer.
+    if (lLines.isEmpty() == false) {
+      consumer.accept(lLines);
+    }
+    return lLines.size();
+  }
+
+  /**
+   * Method starts polling of the file with the passed interval using the passed executor. Problems that occur during
+   * polling will be traced.
+   *
+   * @param pExecutor Executor that should be used for polling. The parameter must not be null.
+   * @param pInterval Delay between two polls.
+   * @param pTimeUnit Time unit of the interval. The parameter must not be null.
+   */
+  public synchronized void start( ScheduledExecutorService pExecutor, long pInterval, TimeUnit pTimeUnit ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pExecutor, "pExecutor");
+    Check.checkInvalidParameterNull(pTimeUnit, "pTimeUnit");
+
+    if (scheduledPolling == null && closed == false) {
+      scheduledPolling = pExecutor.scheduleWithFixedDelay(this::pollAndTrace, 0, pInterval, pTimeUnit);
+    }
+  }
+
+  /**
+   * Method stops polling and releases the file. The reader can not be used any longer afterwards.
+   */
+  @Override
+  public synchronized void close( ) {
+    closed = true;
+    if (scheduledPolling != null) {
+      scheduledPolling.cancel(false);
+      scheduledPolling = null;
+    }
+    this.closeChannel();
+  }
+
+  /**
+   * Method polls the file and traces all problems that occur.
+   */
+  private void pollAndTrace( ) {
+    try {
+      this.poll();
+    }
+    catch (IOException | RuntimeException e) {
+      XFun.getTrace().error("Unable to read appended data of file " + path + ". " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Method opens the file if it exists.
+   *
+   * @throws IOException in case that the file could not be opened.
+   */
+  private void openFile( ) throws IOException {
+    try {
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+    // File does not exist (yet). This might happen e.g. during rotation.
+    catch (NoSuchFileException e) {
+      channel = null;
+    }
+
+    if (channel != null) {
+      BasicFileAttributes lAttributes = this.readAttributes();
+      if (lAttributes != null) {
+        fileIdentity = lAttributes.fileKey();
+      }
+      else {
+        fileIdentity = null;
+      }
+
+      // Only the very first file might be read from its end.
+      if (startAtEnd == true) {
+        position = channel.size();
+      }
+      else {
+        position = 0;
+      }
+      startAtEnd = false;
+      lineLength = 0;
+    }
+  }
+
+  /**
+   * Method reads all data that was appended to the current file and adds all complete lines to the passed list.
+   *
+   * @param pLines List to which all complete lines will be added. The parameter must not be null.
+   * @throws IOException in case that the file could not be read.
+   */
+  private void readAppendedData( List<String> pLines ) throws IOException {
+    // File was truncated. So we have to start from the beginning again.
+    if (channel.size() < position) {
+      position = 0;
+      lineLength = 0;
+    }
+
+    PoolableByteBuffer lPooledBuffer = bufferSupplier.get();
+    try {
+      ByteBuffer lBuffer = lPooledBuffer.getByteBuffer();
+      int lBytesRead = channel.read(lBuffer, position);
+      while (lBytesRead > 0) {
+        position = position + lBytesRead;
+        lBuffer.flip();
+        this.splitLines(lBuffer, pLines);
+        lBuffer.clear();
+        lBytesRead = channel.read(lBuffer, position);
+      }
+    }
+    finally {
+      lPooledBuffer.release();
+    }
+  }
+
+  /**
+   * Method splits the content of the passed buffer into lines.
+   *
+   * @param pBuffer Buffer containing the data that was read. The parameter must not be null.
+   * @param pLines List to which all complete lines will be added. The parameter must not be null.
+   */
+  private void splitLines( ByteBuffer pBuffer, List<String> pLines ) {
+    while (pBuffer.hasRemaining()) {
+      byte lByte = pBuffer.get();
+      if (lByte == '\n') {
+        pLines.add(this.createLine());
+      }
+      else {
+        if (lineLength == lineBuffer.length) {
+          lineBuffer = Arrays.copyOf(lineBuffer, lineBuffer.length * 2);
+        }
+        lineBuffer[lineLength] = lByte;
+        lineLength++;
+      }
+    }
+  }
+
+  /**
+   * Method creates a line from the current content of the line buffer and resets it.
+   *
+   * @return {@link String} Line without line terminator. The method never returns null.
+   */
+  private String createLine( ) {
+    int lLength = lineLength;
+    if (lLength > 0 && lineBuffer[lLength - 1] == '\r') {
+      lLength--;
+    }
+    String lLine = new String(lineBuffer, 0, lLength, charset);
+    lineLength = 0;
+    return lLine;
+  }
+
+  /**
+   * Method reads the attributes of the followed file.
+   *
+   * @return {@link BasicFileAttributes} Attributes of the file or null if the file does not exist.
+   * @throws IOException in case that the attributes could not be read.
+   */
+  private BasicFileAttributes readAttributes( ) throws IOException {
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class);
+    }
+    catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Method checks whether the file with the followed path is not the file that is currently read any more. If the file
+   * system supports file keys then they are compared. Otherwise the file is considered as rotated if it is smaller than
+   * the currently read file. Timestamps are not used as they change with every append on many file systems. This
+   * fallback does not detect a rotation before the new file is smaller than the old one. However, the remaining data of
+   * the old file will never get lost.
+   *
+   * @param pAttributes Current attributes of the file with the followed path. The parameter must not be null.
+   * @return boolean Flag indicates whether the file was rotated.
+   * @throws IOException in case that the size of the current file could not be read.
+   */
+  private boolean isRotated( BasicFileAttributes pAttributes ) throws IOException {
+    boolean lRotated;
+    Object lIdentity = pAttributes.fileKey();
+    if (fileIdentity != null && lIdentity != null) {
+      lRotated = lIdentity.equals(fileIdentity) == false;
+    }
+    else {
+      lRotated = pAttributes.size() < channel.size();
+    }
+    return lRotated;
+  }
+
+  /**
+   * Method closes the channel of the currently followed file.
+   */
+  private void closeChannel( ) {
+    if (channel != null) {
+      try {
+        channel.close();
+      }
+      catch (IOException e) {
+        XFun.getTrace().error(e.getMessage(), e);
+      }
+      channel = null;
+    }
+  }
+}
@@ -16,6 +16,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
@@ -29,6 +30,14 @@ import java.util.Date;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -37,11 +46,17 @@ import com.anaptecs.jeaf.tools.api.Tools;
 import com.anaptecs.jeaf.tools.api.ToolsMessages;
 import com.anaptecs.jeaf.tools.api.date.DateTools;
 import com.anaptecs.jeaf.tools.api.file.FileTools;
+import com.anaptecs.jeaf.xfun.api.XFun;
 import com.anaptecs.jeaf.xfun.api.checks.Assert;
 import com.anaptecs.jeaf.xfun.api.checks.Check;
 import com.anaptecs.jeaf.xfun.api.errorhandling.ErrorCode;
 import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
 
+import stormpot.BlazePool;
+import stormpot.Config;
+import stormpot.PoolException;
+import stormpot.Timeout;
+
 /**
  * Class provides useful helper methods for handling of files.
  * 
@@ -50,6 +65,17 @@ import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
  */
 @ToolsImplementation(toolsInterface = FileTools.class)
 public final class FileToolsImpl implements FileTools {
+  /**
+   * Constant for name of system property that can be used to define the batch window in microseconds that is used for
+   * batched durable writes (see {@link #writeFileContentDurable(File, byte[], boolean)}).
+   */
+  public static final String GROUP_COMMIT_WINDOW_PROPERTY = "jeaf.tools.file.group.commit.window";
+
+  /**
+   * Default batch window in microseconds for batched durable writes.
+   */
+  private static final long DEFAULT_GROUP_COMMIT_WINDOW = 1000;
+
   /**
    * We use a buffer with 8k size.
    */
@@ -64,11 +90,84 @@ public final class FileToolsImpl implements FileTools {
    */
   private static final Charset ZIP_CHARSET = Charset.forName("CP437");
 
+  /**
+   * Size of the direct byte buffers that are used for channel based file operations.
+   */
+  private static final int DIRECT_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Amount of direct byte buffers that are pooled for channel based file operations.
+   */
+  private static final int DIRECT_BUFFER_POOL_SIZE = 16;
+
+  /**
+   * Default chunk size for tree hashes.
+   */
+  public static final int DEFAULT_TREE_HASH_CHUNK_SIZE = 8 * 1024 * 1024;
+
+  /**
+   * Timeout that is used we requesting a buffer from the pool.
+   */
+  private static final Timeout TIMEOUT = new Timeout(1, TimeUnit.NANOSECONDS);
+
+  /**
+   * Pool with direct byte buffers that are used for channel based file operations.
+   */
+  private final BlazePool<PoolableByteBuffer> directBufferPool;
+
+  /**
+   * Executor that is used for asynchronous file operations if no executor is passed explicitly. If the JVM supports
+   * virtual threads then an executor based on virtual threads is used. Otherwise the reference is null and the default
+   * thread pool of {@link java.nio.channels.AsynchronousFileChannel} will be used.
+   */
+  private final ExecutorService defaultAsyncExecutor;
+
+  /**
+   * Batch window in nanoseconds that is used for batched durable writes.
+   */
+  private final long groupCommitWindow;
+
+  /**
+   * Map contains the group commit writers of all directories that are currently written. Writers are removed as soon as
+   * their last write is committed so that the map does not grow with every directory that was ever written.
+   */
+  private final ConcurrentHashMap<Path, GroupCommitWriter> groupCommitWriters = new ConcurrentHashMap<>();
+
   /**
    * Constructor of this class is private in order to ensure that no instances of this class can be created.
    */
   public FileToolsImpl( ) {
-    // Nothing to do.
+    // Create pool for direct byte buffers.
+    Config<PoolableByteBuffer> lConfig = new Config<>();
+    lConfig.setSize(DIRECT_BUFFER_POOL_SIZE);
+    lConfig.setAllocator(new PoolableByteBufferAllocator(DIRECT_BUFFER_SIZE));
+    directBufferPool = new BlazePool<>(lConfig);
+
+    // Resolve default executor for asynchronous operations.
+    defaultAsyncExecutor = this.createVirtualThreadExecutor();
+
+    // Resolve batch window for group commits.
+    long lWindow = Long.getLong(GROUP_COMMIT_WINDOW_PROPERTY, DEFAULT_GROUP_COMMIT_WINDOW);
+    groupCommitWindow = TimeUnit.MICROSECONDS.toNanos(Math.max(lWindow, 0));
+  }
+
+  /**
+   * Method tries to create an executor that starts a new virtual thread for each task. As virtual threads are only
+   * available with newer Java versions the executor is looked up using reflection.
+   *
+   * @return {@link ExecutorService} Executor based on virtual threads or null if virtual threads are not supported.
+   */
+  private ExecutorService createVirtualThreadExecutor( ) {
+    ExecutorService lExecutor;
+    try {
+      Method lMethod = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      lExecutor = (ExecutorService) lMethod.invoke(null);
+    }
+    // Virtual threads are not supported (or not enabled) by this JVM.
+    catch (ReflectiveOperationException | RuntimeException e) {
+      lExecutor = null;
+    }
+    return lExecutor;
   }
 
   /**
@@ -341,6 +440,43 @@ public final class FileToolsImpl implements FileTools {
     return this.linesToSingleString(lLines);
   }
 
+  /**
+   * Method creates a reader that follows the passed growing file (e.g. a log file). Every call of
+   * {@link FileTailReader#poll()} only reads the data that was appended since the last call and passes all new lines as
+   * one batch to the passed consumer. Rotation and truncation of the file are detected. Polling can also be scheduled
+   * using {@link FileTailReader#start(java.util.concurrent.ScheduledExecutorService, long, TimeUnit)}. Lines are decoded
+   * using the default charset.
+   *
+   * @param pFile File that should be followed. The file does not have to exist yet. The parameter must not be null.
+   * @param pStartAtEnd If the parameter is set to true then only lines that are appended after the file was opened will
+   * be delivered. Otherwise the reader starts at the beginning of the file.
+   * @param pConsumer Consumer to which all new lines are passed as batch. The parameter must not be null.
+   * @return {@link FileTailReader} Reader for the passed file. The reader has to be closed when it is no longer needed.
+   * The method never returns null.
+   */
+  public FileTailReader tailFile( File pFile, boolean pStartAtEnd, Consumer<List<String>> pConsumer ) {
+    return this.tailFile(pFile, Charset.defaultCharset(), pStartAtEnd, pConsumer);
+  }
+
+  /**
+   * Method creates a reader that follows the passed growing file (e.g. a log file). Every call of
+   * {@link FileTailReader#poll()} only reads the data that was appended since the last call and passes all new lines as
+   * one batch to the passed consumer. Rotation and truncation of the file are detected. Polling can also be scheduled
+   * using {@link FileTailReader#start(java.util.concurrent.ScheduledExecutorService, long, TimeUnit)}.
+   *
+   * @param pFile File that should be followed. The file does not have to exist yet. The parameter must not be null.
+   * @param pCharset Charset that should be used to decode lines. The parameter must not be null.
+   * @param pStartAtEnd If the parameter is set to true then only lines that are appended after the file was opened will
+   * be delivered. Otherwise the reader starts at the beginning of the file.
+   * @param pConsumer Consumer to which all new lines are passed as batch. The parameter must not be null.
+   * @return {@link FileTailReader} Reader for the passed file. The reader has to be closed when it is no longer needed.
+   * The method never returns null.
+   */
+  public FileTailReader tailFile( File pFile, Charset pCharset, boolean pStartAtEnd,
+      Consumer<List<String>> pConsumer ) {
+    return new FileTailReader(pFile, pCharset, pStartAtEnd, pConsumer, this::getDirectBuffer);
+  }
+
   /**
    * Method converts the passed list of string into one single string where each string is treated as a line. Between
    * the lines {@link File#separator} is used.
@@ -488,6 +624,89 @@ public final class FileToolsImpl implements FileTools {
     this.writeFileContent(pFileName, lContentAsBytes);
   }
 
+  /**
+   * Method writes the passed content durably and atomically to the passed file. The content is written to a temporary
+   * file in the same directory which is forced to disk and then atomically renamed to the passed file. Afterwards the
+   * directory is forced too. So either the old or the new content of the file will survive a crash but never a partial
+   * write.
+   *
+   * @param pFile File whose content should be written. The parameter must not be null.
+   * @param pFileContent Byte array with the content that should be written. The parameter may be null. In this case the
+   * file will be empty.
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeFileContentDurable( File pFile, byte[] pFileContent ) throws IOException {
+    this.writeFileContentDurable(pFile, pFileContent, false);
+  }
+
+  /**
+   * Method writes the passed content durably and atomically to the passed file. The content is written to a temporary
+   * file in the same directory which is forced to disk and then atomically renamed to the passed file. Afterwards the
+   * directory is forced too. So either the old or the new content of the file will survive a crash but never a partial
+   * write.
+   *
+   * In batched mode concurrent writers to the same directory are grouped. All renames of a batch are made durable with
+   * one single force of the directory (group commit). The batch window can be configured using system property
+   * {@link #GROUP_COMMIT_WINDOW_PROPERTY}. Batched mode increases the throughput when many small files are written
+   * concurrently but also increases the latency of a single write by up to the batch window.
+   *
+   * @param pFile File whose content should be written. The parameter must not be null.
+   * @param pFileContent Byte array with the content that should be written. The parameter may be null. In this case the
+   * file will be empty.
+   * @param pBatched Parameter defines whether the write should be done in batched mode.
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeFileContentDurable( File pFile, byte[] pFileContent, boolean pBatched ) throws IOException {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pFile, "pFile");
+
+    byte[] lContent;
+    if (pFileContent != null) {
+      lContent = pFileContent;
+    }
+    else {
+      lContent = new byte[0];
+    }
+
+    // Resolve directory of the file.
+    Path lTarget = pFile.toPath().toAbsolutePath().normalize();
+    Path lDirectory = lTarget.getParent();
+
+    // Let group commit writer of the directory do the job.
+    if (pBatched == true) {
+      GroupCommitWriter lWriter = groupCommitWriters.compute(lDirectory, ( pPath, pWriter ) -> {
+        GroupCommitWriter lCurrentWriter;
+        if (pWriter != null) {
+          lCurrentWriter = pWriter;
+        }
+        else {
+          lCurrentWriter = new GroupCommitWriter(lDirectory, groupCommitWindow);
+        }
+        lCurrentWriter.retain();
+        return lCurrentWriter;
+      });
+      try {
+        lWriter.write(lTarget, lContent);
+      }
+      finally {
+        // Remove idle writer. Next write to the directory will create a new one.
+        groupCommitWriters.computeIfPresent(lDirectory, ( pPath, pWriter ) -> pWriter.release() ? null : pWriter);
+      }
+    }
+    // Write and commit file directly.
+    else {
+      Path lTempFile = GroupCommitWriter.writeTempFile(lDirectory, lTarget, lContent);
+      try {
+        GroupCommitWriter.moveAtomically(lTempFile, lTarget);
+      }
+      catch (IOException e) {
+        GroupCommitWriter.deleteQuietly(lTempFile);
+        throw e;
+      }
+      GroupCommitWriter.forceDirectory(lDirectory);
+    }
+  }
+
   /**
    * Method copies the file with the passed name to the passed destination.
    * 
@@ -552,6 +771,167 @@ public final class FileToolsImpl implements FileTools {
     }
   }
 
+  /**
+   * Method reads the content of the passed file asynchronously. The file is read using an
+   * {@link java.nio.channels.AsynchronousFileChannel} and a pooled direct byte buffer.
+   *
+   * @param pFile File whose content should be returned. The parameter must not be null.
+   * @return {@link CompletableFuture} Future that will be completed with the content of the file. If the file is zero
+   * bytes then the future will be completed with an empty array. Problems when reading the file will be reported
+   * through the future. The method never returns null.
+   */
+  public CompletableFuture<byte[]> getFileContentAsync( File pFile ) {
+    return this.getFileContentAsync(pFile, defaultAsyncExecutor);
+  }
+
+  /**
+   * Method reads the content of the passed file asynchronously. The file is read using an
+   * {@link java.nio.channels.AsynchronousFileChannel} and a pooled direct byte buffer.
+   *
+   * @param pFile File whose content should be returned. The parameter must not be null.
+   * @param pExecutor Executor that should be used to handle I/O events and to complete the returned future. The
+   * parameter may be null. In this case the default thread pool of the JVM will be used.
+   * @return {@link CompletableFuture} Future that will be completed with the content of the file. If the file is zero
+   * bytes then the future will be completed with an empty array. Problems when reading the file will be reported
+   * through the future. The method never returns null.
+   */
+  public CompletableFuture<byte[]> getFileContentAsync( File pFile, ExecutorService pExecutor ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pFile, "pFile");
+
+    AsyncFileReadOperation lOperation = new AsyncFileReadOperation(pFile.toPath(), pExecutor, this.getDirectBuffer());
+    lOperation.start();
+    return lOperation.getFuture();
+  }
+
+  /**
+   * Method writes the passed content asynchronously to the passed file. If the file already exists it will be
+   * overwritten.
+   *
+   * @param pFile File whose content should be written. The parameter must not be null.
+   * @param pFileContent Byte array with the content that should be written. The parameter may be null. In this case the
+   * file will be empty.
+   * @return {@link CompletableFuture} Future that will be completed as soon as the content is written. Problems when
+   * writing the file will be reported through the future. The method never returns null.
+   */
+  public CompletableFuture<Void> writeFileContentAsync( File pFile, byte[] pFileContent ) {
+    return this.writeFileContentAsync(pFile, pFileContent, defaultAsyncExecutor);
+  }
+
+  /**
+   * Method writes the passed content asynchronously to the passed file. If the file already exists it will be
+   * overwritten.
+   *
+   * @param pFile File whose content should be written. The parameter must not be null.
+   * @param pFileContent Byte array with the content that should be written. The parameter may be null. In this case the
+   * file will be empty.
+   * @param pExecutor Executor that should be used to handle I/O events and to complete the returned future. The
+   * parameter may be null. In this case the default thread pool of the JVM will be used.
+   * @return {@link CompletableFuture} Future that will be completed as soon as the content is written. Problems when
+   * writing the file will be reported through the future. The method never returns null.
+   */
+  public CompletableFuture<Void> writeFileContentAsync( File pFile, byte[] pFileContent, ExecutorService pExecutor ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pFile, "pFile");
+
+    byte[] lContent;
+    if (pFileContent != null) {
+      lContent = pFileContent;
+    }
+    else {
+      lContent = new byte[0];
+    }
+    AsyncFileWriteOperation lOperation =
+        new AsyncFileWriteOperation(pFile.toPath(), lContent, pExecutor, this.getDirectBuffer());
+    lOperation.start();
+    return lOperation.getFuture();
+  }
+
+  /**
+   * Method copies the file with the passed name asynchronously to the passed destination.
+   *
+   * @param pSource Name of the file that should be copied. The parameter must not be null.
+   * @param pDestination Name of the destination file. The parameter must not be null.
+   * @return {@link CompletableFuture} Future that will be completed with the size of the copied file in bytes. If the
+   * destination file already exists then the future will be completed with a {@link JEAFSystemException}. The method
+   * never returns null.
+   */
+  public CompletableFuture<Long> copyFileAsync( String pSource, String pDestination ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pSource, "pSource");
+    Check.checkInvalidParameterNull(pDestination, "pDestination");
+
+    // Copy file.
+    return this.copyFileAsync(new File(pSource), new File(pDestination));
+  }
+
+  /**
+   * Method copies the passed file asynchronously to the passed destination.
+   *
+   * @param pSource File that should be copied. The parameter must not be null.
+   * @param pDestination Destination file. The parameter must not be null.
+   * @return {@link CompletableFuture} Future that will be completed with the size of the copied file in bytes. If the
+   * destination file already exists then the future will be completed with a {@link JEAFSystemException}. The method
+   * never returns null.
+   */
+  public CompletableFuture<Long> copyFileAsync( File pSource, File pDestination ) {
+    return this.copyFileAsync(pSource, pDestination, defaultAsyncExecutor);
+  }
+
+  /**
+   * Method copies the passed file asynchronously to the passed destination.
+   *
+   * @param pSource File that should be copied. The parameter must not be null.
+   * @param pDestination Destination file. The parameter must not be null.
+   * @param pExecutor Executor that should be used to handle I/O events and to complete the returned future. The
+   * parameter may be null. In this case the default thread pool of the JVM will be used.
+   * @return {@link CompletableFuture} Future that will be completed with the size of the copied file in bytes. If the
+   * destination file already exists then the future will be completed with a {@link JEAFSystemException}. The method
+   * never returns null.
+   */
+  public CompletableFuture<Long> copyFileAsync( File pSource, File pDestination, ExecutorService pExecutor ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pSource, "pSource");
+    Check.checkInvalidParameterNull(pDestination, "pDestination");
+
+    AsyncFileCopyOperation lOperation =
+        new AsyncFileCopyOperation(pSource, pDestination, pExecutor, this.getDirectBuffer());
+    lOperation.start();
+    return lOperation.getFuture();
+  }
+
+  /**
+   * Method returns a direct byte buffer for channel based file operations. In case that the pool is overloaded for some
+   * reason then the method will return an unpooled buffer.
+   *
+   * @return {@link PoolableByteBuffer} The requested buffer. The method never returns null.
+   */
+  PoolableByteBuffer getDirectBuffer( ) {
+    PoolableByteBuffer lBuffer;
+    try {
+      lBuffer = directBufferPool.claim(TIMEOUT);
+    }
+    // Unable to get buffer from pool. In this case we create a new buffer that afterwards will be removed by the
+    // garbage collector.
+    catch (PoolException e) {
+      XFun.getTrace().error(
+          "Exception when trying to claim object from buffer pool. Working with unpooled object instead. Please check root cause.");
+      XFun.getTrace().error(e.getMessage(), e);
+      lBuffer = null;
+    }
+    catch (InterruptedException e) {
+      XFun.getTrace().error(e.getMessage(), e);
+      Thread.currentThread().interrupt();
+      lBuffer = null;
+    }
+
+    // There might be situations where a buffer can not be claimed from pool.
+    if (lBuffer == null) {
+      lBuffer = new PoolableByteBuffer(DIRECT_BUFFER_SIZE, null);
+    }
+    return lBuffer;
+  }
+
   /**
    * Method copies the content of the input stream to the passed output stream.
    * 
@@ -1356,6 +1736,106 @@ public final class FileToolsImpl implements FileTools {
     return DateTools.getDateTools().toCalendar(lFileAttributes.lastAccessTime());
   }
 
+  /**
+   * Method returns an immutable snapshot of the basic attributes (size, times, type) of the passed file. In contrast to
+   * the methods that return single attributes as {@link Date} or {@link Calendar} all attributes are resolved with one
+   * single file system access.
+   * 
+   * @param pFile File whose attributes should be returned. The parameter must not be null.
+   * @return {@link FileAttributeSnapshot} Snapshot of the file attributes. The method never returns null.
+   * @throws JEAFSystemException in case that the file attributes can not be accessed.
+   */
+  public FileAttributeSnapshot getFileAttributeSnapshot( File pFile ) throws JEAFSystemException {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pFile, "pFile");
+
+    return new FileAttributeSnapshot(pFile, this.getFileAttributes(pFile));
+  }
+
+  /**
+   * Method returns immutable snapshots of the basic attributes (size, times, type) of all passed files.
+   * 
+   * @param pFiles Files whose attributes should be returned. The parameter must not be null.
+   * @param pParallel Parameter defines whether the attributes should be resolved in parallel. For large amounts of
+   * files this reduces the overall time as file system accesses are executed concurrently.
+   * @return {@link List} List with the snapshots of the passed files. The order of the list matches the order of the
+   * passed files. The method never returns null.
+   * @throws JEAFSystemException in case that the file attributes of one of the files can not be accessed.
+   */
+  public List<FileAttributeSnapshot> getFileAttributeSnapshots( List<File> pFiles, boolean pParallel )
+    throws JEAFSystemException {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pFiles, "pFiles");
+
+    Stream<File> lStream;
+    if (pParallel == true) {
+      lStream = pFiles.parallelStream();
+    }
+    else {
+      lStream = pFiles.stream();
+    }
+    return lStream.map(this::getFileAttributeSnapshot).collect(Collectors.toList());
+  }
+
+  /**
+   * Method calculates the digest of the passed file using the passed algorithm (e.g. "SHA-256"). The file is memory
+   * mapped in chunks so its content is never loaded to the heap.
+   * 
+   * @param pFile File whose digest should be calculated. The parameter must not be null.
+   * @param pAlgorithm Name of the digest algorithm. The parameter must not be null.
+   * @return byte[] Digest of the file. The method never returns null.
+   * @throws IOException in case that the file could not be read.
+   * @throws JEAFSystemException in case that the passed algorithm is unknown.
+   */
+  public byte[] hashFile( File pFile, String pAlgorithm ) throws IOException {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pFile, "pFile");
+    Check.checkInvalidParameterNull(pAlgorithm, "pAlgorithm");
+
+    return FileHasher.hash(pFile, pAlgorithm);
+  }
+
+  /**
+   * Method calculates the SHA-256 tree hash (Merkle tree) of the passed file. The file is split into chunks of
+   * {@link #DEFAULT_TREE_HASH_CHUNK_SIZE} bytes that are memory mapped and hashed in parallel using the common fork join
+   * pool. Please be aware that the result is not the same as the plain SHA-256 digest of the file.
+   * 
+   * @param pFile File whose tree hash should be calculated. The parameter must not be null.
+   * @return byte[] Root hash of the file. The method never returns null.
+   * @throws IOException in case that the file could not be read.
+   */
+  public byte[] hashFileTree( File pFile ) throws IOException {
+    return this.hashFileTree(pFile, DEFAULT_TREE_HASH_CHUNK_SIZE, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Method calculates the SHA-256 tree hash (Merkle tree) of the passed file. The file is split into chunks that are
+   * memory mapped and hashed in parallel using the passed executor. Please be aware that the result is not the same as
+   * the plain SHA-256 digest of the file.
+   * 
+   * @param pFile File whose tree hash should be calculated. The parameter must not be null.
+   * @param pChunkSize Size of the chunks in bytes. The resulting hash depends on the chunk size. So the same chunk size
+   * has to be used for hashes that should be compared. If the parameter is 0 or less then
+   * {@link #DEFAULT_TREE_HASH_CHUNK_SIZE} will be used.
+   * @param pExecutor Executor that should be used to hash the chunks. The parameter must not be null.
+   * @return byte[] Root hash of the file. The method never returns null.
+   * @throws IOException in case that the file could not be read.
+   */
+  public byte[] hashFileTree( File pFile, int pChunkSize, ExecutorService pExecutor ) throws IOException {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pFile, "pFile");
+    Check.checkInvalidParameterNull(pExecutor, "pExecutor");
+
+    int lChunkSize;
+    if (pChunkSize > 0) {
+      lChunkSize = pChunkSize;
+    }
+    else {
+      lChunkSize = DEFAULT_TREE_HASH_CHUNK_SIZE;
+    }
+    return FileHasher.treeHash(pFile, lChunkSize, pExecutor);
+  }
+
   /**
    * Method returns the file attributes of Java NIO
    * 
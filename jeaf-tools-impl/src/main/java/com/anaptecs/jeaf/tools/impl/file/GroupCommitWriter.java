@@ -0,0 +1,317 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+
+/**
+ * Class implements durable and atomic writes of files into one directory. The content of a file is always written to a
+ * temporary file in the same directory which is forced to disk and then atomically renamed to its final name. To make
+ * the rename itself durable the directory has to be forced as well.
+ *
+ * As forcing a directory is rather expensive, concurrent writers into the same directory are grouped (group commit).
+ * The first writer of a batch becomes the leader. It waits for the batch window, renames all files of the batch and
+ * then forces the directory once for the whole batch. All other writers of the batch just wait until the leader has
+ * committed their file.
+ *
+ * @author JEAF Development Team
+ */
+final class GroupCommitWriter {
+  /**
+   * Suffix of temporary files.
+   */
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  /**
+   * Directory to which this writer writes.
+   */
+  private final Path directory;
+
+  /**
+   * Time in nanoseconds the leader of a batch waits for other writers to join the batch.
+   */
+  private final long batchWindow;
+
+  /**
+   * Lock object for {@link #pendingWrites} and {@link #leaderActive}.
+   */
+  private final Object lock = new Object();
+
+  /**
+   * Writes that are not yet committed.
+   */
+  private List<PendingWrite> pendingWrites = new ArrayList<>();
+
+  /**
+   * Flag indicates whether there is currently a leader collecting a batch.
+   */
+  private boolean leaderActive = false;
+
+  /**
+   * Number of writers that are currently using this object. The counter is only changed while the map that holds this
+   * object locks the entry of the directory.
+   */
+  private int activeWriters = 0;
+
+  /**
+   * Initialize object.
+   *
+   * @param pDirectory Directory to which this writer writes. The parameter must not be null.
+   * @param pBatchWindow Time in nanoseconds the leader of a batch waits for other writers.
+   */
+  GroupCommitWriter( Path pDirectory, long pBatchWindow ) {
+    directory = pDirectory;
+    batchWindow = pBatchWindow;
+  }
+
+  /**
+   * Method registers a new writer that is going to use this object.
+   */
+  void retain( ) {
+    activeWriters++;
+  }
+
+  /**
+   * Method unregisters a writer that no longer uses this object.
+   *
+   * @return boolean Method returns true if no more writers use this object and it can be discarded.
+   */
+  boolean release( ) {
+    activeWriters--;
+    return activeWriters == 0;
+  }
+
+  /**
+   * Method writes the passed content durably to the passed target file. The method returns as soon as the file and the
+   * batch it belongs to are committed.
+   *
+   * @param pTarget File that should be written. The file must be located in the directory of this writer. The
+   * parameter must not be null.
+   * @param pContent Content that should be written. The parameter must not be null.
+   * @throws IOException in case that the file could not be written.
+   */
+  void write( Path pTarget, byte[] pContent ) throws IOException {
+    // Write content to temporary file. This happens concurrently for all writers.
+    Path lTempFile = writeTempFile(directory, pTarget, pContent);
+    PendingWrite lWrite = new PendingWrite(lTempFile, pTarget);
+
+    // Enqueue write and check if we have to act as leader of the batch.
+    boolean lLeader;
+    synchronized (lock) {
+      pendingWrites.add(lWrite);
+      lLeader = !leaderActive;
+      if (lLeader == true) {
+        leaderActive = true;
+      }
+    }
+
+    if (lLeader == true) {
+      // Give other writers the chance to join this batch.
+      LockSupport.parkNanos(batchWindow);
+
+      // Take current batch. Writers arriving from now on will start a new batch.
+      List<PendingWrite> lBatch;
+      synchronized (lock) {
+        lBatch = pendingWrites;
+        pendingWrites = new ArrayList<>();
+        leaderActive = false;
+      }
+      this.commit(lBatch);
+    }
+
+    // Wait until our write is committed.
+    lWrite.await();
+  }
+
+  /**
+   * Method commits the passed batch. All temporary files are renamed and the directory is forced once. All writers of
+   * the batch are released in any case. If the commit fails unexpectedly then the failure is passed to all writers whose
+   * file was not committed and thrown to the leader.
+   *
+   * @param pBatch Writes that should be committed. The parameter must not be null.
+   */
+  private void commit( List<PendingWrite> pBatch ) {
+    IOException lBatchException = null;
+    try {
+      // Rename all files of the batch.
+      for (PendingWrite lWrite : pBatch) {
+        try {
+          moveAtomically(lWrite.tempFile, lWrite.target);
+        }
+        catch (IOException e) {
+          lWrite.exception = e;
+          deleteQuietly(lWrite.tempFile);
+        }
+      }
+
+      // Force directory once for the whole batch.
+      try {
+        forceDirectory(directory);
+      }
+      catch (IOException e) {
+        lBatchException = e;
+      }
+    }
+    catch (RuntimeException | Error e) {
+      lBatchException = new IOException("Unable to commit batch of files in directory " + directory, e);
+      for (PendingWrite lWrite : pBatch) {
+        deleteQuietly(lWrite.tempFile);
+      }
+      throw e;
+    }
+    // Release all waiting writers.
+    finally {
+      for (PendingWrite lWrite : pBatch) {
+        if (lWrite.exception == null) {
+          lWrite.exception = lBatchException;
+        }
+        lWrite.committed.countDown();
+      }
+    }
+  }
+
+  /**
+   * Method writes the passed content to a new temporary file in the passed directory and forces it to disk.
+   *
+   * @param pDirectory Directory in which the temporary file should be created. The parameter must not be null.
+   * @param pTarget Final file. Its name is used as prefix for the temporary file. The parameter must not be null.
+   * @param pContent Content that should be written. The parameter must not be null.
+   * @return {@link Path} Temporary file that was written. The method never returns null.
+   * @throws IOException in case that the temporary file could not be written.
+   */
+  static Path writeTempFile( Path pDirectory, Path pTarget, byte[] pContent ) throws IOException {
+    Path lTempFile = Files.createTempFile(pDirectory, "." + pTarget.getFileName(), TEMP_FILE_SUFFIX);
+    try (FileChannel lChannel = FileChannel.open(lTempFile, StandardOpenOption.WRITE)) {
+      ByteBuffer lBuffer = ByteBuffer.wrap(pContent);
+      while (lBuffer.hasRemaining()) {
+        lChannel.write(lBuffer);
+      }
+      lChannel.force(true);
+      return lTempFile;
+    }
+    catch (IOException | RuntimeException e) {
+      deleteQuietly(lTempFile);
+      throw e;
+    }
+  }
+
+  /**
+   * Method atomically renames the passed temporary file to its final name. An existing file will be replaced.
+   *
+   * @param pTempFile Temporary file. The parameter must not be null.
+   * @param pTarget Final file. The parameter must not be null.
+   * @throws IOException in case that the file could not be renamed.
+   */
+  static void moveAtomically( Path pTempFile, Path pTarget ) throws IOException {
+    Files.move(pTempFile, pTarget, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Method forces the passed directory to disk so that renames within the directory become durable. Some operating
+   * systems (e.g. Windows) do not support to open a directory. There renames are durable anyway and the call is
+   * ignored.
+   *
+   * @param pDirectory Directory that should be forced. The parameter must not be null.
+   * @throws IOException in case that the directory could not be forced.
+   */
+  static void forceDirectory( Path pDirectory ) throws IOException {
+    FileChannel lChannel;
+    try {
+      lChannel = FileChannel.open(pDirectory, StandardOpenOption.READ);
+    }
+    // Directory can not be opened on this platform.
+    catch (IOException e) {
+      lChannel = null;
+    }
+
+    if (lChannel != null) {
+      try (FileChannel lDirectoryChannel = lChannel) {
+        lDirectoryChannel.force(true);
+      }
+    }
+  }
+
+  /**
+   * Method deletes the passed file and ignores all problems.
+   *
+   * @param pFile File that should be deleted. The parameter must not be null.
+   */
+  static void deleteQuietly( Path pFile ) {
+    try {
+      Files.deleteIfExists(pFile);
+    }
+    catch (IOException e) {
+      XFun.getTrace().error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Class represents a write that is waiting for its commit.
+   */
+  private static final class PendingWrite {
+    /**
+     * Temporary file that was written.
+     */
+    private final Path tempFile;
+
+    /**
+     * Final file.
+     */
+    private final Path target;
+
+    /**
+     * Latch is released as soon as the write is committed.
+     */
+    private final CountDownLatch committed = new CountDownLatch(1);
+
+    /**
+     * Exception that occurred during commit. Field is written before {@link #committed} is released.
+     */
+    private IOException exception;
+
+    /**
+     * Initialize object.
+     *
+     * @param pTempFile Temporary file that was written. The parameter must not be null.
+     * @param pTarget Final file. The parameter must not be null.
+     */
+    PendingWrite( Path pTempFile, Path pTarget ) {
+      tempFile = pTempFile;
+      target = pTarget;
+    }
+
+    /**
+     * Method waits until the write is committed.
+     *
+     * @throws IOException in case that the commit failed or the current thread was interrupted.
+     */
+    void await( ) throws IOException {
+      try {
+        committed.await();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for commit of file " + target);
+      }
+      if (exception != null) {
+        throw exception;
+      }
+    }
+  }
+}
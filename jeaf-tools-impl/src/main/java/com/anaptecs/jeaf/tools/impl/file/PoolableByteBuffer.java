@@ -0,0 +1,72 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import java.nio.ByteBuffer;
+
+import stormpot.Poolable;
+import stormpot.Slot;
+
+/**
+ * Class implements a poolable direct byte buffer. Direct buffers are rather expensive to allocate and are only released
+ * by the garbage collector. So pooling them avoids both, allocation costs and native memory growth when files are read
+ * or written through NIO channels.
+ *
+ * Implementations using this class must ensure that they return objects back to the pool again ({@link #release()}).
+ * Not returning objects to the pool will end up in memory leaks.
+ *
+ * @author JEAF Development Team
+ */
+public class PoolableByteBuffer implements Poolable {
+  /**
+   * Location inside a pool where this instance is stored.
+   */
+  private final Slot slot;
+
+  /**
+   * Direct byte buffer that is actually pooled.
+   */
+  private final ByteBuffer byteBuffer;
+
+  /**
+   * Initialize object.
+   *
+   * @param pSize Size of the direct byte buffer that should be pooled.
+   * @param pSlot Slot that is used to communicate with the pool. The parameter may be null.
+   */
+  public PoolableByteBuffer( int pSize, Slot pSlot ) {
+    byteBuffer = ByteBuffer.allocateDirect(pSize);
+    slot = pSlot;
+  }
+
+  /**
+   * Method returns the pooled byte buffer. Access to the byte buffer is not protected. So you have to ensure yourself
+   * that not multiple threads will use it at the same time.
+   *
+   * @return {@link ByteBuffer} Direct byte buffer that is pooled. The method never returns null.
+   */
+  public ByteBuffer getByteBuffer( ) {
+    return byteBuffer;
+  }
+
+  /**
+   * Method returns the pooled byte buffer back to the pool if it is connected with one. This also means that the buffer
+   * is cleared again. As the object is now back in the pool it must not be used any longer.
+   *
+   * Please ensure that the object will be returned to the pool again, by calling this method. Otherwise memory leaks
+   * will occur.
+   */
+  @Override
+  public void release( ) {
+    // Reset position and limit. Content will be overwritten by the next user anyway.
+    byteBuffer.clear();
+
+    // Return byte buffer back to pool
+    if (slot != null) {
+      slot.release(this);
+    }
+  }
+}
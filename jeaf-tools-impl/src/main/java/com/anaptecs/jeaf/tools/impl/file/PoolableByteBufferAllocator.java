@@ -0,0 +1,40 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.file;
+
+import stormpot.Allocator;
+import stormpot.Slot;
+
+/**
+ * Class is a factory class to create pooled direct byte buffers.
+ *
+ * @author JEAF Development Team
+ */
+public class PoolableByteBufferAllocator implements Allocator<PoolableByteBuffer> {
+  /**
+   * Size of the direct byte buffers that will be created.
+   */
+  private final int byteBufferSize;
+
+  /**
+   * Initialize object.
+   *
+   * @param pByteBufferSize Size of the direct byte buffers that will be created.
+   */
+  public PoolableByteBufferAllocator( int pByteBufferSize ) {
+    byteBufferSize = pByteBufferSize;
+  }
+
+  @Override
+  public PoolableByteBuffer allocate( Slot pSlot ) {
+    return new PoolableByteBuffer(byteBufferSize, pSlot);
+  }
+
+  @Override
+  public void deallocate( PoolableByteBuffer pPoolable ) {
+    // Nothing to do. Native memory will be released by the garbage collector.
+  }
+}
@@ -0,0 +1,381 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Class implements asynchronous recording of timers and counters. Recording threads only publish primitive events
+ * (index of the meter and value) into a bounded lock-free ring buffer that supports multiple producers and a single
+ * consumer. A background thread drains the ring buffer in batches and passes the events to the Micrometer meters.
+ * This way contention inside the meter registry is moved away from the recording threads.
+ *
+ * Publishing an event does not create any objects. Meters have to be registered once using {@link #register(Meter)}.
+ * The returned index is then used for all events of this meter.
+ *
+ * After the recorder was closed all recordings are passed synchronously to the meters.
+ *
+ * @author JEAF Development Team
+ */
+final class AsyncMetricRecorder implements AutoCloseable {
+  /**
+   * Counter is used to create unique names for drain threads.
+   */
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  /**
+   * Time in nanoseconds the drain thread waits in case that the ring buffer is empty.
+   */
+  private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Time in nanoseconds a recording thread waits in case that the ring buffer is full and policy
+   * {@link OverflowPolicy#BLOCK} is used.
+   */
+  private static final long BLOCK_WAIT = TimeUnit.MICROSECONDS.toNanos(10);
+
+  /**
+   * Capacity of the ring buffer. The capacity is always a power of 2.
+   */
+  private final int capacity;
+
+  /**
+   * Mask to calculate the slot of a position in the ring buffer.
+   */
+  private final int mask;
+
+  /**
+   * Sequence of every slot. A slot can be written by the producer that claimed position p if its sequence is p and it
+   * can be read by the consumer if its sequence is p + 1.
+   */
+  private final AtomicLongArray sequences;
+
+  /**
+   * Index of the meter of every slot.
+   */
+  private final int[] meterIndexes;
+
+  /**
+   * Value of every slot. For timers the value is a duration in nanoseconds, for counters it contains the bits of the
+   * amount.
+   */
+  private final long[] values;
+
+  /**
+   * Next position that will be claimed by a producer.
+   */
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Position up to which all events were read and passed to their meters. The field is only written while holding the
+   * lock of {@link #drain()}.
+   */
+  private volatile long head;
+
+  /**
+   * Max. number of events that are processed by the drain thread in one batch.
+   */
+  private final int batchSize;
+
+  /**
+   * Policy that is applied if the ring buffer is full.
+   */
+  private final OverflowPolicy overflowPolicy;
+
+  /**
+   * Counter for all events that were dropped as the ring buffer was full.
+   */
+  private final Counter droppedEvents;
+
+  /**
+   * Map contains the index of all registered meters.
+   */
+  private final Map<Meter.Id, Integer> meterIndexMap = new ConcurrentHashMap<>();
+
+  /**
+   * All registered meters. The array is replaced whenever it has to grow.
+   */
+  private volatile Meter[] meters = new Meter[64];
+
+  /**
+   * Number of registered meters.
+   */
+  private int meterCount;
+
+  /**
+   * Flag indicates whether the recorder is still running.
+   */
+  private volatile boolean running = true;
+
+  /**
+   * Thread that drains the ring buffer.
+   */
+  private final Thread drainThread;
+
+  /**
+   * Initialize object and start the drain thread.
+   *
+   * @param pBufferSize Min. number of events that can be kept in the ring buffer. The size will be rounded up to the
+   * next power of 2. The parameter must be greater than zero.
+   * @param pBatchSize Max. number of events that are processed by the drain thread in one batch. The parameter must be
+   * greater than zero.
+   * @param pOverflowPolicy Policy that is applied if the ring buffer is full. The parameter must not be null.
+   * @param pDroppedEvents Counter that is incremented for every dropped event. The parameter must not be null.
+   */
+  AsyncMetricRecorder( int pBufferSize, int pBatchSize, OverflowPolicy pOverflowPolicy, Counter pDroppedEvents ) {
+    capacity = Integer.highestOneBit(Math.max(pBufferSize - 1, 1)) << 1;
+    mask = capacity - 1;
+    sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+    meterIndexes = new int[capacity];
+    values = new long[capacity];
+    batchSize = pBatchSize;
+    overflowPolicy = pOverflowPolicy;
+    droppedEvents = pDroppedEvents;
+
+    // Start drain thread.
+    drainThread = new Thread(this::drainLoop, "JEAF-Metric-Recorder-" + THREAD_COUNTER.incrementAndGet());
+    drainThread.setDaemon(true);
+    drainThread.start();
+  }
+
+  /**
+   * Method returns the capacity of the ring buffer.
+   *
+   * @return int Number of events that can be kept in the ring buffer.
+   */
+  int getCapacity( ) {
+    return capacity;
+  }
+
+  /**
+   * Method returns the overflow policy of this recorder.
+   *
+   * @return {@link OverflowPolicy} Overflow policy of this recorder. The method never returns null.
+   */
+  OverflowPolicy getOverflowPolicy( ) {
+    return overflowPolicy;
+  }
+
+  /**
+   * Method registers the passed meter. Registering the same meter several times always returns the same index.
+   *
+   * @param pMeter Timer or counter that should be registered. The parameter must not be null.
+   * @return int Index of the meter that has to be used when publishing events for it.
+   */
+  int register( Meter pMeter ) {
+    Integer lIndex = meterIndexMap.get(pMeter.getId());
+    if (lIndex == null) {
+      synchronized (meterIndexMap) {
+        lIndex = meterIndexMap.get(pMeter.getId());
+        if (lIndex == null) {
+          Meter[] lMeters = meters;
+          if (meterCount == lMeters.length) {
+            lMeters = Arrays.copyOf(lMeters, lMeters.length * 2);
+          }
+          lMeters[meterCount] = pMeter;
+          meters = lMeters;
+          lIndex = meterCount++;
+          meterIndexMap.put(pMeter.getId(), lIndex);
+        }
+      }
+    }
+    return lIndex;
+  }
+
+  /**
+   * Method records the passed duration for the timer with the passed index.
+   *
+   * @param pMeterIndex Index of the timer as it was returned by {@link #register(Meter)}.
+   * @param pNanos Duration in nanoseconds.
+   */
+  void recordTimer( int pMeterIndex, long pNanos ) {
+    this.publish(pMeterIndex, pNanos);
+  }
+
+  /**
+   * Method increments the counter with the passed index.
+   *
+   * @param pMeterIndex Index of the counter as it was returned by {@link #register(Meter)}.
+   * @param pAmount Amount by which the counter should be incremented.
+   */
+  void incrementCounter( int pMeterIndex, double pAmount ) {
+    this.publish(pMeterIndex, Double.doubleToRawLongBits(pAmount));
+  }
+
+  /**
+   * Method publishes the passed event into the ring buffer.
+   *
+   * @param pMeterIndex Index of the meter to which the event belongs.
+   * @param pValue Value of the event.
+   */
+  private void publish( int pMeterIndex, long pValue ) {
+    // After the recorder was closed events are applied directly.
+    if (running == true) {
+      long lPosition = tail.get();
+      while (true) {
+        int lSlot = (int) (lPosition & mask);
+        long lSequence = sequences.get(lSlot);
+
+        // Slot is free so we try to claim it.
+        if (lSequence == lPosition) {
+          if (tail.compareAndSet(lPosition, lPosition + 1) == true) {
+            meterIndexes[lSlot] = pMeterIndex;
+            values[lSlot] = pValue;
+            sequences.set(lSlot, lPosition + 1);
+
+            // Recorder was closed while the event was published. As the drain thread and close() might already have
+            // drained the ring buffer, the event has to be drained by the producer itself.
+            if (running == false) {
+              this.drainAll();
+            }
+            break;
+          }
+          else {
+            lPosition = tail.get();
+          }
+        }
+        // Ring buffer is full.
+        else if (lSequence < lPosition) {
+          if (overflowPolicy == OverflowPolicy.DROP || running == false) {
+            droppedEvents.increment();
+            break;
+          }
+          else {
+            LockSupport.parkNanos(BLOCK_WAIT);
+            lPosition = tail.get();
+          }
+        }
+        // Another producer claimed the slot in the meantime.
+        else {
+          lPosition = tail.get();
+        }
+      }
+    }
+    else {
+      this.apply(pMeterIndex, pValue);
+    }
+  }
+
+  /**
+   * Method passes the event to its meter.
+   *
+   * @param pMeterIndex Index of the meter to which the event belongs.
+   * @param pValue Value of the event.
+   */
+  private void apply( int pMeterIndex, long pValue ) {
+    Meter lMeter = meters[pMeterIndex];
+    if (lMeter instanceof Timer) {
+      ((Timer) lMeter).record(pValue, TimeUnit.NANOSECONDS);
+    }
+    else {
+      ((Counter) lMeter).increment(Double.longBitsToDouble(pValue));
+    }
+  }
+
+  /**
+   * Method drains the next batch of events from the ring buffer. Events are consumed even if their meter fails so that
+   * a single failing meter can not block the ring buffer. While the recorder is running the method is only called by
+   * the drain thread. It is synchronized as producers also drain the ring buffer after the recorder was closed.
+   *
+   * @return int Number of events that were drained.
+   */
+  private synchronized int drain( ) {
+    long lHead = head;
+    int lDrained = 0;
+    while (lDrained < batchSize) {
+      int lSlot = (int) (lHead & mask);
+      if (sequences.get(lSlot) == lHead + 1) {
+        int lMeterIndex = meterIndexes[lSlot];
+        long lValue = values[lSlot];
+        sequences.lazySet(lSlot, lHead + capacity);
+        lHead++;
+        lDrained++;
+        try {
+          this.apply(lMeterIndex, lValue);
+        }
+        catch (RuntimeException e) {
+          XFun.getTrace().error("Unable to apply asynchronous metric recording.", e);
+        }
+        // Head is only moved after the event was applied as flush() relies on it.
+        head = lHead;
+      }
+      else {
+        break;
+      }
+    }
+    return lDrained;
+  }
+
+  /**
+   * Method implements the loop of the drain thread.
+   */
+  private void drainLoop( ) {
+    while (running == true) {
+      if (this.drain() == 0) {
+        LockSupport.parkNanos(this, IDLE_WAIT);
+      }
+    }
+    // Process all events that were published before the recorder was closed.
+    this.drainAll();
+  }
+
+  /**
+   * Method drains all events that are currently available in the ring buffer.
+   */
+  private void drainAll( ) {
+    while (this.drain() > 0) {
+      // Nothing to do.
+    }
+  }
+
+  /**
+   * Method waits until all events that were published before this call are passed to their meters.
+   *
+   * @throws InterruptedException if the calling thread is interrupted while waiting.
+   */
+  void flush( ) throws InterruptedException {
+    long lTarget = tail.get();
+    while (head < lTarget && drainThread.isAlive() == true) {
+      LockSupport.unpark(drainThread);
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Method stops the drain thread. All pending events will still be passed to their meters. Events that are published
+   * afterwards are applied directly by the recording thread.
+   */
+  @Override
+  public void close( ) {
+    running = false;
+    LockSupport.unpark(drainThread);
+    try {
+      drainThread.join();
+
+      // Events of producers that passed the running check just before the recorder was closed.
+      this.drainAll();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
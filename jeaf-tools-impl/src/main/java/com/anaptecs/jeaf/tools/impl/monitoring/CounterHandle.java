@@ -0,0 +1,99 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring;
+
+import com.anaptecs.jeaf.tools.api.monitoring.CounterInfo;
+import com.anaptecs.jeaf.tools.api.monitoring.Tag;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Class represents a pre-resolved counter. Handles are created through
+ * {@link MonitoringToolsImpl#getCounter(String, Tag...)} and are intended to be kept by the caller (e.g. in a static
+ * field) so that increments neither require a lookup in the meter registry nor a conversion of tags.
+ *
+ * Instances of this class are thread safe.
+ *
+ * @author JEAF Development Team
+ */
+public final class CounterHandle {
+  /**
+   * Micrometer counter to which all increments are passed.
+   */
+  private final Counter counter;
+
+  /**
+   * Recorder that is used in asynchronous mode. In synchronous mode the field is null.
+   */
+  private final AsyncMetricRecorder asyncRecorder;
+
+  /**
+   * Index of the counter inside {@link #asyncRecorder}.
+   */
+  private final int meterIndex;
+
+  /**
+   * Initialize object.
+   *
+   * @param pCounter Micrometer counter that is represented by this handle. The parameter must not be null.
+   * @param pAsyncRecorder Recorder that should be used for asynchronous recording. The parameter may be null. In this
+   * case all increments are passed synchronously to the counter.
+   */
+  CounterHandle( Counter pCounter, AsyncMetricRecorder pAsyncRecorder ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pCounter, "pCounter");
+
+    counter = pCounter;
+    asyncRecorder = pAsyncRecorder;
+    if (pAsyncRecorder != null) {
+      meterIndex = pAsyncRecorder.register(pCounter);
+    }
+    else {
+      meterIndex = -1;
+    }
+  }
+
+  /**
+   * Method returns the name of the counter.
+   *
+   * @return {@link String} Name of the counter. The method always returns a real string.
+   */
+  public String getName( ) {
+    return counter.getId().getName();
+  }
+
+  /**
+   * Method increments the counter by one.
+   */
+  public void increment( ) {
+    this.increment(1);
+  }
+
+  /**
+   * Method increments the counter by the passed amount.
+   *
+   * @param pAmount Amount by which the counter should be incremented. The value must not be negative.
+   */
+  public void increment( double pAmount ) {
+    if (asyncRecorder == null) {
+      counter.increment(pAmount);
+    }
+    else {
+      asyncRecorder.incrementCounter(meterIndex, pAmount);
+    }
+  }
+
+  /**
+   * Method returns status information about the counter. In asynchronous mode increments that are not yet drained from
+   * the ring buffer are not included (see {@link MonitoringToolsImpl#flushRecordings()}).
+   *
+   * @return {@link CounterInfo} Status information about the counter. The method never returns null.
+   */
+  public CounterInfo getCounterInfo( ) {
+    return new CounterInfoImpl(counter);
+  }
+}
@@ -5,8 +5,11 @@
  */
 package com.anaptecs.jeaf.tools.impl.monitoring;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.ToDoubleFunction;
 
@@ -16,19 +19,143 @@ import com.anaptecs.jeaf.tools.api.monitoring.GaugeInfo;
 import com.anaptecs.jeaf.tools.api.monitoring.MonitoringToken;
 import com.anaptecs.jeaf.tools.api.monitoring.MonitoringTools;
 import com.anaptecs.jeaf.tools.api.monitoring.Tag;
-import com.anaptecs.jeaf.tools.api.monitoring.TimerInfo;
 import com.anaptecs.jeaf.tools.api.monitoring.TimerSample;
+import com.anaptecs.jeaf.xfun.api.XFun;
 import com.anaptecs.jeaf.xfun.api.checks.Check;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Gauge.Builder;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
 import io.micrometer.core.instrument.search.RequiredSearch;
 
 @ToolsImplementation(toolsInterface = MonitoringTools.class)
 public class MonitoringToolsImpl implements MonitoringTools {
+  /**
+   * Constant for name of system property that can be used to enable asynchronous recording of timers and counters. By
+   * default asynchronous recording is disabled.
+   */
+  public static final String ASYNC_RECORDING_PROPERTY = "jeaf.tools.monitoring.async";
+
+  /**
+   * Constant for name of system property that can be used to define the size of the ring buffer that is used for
+   * asynchronous recording.
+   */
+  public static final String ASYNC_BUFFER_SIZE_PROPERTY = "jeaf.tools.monitoring.async.buffer.size";
+
+  /**
+   * Constant for name of system property that can be used to define the overflow policy (DROP or BLOCK) that is
+   * applied when the ring buffer for asynchronous recording is full. By default recordings are dropped.
+   */
+  public static final String ASYNC_OVERFLOW_POLICY_PROPERTY = "jeaf.tools.monitoring.async.overflow.policy";
+
+  /**
+   * Constant for name of system property that can be used to enable JVM metrics (memory, buffer pools, garbage
+   * collection, threads and class loading). By default JVM metrics are disabled.
+   */
+  public static final String JVM_METRICS_PROPERTY = "jeaf.tools.monitoring.jvm.metrics";
+
+  /**
+   * Constant for name of system property that can be used to enable metrics about the internal state of JEAF Tools
+   * like pool sizes, claim times of pooled objects and cache statistics. By default these metrics are disabled.
+   *
+   * @see ToolsMetrics
+   */
+  public static final String TOOLS_METRICS_PROPERTY = "jeaf.tools.monitoring.tools.metrics";
+
+  /**
+   * Name of the counter that counts all recordings that were dropped in asynchronous mode.
+   */
+  public static final String DROPPED_RECORDINGS_COUNTER = "jeaf.monitoring.async.dropped";
+
+  /**
+   * Constant for name of system property that can be used to enable percentiles and histograms for timers. The
+   * property contains a comma separated list of timer names. A name ending with '*' matches all timers whose name
+   * starts with the part before the '*'.
+   */
+  public static final String HISTOGRAM_TIMERS_PROPERTY = "jeaf.tools.monitoring.histogram.timers";
+
+  /**
+   * Constant for name of system property that can be used to define the comma separated list of percentiles that are
+   * calculated for the timers defined by {@link #HISTOGRAM_TIMERS_PROPERTY}. By default p50, p95, p99 and p99.9 are
+   * calculated.
+   */
+  public static final String HISTOGRAM_PERCENTILES_PROPERTY = "jeaf.tools.monitoring.histogram.percentiles";
+
+  /**
+   * Constant for name of system property that can be used to define a comma separated list of service level objectives
+   * in milliseconds for the timers defined by {@link #HISTOGRAM_TIMERS_PROPERTY}. Every service level objective
+   * becomes a histogram bucket.
+   */
+  public static final String HISTOGRAM_SLO_PROPERTY = "jeaf.tools.monitoring.histogram.slos";
+
+  /**
+   * Constant for name of system property that can be used to publish a histogram with default buckets for the timers
+   * defined by {@link #HISTOGRAM_TIMERS_PROPERTY}. By default no such histogram is published.
+   */
+  public static final String HISTOGRAM_BUCKETS_PROPERTY = "jeaf.tools.monitoring.histogram.buckets";
+
+  /**
+   * Constant for name of system property that can be used to enable sampling for timers. The property contains a comma
+   * separated list of timer names. A name ending with '*' matches all timers whose name starts with the part before
+   * the '*'. Sampling only applies to {@link TimerHandle#start()} and {@link TimerHandle#stop(long)}.
+   */
+  public static final String SAMPLING_TIMERS_PROPERTY = "jeaf.tools.monitoring.sampling.timers";
+
+  /**
+   * Constant for name of system property that can be used to define the fixed sampling rate (every n-th call is
+   * recorded) of the timers defined by {@link #SAMPLING_TIMERS_PROPERTY}.
+   */
+  public static final String SAMPLING_RATE_PROPERTY = "jeaf.tools.monitoring.sampling.rate";
+
+  /**
+   * Constant for name of system property that can be used to enable adaptive sampling for the timers defined by
+   * {@link #SAMPLING_TIMERS_PROPERTY}. The property defines the max. number of recordings per second and timer.
+   */
+  public static final String SAMPLING_MAX_PER_SECOND_PROPERTY = "jeaf.tools.monitoring.sampling.max.per.second";
+
+  /**
+   * Constant for name of system property that can be used to define a threshold in milliseconds. Calls of the timers
+   * defined by {@link #SAMPLING_TIMERS_PROPERTY} that take at least that long are always recorded to a separate timer
+   * (see {@link #SLOW_CALLS_SUFFIX}).
+   */
+  public static final String SAMPLING_SLOW_THRESHOLD_PROPERTY = "jeaf.tools.monitoring.sampling.slow.threshold";
+
+  /**
+   * Suffix of the name of the counter that contains the extrapolated number of calls of a sampled timer.
+   */
+  public static final String SAMPLED_CALLS_SUFFIX = ".calls";
+
+  /**
+   * Suffix of the name of the timer that contains all calls of a sampled timer that exceeded the slow threshold.
+   */
+  public static final String SLOW_CALLS_SUFFIX = ".slow";
+
+  /**
+   * Default sampling rate if sampling is enabled through system properties.
+   */
+  private static final int DEFAULT_SAMPLING_RATE = 100;
+
+  /**
+   * Default size of the ring buffer that is used for asynchronous recording.
+   */
+  private static final int DEFAULT_ASYNC_BUFFER_SIZE = 65536;
+
+  /**
+   * Max. number of recordings that are drained from the ring buffer in one batch.
+   */
+  private static final int ASYNC_BATCH_SIZE = 1024;
+
   /**
    * Meter registry implementation as it was configured.
    */
@@ -39,6 +166,26 @@ public class MonitoringToolsImpl implements MonitoringTools {
    */
   private final TimeUnit defaultTimeUnit;
 
+  /**
+   * Recorder that is used in asynchronous mode. If asynchronous recording is disabled the field is null.
+   */
+  private volatile AsyncMetricRecorder asyncRecorder;
+
+  /**
+   * Histogram configurations of timers. The key is either the name of a timer or a name prefix ending with '*'.
+   */
+  private final Map<String, TimerHistogramConfig> histogramConfigs = new ConcurrentHashMap<>();
+
+  /**
+   * Sampling configurations of timers. The key is either the name of a timer or a name prefix ending with '*'.
+   */
+  private final Map<String, TimerSamplingConfig> samplingConfigs = new ConcurrentHashMap<>();
+
+  /**
+   * Parameter defines if JVM metrics are already bound to the meter registry.
+   */
+  private boolean jvmMetricsBound;
+
   /**
    * Initialize object using default configuration.
    */
@@ -54,6 +201,360 @@ public class MonitoringToolsImpl implements MonitoringTools {
   public MonitoringToolsImpl( MonitoringToolsConfiguration pConfiguration ) {
     meterRegistry = pConfiguration.loadMeterRegistryFactory().createMeterRegistry(pConfiguration.getDomain());
     defaultTimeUnit = pConfiguration.getDefaultTimeUnit();
+
+    // Distribution statistics of timers are configured when a timer is created.
+    meterRegistry.config().meterFilter(new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure( Meter.Id pId, DistributionStatisticConfig pConfig ) {
+        return MonitoringToolsImpl.this.configureDistribution(pId, pConfig);
+      }
+    });
+    String lHistogramTimers = System.getProperty(HISTOGRAM_TIMERS_PROPERTY);
+    if (lHistogramTimers != null) {
+      TimerHistogramConfig lHistogramConfig = this.loadHistogramConfig();
+      for (String lNext : lHistogramTimers.split(",")) {
+        if (lNext.trim().isEmpty() == false) {
+          this.configureTimerHistogram(lNext.trim(), lHistogramConfig);
+        }
+      }
+    }
+
+    // Sampling is only used for explicitly configured timers.
+    String lSamplingTimers = System.getProperty(SAMPLING_TIMERS_PROPERTY);
+    if (lSamplingTimers != null) {
+      TimerSamplingConfig lSamplingConfig = this.loadSamplingConfig();
+      for (String lNext : lSamplingTimers.split(",")) {
+        if (lNext.trim().isEmpty() == false) {
+          this.configureTimerSampling(lNext.trim(), lSamplingConfig);
+        }
+      }
+    }
+
+    // Asynchronous recording is only enabled if explicitly configured.
+    if (Boolean.getBoolean(ASYNC_RECORDING_PROPERTY) == true) {
+      int lBufferSize = Integer.getInteger(ASYNC_BUFFER_SIZE_PROPERTY, DEFAULT_ASYNC_BUFFER_SIZE);
+      if (lBufferSize <= 0) {
+        XFun.getTrace().warn("Invalid value " + lBufferSize + " for system property " + ASYNC_BUFFER_SIZE_PROPERTY
+            + ". Using default buffer size " + DEFAULT_ASYNC_BUFFER_SIZE + " instead.");
+        lBufferSize = DEFAULT_ASYNC_BUFFER_SIZE;
+      }
+      this.enableAsyncRecording(lBufferSize, loadOverflowPolicy());
+    }
+
+    // JVM metrics are only bound if explicitly configured.
+    if (Boolean.getBoolean(JVM_METRICS_PROPERTY) == true) {
+      this.bindJvmMetrics();
+    }
+  }
+
+  /**
+   * Method resolves the overflow policy for asynchronous recording from system property
+   * {@link #ASYNC_OVERFLOW_POLICY_PROPERTY}. Invalid values are ignored.
+   * 
+   * @return {@link OverflowPolicy} Configured overflow policy or {@link OverflowPolicy#DROP} if the property is not set
+   * or invalid. The method never returns null.
+   */
+  private static OverflowPolicy loadOverflowPolicy( ) {
+    String lPolicy = System.getProperty(ASYNC_OVERFLOW_POLICY_PROPERTY);
+    OverflowPolicy lOverflowPolicy = OverflowPolicy.DROP;
+    if (lPolicy != null) {
+      try {
+        lOverflowPolicy = OverflowPolicy.valueOf(lPolicy.trim().toUpperCase());
+      }
+      catch (IllegalArgumentException e) {
+        XFun.getTrace().warn("Invalid value '" + lPolicy + "' for system property " + ASYNC_OVERFLOW_POLICY_PROPERTY
+            + ". Using overflow policy " + lOverflowPolicy + " instead.");
+      }
+    }
+    return lOverflowPolicy;
+  }
+
+  /**
+   * Method binds the passed meter binder to the meter registry of the monitoring tools. This way any of Micrometer's
+   * binders or application specific binders can be used.
+   * 
+   * @param pMeterBinder Meter binder that should be bound. The parameter must not be null.
+   */
+  public void bindTo( MeterBinder pMeterBinder ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pMeterBinder, "pMeterBinder");
+
+    pMeterBinder.bindTo(meterRegistry);
+  }
+
+  /**
+   * Method binds metrics about the JVM to the meter registry. This includes heap and non-heap memory, buffer pools,
+   * garbage collection, threads and class loading. Calling this method more than once has no further effect.
+   */
+  public synchronized void bindJvmMetrics( ) {
+    if (jvmMetricsBound == false) {
+      this.bindTo(new JvmMemoryMetrics());
+      this.bindTo(new JvmGcMetrics());
+      this.bindTo(new JvmThreadMetrics());
+      this.bindTo(new ClassLoaderMetrics());
+      jvmMetricsBound = true;
+    }
+    else {
+      // Nothing to do.
+    }
+  }
+
+  /**
+   * Method enables asynchronous recording of timers and counters. In asynchronous mode recordings are only published
+   * into a lock-free ring buffer and a background thread passes them to the meter registry in batches. An already
+   * active asynchronous recorder will be replaced. Its pending recordings are still passed to the meter registry.
+   * 
+   * Please be aware that handles that were resolved using {@link #getTimer(String, Tag...)} or
+   * {@link #getCounter(String, Tag...)} keep the mode that was active when they were resolved. Handles of a replaced
+   * recorder record synchronously.
+   * 
+   * @param pBufferSize Min. number of recordings that can be kept in the ring buffer. The size will be rounded up to
+   * the next power of 2. The parameter must be greater than zero.
+   * @param pOverflowPolicy Policy that is applied if the ring buffer is full. Dropped recordings are counted by counter
+   * {@link #DROPPED_RECORDINGS_COUNTER}. The parameter must not be null.
+   */
+  public synchronized void enableAsyncRecording( int pBufferSize, OverflowPolicy pOverflowPolicy ) {
+    // Check parameters.
+    Check.checkIsGreaterZero(pBufferSize, "pBufferSize");
+    Check.checkInvalidParameterNull(pOverflowPolicy, "pOverflowPolicy");
+
+    // Start new recorder and stop the old one afterwards.
+    AsyncMetricRecorder lOldRecorder = asyncRecorder;
+    Counter lDroppedRecordings = meterRegistry.counter(DROPPED_RECORDINGS_COUNTER);
+    asyncRecorder = new AsyncMetricRecorder(pBufferSize, ASYNC_BATCH_SIZE, pOverflowPolicy, lDroppedRecordings);
+    if (lOldRecorder != null) {
+      lOldRecorder.close();
+    }
+  }
+
+  /**
+   * Method defines percentiles and histograms that should be calculated for one or more timers. The configuration is
+   * applied when a timer is created. Timers that already exist are not affected. Percentiles and histogram buckets are
+   * accessible through {@link TimerInfoImpl} and are also published to the meter registry (e.g. via JMX).
+   * 
+   * @param pTimerName Name of the timer to which the configuration applies. If the name ends with '*' then the
+   * configuration applies to all timers whose name starts with the part before the '*'. If several prefixes match then
+   * the longest one will be used. The parameter must be a real string.
+   * @param pHistogramConfig Configuration that should be applied. The parameter must not be null.
+   */
+  public void configureTimerHistogram( String pTimerName, TimerHistogramConfig pHistogramConfig ) {
+    // Check parameters.
+    Check.checkIsRealString(pTimerName, "pTimerName");
+    Check.checkInvalidParameterNull(pHistogramConfig, "pHistogramConfig");
+
+    histogramConfigs.put(pTimerName, pHistogramConfig);
+  }
+
+  /**
+   * Method defines that calls of {@link TimerHandle#start()} and {@link TimerHandle#stop(long)} are only recorded for a
+   * sample of all calls. The configuration is applied when a handle is resolved using
+   * {@link #getTimer(String, Tag...)}. Handles that already exist are not affected.
+   * 
+   * @param pTimerName Name of the timer to which the configuration applies. If the name ends with '*' then the
+   * configuration applies to all timers whose name starts with the part before the '*'. If several prefixes match then
+   * the longest one will be used. The parameter must be a real string.
+   * @param pSamplingConfig Configuration that should be applied. The parameter must not be null.
+   */
+  public void configureTimerSampling( String pTimerName, TimerSamplingConfig pSamplingConfig ) {
+    // Check parameters.
+    Check.checkIsRealString(pTimerName, "pTimerName");
+    Check.checkInvalidParameterNull(pSamplingConfig, "pSamplingConfig");
+
+    samplingConfigs.put(pTimerName, pSamplingConfig);
+  }
+
+  /**
+   * Method loads the sampling configuration from the system properties. Invalid values are traced and replaced by
+   * defaults.
+   * 
+   * @return {@link TimerSamplingConfig} Sampling configuration as it is defined by system properties. The method never
+   * returns null.
+   */
+  private TimerSamplingConfig loadSamplingConfig( ) {
+    TimerSamplingConfig lConfig;
+    Integer lMaxPerSecond = Integer.getInteger(SAMPLING_MAX_PER_SECOND_PROPERTY);
+    if (lMaxPerSecond != null && lMaxPerSecond <= 0) {
+      XFun.getTrace().warn("Invalid value " + lMaxPerSecond + " for system property " + SAMPLING_MAX_PER_SECOND_PROPERTY
+          + ". Using fixed rate sampling instead.");
+      lMaxPerSecond = null;
+    }
+    if (lMaxPerSecond != null) {
+      lConfig = TimerSamplingConfig.adaptive(lMaxPerSecond);
+    }
+    else {
+      int lRate = Integer.getInteger(SAMPLING_RATE_PROPERTY, DEFAULT_SAMPLING_RATE);
+      if (lRate <= 0) {
+        XFun.getTrace().warn("Invalid value " + lRate + " for system property " + SAMPLING_RATE_PROPERTY
+            + ". Using default sampling rate " + DEFAULT_SAMPLING_RATE + " instead.");
+        lRate = DEFAULT_SAMPLING_RATE;
+      }
+      lConfig = TimerSamplingConfig.fixedRate(lRate);
+    }
+    Long lSlowThreshold = Long.getLong(SAMPLING_SLOW_THRESHOLD_PROPERTY);
+    if (lSlowThreshold != null && lSlowThreshold > 0) {
+      lConfig = lConfig.withSlowThreshold(Duration.ofMillis(lSlowThreshold));
+    }
+    else if (lSlowThreshold != null) {
+      XFun.getTrace().warn("Invalid value " + lSlowThreshold + " for system property "
+          + SAMPLING_SLOW_THRESHOLD_PROPERTY + ". Slow calls are not recorded separately.");
+    }
+    else {
+      // Nothing to do.
+    }
+    return lConfig;
+  }
+
+  /**
+   * Method returns the configuration of the timer with the passed name.
+   * 
+   * @param pConfigs Configurations by timer name or name prefix. The parameter must not be null.
+   * @param pTimerName Name of the timer. The parameter must not be null.
+   * @return T Configuration of the timer or null if there is none.
+   */
+  private static <T> T findTimerConfig( Map<String, T> pConfigs, String pTimerName ) {
+    T lConfig = pConfigs.get(pTimerName);
+    if (lConfig == null) {
+      // Look for longest matching prefix.
+      int lMatchLength = -1;
+      for (Map.Entry<String, T> lNext : pConfigs.entrySet()) {
+        String lKey = lNext.getKey();
+        int lPrefixLength = lKey.length() - 1;
+        if (lKey.charAt(lPrefixLength) == '*' && lPrefixLength > lMatchLength
+            && pTimerName.regionMatches(0, lKey, 0, lPrefixLength) == true) {
+          lConfig = lNext.getValue();
+          lMatchLength = lPrefixLength;
+        }
+      }
+    }
+    return lConfig;
+  }
+
+  /**
+   * Method is called by the meter registry whenever a meter is created to define its distribution statistics.
+   * 
+   * @param pId Id of the meter that is created. The parameter must not be null.
+   * @param pConfig Distribution statistics as they are defined so far. The parameter must not be null.
+   * @return {@link DistributionStatisticConfig} Distribution statistics that should be used for the meter. The method
+   * never returns null.
+   */
+  private DistributionStatisticConfig configureDistribution( Meter.Id pId, DistributionStatisticConfig pConfig ) {
+    DistributionStatisticConfig lConfig;
+    TimerHistogramConfig lHistogramConfig;
+    if (pId.getType() == Meter.Type.TIMER && histogramConfigs.isEmpty() == false) {
+      lHistogramConfig = findTimerConfig(histogramConfigs, pId.getName());
+    }
+    else {
+      lHistogramConfig = null;
+    }
+    if (lHistogramConfig != null) {
+      lConfig = lHistogramConfig.toDistributionStatisticConfig().merge(pConfig);
+    }
+    else {
+      lConfig = pConfig;
+    }
+    return lConfig;
+  }
+
+  /**
+   * Method loads the histogram configuration from the system properties. Invalid values are traced and replaced by
+   * their defaults.
+   * 
+   * @return {@link TimerHistogramConfig} Histogram configuration as it is defined by system properties. The method
+   * never returns null.
+   */
+  private TimerHistogramConfig loadHistogramConfig( ) {
+    // Resolve percentiles.
+    double[] lPercentiles;
+    String lPercentilesProperty = System.getProperty(HISTOGRAM_PERCENTILES_PROPERTY);
+    if (lPercentilesProperty != null) {
+      try {
+        String[] lValues = lPercentilesProperty.split(",");
+        lPercentiles = new double[lValues.length];
+        for (int i = 0; i < lValues.length; i++) {
+          lPercentiles[i] = Double.parseDouble(lValues[i].trim());
+          if (lPercentiles[i] < 0 || lPercentiles[i] > 1) {
+            throw new NumberFormatException("Percentile must be between 0 and 1.");
+          }
+        }
+      }
+      catch (NumberFormatException e) {
+        XFun.getTrace().warn("Invalid value '" + lPercentilesProperty + "' for system property "
+            + HISTOGRAM_PERCENTILES_PROPERTY + ". Using default percentiles instead. " + e.getMessage());
+        lPercentiles = TimerHistogramConfig.DEFAULT_PERCENTILES;
+      }
+    }
+    else {
+      lPercentiles = TimerHistogramConfig.DEFAULT_PERCENTILES;
+    }
+
+    // Resolve service level objectives.
+    Duration[] lServiceLevelObjectives;
+    String lSLOProperty = System.getProperty(HISTOGRAM_SLO_PROPERTY);
+    if (lSLOProperty != null) {
+      try {
+        String[] lValues = lSLOProperty.split(",");
+        lServiceLevelObjectives = new Duration[lValues.length];
+        for (int i = 0; i < lValues.length; i++) {
+          long lMillis = Long.parseLong(lValues[i].trim());
+          if (lMillis <= 0) {
+            throw new NumberFormatException("Service level objectives must be greater than zero.");
+          }
+          lServiceLevelObjectives[i] = Duration.ofMillis(lMillis);
+        }
+      }
+      catch (NumberFormatException e) {
+        XFun.getTrace().warn("Invalid value '" + lSLOProperty + "' for system property " + HISTOGRAM_SLO_PROPERTY
+            + ". No service level objectives will be used. " + e.getMessage());
+        lServiceLevelObjectives = null;
+      }
+    }
+    else {
+      lServiceLevelObjectives = null;
+    }
+    boolean lPublishHistogram = Boolean.getBoolean(HISTOGRAM_BUCKETS_PROPERTY);
+    return new TimerHistogramConfig(lPercentiles, lServiceLevelObjectives, lPublishHistogram,
+        TimerHistogramConfig.DEFAULT_PRECISION);
+  }
+
+  /**
+   * Method disables asynchronous recording. All pending recordings are passed to the meter registry before the method
+   * returns.
+   */
+  public synchronized void disableAsyncRecording( ) {
+    AsyncMetricRecorder lOldRecorder = asyncRecorder;
+    asyncRecorder = null;
+    if (lOldRecorder != null) {
+      lOldRecorder.close();
+    }
+  }
+
+  /**
+   * Method checks whether asynchronous recording is enabled.
+   * 
+   * @return boolean Method returns true if recordings are passed asynchronously to the meter registry and false
+   * otherwise.
+   */
+  public boolean isAsyncRecordingEnabled( ) {
+    return asyncRecorder != null;
+  }
+
+  /**
+   * Method waits until all recordings that were made before this call are passed to the meter registry. In synchronous
+   * mode the method returns immediately.
+   */
+  public void flushRecordings( ) {
+    AsyncMetricRecorder lRecorder = asyncRecorder;
+    if (lRecorder != null) {
+      try {
+        lRecorder.flush();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    else {
+      // Nothing to do.
+    }
   }
 
   /**
@@ -117,10 +618,46 @@ public class MonitoringToolsImpl implements MonitoringTools {
    * @return {@link Timer} Timer that matches to the passed name and tags. The method never returns null. If a matching
    * timer already exists then it will be returned else a new one will be created.
    */
-  private Timer getTimer( String pName, Tag... pTimerTags ) {
+  private Timer resolveTimer( String pName, Tag... pTimerTags ) {
     return meterRegistry.timer(pName, this.convertTags(pTimerTags));
   }
 
+  /**
+   * Method returns a handle for the timer that matches to the passed name and tags. In contrast to
+   * {@link #recordTimerSample(TimerSample)} recordings through the returned handle do not require a lookup in the meter
+   * registry. Handles should therefore be resolved once and then be reused for all recordings.
+   * 
+   * @param pName Name of the timer. The parameter must be a real string.
+   * @param pTimerTags Optional tags for the timer. Please be aware that a timer is identified by its name and all of
+   * its tags.
+   * @return {@link TimerHandle} Handle for the requested timer. The method never returns null.
+   */
+  public TimerHandle getTimer( String pName, Tag... pTimerTags ) {
+    // Check parameter
+    Check.checkIsRealString(pName, "pName");
+
+    // Resolve sampler if sampling is configured for the timer. Slow calls are recorded to a separate timer.
+    TimerSampler lSampler;
+    Timer lSlowTimer;
+    TimerSamplingConfig lSamplingConfig = findTimerConfig(samplingConfigs, pName);
+    if (lSamplingConfig != null) {
+      Counter lCallCounter = this.resolveCounter(pName + SAMPLED_CALLS_SUFFIX, pTimerTags);
+      lSampler = new TimerSampler(lSamplingConfig, lCallCounter);
+      if (lSamplingConfig.hasSlowThreshold() == true) {
+        lSlowTimer = this.resolveTimer(pName + SLOW_CALLS_SUFFIX, pTimerTags);
+      }
+      else {
+        lSlowTimer = null;
+      }
+    }
+    else {
+      lSampler = null;
+      lSlowTimer = null;
+    }
+    return new TimerHandle(this, this.resolveTimer(pName, pTimerTags), pTimerTags, asyncRecorder, lSampler,
+        lSlowTimer);
+  }
+
   /**
    * Method creates a new timer sample. This is the starting point for a new recording. As soon as the recording is done
    * {@link #recordTimerSample(TimerSample)} needs to be called. The created timer sample uses the default time unit for
@@ -168,8 +705,15 @@ public class MonitoringToolsImpl implements MonitoringTools {
     // Record sample. Therefore we need the timer and of course the current timestamp.
     TimeUnit lTimeUnit = pTimerSample.getTimeUnit();
     long lStop = this.getTimestamp(lTimeUnit);
-    Timer lTimer = this.getTimer(pTimerSample.getTimerName(), pTimerSample.getTimerTags());
-    lTimer.record(lStop - pTimerSample.getStartTimestamp(), lTimeUnit);
+    Timer lTimer = this.resolveTimer(pTimerSample.getTimerName(), pTimerSample.getTimerTags());
+    long lDuration = lStop - pTimerSample.getStartTimestamp();
+    AsyncMetricRecorder lRecorder = asyncRecorder;
+    if (lRecorder == null) {
+      lTimer.record(lDuration, lTimeUnit);
+    }
+    else {
+      lRecorder.recordTimer(lRecorder.register(lTimer), lTimeUnit.toNanos(lDuration));
+    }
   }
 
   /**
@@ -178,11 +722,11 @@ public class MonitoringToolsImpl implements MonitoringTools {
    * @param pName Name of the timer. The parameter must not be null.
    * @param pTimerTags Optional tags for the timer. Please be aware that a timer is identified by its name and all of
    * its tags.
-   * @return {@link TimerInfo} Status information about the requested timer. The method never returns null.
+   * @return {@link TimerInfoImpl} Status information about the requested timer. The method never returns null.
    */
   @Override
-  public TimerInfo getTimerInfo( String pName, Tag... pTimerTags ) {
-    Timer lTimer = this.getTimer(pName, pTimerTags);
+  public TimerInfoImpl getTimerInfo( String pName, Tag... pTimerTags ) {
+    Timer lTimer = this.resolveTimer(pName, pTimerTags);
     return new TimerInfoImpl(lTimer);
   }
 
@@ -195,7 +739,14 @@ public class MonitoringToolsImpl implements MonitoringTools {
    */
   @Override
   public void incrementCounter( String pName, Tag... pCounterTags ) {
-    this.getCounter(pName, pCounterTags).increment();
+    Counter lCounter = this.resolveCounter(pName, pCounterTags);
+    AsyncMetricRecorder lRecorder = asyncRecorder;
+    if (lRecorder == null) {
+      lCounter.increment();
+    }
+    else {
+      lRecorder.incrementCounter(lRecorder.register(lCounter), 1);
+    }
   }
 
   /**
@@ -209,7 +760,7 @@ public class MonitoringToolsImpl implements MonitoringTools {
    */
   @Override
   public CounterInfo getCounterInfo( String pName, Tag... pCounterTags ) {
-    Counter lCounter = this.getCounter(pName, pCounterTags);
+    Counter lCounter = this.resolveCounter(pName, pCounterTags);
     return new CounterInfoImpl(lCounter);
   }
 
@@ -222,10 +773,27 @@ public class MonitoringToolsImpl implements MonitoringTools {
    * @return {@link Counter} Counter that matches to the passed name and tags. The method never returns null. If a
    * matching counter already exists then it will be returned else a new one will be created.
    */
-  private Counter getCounter( String pName, Tag... pCounterTags ) {
+  private Counter resolveCounter( String pName, Tag... pCounterTags ) {
     return meterRegistry.counter(pName, this.convertTags(pCounterTags));
   }
 
+  /**
+   * Method returns a handle for the counter that matches to the passed name and tags. In contrast to
+   * {@link #incrementCounter(String, Tag...)} increments through the returned handle do not require a lookup in the
+   * meter registry. Handles should therefore be resolved once and then be reused.
+   * 
+   * @param pName Name of the counter. The parameter must be a real string.
+   * @param pCounterTags Optional list of tags of the counter. Please be aware that a counter is identified by its name
+   * and all of its tags.
+   * @return {@link CounterHandle} Handle for the requested counter. The method never returns null.
+   */
+  public CounterHandle getCounter( String pName, Tag... pCounterTags ) {
+    // Check parameter
+    Check.checkIsRealString(pName, "pName");
+
+    return new CounterHandle(this.resolveCounter(pName, pCounterTags), asyncRecorder);
+  }
+
   /**
    * Method monitors the passed object using the defined method to retrieve the monitored value.
    * 
@@ -244,6 +812,27 @@ public class MonitoringToolsImpl implements MonitoringTools {
     lBuilder.register(meterRegistry);
   }
 
+  /**
+   * Method monitors a monotonically increasing count of the passed object. In contrast to
+   * {@link #monitorObject(Object, ToDoubleFunction, String, Tag...)} the value is published as function counter. This
+   * way monitoring systems treat it as counter and are able to calculate rates.
+   * 
+   * @param pMonitoredObject Object that should be monitored. The parameter must not be null.
+   * @param pCountFunction Function that is used to retrieve the current count. The parameter must not be null.
+   * @param pName Name of the counter. The parameter must be a real string. Please be aware that meters are identified
+   * by its name and all of its tags.
+   * @param pTags Optional list of tags of the meter.
+   */
+  public <T> void monitorCount( T pMonitoredObject, ToDoubleFunction<T> pCountFunction, String pName, Tag... pTags ) {
+    // Check parameters
+    Check.checkInvalidParameterNull(pMonitoredObject, "pMonitoredObject");
+    Check.checkInvalidParameterNull(pCountFunction, "pCountFunction");
+    Check.checkIsRealString(pName, "pName");
+
+    FunctionCounter.builder(pName, pMonitoredObject, pCountFunction).tags(this.convertTags(pTags))
+        .register(meterRegistry);
+  }
+
   /**
    * Method returns a status information about the gauge that can be identified by the passed name and tags.
    * 
@@ -0,0 +1,25 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring;
+
+/**
+ * Enumeration defines what happens to a recording in asynchronous mode when the ring buffer of the
+ * {@link AsyncMetricRecorder} is full.
+ *
+ * @author JEAF Development Team
+ */
+public enum OverflowPolicy {
+  /**
+   * The recording is dropped and only counted as dropped event. Recording threads are never blocked.
+   */
+  DROP,
+
+  /**
+   * The recording thread waits until there is free space in the ring buffer. No recordings get lost but under extreme
+   * load recording threads may be slowed down.
+   */
+  BLOCK;
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring;
+
+import java.util.concurrent.TimeUnit;
+
+import com.anaptecs.jeaf.tools.api.monitoring.Tag;
+import com.anaptecs.jeaf.tools.api.monitoring.TimerSample;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Class represents a pre-resolved timer. Handles are created through
+ * {@link MonitoringToolsImpl#getTimer(String, Tag...)} and are intended to be kept by the caller (e.g. in a static
+ * field) so that recordings neither require a lookup in the meter registry nor a conversion of tags.
+ *
+ * Instances of this class are thread safe.
+ *
+ * @author JEAF Development Team
+ */
+public final class TimerHandle {
+  /**
+   * Monitoring tools that created this handle. They are required to resolve timestamps.
+   */
+  private final MonitoringToolsImpl monitoringTools;
+
+  /**
+   * Micrometer timer to which all recordings are passed.
+   */
+  private final Timer timer;
+
+  /**
+   * Tags of the timer as they were passed when the handle was created. They are required to create timer samples.
+   */
+  private final Tag[] timerTags;
+
+  /**
+   * Recorder that is used in asynchronous mode. In synchronous mode the field is null.
+   */
+  private final AsyncMetricRecorder asyncRecorder;
+
+  /**
+   * Index of the timer inside {@link #asyncRecorder}.
+   */
+  private final int meterIndex;
+
+  /**
+   * Sampler that decides which calls of {@link #start()} and {@link #stop(long)} are recorded. If all calls are
+   * recorded the field is null.
+   */
+  private final TimerSampler sampler;
+
+  /**
+   * Timer to which all calls are recorded that exceed the slow threshold of {@link #sampler}. The field is null if no
+   * slow threshold is configured.
+   */
+  private final Timer slowTimer;
+
+  /**
+   * Index of {@link #slowTimer} inside {@link #asyncRecorder}.
+   */
+  private final int slowMeterIndex;
+
+  /**
+   * Initialize object.
+   *
+   * @param pMonitoringTools Monitoring tools that created the handle. The parameter must not be null.
+   * @param pTimer Micrometer timer that is represented by this handle. The parameter must not be null.
+   * @param pTimerTags Tags of the timer. The parameter may be null.
+   * @param pAsyncRecorder Recorder that should be used for asynchronous recording. The parameter may be null. In this
+   * case all recordings are passed synchronously to the timer.
+   * @param pSampler Sampler that should be used for {@link #start()} and {@link #stop(long)}. The parameter may be
+   * null. In this case all calls are recorded.
+   * @param pSlowTimer Timer to which slow calls are recorded. The parameter may be null if no sampler or no slow
+   * threshold is used.
+   */
+  TimerHandle( MonitoringToolsImpl pMonitoringTools, Timer pTimer, Tag[] pTimerTags,
+      AsyncMetricRecorder pAsyncRecorder, TimerSampler pSampler, Timer pSlowTimer ) {
+    // Check parameters
+    Check.checkInvalidParameterNull(pMonitoringTools, "pMonitoringTools");
+    Check.checkInvalidParameterNull(pTimer, "pTimer");
+
+    monitoringTools = pMonitoringTools;
+    timer = pTimer;
+    timerTags = pTimerTags;
+    asyncRecorder = pAsyncRecorder;
+    sampler = pSampler;
+    slowTimer = pSlowTimer;
+    if (pAsyncRecorder != null) {
+      meterIndex = pAsyncRecorder.register(pTimer);
+    }
+    else {
+      meterIndex = -1;
+    }
+    if (pAsyncRecorder != null && pSlowTimer != null) {
+      slowMeterIndex = pAsyncRecorder.register(pSlowTimer);
+    }
+    else {
+      slowMeterIndex = -1;
+    }
+  }
+
+  /**
+   * Method returns the name of the timer.
+   *
+   * @return {@link String} Name of the timer. The method always returns a real string.
+   */
+  public String getName( ) {
+    return timer.getId().getName();
+  }
+
+  /**
+   * Method creates a new timer sample for this timer using the default time unit of the monitoring tools. As soon as
+   * the recording is done {@link #recordTimerSample(TimerSample)} needs to be called.
+   *
+   * @return {@link TimerSample} Created timer sample. The method never returns null.
+   */
+  public TimerSample newTimerSample( ) {
+    return this.newTimerSample(monitoringTools.getDefaultTimeUnit());
+  }
+
+  /**
+   * Method creates a new timer sample for this timer. As soon as the recording is done
+   * {@link #recordTimerSample(TimerSample)} needs to be called.
+   *
+   * @param pTimeUnit Time unit that is used for recording. The parameter must not be null.
+   * @return {@link TimerSample} Created timer sample. The method never returns null.
+   */
+  public TimerSample newTimerSample( TimeUnit pTimeUnit ) {
+    long lStart = monitoringTools.getTimestamp(pTimeUnit);
+    return new TimerSampleImpl(this.getName(), timerTags, lStart, pTimeUnit);
+  }
+
+  /**
+   * Method records the passed timer sample directly to the timer of this handle. Start time of the recorded sample is
+   * when the sample was created and stop time will be this call. Name and tags of the sample are not evaluated.
+   *
+   * @param pTimerSample Time sample that should be recorded. The parameter must not be null.
+   */
+  public void recordTimerSample( TimerSample pTimerSample ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pTimerSample, "pTimerSample");
+
+    // Record sample using the current timestamp as stop time.
+    TimeUnit lTimeUnit = pTimerSample.getTimeUnit();
+    long lStop = monitoringTools.getTimestamp(lTimeUnit);
+    this.record(lStop - pTimerSample.getStartTimestamp(), lTimeUnit);
+  }
+
+  /**
+   * Method starts a new recording. In contrast to {@link #newTimerSample()} no object is created. The returned value
+   * has to be kept by the caller and passed to {@link #stop(long)} as soon as the measured operation is done. The value
+   * is only meaningful in combination with {@link #stop(long)} and must not be used as wall clock time.
+   *
+   * If sampling is configured for the timer (see
+   * {@link MonitoringToolsImpl#configureTimerSampling(String, TimerSamplingConfig)}) then the method also decides
+   * whether the call is recorded.
+   *
+   * @return long Start timestamp of the recording in nanoseconds.
+   */
+  public long start( ) {
+    long lStart;
+    if (sampler == null) {
+      lStart = System.nanoTime();
+    }
+    else {
+      lStart = sampler.start();
+    }
+    return lStart;
+  }
+
+  /**
+   * Method stops the recording that was started with the passed timestamp and records the elapsed time directly to
+   * the timer of this handle. The method neither creates any objects nor does it perform any time unit conversion.
+   *
+   * If sampling is configured then only sampled calls are recorded to the timer. Calls that exceed the slow threshold
+   * are recorded to a separate timer with suffix {@link MonitoringToolsImpl#SLOW_CALLS_SUFFIX}.
+   *
+   * @param pStart Start timestamp as it was returned by {@link #start()}.
+   * @return long Recorded duration in nanoseconds. If the call was not recorded due to sampling then -1 is returned.
+   */
+  public long stop( long pStart ) {
+    long lDuration;
+    if (sampler == null) {
+      lDuration = System.nanoTime() - pStart;
+      this.recordNanos(timer, meterIndex, lDuration);
+    }
+    else {
+      lDuration = sampler.stop(pStart);
+      if (lDuration >= 0) {
+        boolean lRecorded = false;
+        if (sampler.isSampled(pStart) == true) {
+          this.recordNanos(timer, meterIndex, lDuration);
+          lRecorded = true;
+        }
+        if (slowTimer != null && sampler.isSlow(lDuration) == true) {
+          this.recordNanos(slowTimer, slowMeterIndex, lDuration);
+          lRecorded = true;
+        }
+        if (lRecorded == false) {
+          lDuration = -1;
+        }
+      }
+    }
+    return lDuration;
+  }
+
+  /**
+   * Method records the passed duration to the passed timer.
+   *
+   * @param pTimer Timer to which the duration is recorded. The parameter must not be null.
+   * @param pMeterIndex Index of the timer inside {@link #asyncRecorder}.
+   * @param pDuration Duration in nanoseconds.
+   */
+  private void recordNanos( Timer pTimer, int pMeterIndex, long pDuration ) {
+    if (asyncRecorder == null) {
+      pTimer.record(pDuration, TimeUnit.NANOSECONDS);
+    }
+    else {
+      asyncRecorder.recordTimer(pMeterIndex, pDuration);
+    }
+  }
+
+  /**
+   * Method returns the number of calls of this timer. If sampling is configured then the number of all calls of
+   * {@link #start()} is extrapolated from the sampled calls. It is also published as counter with the name of the
+   * timer and suffix {@link MonitoringToolsImpl#SAMPLED_CALLS_SUFFIX}. Otherwise the number of recorded samples is
+   * returned.
+   *
+   * @return long Number of calls of this timer.
+   */
+  public long getCallCount( ) {
+    long lCallCount;
+    if (sampler == null) {
+      lCallCount = timer.count();
+    }
+    else {
+      lCallCount = sampler.getCallCount();
+    }
+    return lCallCount;
+  }
+
+  /**
+   * Method records the passed duration.
+   *
+   * @param pAmount Duration that should be recorded. Negative values will be ignored.
+   * @param pTimeUnit Time unit of the passed duration. The parameter must not be null.
+   */
+  public void record( long pAmount, TimeUnit pTimeUnit ) {
+    if (asyncRecorder == null) {
+      timer.record(pAmount, pTimeUnit);
+    }
+    else {
+      asyncRecorder.recordTimer(meterIndex, pTimeUnit.toNanos(pAmount));
+    }
+  }
+
+  /**
+   * Method returns status information about the timer. In asynchronous mode recordings that are not yet drained from
+   * the ring buffer are not included (see {@link MonitoringToolsImpl#flushRecordings()}).
+   *
+   * @return {@link TimerInfoImpl} Status information about the timer. The method never returns null.
+   */
+  public TimerInfoImpl getTimerInfo( ) {
+    return new TimerInfoImpl(timer);
+  }
+}
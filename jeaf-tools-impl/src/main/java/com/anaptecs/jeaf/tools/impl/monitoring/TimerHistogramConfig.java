@@ -0,0 +1,158 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+/**
+ * Class defines the distribution statistics that are collected for timers. Percentiles are calculated from
+ * HdrHistogram based histograms. Their memory consumption is bounded by the configured precision and does not depend
+ * on the number of recordings.
+ *
+ * Instances of this class are immutable.
+ *
+ * @author JEAF Development Team
+ */
+public final class TimerHistogramConfig {
+  /**
+   * Percentiles that are calculated for timers if nothing else is configured (p50, p95, p99 and p99.9).
+   */
+  public static final double[] DEFAULT_PERCENTILES = new double[] { 0.5, 0.95, 0.99, 0.999 };
+
+  /**
+   * Default number of significant decimal digits to which percentiles are calculated.
+   */
+  public static final int DEFAULT_PRECISION = 2;
+
+  /**
+   * Percentiles that should be calculated.
+   */
+  private final double[] percentiles;
+
+  /**
+   * Service level objectives in nanoseconds. Every objective becomes a histogram bucket.
+   */
+  private final double[] serviceLevelObjectives;
+
+  /**
+   * Flag indicates whether a percentile histogram with the default buckets should be published.
+   */
+  private final boolean publishHistogram;
+
+  /**
+   * Number of significant decimal digits to which percentiles are calculated.
+   */
+  private final int precision;
+
+  /**
+   * Initialize object.
+   *
+   * @param pPercentiles Percentiles that should be calculated e.g. 0.95 for p95. The parameter must not be null. Each
+   * value must be between 0 and 1.
+   * @param pServiceLevelObjectives Service level objectives. For each of them a histogram bucket will be provided. The
+   * parameter may be null.
+   * @param pPublishHistogram Parameter defines whether in addition to the service level objectives a histogram with
+   * default buckets should be published.
+   * @param pPrecision Number of significant decimal digits to which percentiles are calculated. Higher values require
+   * more memory. The parameter must be between 1 and 5.
+   */
+  public TimerHistogramConfig( double[] pPercentiles, Duration[] pServiceLevelObjectives, boolean pPublishHistogram,
+      int pPrecision ) {
+    // Check parameters
+    Check.checkInvalidParameterNull(pPercentiles, "pPercentiles");
+    for (double lNext : pPercentiles) {
+      if (lNext < 0 || lNext > 1) {
+        throw new IllegalArgumentException("Percentile must be between 0 and 1. Current value: " + lNext);
+      }
+    }
+    if (pPrecision < 1 || pPrecision > 5) {
+      throw new IllegalArgumentException("Precision must be between 1 and 5. Current value: " + pPrecision);
+    }
+
+    percentiles = pPercentiles.clone();
+    if (pServiceLevelObjectives != null) {
+      serviceLevelObjectives = new double[pServiceLevelObjectives.length];
+      for (int i = 0; i < pServiceLevelObjectives.length; i++) {
+        serviceLevelObjectives[i] = pServiceLevelObjectives[i].toNanos();
+      }
+      Arrays.sort(serviceLevelObjectives);
+    }
+    else {
+      serviceLevelObjectives = new double[0];
+    }
+    publishHistogram = pPublishHistogram;
+    precision = pPrecision;
+  }
+
+  /**
+   * Initialize object using the default precision and no histogram with default buckets.
+   *
+   * @param pPercentiles Percentiles that should be calculated e.g. 0.95 for p95. The parameter must not be null. Each
+   * value must be between 0 and 1.
+   * @param pServiceLevelObjectives Service level objectives. For each of them a histogram bucket will be provided. The
+   * parameter may be null.
+   */
+  public TimerHistogramConfig( double[] pPercentiles, Duration... pServiceLevelObjectives ) {
+    this(pPercentiles, pServiceLevelObjectives, false, DEFAULT_PRECISION);
+  }
+
+  /**
+   * Method returns the percentiles that should be calculated.
+   *
+   * @return double[] Percentiles that should be calculated. The method never returns null.
+   */
+  public double[] getPercentiles( ) {
+    return percentiles.clone();
+  }
+
+  /**
+   * Method returns the service level objectives.
+   *
+   * @return double[] Service level objectives in nanoseconds in ascending order. The method never returns null.
+   */
+  public double[] getServiceLevelObjectives( ) {
+    return serviceLevelObjectives.clone();
+  }
+
+  /**
+   * Method checks whether a histogram with default buckets should be published.
+   *
+   * @return boolean Method returns true if a histogram with default buckets should be published.
+   */
+  public boolean isPublishHistogram( ) {
+    return publishHistogram;
+  }
+
+  /**
+   * Method returns the number of significant decimal digits to which percentiles are calculated.
+   *
+   * @return int Precision of percentiles.
+   */
+  public int getPrecision( ) {
+    return precision;
+  }
+
+  /**
+   * Method converts this configuration into the representation as it is defined by the Micrometer API.
+   *
+   * @return {@link DistributionStatisticConfig} Micrometer configuration. The method never returns null.
+   */
+  DistributionStatisticConfig toDistributionStatisticConfig( ) {
+    DistributionStatisticConfig.Builder lBuilder = DistributionStatisticConfig.builder();
+    lBuilder.percentiles(percentiles);
+    lBuilder.percentilePrecision(precision);
+    lBuilder.percentilesHistogram(publishHistogram);
+    if (serviceLevelObjectives.length > 0) {
+      lBuilder.serviceLevelObjectives(serviceLevelObjectives);
+    }
+    return lBuilder.build();
+  }
+}
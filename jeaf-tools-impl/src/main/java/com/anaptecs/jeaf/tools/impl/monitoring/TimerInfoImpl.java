@@ -5,6 +5,8 @@
  */
 package com.anaptecs.jeaf.tools.impl.monitoring;
 
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 import com.anaptecs.jeaf.tools.api.Tools;
@@ -13,6 +15,8 @@ import com.anaptecs.jeaf.tools.api.monitoring.TimerInfo;
 import com.anaptecs.jeaf.xfun.api.checks.Check;
 
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 
 /**
  * Class implements a timer info based on a Micrometer {@link Timer}.
@@ -122,4 +126,59 @@ public class TimerInfoImpl extends MeterInfoImpl implements TimerInfo {
 
     return this.getTimer().max(pTimeUnit);
   }
+
+  /**
+   * Method returns the passed percentile of all recorded samples. Method uses the default time unit
+   * {@link MonitoringTools#getDefaultTimeUnit()}.
+   * 
+   * @param pPercentile Percentile that should be returned e.g. 0.99 for p99.
+   * @return double Value of the percentile using the default time unit or {@link Double#NaN} if the percentile is not
+   * configured for the timer (see {@link MonitoringToolsImpl#configureTimerHistogram(String, TimerHistogramConfig)}).
+   */
+  public double getPercentile( double pPercentile ) {
+    return this.getPercentile(pPercentile, Tools.getMonitoringTools().getDefaultTimeUnit());
+  }
+
+  /**
+   * Method returns the passed percentile of all recorded samples. Percentiles are calculated over a sliding time window
+   * and not over the whole lifetime of the timer.
+   * 
+   * @param pPercentile Percentile that should be returned e.g. 0.99 for p99.
+   * @param pTimeUnit The base unit of time to scale the percentile to. The parameter must not be null.
+   * @return double Value of the percentile using the passed time unit or {@link Double#NaN} if the percentile is not
+   * configured for the timer (see {@link MonitoringToolsImpl#configureTimerHistogram(String, TimerHistogramConfig)}).
+   */
+  public double getPercentile( double pPercentile, TimeUnit pTimeUnit ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pTimeUnit, "pTimeUnit");
+
+    double lValue = Double.NaN;
+    for (ValueAtPercentile lNext : this.getTimer().takeSnapshot().percentileValues()) {
+      if (Math.abs(lNext.percentile() - pPercentile) < 1.0E-9) {
+        lValue = lNext.value(pTimeUnit);
+        break;
+      }
+    }
+    return lValue;
+  }
+
+  /**
+   * Method returns the histogram buckets of the timer. Buckets are only available if service level objectives or a
+   * histogram are configured for the timer (see
+   * {@link MonitoringToolsImpl#configureTimerHistogram(String, TimerHistogramConfig)}).
+   * 
+   * @param pTimeUnit The base unit of time to scale the bucket boundaries to. The parameter must not be null.
+   * @return {@link SortedMap} Map contains the upper boundary of every bucket using the passed time unit as key and the
+   * number of samples that are less than or equal to the boundary as value. The method never returns null.
+   */
+  public SortedMap<Double, Long> getBucketCounts( TimeUnit pTimeUnit ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pTimeUnit, "pTimeUnit");
+
+    SortedMap<Double, Long> lBuckets = new TreeMap<>();
+    for (CountAtBucket lNext : this.getTimer().takeSnapshot().histogramCounts()) {
+      lBuckets.put(lNext.bucket(pTimeUnit), (long) lNext.count());
+    }
+    return lBuckets;
+  }
 }
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Class implements the sampling decision for a timer handle. Every thread counts its calls in a thread local counter.
+ * Every n-th call of a thread is sampled. When a call is sampled the number of calls since the last sampled call of
+ * the thread is added to a counter of all calls. This way the number of calls is extrapolated exactly (apart from the
+ * calls of each thread since its last sampled call) without any shared state on the path of calls that are not
+ * sampled.
+ *
+ * Start timestamps carry the sampling decision in their lowest bit. This costs 1 nanosecond of precision but avoids any
+ * additional state between start and stop of a call.
+ *
+ * @author JEAF Development Team
+ */
+final class TimerSampler {
+  /**
+   * Start value that is returned for calls that are neither sampled nor timed.
+   */
+  static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+  /**
+   * Interval in nanoseconds after which the rate of adaptive sampling is adjusted.
+   */
+  private static final long ADAPTION_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * Configuration of the sampling.
+   */
+  private final TimerSamplingConfig config;
+
+  /**
+   * Counter of all calls of the timer including the ones that were not sampled.
+   */
+  private final Counter callCounter;
+
+  /**
+   * Current sampling rate. Every n-th call of a thread is sampled.
+   */
+  private volatile int rate;
+
+  /**
+   * Start of the current adaption interval of adaptive sampling.
+   */
+  private final AtomicLong intervalStart = new AtomicLong(System.nanoTime());
+
+  /**
+   * Number of sampled calls during the current adaption interval.
+   */
+  private final AtomicLong intervalSamples = new AtomicLong();
+
+  /**
+   * Number of calls at the start of the current adaption interval.
+   */
+  private volatile double intervalStartCalls;
+
+  /**
+   * Number of calls since the last sampled call per thread.
+   */
+  private final ThreadLocal<int[]> callsSinceSample = ThreadLocal.withInitial(( ) -> new int[1]);
+
+  /**
+   * Initialize object.
+   *
+   * @param pConfig Sampling configuration. The parameter must not be null.
+   * @param pCallCounter Counter to which the number of all calls is added. The parameter must not be null.
+   */
+  TimerSampler( TimerSamplingConfig pConfig, Counter pCallCounter ) {
+    config = pConfig;
+    callCounter = pCallCounter;
+    if (pConfig.isAdaptive() == true) {
+      rate = 1;
+    }
+    else {
+      rate = pConfig.getRate();
+    }
+  }
+
+  /**
+   * Method returns the current sampling rate.
+   *
+   * @return int Current sampling rate. Every n-th call of a thread is sampled.
+   */
+  int getRate( ) {
+    return rate;
+  }
+
+  /**
+   * Method returns the extrapolated number of calls.
+   *
+   * @return long Number of all calls including the ones that were not sampled.
+   */
+  long getCallCount( ) {
+    return (long) callCounter.count();
+  }
+
+  /**
+   * Method starts a call and decides whether it is sampled.
+   *
+   * @return long Start timestamp of the call. The lowest bit is set if the call is sampled. If the call is not sampled
+   * and does not have to be timed at all then {@link #NOT_SAMPLED} is returned.
+   */
+  long start( ) {
+    long lStart;
+    int[] lCalls = callsSinceSample.get();
+    int lCallCount = lCalls[0] + 1;
+    if (lCallCount >= rate) {
+      // Call is sampled. Therefore we can update the shared counter.
+      lCalls[0] = 0;
+      callCounter.increment(lCallCount);
+      long lNow = System.nanoTime();
+      if (config.isAdaptive() == false || this.acquireRecording(lNow) == true) {
+        lStart = lNow | 1;
+      }
+      else if (config.hasSlowThreshold() == true) {
+        lStart = lNow & ~1L;
+      }
+      else {
+        lStart = NOT_SAMPLED;
+      }
+    }
+    else {
+      lCalls[0] = lCallCount;
+      if (config.hasSlowThreshold() == true) {
+        lStart = System.nanoTime() & ~1L;
+      }
+      else {
+        lStart = NOT_SAMPLED;
+      }
+    }
+    return lStart;
+  }
+
+  /**
+   * Method stops the call with the passed start timestamp.
+   *
+   * @param pStart Start timestamp as it was returned by {@link #start()}.
+   * @return long Duration of the call in nanoseconds or -1 if the call was not timed at all.
+   */
+  long stop( long pStart ) {
+    long lDuration;
+    if (pStart != NOT_SAMPLED) {
+      lDuration = System.nanoTime() - pStart;
+    }
+    else {
+      lDuration = -1;
+    }
+    return lDuration;
+  }
+
+  /**
+   * Method checks whether the call with the passed start timestamp was sampled. Only sampled calls must be recorded to
+   * the timer itself as otherwise its statistics would be biased.
+   *
+   * @param pStart Start timestamp as it was returned by {@link #start()}.
+   * @return boolean Method returns true if the call was sampled and false otherwise.
+   */
+  boolean isSampled( long pStart ) {
+    return pStart != NOT_SAMPLED && (pStart & 1) != 0;
+  }
+
+  /**
+   * Method checks whether a call with the passed duration exceeds the slow threshold.
+   *
+   * @param pDuration Duration of the call in nanoseconds.
+   * @return boolean Method returns true if the call is slow and false otherwise or if no threshold is defined.
+   */
+  boolean isSlow( long pDuration ) {
+    return pDuration >= config.getSlowThreshold();
+  }
+
+  /**
+   * Method checks whether a sampled call may be recorded in case of adaptive sampling. At most the configured max.
+   * number of calls are recorded per adaption interval. The sampling rate is adjusted at the end of every interval and
+   * as soon as the max. number of recordings is exceeded within the current interval. As the method is only called for
+   * sampled calls the shared state that is required for this does not affect the calls that are not sampled.
+   *
+   * @param pNow Current timestamp in nanoseconds.
+   * @return boolean Method returns true if the call may be recorded and false otherwise.
+   */
+  private boolean acquireRecording( long pNow ) {
+    long lIntervalStart = intervalStart.get();
+    long lElapsed = pNow - lIntervalStart;
+    long lSamples = intervalSamples.incrementAndGet();
+    int lMaxRecordings = config.getMaxRecordingsPerSecond();
+    if (lElapsed >= ADAPTION_INTERVAL) {
+      // Start new interval.
+      if (intervalStart.compareAndSet(lIntervalStart, pNow) == true) {
+        double lCalls = callCounter.count();
+        this.adaptRate(lCalls - intervalStartCalls, lElapsed);
+        intervalStartCalls = lCalls;
+        intervalSamples.set(1);
+        lSamples = 1;
+      }
+    }
+    else if (lSamples == lMaxRecordings + 1) {
+      // Max. number of recordings is exceeded within the current interval so the rate is too low.
+      this.adaptRate(callCounter.count() - intervalStartCalls, Math.max(lElapsed, 1));
+    }
+    return lSamples <= lMaxRecordings;
+  }
+
+  /**
+   * Method adjusts the sampling rate so that the max. number of recordings per second is reached.
+   *
+   * @param pCalls Number of calls during the passed time.
+   * @param pElapsed Time in nanoseconds. The parameter must be greater than zero.
+   */
+  private void adaptRate( double pCalls, long pElapsed ) {
+    double lCallsPerSecond = pCalls * ADAPTION_INTERVAL / pElapsed;
+    double lRate = Math.ceil(lCallsPerSecond / config.getMaxRecordingsPerSecond());
+    rate = (int) Math.max(1, Math.min(Integer.MAX_VALUE, lRate));
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring;
+
+import java.time.Duration;
+
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+
+/**
+ * Class defines how calls of timers with extremely high frequency are sampled. Either a fixed rate (every n-th call of
+ * a thread is recorded) or an adaptive rate that targets a max. number of recordings per second can be used. In
+ * addition calls that take longer than a threshold can always be recorded.
+ *
+ * Instances of this class are immutable.
+ *
+ * @author JEAF Development Team
+ */
+public final class TimerSamplingConfig {
+  /**
+   * Fixed sampling rate. Every n-th call is recorded. 0 in case of adaptive sampling.
+   */
+  private final int rate;
+
+  /**
+   * Max. number of recordings per second in case of adaptive sampling. 0 in case of a fixed sampling rate.
+   */
+  private final int maxRecordingsPerSecond;
+
+  /**
+   * Threshold in nanoseconds. Calls that take at least that long are always recorded. {@link Long#MAX_VALUE} if no
+   * threshold is defined.
+   */
+  private final long slowThreshold;
+
+  /**
+   * Initialize object.
+   *
+   * @param pRate Fixed sampling rate or 0 in case of adaptive sampling.
+   * @param pMaxRecordingsPerSecond Max. number of recordings per second or 0 in case of a fixed sampling rate.
+   * @param pSlowThreshold Threshold in nanoseconds or {@link Long#MAX_VALUE} if no threshold is defined.
+   */
+  private TimerSamplingConfig( int pRate, int pMaxRecordingsPerSecond, long pSlowThreshold ) {
+    rate = pRate;
+    maxRecordingsPerSecond = pMaxRecordingsPerSecond;
+    slowThreshold = pSlowThreshold;
+  }
+
+  /**
+   * Method creates a sampling configuration with a fixed rate.
+   *
+   * @param pRate Sampling rate. Every n-th call of a thread will be recorded. The parameter must be greater than zero.
+   * @return {@link TimerSamplingConfig} Created configuration. The method never returns null.
+   */
+  public static TimerSamplingConfig fixedRate( int pRate ) {
+    Check.checkIsGreaterZero(pRate, "pRate");
+    return new TimerSamplingConfig(pRate, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Method creates a sampling configuration with an adaptive rate. The rate is adjusted once per second so that the
+   * number of recordings does not exceed the passed limit.
+   *
+   * @param pMaxRecordingsPerSecond Max. number of recordings per second. The parameter must be greater than zero.
+   * @return {@link TimerSamplingConfig} Created configuration. The method never returns null.
+   */
+  public static TimerSamplingConfig adaptive( int pMaxRecordingsPerSecond ) {
+    Check.checkIsGreaterZero(pMaxRecordingsPerSecond, "pMaxRecordingsPerSecond");
+    return new TimerSamplingConfig(0, pMaxRecordingsPerSecond, Long.MAX_VALUE);
+  }
+
+  /**
+   * Method returns a copy of this configuration that always records calls that take at least the passed time. Please
+   * be aware that this requires that all calls are timed. Only the recording itself is sampled then.
+   *
+   * Slow calls are recorded to a separate timer with the name of the timer and suffix
+   * {@link MonitoringToolsImpl#SLOW_CALLS_SUFFIX}. It contains all slow calls no matter whether they were sampled. The
+   * timer itself only contains the sampled calls so that its statistics are not biased towards slow calls.
+   *
+   * @param pSlowThreshold Threshold for slow calls. The parameter must not be null.
+   * @return {@link TimerSamplingConfig} Created configuration. The method never returns null.
+   */
+  public TimerSamplingConfig withSlowThreshold( Duration pSlowThreshold ) {
+    Check.checkInvalidParameterNull(pSlowThreshold, "pSlowThreshold");
+    return new TimerSamplingConfig(rate, maxRecordingsPerSecond, pSlowThreshold.toNanos());
+  }
+
+  /**
+   * Method checks whether adaptive sampling is configured.
+   *
+   * @return boolean Method returns true in case of adaptive sampling and false in case of a fixed rate.
+   */
+  public boolean isAdaptive( ) {
+    return maxRecordingsPerSecond > 0;
+  }
+
+  /**
+   * Method returns the fixed sampling rate.
+   *
+   * @return int Fixed sampling rate or 0 in case of adaptive sampling.
+   */
+  public int getRate( ) {
+    return rate;
+  }
+
+  /**
+   * Method returns the max. number of recordings per second.
+   *
+   * @return int Max. number of recordings per second or 0 in case of a fixed sampling rate.
+   */
+  public int getMaxRecordingsPerSecond( ) {
+    return maxRecordingsPerSecond;
+  }
+
+  /**
+   * Method returns the threshold above which calls are always recorded.
+   *
+   * @return long Threshold in nanoseconds or {@link Long#MAX_VALUE} if no threshold is defined.
+   */
+  public long getSlowThreshold( ) {
+    return slowThreshold;
+  }
+
+  /**
+   * Method checks whether a threshold for slow calls is defined.
+   *
+   * @return boolean Method returns true if a threshold for slow calls is defined.
+   */
+  public boolean hasSlowThreshold( ) {
+    return slowThreshold != Long.MAX_VALUE;
+  }
+}
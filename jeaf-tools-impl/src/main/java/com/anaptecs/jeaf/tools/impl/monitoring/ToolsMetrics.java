@@ -0,0 +1,129 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.monitoring;
+
+import java.util.function.ToDoubleFunction;
+
+import com.anaptecs.jeaf.tools.api.Tools;
+import com.anaptecs.jeaf.tools.api.monitoring.MonitoringTools;
+import com.anaptecs.jeaf.tools.api.monitoring.Tag;
+import com.anaptecs.jeaf.xfun.api.XFun;
+
+/**
+ * Class is used by the implementations of JEAF Tools to publish metrics about their internal state (e.g. pool sizes,
+ * claim times of pooled objects or cache statistics). Metrics are only published if they are enabled using system
+ * property {@link MonitoringToolsImpl#TOOLS_METRICS_PROPERTY}.
+ * 
+ * As monitoring tools might not be available yet when other tools are created, metrics should be registered with the
+ * first usage of a component. Problems during registration never affect the calling component.
+ * 
+ * @author JEAF Development Team
+ */
+public final class ToolsMetrics {
+  /**
+   * Name of the tag that identifies a pool.
+   */
+  public static final String POOL_TAG = "pool";
+
+  /**
+   * Constructor is private as class only provides static methods.
+   */
+  private ToolsMetrics( ) {
+  }
+
+  /**
+   * Method checks if metrics about the internal state of JEAF Tools are enabled.
+   * 
+   * @return boolean Method returns true if tools metrics are enabled and false otherwise.
+   */
+  public static boolean isEnabled( ) {
+    return Boolean.getBoolean(MonitoringToolsImpl.TOOLS_METRICS_PROPERTY);
+  }
+
+  /**
+   * Method registers a gauge for the passed object if tools metrics are enabled.
+   * 
+   * @param pMonitoredObject Object that should be monitored. The parameter must not be null.
+   * @param pValueFunction Function that is used to determine the current value of the gauge. The parameter must not be
+   * null.
+   * @param pName Name of the gauge. The parameter must be a real string.
+   * @param pTags Optional tags of the gauge.
+   */
+  public static <T> void monitorObject( T pMonitoredObject, ToDoubleFunction<T> pValueFunction, String pName,
+      Tag... pTags ) {
+    if (isEnabled() == true) {
+      try {
+        Tools.getMonitoringTools().monitorObject(pMonitoredObject, pValueFunction, pName, pTags);
+      }
+      catch (RuntimeException e) {
+        XFun.getTrace().warn("Unable to register metric " + pName + ".", e);
+      }
+    }
+    else {
+      // Nothing to do.
+    }
+  }
+
+  /**
+   * Method registers a counter for a monotonically increasing count of the passed object if tools metrics are enabled.
+   * 
+   * @param pMonitoredObject Object that should be monitored. The parameter must not be null.
+   * @param pCountFunction Function that is used to determine the current count. The parameter must not be null.
+   * @param pName Name of the counter. The parameter must be a real string.
+   * @param pTags Optional tags of the counter.
+   */
+  public static <T> void monitorCount( T pMonitoredObject, ToDoubleFunction<T> pCountFunction, String pName,
+      Tag... pTags ) {
+    if (isEnabled() == true) {
+      try {
+        MonitoringTools lMonitoringTools = Tools.getMonitoringTools();
+        if (lMonitoringTools instanceof MonitoringToolsImpl) {
+          ((MonitoringToolsImpl) lMonitoringTools).monitorCount(pMonitoredObject, pCountFunction, pName, pTags);
+        }
+        else {
+          // Nothing to do.
+        }
+      }
+      catch (RuntimeException e) {
+        XFun.getTrace().warn("Unable to register metric " + pName + ".", e);
+      }
+    }
+    else {
+      // Nothing to do.
+    }
+  }
+
+  /**
+   * Method returns a handle for the timer with the passed name if tools metrics are enabled.
+   * 
+   * @param pName Name of the timer. The parameter must be a real string.
+   * @param pTags Optional tags of the timer.
+   * @return {@link TimerHandle} Handle of the timer. The method returns null if tools metrics are disabled or if the
+   * timer could not be resolved.
+   */
+  public static TimerHandle getTimer( String pName, Tag... pTags ) {
+    TimerHandle lTimerHandle;
+    if (isEnabled() == true) {
+      try {
+        MonitoringTools lMonitoringTools = Tools.getMonitoringTools();
+        if (lMonitoringTools instanceof MonitoringToolsImpl) {
+          lTimerHandle = ((MonitoringToolsImpl) lMonitoringTools).getTimer(pName, pTags);
+        }
+        else {
+          lTimerHandle = null;
+        }
+      }
+      catch (RuntimeException e) {
+        XFun.getTrace().warn("Unable to register metric " + pName + ".", e);
+        lTimerHandle = null;
+      }
+    }
+    else {
+      lTimerHandle = null;
+    }
+    return lTimerHandle;
+  }
+}
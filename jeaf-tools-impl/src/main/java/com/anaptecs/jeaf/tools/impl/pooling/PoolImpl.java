@@ -6,12 +6,16 @@
 package com.anaptecs.jeaf.tools.impl.pooling;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.anaptecs.jeaf.tools.api.ToolsMessages;
+import com.anaptecs.jeaf.tools.api.monitoring.Tag;
 import com.anaptecs.jeaf.tools.api.pooling.PoolConfiguration;
 import com.anaptecs.jeaf.tools.api.pooling.PoolGrowthStrategy;
 import com.anaptecs.jeaf.tools.api.pooling.PooledObject;
 import com.anaptecs.jeaf.tools.api.pooling.PooledObjectLifecycleManager;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerHandle;
+import com.anaptecs.jeaf.tools.impl.monitoring.ToolsMetrics;
 import com.anaptecs.jeaf.xfun.api.checks.Assert;
 import com.anaptecs.jeaf.xfun.api.checks.Check;
 import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
@@ -32,6 +36,26 @@ import stormpot.Timeout;
  * @author JEAF Development Team
  */
 public final class PoolImpl<T> {
+  /**
+   * Name of the gauge with the current size of a pool.
+   */
+  public static final String POOL_SIZE_METRIC = "jeaf.tools.pool.size";
+
+  /**
+   * Name of the gauge with the max. size of a pool.
+   */
+  public static final String MAX_POOL_SIZE_METRIC = "jeaf.tools.pool.max.size";
+
+  /**
+   * Name of the counter with the number of objects that were allocated by a pool.
+   */
+  public static final String ALLOCATIONS_METRIC = "jeaf.tools.pool.allocations";
+
+  /**
+   * Name of the timer that tracks how long callers have to wait until they can claim an object from a pool.
+   */
+  public static final String CLAIM_TIME_METRIC = "jeaf.tools.pool.claim.time";
+
   /**
    * Name of the pool. The name is never null. However it is not guaranteed that the name of a pool is unique. Pool name
    * is only needed for logging purposes.
@@ -53,6 +77,16 @@ public final class PoolImpl<T> {
    */
   private final Timeout timeout;
 
+  /**
+   * Attribute defines if metrics of this pool were already registered.
+   */
+  private final AtomicBoolean metricsRegistered = new AtomicBoolean();
+
+  /**
+   * Timer that tracks the claim times of this pool. The field is null if tools metrics are disabled.
+   */
+  private volatile TimerHandle claimTimer;
+
   /**
    * Initialize new pool.
    * 
@@ -97,6 +131,20 @@ public final class PoolImpl<T> {
    * within the configured timeout then an exception will be thrown.
    */
   public PooledObject<T> getPooledObject( ) {
+    // Register metrics with first usage as monitoring tools might not be available yet when the pool is created.
+    if (metricsRegistered.get() == false) {
+      this.registerMetrics();
+    }
+
+    // Claim times are also tracked if no object could be acquired as they are most relevant for capacity tuning.
+    TimerHandle lClaimTimer = claimTimer;
+    long lStart;
+    if (lClaimTimer != null) {
+      lStart = lClaimTimer.start();
+    }
+    else {
+      lStart = 0;
+    }
     try {
       PooledObjectWrapper<T> lPooledObject = pool.claim(timeout);
 
@@ -124,6 +172,26 @@ public final class PoolImpl<T> {
     catch (PoolException | InterruptedException e) {
       throw new JEAFSystemException(ToolsMessages.UNABLE_TO_ACQUIRE_OBJECT_FROM_POOL, e, poolName);
     }
+    finally {
+      if (lClaimTimer != null) {
+        lClaimTimer.stop(lStart);
+      }
+    }
+  }
+
+  /**
+   * Method registers the metrics of this pool if tools metrics are enabled. As pool names are not guaranteed to be
+   * unique, several pools might register metrics with the same name and tags. In this case only the metrics of the pool
+   * that registered them first are published. Registrations of all other pools with the same name are ignored.
+   */
+  private void registerMetrics( ) {
+    if (metricsRegistered.compareAndSet(false, true) == true) {
+      Tag lTag = Tag.of(ToolsMetrics.POOL_TAG, poolName);
+      ToolsMetrics.monitorObject(this, PoolImpl::getCurrentPoolSize, POOL_SIZE_METRIC, lTag);
+      ToolsMetrics.monitorObject(poolConfiguration, PoolConfiguration::getMaxPoolSize, MAX_POOL_SIZE_METRIC, lTag);
+      ToolsMetrics.monitorCount(pool, BlazePool::getAllocationCount, ALLOCATIONS_METRIC, lTag);
+      claimTimer = ToolsMetrics.getTimer(CLAIM_TIME_METRIC, lTag);
+    }
   }
 
   public int getCurrentPoolSize( ) {
@@ -14,6 +14,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.text.DecimalFormat;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.anaptecs.jeaf.tools.annotations.StreamToolsConfig;
 import com.anaptecs.jeaf.tools.annotations.ToolsImplementation;
@@ -21,6 +23,8 @@ import com.anaptecs.jeaf.tools.api.ToolsMessages;
 import com.anaptecs.jeaf.tools.api.encoding.EncodingTools;
 import com.anaptecs.jeaf.tools.api.stream.BufferingMode;
 import com.anaptecs.jeaf.tools.api.stream.StreamTools;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerHandle;
+import com.anaptecs.jeaf.tools.impl.monitoring.ToolsMetrics;
 import com.anaptecs.jeaf.xfun.api.XFun;
 import com.anaptecs.jeaf.xfun.api.checks.Assert;
 import com.anaptecs.jeaf.xfun.api.checks.Check;
@@ -35,6 +39,21 @@ import stormpot.Timeout;
 
 @ToolsImplementation(toolsInterface = StreamTools.class)
 public class StreamToolsImpl implements StreamTools {
+  /**
+   * Name of the gauge with the size of the buffer pool.
+   */
+  public static final String BUFFER_POOL_SIZE_METRIC = "jeaf.tools.stream.buffer.pool.size";
+
+  /**
+   * Name of the counter with the number of unpooled buffers that had to be created as the buffer pool was exhausted.
+   */
+  public static final String UNPOOLED_BUFFERS_METRIC = "jeaf.tools.stream.buffer.unpooled";
+
+  /**
+   * Name of the timer that tracks the claim times of the buffer pool.
+   */
+  public static final String BUFFER_CLAIM_TIME_METRIC = "jeaf.tools.stream.buffer.claim.time";
+
   /**
    * Size of the buffer that is used. The value can be configured via annotation {@link StreamToolsConfig#bufferSize()}.
    * Default value is {@link StreamToolsConfig#DEFAULT_BUFFER_SIZE}.
@@ -58,6 +77,21 @@ public class StreamToolsImpl implements StreamTools {
    */
   private final BlazePool<PoolableByteArray> bufferPool;
 
+  /**
+   * Number of unpooled buffers that had to be created as the buffer pool was exhausted.
+   */
+  private final LongAdder unpooledBuffers = new LongAdder();
+
+  /**
+   * Attribute defines if metrics of the buffer pool were already registered.
+   */
+  private final AtomicBoolean metricsRegistered = new AtomicBoolean();
+
+  /**
+   * Timer that tracks the claim times of the buffer pool. The field is null if tools metrics are disabled.
+   */
+  private volatile TimerHandle claimTimer;
+
   /**
    * Initialize object.
    */
@@ -132,12 +166,26 @@ public class StreamToolsImpl implements StreamTools {
     // Check if a pool for buffers is used.
     PoolableByteArray lBuffer;
     if (bufferPool != null) {
+      // Register metrics with first usage as monitoring tools might not be available yet when stream tools are created.
+      if (metricsRegistered.get() == false) {
+        this.registerMetrics();
+      }
+
       // Acquire buffer from pool.
+      TimerHandle lClaimTimer = claimTimer;
       try {
-        lBuffer = bufferPool.claim(TIMEOUT);
+        if (lClaimTimer != null) {
+          long lStart = lClaimTimer.start();
+          lBuffer = bufferPool.claim(TIMEOUT);
+          lClaimTimer.stop(lStart);
+        }
+        else {
+          lBuffer = bufferPool.claim(TIMEOUT);
+        }
 
         // There might be situations where a buffer can not be claimed from pool.
         if (lBuffer == null) {
+          unpooledBuffers.increment();
           lBuffer = new PoolableByteArray(bufferSize, null);
         }
       }
@@ -162,6 +210,26 @@ public class StreamToolsImpl implements StreamTools {
     return lBuffer;
   }
 
+  /**
+   * Method registers the metrics of the buffer pool if tools metrics are enabled.
+   */
+  private void registerMetrics( ) {
+    if (metricsRegistered.compareAndSet(false, true) == true) {
+      ToolsMetrics.monitorObject(bufferPool, BlazePool::getTargetSize, BUFFER_POOL_SIZE_METRIC);
+      ToolsMetrics.monitorCount(unpooledBuffers, LongAdder::sum, UNPOOLED_BUFFERS_METRIC);
+      claimTimer = ToolsMetrics.getTimer(BUFFER_CLAIM_TIME_METRIC);
+    }
+  }
+
+  /**
+   * Method returns the number of unpooled buffers that had to be created as the buffer pool was exhausted.
+   * 
+   * @return long Number of unpooled buffers.
+   */
+  public long getUnpooledBuffers( ) {
+    return unpooledBuffers.sum();
+  }
+
   /**
    * Method returns the content of the passed stream.
    * 
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Class provides the remaining content of a byte buffer as input stream. This way also direct buffers can be parsed
+ * without copying their content into a byte array first.
+ *
+ * Instances of this class are not thread safe.
+ *
+ * @author JEAF Development Team
+ */
+final class ByteBufferInputStream extends InputStream {
+  /**
+   * Buffer from which the data is read. The buffer is a duplicate of the buffer passed by the caller so that its
+   * position is not changed.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * Initialize object.
+   *
+   * @param pBuffer Buffer whose remaining content should be read. The position of the passed buffer will not be
+   * changed. The parameter must not be null.
+   */
+  ByteBufferInputStream( ByteBuffer pBuffer ) {
+    buffer = pBuffer.duplicate();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read( ) {
+    int lValue;
+    if (buffer.hasRemaining() == true) {
+      lValue = buffer.get() & 0xFF;
+    }
+    else {
+      lValue = -1;
+    }
+    return lValue;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read( byte[] pBytes, int pOffset, int pLength ) {
+    int lRead;
+    if (pLength == 0) {
+      lRead = 0;
+    }
+    else if (buffer.hasRemaining() == true) {
+      lRead = Math.min(pLength, buffer.remaining());
+      buffer.get(pBytes, pOffset, lRead);
+    }
+    else {
+      lRead = -1;
+    }
+    return lRead;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long skip( long pBytes ) {
+    int lSkipped = (int) Math.max(0, Math.min(pBytes, buffer.remaining()));
+    buffer.position(buffer.position() + lSkipped);
+    return lSkipped;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int available( ) {
+    return buffer.remaining();
+  }
+}
@@ -0,0 +1,722 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import com.anaptecs.jeaf.tools.api.xml.DocumentProperties;
+
+/**
+ * Class implements a lightweight serializer that writes DOM nodes directly to a string or writer. Compared to an
+ * identity transformation using JAXP this avoids a lot of overhead which is especially relevant when small elements
+ * are serialized very often.
+ *
+ * The output of the serializer is defined as the output of the JAXP identity transformation of the JDK's built-in
+ * transformer (XML declaration with <code>standalone="no"</code>, indentation by {@value #INDENT_AMOUNT} spaces and
+ * the system line separator). This contract is verified by the test cases of {@link XMLToolsImpl}. Therefore the
+ * serializer is only used if the JDK's built-in transformer factory is configured. DOCTYPE handling, entity
+ * references, standalone documents, prefixless namespaced attributes and mixed content with indentation are not
+ * supported. Callers have to check this using {@link #isSupported(Node)} before the node is serialized and fall
+ * back to the transformation otherwise.
+ *
+ * Instances of this class are not thread-safe and are meant to be used for a single serialization only.
+ *
+ * @author JEAF Development Team
+ */
+final class DOMSerializer {
+  /**
+   * Number of spaces per indentation level.
+   */
+  static final int INDENT_AMOUNT = 4;
+
+  /**
+   * Number of buffered characters after which the output is written to the target writer.
+   */
+  private static final int FLUSH_THRESHOLD = 8192;
+
+  /**
+   * Line separator as it is also used by the JAXP serializer.
+   */
+  static final String LINE_SEPARATOR = System.lineSeparator();
+
+  /**
+   * Document properties that define the output.
+   */
+  private final DocumentProperties documentProperties;
+
+  /**
+   * Charset that is used for the output.
+   */
+  private final Charset charset;
+
+  /**
+   * Encoder is used to check if a character can be represented in the output charset. Reference is null for Unicode
+   * charsets as they can represent all characters.
+   */
+  private final CharsetEncoder encoder;
+
+  /**
+   * Names of all elements whose text content is written as CDATA section.
+   */
+  private final Set<String> cdataSectionElements;
+
+  /**
+   * Buffer to which the output is written.
+   */
+  private final StringBuilder builder = new StringBuilder(256);
+
+  /**
+   * Writer to which the buffered output is written in chunks. Reference is null if the output is only collected in the
+   * buffer.
+   */
+  private Writer writer;
+
+  /**
+   * Array is used to copy the buffer to the writer. It is created with the first flush.
+   */
+  private char[] chars;
+
+  /**
+   * Namespace declarations that are in scope. Every declaration consists of prefix and namespace URI.
+   */
+  private final List<String> namespaces = new ArrayList<>();
+
+  /**
+   * Initialize object.
+   *
+   * @param pDocumentProperties Document properties that define the output. The parameter must not be null.
+   * @param pCharset Charset that is used for the output. The parameter must not be null.
+   */
+  private DOMSerializer( DocumentProperties pDocumentProperties, Charset pCharset ) {
+    documentProperties = pDocumentProperties;
+    charset = pCharset;
+    encoder = newEncoder(pCharset);
+
+    // Resolve elements whose content should be written as CDATA sections.
+    String lCDataSectionElements = pDocumentProperties.getCDataSectionElements();
+    if (lCDataSectionElements != null && lCDataSectionElements.trim().isEmpty() == false) {
+      cdataSectionElements = new HashSet<>();
+      for (String lName : lCDataSectionElements.trim().split("\\s+")) {
+        cdataSectionElements.add(lName);
+      }
+    }
+    else {
+      cdataSectionElements = null;
+    }
+  }
+
+  /**
+   * Method creates a new serializer for the passed document properties if the properties are supported.
+   *
+   * @param pDocumentProperties Document properties that define the output. The parameter must not be null.
+   * @return {@link DOMSerializer} Serializer for the passed properties or null if the properties require features that
+   * are not supported by this class.
+   */
+  static DOMSerializer newSerializer( DocumentProperties pDocumentProperties ) {
+    DOMSerializer lSerializer;
+    if (pDocumentProperties.getDoctypePublic() == null && pDocumentProperties.getDoctypeSystem() == null
+        && "1.0".equals(pDocumentProperties.getVersion())) {
+      Charset lCharset = lookupCharset(pDocumentProperties.getEncoding());
+      if (lCharset != null) {
+        lSerializer = new DOMSerializer(pDocumentProperties, lCharset);
+      }
+      else {
+        lSerializer = null;
+      }
+    }
+    else {
+      lSerializer = null;
+    }
+    return lSerializer;
+  }
+
+  /**
+   * Method returns the charset with the passed name.
+   *
+   * @param pEncoding Name of the charset. The parameter may be null.
+   * @return {@link Charset} Charset with the passed name or null if it is not supported.
+   */
+  static Charset lookupCharset( String pEncoding ) {
+    Charset lCharset;
+    try {
+      if (pEncoding != null && Charset.isSupported(pEncoding) == true) {
+        lCharset = Charset.forName(pEncoding);
+      }
+      else {
+        lCharset = null;
+      }
+    }
+    catch (IllegalCharsetNameException e) {
+      lCharset = null;
+    }
+    return lCharset;
+  }
+
+  /**
+   * Method creates an encoder that can be used to check which characters can be represented in the passed charset.
+   *
+   * @param pCharset Charset for which an encoder is required. The parameter must not be null.
+   * @return {@link CharsetEncoder} Encoder for the passed charset or null if the charset is an Unicode charset that can
+   * represent all characters.
+   */
+  static CharsetEncoder newEncoder( Charset pCharset ) {
+    CharsetEncoder lEncoder;
+    if (pCharset.name().startsWith("UTF-") == true) {
+      lEncoder = null;
+    }
+    else {
+      lEncoder = pCharset.newEncoder();
+    }
+    return lEncoder;
+  }
+
+  /**
+   * Method returns the charset that is used for the output.
+   *
+   * @return {@link Charset} Output charset. The method never returns null.
+   */
+  Charset getCharset( ) {
+    return charset;
+  }
+
+  /**
+   * Method checks if the passed node only contains structures that are supported by this class.
+   *
+   * @param pNode Node that should be checked. The parameter must not be null.
+   * @return boolean Method returns true if the node can be serialized by this class and false otherwise.
+   */
+  boolean isSupported( Node pNode ) {
+    boolean lSupported;
+    short lNodeType = pNode.getNodeType();
+    if (lNodeType == Node.DOCUMENT_NODE) {
+      Document lDocument = (Document) pNode;
+      lSupported = lDocument.getXmlStandalone() == false;
+      for (Node lChild = lDocument.getFirstChild(); lChild != null && lSupported == true; lChild =
+          lChild.getNextSibling()) {
+        switch (lChild.getNodeType()) {
+          case Node.ELEMENT_NODE:
+            lSupported = this.isSupported((Element) lChild);
+            break;
+
+          case Node.COMMENT_NODE:
+          case Node.PROCESSING_INSTRUCTION_NODE:
+            break;
+
+          // Document types are not supported.
+          default:
+            lSupported = false;
+        }
+      }
+    }
+    else if (lNodeType == Node.ELEMENT_NODE) {
+      lSupported = this.isSupported((Element) pNode);
+    }
+    else {
+      lSupported = false;
+    }
+    return lSupported;
+  }
+
+  /**
+   * Method checks if the passed element including all its children only contains supported structures.
+   *
+   * @param pElement Element that should be checked. The parameter must not be null.
+   * @return boolean Method returns true if the element can be serialized by this class and false otherwise.
+   */
+  private boolean isSupported( Element pElement ) {
+    // Generating prefixes for namespaces of attributes is not supported.
+    boolean lSupported = true;
+    NamedNodeMap lAttributes = pElement.getAttributes();
+    for (int i = 0; i < lAttributes.getLength() && lSupported == true; i++) {
+      Attr lAttribute = (Attr) lAttributes.item(i);
+      String lNamespaceURI = lAttribute.getNamespaceURI();
+      lSupported = lNamespaceURI == null || lAttribute.getPrefix() != null
+          || XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(lNamespaceURI) || XMLConstants.XML_NS_URI.equals(lNamespaceURI);
+    }
+
+    // Entity references and indentation of mixed content are not supported.
+    boolean lHasText = false;
+    boolean lHasMarkup = false;
+    for (Node lChild = pElement.getFirstChild(); lChild != null && lSupported == true; lChild =
+        lChild.getNextSibling()) {
+      switch (lChild.getNodeType()) {
+        case Node.ELEMENT_NODE:
+          lHasMarkup = true;
+          lSupported = this.isSupported((Element) lChild);
+          break;
+
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+          lHasText = lHasText || lChild.getNodeValue().isEmpty() == false;
+          break;
+
+        case Node.COMMENT_NODE:
+        case Node.PROCESSING_INSTRUCTION_NODE:
+          lHasMarkup = true;
+          break;
+
+        default:
+          lSupported = false;
+      }
+    }
+    return lSupported && (lHasText == false || lHasMarkup == false || documentProperties.isIndent() == false);
+  }
+
+  /**
+   * Method serializes the passed node to a string.
+   *
+   * @param pNode Node that should be serialized. The node must be supported by this class (see
+   * {@link #isSupported(Node)}). The parameter must not be null.
+   * @return {@link String} XML representation of the passed node. The method never returns null.
+   */
+  String serialize( Node pNode ) {
+    writer = null;
+    this.writeNode(pNode);
+    return builder.toString();
+  }
+
+  /**
+   * Method serializes the passed node to the passed writer. The output is written in chunks so that the complete
+   * document never has to be kept in memory. The writer will be flushed but not closed.
+   *
+   * @param pNode Node that should be serialized. The node must be supported by this class (see
+   * {@link #isSupported(Node)}). The parameter must not be null.
+   * @param pWriter Writer to which the node is written. The parameter must not be null.
+   * @throws IOException if an I/O error occurs when writing to the writer.
+   */
+  void serialize( Node pNode, Writer pWriter ) throws IOException {
+    writer = pWriter;
+    try {
+      this.writeNode(pNode);
+      this.flush(0);
+      pWriter.flush();
+    }
+    catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    finally {
+      writer = null;
+    }
+  }
+
+  /**
+   * Method writes the passed node including XML declaration and final line break.
+   *
+   * @param pNode Node that should be written. The parameter must not be null.
+   */
+  private void writeNode( Node pNode ) {
+    // Write XML declaration if required.
+    if (documentProperties.omitXMLDeclaration() == false) {
+      builder.append("<?xml version=\"1.0\" encoding=\"").append(documentProperties.getEncoding());
+      builder.append("\" standalone=\"no\"?>");
+      if (documentProperties.isIndent() == true) {
+        builder.append(LINE_SEPARATOR);
+      }
+    }
+
+    if (pNode.getNodeType() == Node.DOCUMENT_NODE) {
+      this.writeDocument((Document) pNode);
+    }
+    else {
+      this.writeElement((Element) pNode, 0);
+    }
+    if (documentProperties.isIndent() == true) {
+      builder.append(LINE_SEPARATOR);
+    }
+  }
+
+  /**
+   * Method writes the content of the buffer to the writer if it exceeds the passed threshold. If no writer is set then
+   * the output is kept in the buffer.
+   *
+   * @param pThreshold Threshold in characters.
+   * @throws UncheckedIOException if an I/O error occurs when writing to the writer.
+   */
+  private void flush( int pThreshold ) {
+    int lLength = builder.length();
+    if (writer != null && lLength > pThreshold) {
+      // Small outputs only require a small array.
+      if (chars == null || (chars.length < lLength && chars.length < FLUSH_THRESHOLD * 2)) {
+        chars = new char[Math.min(lLength, FLUSH_THRESHOLD * 2)];
+      }
+      try {
+        for (int lStart = 0; lStart < lLength; lStart = lStart + chars.length) {
+          int lEnd = Math.min(lStart + chars.length, lLength);
+          builder.getChars(lStart, lEnd, chars, 0);
+          writer.write(chars, 0, lEnd - lStart);
+        }
+        builder.setLength(0);
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Method writes all children of the passed document.
+   *
+   * @param pDocument Document that should be written. The parameter must not be null.
+   */
+  private void writeDocument( Document pDocument ) {
+    for (Node lChild = pDocument.getFirstChild(); lChild != null; lChild = lChild.getNextSibling()) {
+      if (lChild.getNodeType() == Node.ELEMENT_NODE) {
+        this.writeElement((Element) lChild, 0);
+      }
+      else {
+        this.writeMarkup(lChild);
+      }
+    }
+  }
+
+  /**
+   * Method writes the passed element including all its children.
+   *
+   * @param pElement Element that should be written. The parameter must not be null.
+   * @param pDepth Depth of the element relative to the serialized node. Depth is used for indentation.
+   */
+  private void writeElement( Element pElement, int pDepth ) {
+    int lScope = namespaces.size();
+    String lName = pElement.getNodeName();
+    builder.append('<').append(lName);
+    this.writeAttributes(pElement);
+
+    // Declare namespace of element if it is not yet in scope. DOM level 1 elements do not have any namespace.
+    if (pElement.getLocalName() != null) {
+      String lPrefix = pElement.getPrefix();
+      this.declareNamespaceIfRequired(lPrefix != null ? lPrefix : "", pElement.getNamespaceURI());
+    }
+
+    // Determine kind of content.
+    boolean lHasText = false;
+    boolean lHasMarkup = false;
+    for (Node lChild = pElement.getFirstChild(); lChild != null; lChild = lChild.getNextSibling()) {
+      short lType = lChild.getNodeType();
+      if (lType == Node.TEXT_NODE || lType == Node.CDATA_SECTION_NODE) {
+        lHasText = lHasText || lChild.getNodeValue().isEmpty() == false;
+      }
+      else {
+        lHasMarkup = true;
+      }
+    }
+
+    // Empty element
+    if (lHasText == false && lHasMarkup == false) {
+      builder.append("/>");
+    }
+    else {
+      builder.append('>');
+      boolean lIndent = documentProperties.isIndent() == true && lHasMarkup == true;
+      boolean lCData = this.isCDataSectionElement(pElement);
+      for (Node lChild = pElement.getFirstChild(); lChild != null; lChild = lChild.getNextSibling()) {
+        // Empty text nodes are ignored.
+        if (lChild.getNodeType() != Node.TEXT_NODE || lChild.getNodeValue().isEmpty() == false) {
+          if (lIndent == true) {
+            this.writeIndentation(pDepth + 1);
+          }
+          this.writeChild(lChild, pDepth + 1, lCData);
+        }
+      }
+      if (lIndent == true) {
+        this.writeIndentation(pDepth);
+      }
+      builder.append("</").append(lName).append('>');
+    }
+
+    // Remove namespace declarations of this element from scope.
+    while (namespaces.size() > lScope) {
+      namespaces.remove(namespaces.size() - 1);
+    }
+    this.flush(FLUSH_THRESHOLD);
+  }
+
+  /**
+   * Method writes the passed child node of an element.
+   *
+   * @param pNode Node that should be written. The parameter must not be null.
+   * @param pDepth Depth of the node relative to the serialized node.
+   * @param pCData Parameter defines if text should be written as CDATA section.
+   */
+  private void writeChild( Node pNode, int pDepth, boolean pCData ) {
+    switch (pNode.getNodeType()) {
+      case Node.ELEMENT_NODE:
+        this.writeElement((Element) pNode, pDepth);
+        break;
+
+      case Node.TEXT_NODE:
+        if (pCData == true) {
+          this.writeCData(pNode.getNodeValue());
+        }
+        else {
+          this.writeEscaped(pNode.getNodeValue(), false);
+        }
+        break;
+
+      case Node.CDATA_SECTION_NODE:
+        this.writeCData(pNode.getNodeValue());
+        break;
+
+      default:
+        this.writeMarkup(pNode);
+    }
+  }
+
+  /**
+   * Method writes all attributes of the passed element. Namespaces of attributes are declared if required.
+   *
+   * @param pElement Element whose attributes should be written. The parameter must not be null.
+   */
+  private void writeAttributes( Element pElement ) {
+    NamedNodeMap lAttributes = pElement.getAttributes();
+    for (int i = 0; i < lAttributes.getLength(); i++) {
+      Attr lAttribute = (Attr) lAttributes.item(i);
+      String lNamespaceURI = lAttribute.getNamespaceURI();
+
+      // Explicit namespace declarations are added to the current scope.
+      if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(lNamespaceURI)) {
+        String lPrefix = lAttribute.getPrefix() != null ? lAttribute.getLocalName() : "";
+        namespaces.add(lPrefix);
+        namespaces.add(lAttribute.getValue());
+      }
+      // Namespace of attribute has to be declared if it is not yet in scope.
+      else if (lNamespaceURI != null && XMLConstants.XML_NS_URI.equals(lNamespaceURI) == false) {
+        this.declareNamespaceIfRequired(lAttribute.getPrefix(), lNamespaceURI);
+      }
+      else {
+        // Nothing to do.
+      }
+      builder.append(' ').append(lAttribute.getName()).append("=\"");
+      this.writeEscaped(lAttribute.getValue(), true);
+      builder.append('"');
+    }
+  }
+
+  /**
+   * Method writes a namespace declaration if the passed namespace is not yet bound to the passed prefix.
+   *
+   * @param pPrefix Prefix of the namespace. An empty string represents the default namespace. The parameter must not be
+   * null.
+   * @param pNamespaceURI Namespace URI. The parameter may be null.
+   */
+  private void declareNamespaceIfRequired( String pPrefix, String pNamespaceURI ) {
+    String lNamespaceURI = pNamespaceURI != null ? pNamespaceURI : "";
+    if (lNamespaceURI.equals(this.getNamespaceURI(pPrefix)) == false) {
+      namespaces.add(pPrefix);
+      namespaces.add(lNamespaceURI);
+      if (pPrefix.isEmpty() == true) {
+        builder.append(" xmlns=\"");
+      }
+      else {
+        builder.append(" xmlns:").append(pPrefix).append("=\"");
+      }
+      this.writeEscaped(lNamespaceURI, true);
+      builder.append('"');
+    }
+  }
+
+  /**
+   * Method returns the namespace URI that is bound to the passed prefix in the current scope.
+   *
+   * @param pPrefix Prefix whose namespace should be returned. The parameter must not be null.
+   * @return {@link String} Namespace URI that is bound to the prefix. If the prefix is not bound then an empty string
+   * is returned.
+   */
+  private String getNamespaceURI( String pPrefix ) {
+    String lNamespaceURI = "";
+    for (int i = namespaces.size() - 2; i >= 0; i = i - 2) {
+      if (namespaces.get(i).equals(pPrefix)) {
+        lNamespaceURI = namespaces.get(i + 1);
+        break;
+      }
+    }
+    return lNamespaceURI;
+  }
+
+  /**
+   * Method checks if the text content of the passed element has to be written as CDATA section.
+   *
+   * @param pElement Element that should be checked. The parameter must not be null.
+   * @return boolean Method returns true if the content has to be written as CDATA section and false otherwise.
+   */
+  private boolean isCDataSectionElement( Element pElement ) {
+    boolean lCData;
+    if (cdataSectionElements != null) {
+      String lNamespaceURI = pElement.getNamespaceURI();
+      if (lNamespaceURI == null) {
+        lCData = cdataSectionElements.contains(pElement.getNodeName());
+      }
+      else {
+        lCData = cdataSectionElements.contains('{' + lNamespaceURI + '}' + pElement.getLocalName());
+      }
+    }
+    else {
+      lCData = false;
+    }
+    return lCData;
+  }
+
+  /**
+   * Method writes the passed comment or processing instruction.
+   *
+   * @param pNode Comment or processing instruction that should be written. The parameter must not be null.
+   */
+  private void writeMarkup( Node pNode ) {
+    if (pNode.getNodeType() == Node.COMMENT_NODE) {
+      builder.append("<!--").append(pNode.getNodeValue()).append("-->");
+    }
+    else {
+      builder.append("<?").append(pNode.getNodeName());
+      String lData = pNode.getNodeValue();
+      if (lData != null && lData.isEmpty() == false) {
+        builder.append(' ').append(lData);
+      }
+      builder.append("?>");
+    }
+  }
+
+  /**
+   * Method writes the passed text as CDATA section. Sequences of "]]>" are split into multiple CDATA sections and
+   * characters that can not be represented in the output charset are written as character references.
+   *
+   * @param pText Text that should be written. The parameter must not be null.
+   */
+  private void writeCData( String pText ) {
+    appendCData(builder, pText, encoder);
+  }
+
+  /**
+   * Method writes the passed text and escapes all characters where this is required.
+   *
+   * @param pText Text that should be written. The parameter must not be null.
+   * @param pAttribute Parameter defines if the text is the value of an attribute or not.
+   */
+  private void writeEscaped( String pText, boolean pAttribute ) {
+    appendEscaped(builder, pText, pAttribute, encoder);
+  }
+
+  /**
+   * Method writes a line break followed by the indentation for the passed depth.
+   *
+   * @param pDepth Depth for which the indentation should be written.
+   */
+  private void writeIndentation( int pDepth ) {
+    appendIndentation(builder, pDepth);
+  }
+
+  /**
+   * Method appends the passed text as CDATA section. Sequences of "]]>" are split into multiple CDATA sections and
+   * characters that can not be represented in the output charset are written as character references.
+   *
+   * @param pBuilder Builder to which the text is appended. The parameter must not be null.
+   * @param pText Text that should be written. The parameter must not be null.
+   * @param pEncoder Encoder of the output charset or null for Unicode charsets.
+   */
+  static void appendCData( StringBuilder pBuilder, String pText, CharsetEncoder pEncoder ) {
+    pBuilder.append("<![CDATA[");
+    int lLength = pText.length();
+    for (int i = 0; i < lLength; i++) {
+      char lChar = pText.charAt(i);
+      if (lChar == ']' && pText.startsWith("]]>", i)) {
+        pBuilder.append("]]]]><![CDATA[>");
+        i = i + 2;
+      }
+      else if (pEncoder != null && pEncoder.canEncode(lChar) == false) {
+        pBuilder.append("]]>&#").append(pText.codePointAt(i)).append(";<![CDATA[");
+        if (Character.isHighSurrogate(lChar) == true) {
+          i++;
+        }
+      }
+      else {
+        pBuilder.append(lChar);
+      }
+    }
+    pBuilder.append("]]>");
+  }
+
+  /**
+   * Method appends the passed text and escapes all characters where this is required.
+   *
+   * @param pBuilder Builder to which the text is appended. The parameter must not be null.
+   * @param pText Text that should be written. The parameter must not be null.
+   * @param pAttribute Parameter defines if the text is the value of an attribute or not.
+   * @param pEncoder Encoder of the output charset or null for Unicode charsets.
+   */
+  static void appendEscaped( StringBuilder pBuilder, String pText, boolean pAttribute, CharsetEncoder pEncoder ) {
+    int lLength = pText.length();
+    for (int i = 0; i < lLength; i++) {
+      char lChar = pText.charAt(i);
+      switch (lChar) {
+        case '&':
+          pBuilder.append("&amp;");
+          break;
+
+        case '<':
+          pBuilder.append("&lt;");
+          break;
+
+        case '>':
+          pBuilder.append("&gt;");
+          break;
+
+        case '"':
+          pBuilder.append(pAttribute == true ? "&quot;" : "\"");
+          break;
+
+        case '\n':
+          pBuilder.append(pAttribute == true ? "&#10;" : LINE_SEPARATOR);
+          break;
+
+        case '\t':
+          pBuilder.append(pAttribute == true ? "&#9;" : "\t");
+          break;
+
+        default:
+          // Characters outside of the basic multilingual plane are always written as character references.
+          if (Character.isHighSurrogate(lChar) == true && i + 1 < lLength) {
+            pBuilder.append("&#").append(pText.codePointAt(i)).append(';');
+            i++;
+          }
+          else if (lChar < 0x20 || (pAttribute == false && lChar >= 0x7F && lChar <= 0x9F)
+              || (pEncoder != null && pEncoder.canEncode(lChar) == false)) {
+            pBuilder.append("&#").append((int) lChar).append(';');
+          }
+          else {
+            pBuilder.append(lChar);
+          }
+      }
+    }
+  }
+
+  /**
+   * Method appends a line break followed by the indentation for the passed depth.
+   *
+   * @param pBuilder Builder to which the indentation is appended. The parameter must not be null.
+   * @param pDepth Depth for which the indentation should be written.
+   */
+  static void appendIndentation( StringBuilder pBuilder, int pDepth ) {
+    pBuilder.append(LINE_SEPARATOR);
+    for (int i = 0; i < pDepth * INDENT_AMOUNT; i++) {
+      pBuilder.append(' ');
+    }
+  }
+}
@@ -0,0 +1,470 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import com.anaptecs.jeaf.tools.api.Tools;
+import com.anaptecs.jeaf.tools.api.ToolsMessages;
+import com.anaptecs.jeaf.tools.api.monitoring.MonitoringTools;
+import com.anaptecs.jeaf.tools.api.monitoring.Tag;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerHandle;
+import com.anaptecs.jeaf.tools.impl.monitoring.ToolsMetrics;
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.trace.Trace;
+import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
+
+import stormpot.Allocator;
+import stormpot.BlazePool;
+import stormpot.Config;
+import stormpot.PoolException;
+import stormpot.Slot;
+import stormpot.Timeout;
+
+/**
+ * Class implements a pool of either validating or non-validating document builders. Besides the pooling itself the
+ * class keeps track of how the pool is used (claims, fallbacks to unpooled document builders, number of created
+ * document builders and the time that was spent to create them). All counters are lock-free so that they do not slow
+ * down parsing under high load. The counters are exposed as gauges through {@link MonitoringTools}.
+ *
+ * If adaptive mode is enabled then the pool grows whenever fallbacks to unpooled document builders persist. The pool
+ * will never grow beyond its configured max. size.
+ *
+ * @author JEAF Development Team
+ */
+public final class DocumentBuilderPool {
+  /**
+   * Name of the gauge with the number of claims of document builders.
+   */
+  public static final String CLAIMS_METRIC = "jeaf.tools.xml.document.builder.claims";
+
+  /**
+   * Name of the gauge with the number of times when no pooled document builder was available.
+   */
+  public static final String FALLBACKS_METRIC = "jeaf.tools.xml.document.builder.fallbacks";
+
+  /**
+   * Name of the gauge with the number of document builders that were created.
+   */
+  public static final String BUILDS_METRIC = "jeaf.tools.xml.document.builder.builds";
+
+  /**
+   * Name of the gauge with the total time in nanoseconds that was spent to create document builders.
+   */
+  public static final String BUILD_TIME_METRIC = "jeaf.tools.xml.document.builder.build.time.nanos";
+
+  /**
+   * Name of the gauge with the current size of the pool.
+   */
+  public static final String POOL_SIZE_METRIC = "jeaf.tools.xml.document.builder.pool.size";
+
+  /**
+   * Name of the timer that tracks the claim times of the pool. The timer is only available if tools metrics are
+   * enabled.
+   */
+  public static final String CLAIM_TIME_METRIC = "jeaf.tools.xml.document.builder.claim.time";
+
+  /**
+   * Name of the tag that is used to distinguish validating and non-validating pool.
+   */
+  public static final String POOL_TAG = "pool";
+
+  /**
+   * Number of fallbacks to unpooled document builders since the last resize after which an adaptive pool grows.
+   */
+  static final int GROWTH_THRESHOLD = 10;
+
+  /**
+   * Timeout for max. waiting time for a new document builder.
+   *
+   * Max. waiting time must be greater than 0 in order to avoid too many objects instead of taking them from the pool.
+   * Behavior is only visible in load test with high pressure on XML parsing.
+   */
+  private static final Timeout TIMEOUT = new Timeout(1, TimeUnit.NANOSECONDS);
+
+  /**
+   * Counter is used to monitor the amount of times when we were not able to use a pooled document builder across all
+   * pools.
+   */
+  private static final LongAdder TOTAL_FALLBACKS = new LongAdder();
+
+  /**
+   * Attribute defines if the pool contains validating document builders or not.
+   */
+  private final boolean validating;
+
+  /**
+   * Pool with all document builders.
+   */
+  private final BlazePool<PooledDocumentBuilder> pool;
+
+  /**
+   * Attribute defines if the pool grows in case of persisting fallbacks.
+   */
+  private final boolean adaptive;
+
+  /**
+   * Max. size up to which an adaptive pool may grow.
+   */
+  private final int maxSize;
+
+  /**
+   * Number of claims of document builders.
+   */
+  private final LongAdder claims = new LongAdder();
+
+  /**
+   * Number of times when no pooled document builder was available.
+   */
+  private final LongAdder fallbacks = new LongAdder();
+
+  /**
+   * Number of document builders that were created either for the pool or as fallback.
+   */
+  private final LongAdder builds = new LongAdder();
+
+  /**
+   * Total time in nanoseconds that was spent to create document builders.
+   */
+  private final LongAdder buildTime = new LongAdder();
+
+  /**
+   * Number of fallbacks since the pool was resized the last time.
+   */
+  private final AtomicInteger fallbacksSinceResize = new AtomicInteger();
+
+  /**
+   * Flag indicates whether the gauges of this pool are already registered.
+   */
+  private final AtomicBoolean metricsRegistered = new AtomicBoolean();
+
+  /**
+   * Timer that tracks the claim times of the pool. The field is null if tools metrics are disabled.
+   */
+  private volatile TimerHandle claimTimer;
+
+  /**
+   * Initialize object.
+   *
+   * @param pValidating Parameter defines if the pool contains validating document builders or not.
+   * @param pPoolSize Initial size of the pool. The parameter must be greater than zero.
+   * @param pAdaptive Parameter defines if the pool should grow in case of persisting fallbacks.
+   * @param pMaxSize Max. size up to which an adaptive pool may grow. If the value is less than the initial size then
+   * the initial size is used.
+   */
+  DocumentBuilderPool( boolean pValidating, int pPoolSize, boolean pAdaptive, int pMaxSize ) {
+    validating = pValidating;
+    adaptive = pAdaptive;
+    maxSize = Math.max(pPoolSize, pMaxSize);
+
+    Config<PooledDocumentBuilder> lConfig = new Config<>();
+    lConfig.setAllocator(new TimedAllocator(new DocumentBuilderAllocator(pValidating)));
+    lConfig.setBackgroundExpirationEnabled(false);
+    lConfig.setSize(pPoolSize);
+    pool = new BlazePool<>(lConfig);
+  }
+
+  /**
+   * Method tries to claim a document builder from the pool. If no pooled document builder is available then the
+   * fallback will be recorded and null is returned. In this case callers are expected to use
+   * {@link #newDocumentBuilder()}.
+   *
+   * @return {@link PooledDocumentBuilder} Claimed document builder or null if no pooled document builder is available.
+   * Pooled document builders have to be released after usage.
+   * @throws PoolException in case that the pool is unable to create a new document builder.
+   * @throws InterruptedException in case that the calling thread was interrupted.
+   */
+  PooledDocumentBuilder claim( ) throws PoolException, InterruptedException {
+    // Register metrics with first usage as monitoring tools might not be available yet when the pool is created.
+    if (metricsRegistered.get() == false) {
+      this.registerMetrics();
+    }
+
+    claims.increment();
+    PooledDocumentBuilder lPooledDocumentBuilder;
+    TimerHandle lClaimTimer = claimTimer;
+    if (lClaimTimer != null) {
+      long lStart = lClaimTimer.start();
+      lPooledDocumentBuilder = pool.claim(TIMEOUT);
+      lClaimTimer.stop(lStart);
+    }
+    else {
+      lPooledDocumentBuilder = pool.claim(TIMEOUT);
+    }
+    if (lPooledDocumentBuilder == null) {
+      this.recordFallback();
+    }
+    else {
+      // Nothing to do.
+    }
+    return lPooledDocumentBuilder;
+  }
+
+  /**
+   * Method creates a new unpooled document builder. Creation of the document builder is tracked.
+   *
+   * @return {@link DocumentBuilder} New document builder. The method never returns null.
+   * @throws ParserConfigurationException in case that the document builder could not be created.
+   */
+  DocumentBuilder newDocumentBuilder( ) throws ParserConfigurationException {
+    long lStart = System.nanoTime();
+    DocumentBuilderFactory lFactory = XMLToolsImpl.createSecuredDocumentBuilderFactory(validating);
+    DocumentBuilder lDocumentBuilder = lFactory.newDocumentBuilder();
+    lDocumentBuilder.setErrorHandler(new ErrorHandlerImpl());
+    this.recordBuild(System.nanoTime() - lStart);
+    return lDocumentBuilder;
+  }
+
+  /**
+   * Method records a fallback to an unpooled document builder and lets the pool grow if required.
+   */
+  private void recordFallback( ) {
+    fallbacks.increment();
+    TOTAL_FALLBACKS.increment();
+    int lFallbacksSinceResize = fallbacksSinceResize.incrementAndGet();
+
+    // Adaptive pools grow if fallbacks persist.
+    if (adaptive == true && lFallbacksSinceResize >= GROWTH_THRESHOLD) {
+      this.increasePoolSizeIfPossible();
+    }
+    // During startup it may happen that the document builder pool is not yet ready. If this happens more often then
+    // the pool is too small.
+    else if (adaptive == false && fallbacks.sum() > 1) {
+      XFun.getTrace().writeEmergencyTrace("Max. waiting time for pooled document builder exeeded. Waited "
+          + TIMEOUT.getTimeout()
+          + "ns. This problem may occur once during startup. If you see this message more often inside your logs then please check your environment configuration. The pool size can be configured using system property '"
+          + XMLToolsImpl.DOCUMENT_BUILDER_POOL_SIZE_PROPERTY
+          + "'. Adaptive pool sizing can be enabled using system property '"
+          + XMLToolsImpl.DOCUMENT_BUILDER_POOL_ADAPTIVE_PROPERTY + "'. Current pool size is " + pool.getTargetSize()
+          + ". Problem occurred " + fallbacks.sum() + " times.", null, TraceLevel.INFO);
+    }
+    else {
+      // Nothing to do.
+    }
+  }
+
+  /**
+   * Method increases the size of the pool if its max. size is not yet reached. The pool size will be doubled.
+   *
+   * @return boolean Method returns true if the pool size could be increased and false otherwise.
+   */
+  synchronized boolean increasePoolSizeIfPossible( ) {
+    // Determine current pool size
+    int lCurrentPoolSize = pool.getTargetSize();
+
+    // Increase pool size
+    boolean lIncreasedPoolSize;
+    if (lCurrentPoolSize < maxSize) {
+      int lNewPoolSize = (int) Math.min((long) lCurrentPoolSize * 2, maxSize);
+      pool.setTargetSize(lNewPoolSize);
+      Trace.getTrace().write(ToolsMessages.INCREASED_POOL_SIZE, this.getPoolName(), Integer.toString(lCurrentPoolSize),
+          Integer.toString(lNewPoolSize));
+      lIncreasedPoolSize = true;
+    }
+    // Pool already has maximum size
+    else {
+      lIncreasedPoolSize = false;
+    }
+
+    // Start counting again, no matter if the pool grew or not. This avoids that we try to resize the pool with every
+    // fallback once the max. size is reached.
+    fallbacksSinceResize.set(0);
+    return lIncreasedPoolSize;
+  }
+
+  /**
+   * Method ensures that the pool has at least the passed size. If the pool is smaller it will be increased no matter if
+   * the pool is adaptive or not. The pool will never grow beyond its max. size.
+   *
+   * @param pMinSize Min. size of the pool.
+   */
+  synchronized void ensurePoolSize( int pMinSize ) {
+    int lCurrentPoolSize = pool.getTargetSize();
+    int lNewPoolSize = Math.min(pMinSize, maxSize);
+    if (lCurrentPoolSize < lNewPoolSize) {
+      pool.setTargetSize(lNewPoolSize);
+      Trace.getTrace().write(ToolsMessages.INCREASED_POOL_SIZE, this.getPoolName(), Integer.toString(lCurrentPoolSize),
+          Integer.toString(lNewPoolSize));
+    }
+  }
+
+  /**
+   * Method records the creation of a document builder.
+   *
+   * @param pDuration Time in nanoseconds that was required to create the document builder.
+   */
+  private void recordBuild( long pDuration ) {
+    builds.increment();
+    buildTime.add(pDuration);
+  }
+
+  /**
+   * Method registers the gauges of this pool with the monitoring tools. Problems during registration will not affect
+   * the pool itself.
+   */
+  private void registerMetrics( ) {
+    if (metricsRegistered.compareAndSet(false, true) == true) {
+      try {
+        MonitoringTools lMonitoringTools = Tools.getMonitoringTools();
+        Tag lTag = Tag.of(POOL_TAG, this.getPoolType());
+        lMonitoringTools.monitorObject(this, DocumentBuilderPool::getClaims, CLAIMS_METRIC, lTag);
+        lMonitoringTools.monitorObject(this, DocumentBuilderPool::getFallbacks, FALLBACKS_METRIC, lTag);
+        lMonitoringTools.monitorObject(this, DocumentBuilderPool::getBuilds, BUILDS_METRIC, lTag);
+        lMonitoringTools.monitorObject(this, DocumentBuilderPool::getBuildTime, BUILD_TIME_METRIC, lTag);
+        lMonitoringTools.monitorObject(this, DocumentBuilderPool::getPoolSize, POOL_SIZE_METRIC, lTag);
+        claimTimer = ToolsMetrics.getTimer(CLAIM_TIME_METRIC, lTag);
+      }
+      catch (RuntimeException e) {
+        XFun.getTrace().warn("Unable to register metrics of " + this.getPoolName() + ".", e);
+      }
+    }
+  }
+
+  /**
+   * Method returns the type of document builders that are pooled.
+   *
+   * @return {@link String} "validating" or "non-validating". The method never returns null.
+   */
+  private String getPoolType( ) {
+    String lType;
+    if (validating == true) {
+      lType = "validating";
+    }
+    else {
+      lType = "non-validating";
+    }
+    return lType;
+  }
+
+  /**
+   * Method returns the name of the pool as it is used in error messages and traces.
+   *
+   * @return {@link String} Name of the pool. The method never returns null.
+   */
+  String getPoolName( ) {
+    return "XML Document Builder Pool (" + this.getPoolType() + ")";
+  }
+
+  /**
+   * Method returns if the pool contains validating document builders.
+   *
+   * @return boolean Method returns true if the pool contains validating document builders and false otherwise.
+   */
+  public boolean isValidating( ) {
+    return validating;
+  }
+
+  /**
+   * Method returns if the pool grows in case of persisting fallbacks.
+   *
+   * @return boolean Method returns true if the pool is adaptive and false otherwise.
+   */
+  public boolean isAdaptive( ) {
+    return adaptive;
+  }
+
+  /**
+   * Method returns the current size of the pool.
+   *
+   * @return int Current size of the pool.
+   */
+  public int getPoolSize( ) {
+    return pool.getTargetSize();
+  }
+
+  /**
+   * Method returns the max. size up to which the pool may grow.
+   *
+   * @return int Max. size of the pool.
+   */
+  public int getMaxPoolSize( ) {
+    return maxSize;
+  }
+
+  /**
+   * Method returns the number of claims of document builders.
+   *
+   * @return long Number of claims.
+   */
+  public long getClaims( ) {
+    return claims.sum();
+  }
+
+  /**
+   * Method returns the number of times when no pooled document builder was available.
+   *
+   * @return long Number of fallbacks to unpooled document builders.
+   */
+  public long getFallbacks( ) {
+    return fallbacks.sum();
+  }
+
+  /**
+   * Method returns the number of document builders that were created either for the pool or as fallback.
+   *
+   * @return long Number of created document builders.
+   */
+  public long getBuilds( ) {
+    return builds.sum();
+  }
+
+  /**
+   * Method returns the total time that was spent to create document builders.
+   *
+   * @return long Total build time in nanoseconds.
+   */
+  public long getBuildTime( ) {
+    return buildTime.sum();
+  }
+
+  /**
+   * Method returns the number of times when no pooled document builder was available across all pools.
+   *
+   * @return long Number of fallbacks to unpooled document builders.
+   */
+  static long getTotalFallbacks( ) {
+    return TOTAL_FALLBACKS.sum();
+  }
+
+  /**
+   * Allocator measures the time that is required to create pooled document builders.
+   */
+  private final class TimedAllocator implements Allocator<PooledDocumentBuilder> {
+    /**
+     * Allocator that actually creates the document builders.
+     */
+    private final DocumentBuilderAllocator allocator;
+
+    /**
+     * Initialize object.
+     *
+     * @param pAllocator Allocator that actually creates the document builders. The parameter must not be null.
+     */
+    TimedAllocator( DocumentBuilderAllocator pAllocator ) {
+      allocator = pAllocator;
+    }
+
+    @Override
+    public PooledDocumentBuilder allocate( Slot pSlot ) {
+      long lStart = System.nanoTime();
+      PooledDocumentBuilder lPooledDocumentBuilder = allocator.allocate(pSlot);
+      DocumentBuilderPool.this.recordBuild(System.nanoTime() - lStart);
+      return lPooledDocumentBuilder;
+    }
+
+    @Override
+    public void deallocate( PooledDocumentBuilder pPoolable ) throws Exception {
+      allocator.deallocate(pPoolable);
+    }
+  }
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.w3c.dom.Document;
+
+/**
+ * Class implements a cache for parsed XML files. Documents are cached by their absolute file path, validation flag and
+ * system ID. A cached document is only used as long as last modification time and size of the file did not change.
+ *
+ * The cache has a max. size. If the max. size is exceeded then the least recently used document is evicted. Callers
+ * always receive a deep clone of the cached document so that they may modify it. Returning the cached document itself
+ * is not supported as DOM documents are neither read-only nor thread-safe even for read access.
+ *
+ * The cache stores a clone of the parsed document. This ensures that the cached document is completely expanded (e.g.
+ * when deferred node expansion is used by the parser) so that later it is only read.
+ *
+ * Instances of this class are thread-safe.
+ *
+ * @author JEAF Development Team
+ */
+public final class DocumentCache {
+  /**
+   * Name of the gauge with the current number of cached documents.
+   */
+  public static final String SIZE_METRIC = "jeaf.tools.xml.document.cache.size";
+
+  /**
+   * Name of the gauge with the number of cache hits.
+   */
+  public static final String HITS_METRIC = "jeaf.tools.xml.document.cache.hits";
+
+  /**
+   * Name of the gauge with the number of cache misses.
+   */
+  public static final String MISSES_METRIC = "jeaf.tools.xml.document.cache.misses";
+
+  /**
+   * Name of the gauge with the number of evicted documents.
+   */
+  public static final String EVICTIONS_METRIC = "jeaf.tools.xml.document.cache.evictions";
+
+  /**
+   * Max. number of documents in the cache.
+   */
+  private final int maxSize;
+
+  /**
+   * Map contains all cached documents in order of their last access.
+   */
+  private final Map<String, CacheEntry> entries;
+
+  /**
+   * Number of requests that could be answered from the cache.
+   */
+  private final AtomicLong hits = new AtomicLong();
+
+  /**
+   * Number of requests where the file had to be parsed.
+   */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Number of documents that were evicted as the cache was full.
+   */
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Initialize object.
+   *
+   * @param pMaxSize Max. number of documents in the cache. The parameter must be greater than 0.
+   */
+  DocumentCache( int pMaxSize ) {
+    maxSize = pMaxSize;
+    entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<String, CacheEntry> pEldest ) {
+        boolean lRemove = this.size() > maxSize;
+        if (lRemove == true) {
+          evictions.incrementAndGet();
+        }
+        return lRemove;
+      }
+    };
+  }
+
+  /**
+   * Method returns the document for the passed file. If the document is not cached or the file was changed since it
+   * was cached then the passed parser is used to parse the file.
+   *
+   * @param pFile File whose document should be returned. The parameter must not be null.
+   * @param pValidating Flag defines whether the file is parsed validating.
+   * @param pSystemID System ID that is used for parsing. The parameter may be null.
+   * @param pParser Parser that is used in case that the document is not cached. The parameter must not be null.
+   * @return {@link Document} Parsed document. The method never returns null.
+   */
+  Document getDocument( File pFile, boolean pValidating, String pSystemID, Supplier<Document> pParser ) {
+    String lKey = pFile.getAbsolutePath() + '|' + pValidating + '|' + pSystemID;
+    long lLastModified = pFile.lastModified();
+    long lLength = pFile.length();
+
+    // Try to resolve document from cache.
+    CacheEntry lEntry;
+    synchronized (entries) {
+      lEntry = entries.get(lKey);
+    }
+    Document lDocument;
+    if (lEntry != null && lEntry.lastModified == lLastModified && lEntry.length == lLength) {
+      hits.incrementAndGet();
+      lDocument = this.toResult(lEntry.document);
+    }
+    // Document is not cached or outdated. Parsing is done outside of the lock in order to not block other callers.
+    else {
+      misses.incrementAndGet();
+      Document lParsedDocument = pParser.get();
+      Document lCachedDocument = (Document) lParsedDocument.cloneNode(true);
+      synchronized (entries) {
+        entries.put(lKey, new CacheEntry(lCachedDocument, lLastModified, lLength));
+      }
+
+      // Freshly parsed document is not used by anyone else and can be returned directly.
+      lDocument = lParsedDocument;
+    }
+    return lDocument;
+  }
+
+  /**
+   * Method returns the cached document in the way it has to be returned to the caller.
+   *
+   * @param pCachedDocument Cached document. The parameter must not be null.
+   * @return {@link Document} Document that is returned to the caller. The method never returns null.
+   */
+  private Document toResult( Document pCachedDocument ) {
+    // DOM implementations are not guaranteed to be thread-safe even for read access. So cloning is synchronized.
+    synchronized (pCachedDocument) {
+      return (Document) pCachedDocument.cloneNode(true);
+    }
+  }
+
+  /**
+   * Method removes all documents from the cache. Statistics are not reset.
+   */
+  public void clear( ) {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Method returns the current number of cached documents.
+   *
+   * @return int Number of cached documents.
+   */
+  public int getSize( ) {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Method returns the max. number of cached documents.
+   *
+   * @return int Max. number of cached documents.
+   */
+  public int getMaxSize( ) {
+    return maxSize;
+  }
+
+  /**
+   * Method returns the number of requests that could be answered from the cache.
+   *
+   * @return long Number of cache hits.
+   */
+  public long getHits( ) {
+    return hits.get();
+  }
+
+  /**
+   * Method returns the number of requests where the file had to be parsed.
+   *
+   * @return long Number of cache misses.
+   */
+  public long getMisses( ) {
+    return misses.get();
+  }
+
+  /**
+   * Method returns the number of documents that were evicted as the cache was full.
+   *
+   * @return long Number of evictions.
+   */
+  public long getEvictions( ) {
+    return evictions.get();
+  }
+
+  /**
+   * Class represents a cached document together with the file information at the time when it was parsed.
+   */
+  private static final class CacheEntry {
+    /**
+     * Cached document.
+     */
+    private final Document document;
+
+    /**
+     * Last modification time of the file when it was parsed.
+     */
+    private final long lastModified;
+
+    /**
+     * Size of the file when it was parsed.
+     */
+    private final long length;
+
+    /**
+     * Initialize object.
+     *
+     * @param pDocument Cached document. The parameter must not be null.
+     * @param pLastModified Last modification time of the file when it was parsed.
+     * @param pLength Size of the file when it was parsed.
+     */
+    CacheEntry( Document pDocument, long pLastModified, long pLength ) {
+      document = pDocument;
+      lastModified = pLastModified;
+      length = pLength;
+    }
+  }
+}
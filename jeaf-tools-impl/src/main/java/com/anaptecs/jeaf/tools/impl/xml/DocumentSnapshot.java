@@ -0,0 +1,544 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Class implements a compact binary format for parsed DOM documents. Loading a document from a snapshot is much faster
+ * than parsing its XML as there is no need for tokenizing, decoding of characters and entity handling anymore. All
+ * nodes are directly created from a flat array.
+ *
+ * A snapshot consists of a header (magic number and format version), a string table that contains every name and
+ * value of the document only once and the nodes of the document in document order. Every node is represented by a
+ * sequence of integers that start with its node type and refer to the string table. Integers are written with
+ * variable length so that small values only need a single byte:
+ *
+ * <ul>
+ * <li>Element: type, name, namespace URI, number of attributes, name, namespace URI and value of every attribute,
+ * number of children</li>
+ * <li>Text, CDATA section and comment: type, value</li>
+ * <li>Processing instruction: type, target, data</li>
+ * <li>Document type: type, name, public ID, system ID</li>
+ * </ul>
+ *
+ * Entity references are replaced by their content. The internal subset of a DOCTYPE and the information of the XML
+ * declaration like the encoding of the original document are not part of the snapshot.
+ *
+ * @author JEAF Development Team
+ */
+final class DocumentSnapshot {
+  /**
+   * Magic number at the beginning of every snapshot ("JXDS").
+   */
+  private static final int MAGIC = 0x4A584453;
+
+  /**
+   * Version of the snapshot format.
+   */
+  static final int FORMAT_VERSION = 1;
+
+  /**
+   * Index that is used for null values.
+   */
+  private static final int NULL_INDEX = -1;
+
+  /**
+   * Strings of the snapshot. Key of the map is the string and the value its index.
+   */
+  private final Map<String, Integer> strings = new HashMap<>();
+
+  /**
+   * Strings of the snapshot in order of their index.
+   */
+  private String[] stringTable = new String[64];
+
+  /**
+   * Nodes of the snapshot.
+   */
+  private int[] nodes = new int[1024];
+
+  /**
+   * Number of used entries in {@link #nodes}.
+   */
+  private int nodeCount;
+
+  /**
+   * Constructor is private as snapshots are only created through the static methods of this class.
+   */
+  private DocumentSnapshot( ) {
+    // Nothing to do.
+  }
+
+  /**
+   * Method writes a snapshot of the passed document to the passed stream.
+   *
+   * @param pDocument Document that should be written. The parameter must not be null.
+   * @param pOutputStream Stream to which the snapshot is written. The parameter must not be null. The stream will not
+   * be closed.
+   * @throws IOException if the snapshot could not be written.
+   */
+  static void write( Document pDocument, OutputStream pOutputStream ) throws IOException {
+    DocumentSnapshot lSnapshot = new DocumentSnapshot();
+    lSnapshot.addDocument(pDocument);
+
+    // Write header, string table and nodes. Except for the header all integers are written with variable length as
+    // most of them are small.
+    DataOutputStream lOutputStream = new DataOutputStream(pOutputStream);
+    lOutputStream.writeInt(MAGIC);
+    lOutputStream.writeInt(FORMAT_VERSION);
+    int lStringCount = lSnapshot.strings.size();
+    writeVariableLength(lOutputStream, lStringCount);
+    for (int i = 0; i < lStringCount; i++) {
+      byte[] lBytes = lSnapshot.stringTable[i].getBytes(StandardCharsets.UTF_8);
+      writeVariableLength(lOutputStream, lBytes.length);
+      lOutputStream.write(lBytes);
+    }
+    writeVariableLength(lOutputStream, lSnapshot.nodeCount);
+    for (int i = 0; i < lSnapshot.nodeCount; i++) {
+      // Values are shifted by one so that also NULL_INDEX can be written as unsigned value.
+      writeVariableLength(lOutputStream, lSnapshot.nodes[i] + 1);
+    }
+    lOutputStream.flush();
+  }
+
+  /**
+   * Method reads a snapshot from the passed stream into the passed empty document.
+   *
+   * @param pInputStream Stream from which the snapshot is read. The parameter must not be null. The stream will not be
+   * closed.
+   * @param pDocument Empty document to which the nodes of the snapshot are added. The parameter must not be null.
+   * @return {@link Document} Passed document. The method never returns null.
+   * @throws IOException if the snapshot could not be read or is invalid.
+   */
+  static Document read( InputStream pInputStream, Document pDocument ) throws IOException {
+    ByteBuffer lBuffer = ByteBuffer.wrap(pInputStream.readAllBytes());
+    try {
+      // Check header.
+      if (lBuffer.getInt() != MAGIC) {
+        throw new IOException("Data is not a XML document snapshot.");
+      }
+      int lVersion = lBuffer.getInt();
+      if (lVersion != FORMAT_VERSION) {
+        throw new IOException("Unsupported snapshot format version " + lVersion + ".");
+      }
+
+      // Read string table. Every string requires at least one byte for its length.
+      String[] lStrings = new String[readCount(lBuffer)];
+      byte[] lBytes = lBuffer.array();
+      for (int i = 0; i < lStrings.length; i++) {
+        int lLength = readCount(lBuffer);
+        lStrings[i] = new String(lBytes, lBuffer.position(), lLength, StandardCharsets.UTF_8);
+        lBuffer.position(lBuffer.position() + lLength);
+      }
+
+      // Read nodes. Every value requires at least one byte.
+      int[] lNodes = new int[readCount(lBuffer)];
+      for (int i = 0; i < lNodes.length; i++) {
+        lNodes[i] = readVariableLength(lBuffer) - 1;
+      }
+      new NodeReader(pDocument, lStrings, lNodes).read();
+      return pDocument;
+    }
+    catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NullPointerException
+        | DOMException e) {
+      throw new IOException("XML document snapshot is corrupt.", e);
+    }
+  }
+
+  /**
+   * Method reads a count or length. As every counted item requires at least one byte the value must not exceed the
+   * remaining bytes of the passed buffer.
+   *
+   * @param pBuffer Buffer from which the value is read. The parameter must not be null.
+   * @return int Value that was read. The value is never negative.
+   * @throws IOException if the value is negative or exceeds the remaining bytes.
+   */
+  private static int readCount( ByteBuffer pBuffer ) throws IOException {
+    int lCount = readVariableLength(pBuffer);
+    if (lCount < 0 || lCount > pBuffer.remaining()) {
+      throw new IOException("XML document snapshot contains an invalid count " + lCount + ".");
+    }
+    return lCount;
+  }
+
+  /**
+   * Method writes the passed unsigned value with variable length. Every byte contains 7 bits of the value. The highest
+   * bit defines whether further bytes follow.
+   *
+   * @param pOutputStream Stream to which the value is written. The parameter must not be null.
+   * @param pValue Value that should be written. The value must not be negative.
+   * @throws IOException if the value could not be written.
+   */
+  private static void writeVariableLength( DataOutputStream pOutputStream, int pValue ) throws IOException {
+    int lValue = pValue;
+    while ((lValue & ~0x7F) != 0) {
+      pOutputStream.write((lValue & 0x7F) | 0x80);
+      lValue = lValue >>> 7;
+    }
+    pOutputStream.write(lValue);
+  }
+
+  /**
+   * Method reads an unsigned value that was written using {@link #writeVariableLength(DataOutputStream, int)}.
+   *
+   * @param pBuffer Buffer from which the value is read. The parameter must not be null.
+   * @return int Value that was read.
+   * @throws IOException if the value is too large.
+   */
+  private static int readVariableLength( ByteBuffer pBuffer ) throws IOException {
+    int lValue = 0;
+    int lShift = 0;
+    byte lByte;
+    do {
+      if (lShift > 28) {
+        throw new IOException("XML document snapshot contains an invalid value.");
+      }
+      lByte = pBuffer.get();
+      lValue = lValue | ((lByte & 0x7F) << lShift);
+      lShift = lShift + 7;
+    }
+    while ((lByte & 0x80) != 0);
+    return lValue;
+  }
+
+  /**
+   * Method adds all nodes of the passed document to the snapshot. The document is traversed without recursion as
+   * documents may be deeply nested.
+   *
+   * @param pDocument Document that should be added. The parameter must not be null.
+   */
+  private void addDocument( Document pDocument ) {
+    // Positions of the child counters of the document and all elements that are currently open.
+    Deque<Integer> lCounters = new ArrayDeque<>();
+    lCounters.push(this.add(0));
+
+    Node lNode = pDocument.getFirstChild();
+    while (lNode != null) {
+      // Every node except entity references is counted as child of the innermost open element.
+      short lType = lNode.getNodeType();
+      if (lType != Node.ENTITY_REFERENCE_NODE) {
+        nodes[lCounters.peek()]++;
+      }
+      if (lType == Node.ELEMENT_NODE) {
+        lCounters.push(this.addElement((Element) lNode));
+      }
+      else {
+        this.addNode(lNode);
+      }
+
+      // Go to first child of elements and entity references. Otherwise the current node is complete and we have to go
+      // to its next sibling or, if there is no sibling, to the next sibling of its parent.
+      Node lNext;
+      if (lType == Node.ELEMENT_NODE || lType == Node.ENTITY_REFERENCE_NODE) {
+        lNext = lNode.getFirstChild();
+      }
+      else {
+        lNext = null;
+      }
+      while (lNext == null && lNode != null) {
+        if (lNode.getNodeType() == Node.ELEMENT_NODE) {
+          lCounters.pop();
+        }
+        lNext = lNode.getNextSibling();
+        if (lNext == null) {
+          lNode = lNode.getParentNode();
+          if (lNode == pDocument) {
+            lNode = null;
+          }
+        }
+      }
+      lNode = lNext;
+    }
+  }
+
+  /**
+   * Method adds the passed element and its attributes to the snapshot.
+   *
+   * @param pElement Element that should be added. The parameter must not be null.
+   * @return int Position of the child counter of the element.
+   */
+  private int addElement( Element pElement ) {
+    this.add(Node.ELEMENT_NODE);
+    this.add(this.addString(pElement.getNodeName()));
+    this.add(this.addString(pElement.getNamespaceURI()));
+    NamedNodeMap lAttributes = pElement.getAttributes();
+    int lLength = lAttributes.getLength();
+    this.add(lLength);
+    for (int i = 0; i < lLength; i++) {
+      Attr lAttribute = (Attr) lAttributes.item(i);
+      this.add(this.addString(lAttribute.getName()));
+      this.add(this.addString(lAttribute.getNamespaceURI()));
+      this.add(this.addString(lAttribute.getValue()));
+    }
+    return this.add(0);
+  }
+
+  /**
+   * Method adds the passed node to the snapshot. Elements are handled by {@link #addElement(Element)}.
+   *
+   * @param pNode Node that should be added. The parameter must not be null.
+   */
+  private void addNode( Node pNode ) {
+    short lType = pNode.getNodeType();
+    switch (lType) {
+      case Node.TEXT_NODE:
+      case Node.CDATA_SECTION_NODE:
+      case Node.COMMENT_NODE:
+        this.add(lType);
+        this.add(this.addString(pNode.getNodeValue()));
+        break;
+
+      case Node.PROCESSING_INSTRUCTION_NODE:
+        this.add(lType);
+        this.add(this.addString(pNode.getNodeName()));
+        this.add(this.addString(pNode.getNodeValue()));
+        break;
+
+      case Node.DOCUMENT_TYPE_NODE:
+        DocumentType lDocumentType = (DocumentType) pNode;
+        this.add(lType);
+        this.add(this.addString(lDocumentType.getName()));
+        this.add(this.addString(lDocumentType.getPublicId()));
+        this.add(this.addString(lDocumentType.getSystemId()));
+        break;
+
+      default:
+        // Nothing to do. Content of entity references is added as their children are traversed.
+    }
+  }
+
+  /**
+   * Method adds the passed string to the string table if it is not already contained.
+   *
+   * @param pString String that should be added. The parameter may be null.
+   * @return int Index of the string inside the string table.
+   */
+  private int addString( String pString ) {
+    int lIndex;
+    if (pString != null) {
+      Integer lExistingIndex = strings.get(pString);
+      if (lExistingIndex != null) {
+        lIndex = lExistingIndex;
+      }
+      else {
+        lIndex = strings.size();
+        strings.put(pString, lIndex);
+        if (lIndex == stringTable.length) {
+          stringTable = Arrays.copyOf(stringTable, lIndex * 2);
+        }
+        stringTable[lIndex] = pString;
+      }
+    }
+    else {
+      lIndex = NULL_INDEX;
+    }
+    return lIndex;
+  }
+
+  /**
+   * Method adds the passed value to the nodes of the snapshot.
+   *
+   * @param pValue Value that should be added.
+   * @return int Position at which the value was added.
+   */
+  private int add( int pValue ) {
+    if (nodeCount == nodes.length) {
+      nodes = Arrays.copyOf(nodes, nodeCount * 2);
+    }
+    nodes[nodeCount] = pValue;
+    return nodeCount++;
+  }
+
+  /**
+   * Class creates the DOM nodes from the nodes of a snapshot.
+   */
+  private static final class NodeReader {
+    /**
+     * Document to which the nodes are added.
+     */
+    private final Document document;
+
+    /**
+     * String table of the snapshot.
+     */
+    private final String[] strings;
+
+    /**
+     * Nodes of the snapshot.
+     */
+    private final int[] nodes;
+
+    /**
+     * Position of the next value inside {@link #nodes}.
+     */
+    private int position;
+
+    /**
+     * Initialize object.
+     *
+     * @param pDocument Document to which the nodes are added. The parameter must not be null.
+     * @param pStrings String table of the snapshot. The parameter must not be null.
+     * @param pNodes Nodes of the snapshot. The parameter must not be null.
+     */
+    NodeReader( Document pDocument, String[] pStrings, int[] pNodes ) {
+      document = pDocument;
+      strings = pStrings;
+      nodes = pNodes;
+    }
+
+    /**
+     * Method creates all nodes of the snapshot. The nodes are created without recursion as documents may be deeply
+     * nested.
+     *
+     * @throws IOException if the snapshot contains unknown node types.
+     */
+    void read( ) throws IOException {
+      // Parents and number of children that still have to be read.
+      Deque<Node> lParents = new ArrayDeque<>();
+      Deque<int[]> lRemainingChildren = new ArrayDeque<>();
+      lParents.push(document);
+      lRemainingChildren.push(new int[] { this.next() });
+
+      while (lParents.isEmpty() == false) {
+        int[] lRemaining = lRemainingChildren.peek();
+        if (lRemaining[0] > 0) {
+          lRemaining[0]--;
+          Node lParent = lParents.peek();
+          int lType = this.next();
+          if (lType == Node.ELEMENT_NODE) {
+            Element lElement = this.readElement();
+            lParent.appendChild(lElement);
+            int lChildren = this.next();
+            if (lChildren > 0) {
+              lParents.push(lElement);
+              lRemainingChildren.push(new int[] { lChildren });
+            }
+          }
+          else {
+            lParent.appendChild(this.readNode(lType));
+          }
+        }
+        else {
+          lParents.pop();
+          lRemainingChildren.pop();
+        }
+      }
+    }
+
+    /**
+     * Method creates the next element including its attributes.
+     *
+     * @return {@link Element} Created element. The method never returns null.
+     */
+    private Element readElement( ) {
+      String lName = this.nextString();
+      String lNamespaceURI = this.nextString();
+      Element lElement;
+      if (lNamespaceURI != null) {
+        lElement = document.createElementNS(lNamespaceURI, lName);
+      }
+      else {
+        lElement = document.createElement(lName);
+      }
+      int lAttributes = this.next();
+      for (int i = 0; i < lAttributes; i++) {
+        String lAttributeName = this.nextString();
+        String lAttributeNamespaceURI = this.nextString();
+        String lValue = this.nextString();
+        if (lAttributeNamespaceURI != null) {
+          lElement.setAttributeNS(lAttributeNamespaceURI, lAttributeName, lValue);
+        }
+        else {
+          lElement.setAttribute(lAttributeName, lValue);
+        }
+      }
+      return lElement;
+    }
+
+    /**
+     * Method creates the next node that is not an element.
+     *
+     * @param pType Type of the node.
+     * @return {@link Node} Created node. The method never returns null.
+     * @throws IOException if the passed node type is not supported.
+     */
+    private Node readNode( int pType ) throws IOException {
+      Node lNode;
+      switch (pType) {
+        case Node.TEXT_NODE:
+          lNode = document.createTextNode(this.nextString());
+          break;
+
+        case Node.CDATA_SECTION_NODE:
+          lNode = document.createCDATASection(this.nextString());
+          break;
+
+        case Node.COMMENT_NODE:
+          lNode = document.createComment(this.nextString());
+          break;
+
+        case Node.PROCESSING_INSTRUCTION_NODE:
+          lNode = document.createProcessingInstruction(this.nextString(), this.nextString());
+          break;
+
+        case Node.DOCUMENT_TYPE_NODE:
+          lNode = document.getImplementation().createDocumentType(this.nextString(), this.nextString(),
+              this.nextString());
+          break;
+
+        default:
+          throw new IOException("Unsupported node type " + pType + " in XML document snapshot.");
+      }
+      return lNode;
+    }
+
+    /**
+     * Method returns the next value.
+     *
+     * @return int Next value of the snapshot.
+     */
+    private int next( ) {
+      return nodes[position++];
+    }
+
+    /**
+     * Method returns the string that is referenced by the next value.
+     *
+     * @return {@link String} Referenced string. The method returns null if no string is referenced.
+     */
+    private String nextString( ) {
+      int lIndex = this.next();
+      String lString;
+      if (lIndex != NULL_INDEX) {
+        lString = strings[lIndex];
+      }
+      else {
+        lString = null;
+      }
+      return lString;
+    }
+  }
+}
@@ -0,0 +1,328 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+
+import com.anaptecs.jeaf.xfun.api.XFun;
+
+/**
+ * Class implements an index of all elements of a DOM document by their name. Methods like
+ * {@link XMLToolsImpl#getSingleElement(String, Element, boolean)} use {@link Element#getElementsByTagName(String)}
+ * which traverses the whole subtree with every call. If many values are read from the same document the index avoids
+ * these repeated traversals as the document is only traversed once when the index is created.
+ *
+ * The index is attached to its document as user data so that all lookup methods of {@link XMLToolsImpl} use it
+ * automatically. As soon as nodes are added to or removed from the document the index becomes invalid and all
+ * lookups use the DOM again. Changes are detected using DOM mutation events. Documents that do not support events are
+ * therefore never indexed. Renaming elements using {@link Document#renameNode(Node, String, String)} is not reported
+ * by the DOM. In this case the index has to be removed or recreated explicitly.
+ *
+ * Once it is created the index is immutable and can be used concurrently by many threads.
+ *
+ * @author JEAF Development Team
+ */
+public final class IndexedDocument {
+  /**
+   * Key under which the index is stored as user data of its document.
+   */
+  private static final String USER_DATA_KEY = IndexedDocument.class.getName();
+
+  /**
+   * Type of the DOM mutation event that is fired whenever the document is changed.
+   */
+  private static final String SUBTREE_MODIFIED_EVENT = "DOMSubtreeModified";
+
+  /**
+   * Empty array of elements.
+   */
+  private static final Element[] NO_ELEMENTS = new Element[0];
+
+  /**
+   * Indexed document.
+   */
+  private final Document document;
+
+  /**
+   * Elements with a certain name in document order. Key of the map is the name of the element.
+   */
+  private final Map<String, Element[]> elementsByName;
+
+  /**
+   * Position of elements in document order. Positions are stored in the same order as the elements in
+   * {@link #elementsByName}. Key of the map is the name of the element.
+   */
+  private final Map<String, int[]> positionsByName;
+
+  /**
+   * Range of positions of every element. The first entry is the position of the element itself and the second entry is
+   * the position after its last descendant.
+   */
+  private final Map<Element, int[]> ranges;
+
+  /**
+   * Listener invalidates the index as soon as the document is changed.
+   */
+  private final EventListener mutationListener = pEvent -> this.invalidate();
+
+  /**
+   * Flag indicates whether the index still reflects its document.
+   */
+  private volatile boolean valid;
+
+  /**
+   * Initialize object. Therefore the passed document will be traversed once.
+   *
+   * @param pDocument Document that should be indexed. The parameter must not be null.
+   */
+  private IndexedDocument( Document pDocument ) {
+    document = pDocument;
+    ranges = new IdentityHashMap<>();
+    Map<String, List<Element>> lElementsByName = new HashMap<>();
+
+    // Traverse document without recursion as documents may be deeply nested.
+    Element lRoot = pDocument.getDocumentElement();
+    Node lNode = lRoot;
+    int lPosition = 0;
+    while (lNode != null) {
+      // Add element to index.
+      if (lNode.getNodeType() == Node.ELEMENT_NODE) {
+        Element lElement = (Element) lNode;
+        ranges.put(lElement, new int[] { lPosition, lPosition + 1 });
+        lElementsByName.computeIfAbsent(lElement.getNodeName(), k -> new ArrayList<>()).add(lElement);
+        lPosition++;
+      }
+
+      // Go to first child if there is one. Otherwise the current node is complete and we have to go to its next sibling
+      // or, if there is no sibling, to the next sibling of its parent.
+      Node lNext = lNode.getFirstChild();
+      while (lNext == null && lNode != null) {
+        int[] lRange = ranges.get(lNode);
+        if (lRange != null) {
+          lRange[1] = lPosition;
+        }
+        if (lNode != lRoot) {
+          lNext = lNode.getNextSibling();
+          if (lNext == null) {
+            lNode = lNode.getParentNode();
+          }
+        }
+        else {
+          lNode = null;
+        }
+      }
+      lNode = lNext;
+    }
+
+    // Convert lists into arrays for fast lookups.
+    elementsByName = new HashMap<>(lElementsByName.size() * 2);
+    positionsByName = new HashMap<>(lElementsByName.size() * 2);
+    for (Map.Entry<String, List<Element>> lEntry : lElementsByName.entrySet()) {
+      Element[] lElements = lEntry.getValue().toArray(NO_ELEMENTS);
+      int[] lPositions = new int[lElements.length];
+      for (int i = 0; i < lElements.length; i++) {
+        lPositions[i] = ranges.get(lElements[i])[0];
+      }
+      elementsByName.put(lEntry.getKey(), lElements);
+      positionsByName.put(lEntry.getKey(), lPositions);
+    }
+  }
+
+  /**
+   * Method creates an index for the passed document and attaches it to the document. An already existing index will be
+   * replaced. If the document does not support mutation events then the returned index is invalid from the beginning
+   * and all lookups use the DOM.
+   *
+   * @param pDocument Document that should be indexed. The parameter must not be null.
+   * @return {@link IndexedDocument} Index of the passed document. The method never returns null.
+   */
+  static IndexedDocument index( Document pDocument ) {
+    removeIndex(pDocument);
+    IndexedDocument lIndex = new IndexedDocument(pDocument);
+    if (pDocument instanceof EventTarget) {
+      ((EventTarget) pDocument).addEventListener(SUBTREE_MODIFIED_EVENT, lIndex.mutationListener, false);
+      lIndex.valid = true;
+      pDocument.setUserData(USER_DATA_KEY, lIndex, null);
+    }
+    else {
+      XFun.getTrace().info("Document " + pDocument.getClass().getName()
+          + " does not support mutation events and can not be indexed.");
+    }
+    return lIndex;
+  }
+
+  /**
+   * Method removes the index from the passed document.
+   *
+   * @param pDocument Document whose index should be removed. The parameter must not be null.
+   */
+  static void removeIndex( Document pDocument ) {
+    IndexedDocument lIndex = (IndexedDocument) pDocument.getUserData(USER_DATA_KEY);
+    if (lIndex != null) {
+      lIndex.invalidate();
+    }
+    else {
+      // Nothing to do.
+    }
+  }
+
+  /**
+   * Method invalidates this index and detaches it from its document.
+   */
+  private void invalidate( ) {
+    if (valid == true) {
+      valid = false;
+      ((EventTarget) document).removeEventListener(SUBTREE_MODIFIED_EVENT, mutationListener, false);
+      if (document.getUserData(USER_DATA_KEY) == this) {
+        document.setUserData(USER_DATA_KEY, null, null);
+      }
+    }
+  }
+
+  /**
+   * Method returns the index of the document to which the passed node belongs.
+   *
+   * @param pNode Node whose index should be returned. The parameter must not be null.
+   * @return {@link IndexedDocument} Index of the document or null if the document is not indexed or if its index is no
+   * longer valid.
+   */
+  static IndexedDocument getIndex( Node pNode ) {
+    Document lDocument;
+    if (pNode.getNodeType() == Node.DOCUMENT_NODE) {
+      lDocument = (Document) pNode;
+    }
+    else {
+      lDocument = pNode.getOwnerDocument();
+    }
+
+    IndexedDocument lIndex;
+    if (lDocument != null) {
+      lIndex = (IndexedDocument) lDocument.getUserData(USER_DATA_KEY);
+      if (lIndex != null && lIndex.valid == false) {
+        lIndex = null;
+      }
+    }
+    else {
+      lIndex = null;
+    }
+    return lIndex;
+  }
+
+  /**
+   * Method returns the indexed document.
+   *
+   * @return {@link Document} Indexed document. The method never returns null.
+   */
+  public Document getDocument( ) {
+    return document;
+  }
+
+  /**
+   * Method checks whether the index still reflects its document.
+   *
+   * @return boolean Method returns true if the index is valid and false if the document was changed after the index
+   * was created or if the document could not be indexed.
+   */
+  public boolean isValid( ) {
+    return valid;
+  }
+
+  /**
+   * Method returns the number of indexed elements.
+   *
+   * @return int Number of elements in the index.
+   */
+  public int getElementCount( ) {
+    return ranges.size();
+  }
+
+  /**
+   * Method returns all elements with the passed name from the whole document. If the index is no longer valid then the
+   * elements are resolved using the DOM.
+   *
+   * @param pElementName Name of the elements. The parameter must not be null.
+   * @return {@link List} All elements with the passed name in document order. The method never returns null.
+   */
+  public List<Element> getElements( String pElementName ) {
+    List<Element> lResult;
+    if (valid == true) {
+      Element[] lElements = elementsByName.get(pElementName);
+      if (lElements != null) {
+        lResult = Collections.unmodifiableList(Arrays.asList(lElements));
+      }
+      else {
+        lResult = Collections.emptyList();
+      }
+    }
+    else {
+      NodeList lNodes = document.getElementsByTagName(pElementName);
+      lResult = new ArrayList<>(lNodes.getLength());
+      for (int i = 0; i < lNodes.getLength(); i++) {
+        lResult.add((Element) lNodes.item(i));
+      }
+      lResult = Collections.unmodifiableList(lResult);
+    }
+    return lResult;
+  }
+
+  /**
+   * Method returns all descendants of the passed element with the passed name. The result is the same as from
+   * {@link Element#getElementsByTagName(String)}.
+   *
+   * @param pElementName Name of the elements. The wildcard "*" is not supported. The parameter must not be null.
+   * @param pElement Element whose descendants should be returned. The parameter must not be null.
+   * @return {@link List} All descendants with the passed name in document order. The method returns null if the passed
+   * element is not part of the index or if the index is no longer valid.
+   */
+  List<Element> getDescendants( String pElementName, Element pElement ) {
+    int[] lRange = ranges.get(pElement);
+    List<Element> lResult;
+    if (lRange != null && valid == true) {
+      int[] lPositions = positionsByName.get(pElementName);
+      if (lPositions != null) {
+        // Descendants are all elements after the element itself and before the end of its subtree.
+        int lFrom = this.findInsertionPoint(lPositions, lRange[0] + 1);
+        int lTo = this.findInsertionPoint(lPositions, lRange[1]);
+        lResult = Arrays.asList(elementsByName.get(pElementName)).subList(lFrom, lTo);
+      }
+      else {
+        lResult = Collections.emptyList();
+      }
+    }
+    else {
+      lResult = null;
+    }
+    return lResult;
+  }
+
+  /**
+   * Method returns the index of the first position that is equal or greater than the passed position.
+   *
+   * @param pPositions Sorted positions. The parameter must not be null.
+   * @param pPosition Searched position.
+   * @return int Index of the first position that is equal or greater than the passed one.
+   */
+  private int findInsertionPoint( int[] pPositions, int pPosition ) {
+    int lIndex = Arrays.binarySearch(pPositions, pPosition);
+    if (lIndex < 0) {
+      lIndex = -lIndex - 1;
+    }
+    return lIndex;
+  }
+}
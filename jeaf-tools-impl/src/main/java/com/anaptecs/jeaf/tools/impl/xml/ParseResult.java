@@ -0,0 +1,96 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import org.w3c.dom.Document;
+
+/**
+ * Class represents the result of parsing a single file as part of a batch. The result either contains the parsed
+ * document or the exception that occurred while the file was parsed.
+ *
+ * @author JEAF Development Team
+ */
+public final class ParseResult {
+  /**
+   * Name of the file that was parsed.
+   */
+  private final String fileName;
+
+  /**
+   * Position of the file within the batch.
+   */
+  private final int index;
+
+  /**
+   * Parsed document. Reference is null if parsing failed.
+   */
+  private final Document document;
+
+  /**
+   * Exception that occurred during parsing. Reference is null if parsing was successful.
+   */
+  private final RuntimeException exception;
+
+  /**
+   * Initialize object.
+   *
+   * @param pFileName Name of the file that was parsed. The parameter must not be null.
+   * @param pIndex Position of the file within the batch.
+   * @param pDocument Parsed document. The parameter may be null if parsing failed.
+   * @param pException Exception that occurred during parsing. The parameter may be null if parsing was successful.
+   */
+  ParseResult( String pFileName, int pIndex, Document pDocument, RuntimeException pException ) {
+    fileName = pFileName;
+    index = pIndex;
+    document = pDocument;
+    exception = pException;
+  }
+
+  /**
+   * Method returns the name of the file that was parsed.
+   *
+   * @return {@link String} Name of the file. The method never returns null.
+   */
+  public String getFileName( ) {
+    return fileName;
+  }
+
+  /**
+   * Method returns the position of the file within the batch.
+   *
+   * @return int Position of the file within the batch starting with 0.
+   */
+  public int getIndex( ) {
+    return index;
+  }
+
+  /**
+   * Method checks if the file could be parsed.
+   *
+   * @return boolean Method returns true if the file was parsed successfully and false otherwise.
+   */
+  public boolean isSuccessful( ) {
+    return exception == null;
+  }
+
+  /**
+   * Method returns the parsed document.
+   *
+   * @return {@link Document} Parsed document. The method returns null if parsing failed.
+   */
+  public Document getDocument( ) {
+    return document;
+  }
+
+  /**
+   * Method returns the exception that occurred while the file was parsed.
+   *
+   * @return {@link RuntimeException} Exception that occurred or null if the file was parsed successfully.
+   */
+  public RuntimeException getException( ) {
+    return exception;
+  }
+}
@@ -0,0 +1,25 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+/**
+ * Enumeration defines in which order the results of a batch parsing are passed to the caller.
+ *
+ * @author JEAF Development Team
+ */
+public enum ParseResultOrder {
+  /**
+   * Results are passed in the same order as the files were passed. A result is only passed once all results for
+   * previous files were passed.
+   */
+  INPUT,
+
+  /**
+   * Results are passed as soon as a file is parsed. This avoids that parsed documents have to be kept in memory until
+   * previous files are parsed.
+   */
+  COMPLETION;
+}
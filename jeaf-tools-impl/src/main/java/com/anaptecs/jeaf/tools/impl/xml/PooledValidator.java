@@ -0,0 +1,74 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.xml.sax.ErrorHandler;
+
+import stormpot.Poolable;
+import stormpot.Slot;
+
+/**
+ * Class implements a poolable schema validator. Validators are not thread-safe but can be reused for many validations.
+ * As creating validators for complex schemas is not for free they are pooled.
+ *
+ * @author JEAF Development Team
+ */
+public class PooledValidator implements Poolable {
+  /**
+   * Location inside a pool where this instance is stored.
+   */
+  private final Slot slot;
+
+  /**
+   * Wrapped validator that should be pooled.
+   */
+  private final Validator validator;
+
+  /**
+   * Error handler that is used by default. This error handler may be overwritten by users of the validator.
+   */
+  private final ErrorHandler errorHandler;
+
+  /**
+   * Initialize object.
+   *
+   * @param pSlot Slot where the pooled object will be stored.
+   * @param pSchema Schema for which a validator should be created. The parameter must not be null.
+   */
+  PooledValidator( Slot pSlot, Schema pSchema ) {
+    slot = pSlot;
+    validator = XMLToolsImpl.createSecuredValidator(pSchema);
+    errorHandler = new ErrorHandlerImpl();
+    validator.setErrorHandler(errorHandler);
+  }
+
+  /**
+   * Operation has to be used to indicate that the validator is no longer used and should be returned to the pool.
+   */
+  @Override
+  public void release( ) {
+    // Restore settings that might have been changed by users of the validator. We must not call reset() here as this
+    // would also remove the security settings and at least with the JDK implementation the validator can not be used
+    // afterwards.
+    validator.setErrorHandler(errorHandler);
+    validator.setResourceResolver(null);
+
+    // Return validator to pool
+    slot.release(this);
+  }
+
+  /**
+   * Method returns the actual validator.
+   *
+   * @return {@link Validator} Validator that is pooled through this class. The method never returns null.
+   */
+  public Validator getValidator( ) {
+    return validator;
+  }
+}
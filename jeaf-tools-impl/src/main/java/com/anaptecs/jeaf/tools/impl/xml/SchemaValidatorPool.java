@@ -0,0 +1,130 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.xml.sax.SAXException;
+
+import com.anaptecs.jeaf.tools.api.ToolsMessages;
+import com.anaptecs.jeaf.xfun.api.XFun;
+import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
+
+import stormpot.BlazePool;
+import stormpot.Config;
+import stormpot.Pool;
+import stormpot.PoolException;
+import stormpot.Timeout;
+
+/**
+ * Class holds a compiled XML schema together with a pool of validators for it. Compiled schemas are thread-safe and can
+ * be shared. Validators are not thread-safe and are therefore pooled.
+ *
+ * @author JEAF Development Team
+ */
+final class SchemaValidatorPool {
+  /**
+   * Timeout for max. waiting time for a pooled validator. If no validator is available a new one will be created.
+   */
+  private static final Timeout TIMEOUT = new Timeout(1, TimeUnit.NANOSECONDS);
+
+  /**
+   * Location of the schema.
+   */
+  private final String schemaLocation;
+
+  /**
+   * Compiled schema.
+   */
+  private final Schema schema;
+
+  /**
+   * Pool with validators for the schema.
+   */
+  private final Pool<PooledValidator> pool;
+
+  /**
+   * Initialize object.
+   *
+   * @param pSchemaLocation Location of the schema. The parameter must not be null.
+   * @param pSchema Compiled schema. The parameter must not be null.
+   * @param pPoolSize Size of the validator pool.
+   */
+  SchemaValidatorPool( String pSchemaLocation, Schema pSchema, int pPoolSize ) {
+    schemaLocation = pSchemaLocation;
+    schema = pSchema;
+
+    Config<PooledValidator> lConfig = new Config<>();
+    lConfig.setAllocator(new ValidatorAllocator(pSchema));
+    lConfig.setBackgroundExpirationEnabled(false);
+    lConfig.setSize(pPoolSize);
+    pool = new BlazePool<>(lConfig);
+  }
+
+  /**
+   * Method returns the compiled schema.
+   *
+   * @return {@link Schema} Compiled schema. The method never returns null.
+   */
+  Schema getSchema( ) {
+    return schema;
+  }
+
+  /**
+   * Method validates the passed source against the schema using a pooled validator.
+   *
+   * @param pSource Source that should be validated. The parameter must not be null.
+   * @param pResult Result to which the validated (augmented) input will be passed. The parameter may be null.
+   * @throws SAXException in case that the source is not valid.
+   * @throws IOException in case that the source could not be read.
+   */
+  void validate( Source pSource, Result pResult ) throws SAXException, IOException {
+    PooledValidator lPooledValidator = null;
+    try {
+      lPooledValidator = pool.claim(TIMEOUT);
+
+      Validator lValidator;
+      if (lPooledValidator != null) {
+        lValidator = lPooledValidator.getValidator();
+      }
+      // All pooled validators are in use.
+      else {
+        lValidator = XMLToolsImpl.createSecuredValidator(schema);
+        lValidator.setErrorHandler(new ErrorHandlerImpl());
+      }
+      lValidator.validate(pSource, pResult);
+    }
+    // Unable to claim validator from pool.
+    catch (PoolException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_ACQUIRE_OBJECT_FROM_POOL, e, this.getPoolName());
+    }
+    catch (InterruptedException e) {
+      XFun.getTrace().warn("Thread interrupted when trying to get XML Schema Validator from pool.", e);
+      Thread.currentThread().interrupt();
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_ACQUIRE_OBJECT_FROM_POOL, e, this.getPoolName());
+    }
+    finally {
+      if (lPooledValidator != null) {
+        lPooledValidator.release();
+      }
+    }
+  }
+
+  /**
+   * Method returns the name of the pool as it is used in error messages.
+   *
+   * @return {@link String} Name of the pool. The method never returns null.
+   */
+  private String getPoolName( ) {
+    return "XML Schema Validator Pool (" + schemaLocation + ")";
+  }
+}
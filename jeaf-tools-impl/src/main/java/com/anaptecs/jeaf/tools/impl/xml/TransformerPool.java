@@ -0,0 +1,297 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+
+import com.anaptecs.jeaf.tools.api.xml.DocumentProperties;
+import com.anaptecs.jeaf.tools.impl.monitoring.ToolsMetrics;
+
+/**
+ * Class implements a pool of transformers that are used to serialize XML documents. As performance analysis showed
+ * looking up a transformer factory and configuring it is rather expensive compared to the serialization of small
+ * documents. Therefore the secured transformer factory is only created once and configured transformers are reused.
+ *
+ * Transformers are pooled per combination of output settings of {@link DocumentProperties}. This way output properties
+ * only have to be set when a transformer is created. The number of pooled transformers per combination is limited. If
+ * a transformer is returned to a full pool then it will simply be discarded.
+ *
+ * @author JEAF Development Team
+ */
+final class TransformerPool {
+  /**
+   * Name of the gauge with the number of transformers that are currently pooled.
+   */
+  static final String POOL_SIZE_METRIC = "jeaf.tools.xml.transformer.pool.size";
+
+  /**
+   * Name of the gauge with the number of transformers that were created.
+   */
+  static final String CREATED_METRIC = "jeaf.tools.xml.transformer.created";
+
+  /**
+   * Secured transformer factory that is used to create all transformers. Transformer factories are not thread-safe so
+   * access to it has to be synchronized.
+   */
+  private final TransformerFactory transformerFactory;
+
+  /**
+   * Max. number of transformers that are kept per combination of output settings.
+   */
+  private final int maxSize;
+
+  /**
+   * Pooled transformers. Key of the map is the key of the output settings of the transformers.
+   */
+  private final Map<String, PooledTransformers> pools = new ConcurrentHashMap<>();
+
+  /**
+   * Number of transformers that were created.
+   */
+  private final LongAdder created = new LongAdder();
+
+  /**
+   * Attribute defines if metrics of this pool were already registered.
+   */
+  private final AtomicBoolean metricsRegistered = new AtomicBoolean();
+
+  /**
+   * Initialize object.
+   *
+   * @param pTransformerFactory Secured transformer factory that is used to create all transformers. The parameter must
+   * not be null.
+   * @param pMaxSize Max. number of transformers that are kept per combination of output settings.
+   */
+  TransformerPool( TransformerFactory pTransformerFactory, int pMaxSize ) {
+    transformerFactory = pTransformerFactory;
+    maxSize = pMaxSize;
+  }
+
+  /**
+   * Method returns a transformer that is configured according to the passed document properties. If possible a pooled
+   * transformer will be returned. After usage the transformer has to be returned using
+   * {@link #release(DocumentProperties, Transformer)}.
+   *
+   * @param pDocumentProperties Document properties defining the output settings. The parameter must not be null.
+   * @return {@link Transformer} Configured transformer. The method never returns null.
+   * @throws TransformerConfigurationException in case that no new transformer could be created.
+   */
+  Transformer acquire( DocumentProperties pDocumentProperties ) throws TransformerConfigurationException {
+    // Register metrics with first usage as monitoring tools might not be available yet when the pool is created.
+    if (metricsRegistered.get() == false) {
+      this.registerMetrics();
+    }
+
+    PooledTransformers lPool = pools.get(getKey(pDocumentProperties));
+    Transformer lTransformer;
+    if (lPool != null) {
+      lTransformer = lPool.poll();
+    }
+    else {
+      lTransformer = null;
+    }
+
+    // No pooled transformer available.
+    if (lTransformer == null) {
+      created.increment();
+      lTransformer = this.createTransformer(pDocumentProperties);
+    }
+    return lTransformer;
+  }
+
+  /**
+   * Method returns the number of transformers that are currently pooled.
+   *
+   * @return int Number of pooled transformers.
+   */
+  int getPoolSize( ) {
+    int lSize = 0;
+    for (PooledTransformers lNext : pools.values()) {
+      lSize += lNext.size.get();
+    }
+    return lSize;
+  }
+
+  /**
+   * Method returns the number of transformers that were created.
+   *
+   * @return long Number of created transformers.
+   */
+  long getCreated( ) {
+    return created.sum();
+  }
+
+  /**
+   * Method registers the metrics of this pool if tools metrics are enabled.
+   */
+  private void registerMetrics( ) {
+    if (metricsRegistered.compareAndSet(false, true) == true) {
+      ToolsMetrics.monitorObject(this, TransformerPool::getPoolSize, POOL_SIZE_METRIC);
+      ToolsMetrics.monitorObject(this, TransformerPool::getCreated, CREATED_METRIC);
+    }
+  }
+
+  /**
+   * Method returns the passed transformer back to the pool. Transformers that caused an error must not be returned.
+   *
+   * @param pDocumentProperties Document properties that were used to acquire the transformer. The parameter must not be
+   * null.
+   * @param pTransformer Transformer that is no longer used. The parameter must not be null.
+   */
+  void release( DocumentProperties pDocumentProperties, Transformer pTransformer ) {
+    // Reset transformer. We must not call reset() here as this would also remove the output properties. As only
+    // identity transformers are pooled there are also no stylesheet parameters that would have to be cleared.
+    pTransformer.setURIResolver(null);
+
+    PooledTransformers lPool = pools.computeIfAbsent(getKey(pDocumentProperties), k -> new PooledTransformers());
+    lPool.offer(pTransformer, maxSize);
+  }
+
+  /**
+   * Method creates a new identity transformer handler. Such handlers can be used to build a DOM tree from SAX events.
+   * Transformer handlers are not pooled as they can not be reused.
+   *
+   * @return {@link TransformerHandler} Created transformer handler. The method never returns null.
+   * @throws TransformerConfigurationException in case that no new transformer handler could be created.
+   */
+  TransformerHandler newTransformerHandler( ) throws TransformerConfigurationException {
+    synchronized (transformerFactory) {
+      return ((SAXTransformerFactory) transformerFactory).newTransformerHandler();
+    }
+  }
+
+  /**
+   * Method creates a new transformer and configures it according to the passed document properties.
+   *
+   * @param pDocumentProperties Document properties defining the output settings. The parameter must not be null.
+   * @return {@link Transformer} Created transformer. The method never returns null.
+   * @throws TransformerConfigurationException in case that no new transformer could be created.
+   */
+  private Transformer createTransformer( DocumentProperties pDocumentProperties )
+    throws TransformerConfigurationException {
+
+    Transformer lTransformer;
+    synchronized (transformerFactory) {
+      lTransformer = transformerFactory.newTransformer();
+    }
+
+    // Use passed document properties as settings for the transformer.
+    lTransformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION,
+        booleanToYesNo(pDocumentProperties.omitXMLDeclaration()));
+
+    // Configure transformer based on the passed document properties.
+    lTransformer.setOutputProperty(OutputKeys.VERSION, pDocumentProperties.getVersion());
+    lTransformer.setOutputProperty(OutputKeys.ENCODING, pDocumentProperties.getEncoding());
+
+    String lDoctypePublic = pDocumentProperties.getDoctypePublic();
+    if (lDoctypePublic != null) {
+      lTransformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, lDoctypePublic);
+    }
+    String lDoctypeSystem = pDocumentProperties.getDoctypeSystem();
+    if (lDoctypeSystem != null) {
+      lTransformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, lDoctypeSystem);
+    }
+
+    lTransformer.setOutputProperty(OutputKeys.METHOD, "xml");
+    lTransformer.setOutputProperty(OutputKeys.CDATA_SECTION_ELEMENTS, pDocumentProperties.getCDataSectionElements());
+    lTransformer.setOutputProperty(OutputKeys.INDENT, booleanToYesNo(pDocumentProperties.isIndent()));
+    return lTransformer;
+  }
+
+  /**
+   * Method returns the key of the output settings of the passed document properties. Document properties with the same
+   * output settings result in the same key.
+   *
+   * @param pDocumentProperties Document properties whose key should be returned. The parameter must not be null.
+   * @return {@link String} Key of the output settings. The method never returns null.
+   */
+  static String getKey( DocumentProperties pDocumentProperties ) {
+    StringBuilder lBuilder = new StringBuilder(64);
+    lBuilder.append(pDocumentProperties.omitXMLDeclaration()).append('|');
+    lBuilder.append(pDocumentProperties.isIndent()).append('|');
+    lBuilder.append(pDocumentProperties.getVersion()).append('|');
+    lBuilder.append(pDocumentProperties.getEncoding()).append('|');
+    lBuilder.append(pDocumentProperties.getDoctypePublic()).append('|');
+    lBuilder.append(pDocumentProperties.getDoctypeSystem()).append('|');
+    lBuilder.append(pDocumentProperties.getCDataSectionElements());
+    return lBuilder.toString();
+  }
+
+  /**
+   * Method converts the passed boolean into the representation that is used for output properties.
+   *
+   * @param pValue Value that should be converted.
+   * @return {@link String} "yes" or "no". The method never returns null.
+   */
+  private static String booleanToYesNo( boolean pValue ) {
+    String lYesNo;
+    if (pValue == true) {
+      lYesNo = "yes";
+    }
+    else {
+      lYesNo = "no";
+    }
+    return lYesNo;
+  }
+
+  /**
+   * Class holds all pooled transformers for one combination of output settings.
+   */
+  private static final class PooledTransformers {
+    /**
+     * Transformers that are currently not in use.
+     */
+    private final Queue<Transformer> transformers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of transformers in {@link #transformers}. Counter is kept separately as size() of the queue is not a
+     * constant-time operation.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Method returns a pooled transformer.
+     *
+     * @return {@link Transformer} Pooled transformer or null if the pool is empty.
+     */
+    Transformer poll( ) {
+      Transformer lTransformer = transformers.poll();
+      if (lTransformer != null) {
+        size.decrementAndGet();
+      }
+      return lTransformer;
+    }
+
+    /**
+     * Method adds the passed transformer to the pool unless the pool is already full.
+     *
+     * @param pTransformer Transformer that should be pooled. The parameter must not be null.
+     * @param pMaxSize Max. number of pooled transformers.
+     */
+    void offer( Transformer pTransformer, int pMaxSize ) {
+      if (size.incrementAndGet() <= pMaxSize) {
+        transformers.offer(pTransformer);
+      }
+      // Pool is full. Transformer will be discarded.
+      else {
+        size.decrementAndGet();
+      }
+    }
+  }
+}
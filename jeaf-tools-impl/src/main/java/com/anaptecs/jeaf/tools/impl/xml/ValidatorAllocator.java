@@ -0,0 +1,50 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import javax.xml.validation.Schema;
+
+import stormpot.Allocator;
+import stormpot.Slot;
+
+/**
+ * Class is a factory class to create pooled schema validators.
+ *
+ * @author JEAF Development Team
+ */
+public class ValidatorAllocator implements Allocator<PooledValidator> {
+  /**
+   * Schema for which validators will be created.
+   */
+  private final Schema schema;
+
+  /**
+   * Initialize object.
+   *
+   * @param pSchema Schema for which validators will be created. The parameter must not be null.
+   */
+  public ValidatorAllocator( Schema pSchema ) {
+    schema = pSchema;
+  }
+
+  /**
+   * Method creates a new pooled validator.
+   *
+   * @return {@link PooledValidator} New pooled validator that was created. The method never returns null.
+   */
+  @Override
+  public PooledValidator allocate( Slot pSlot ) {
+    return new PooledValidator(pSlot, schema);
+  }
+
+  /**
+   * Method will be called when a pooled validator is no longer used.
+   */
+  @Override
+  public void deallocate( PooledValidator pPoolable ) {
+    // Nothing to do.
+  }
+}
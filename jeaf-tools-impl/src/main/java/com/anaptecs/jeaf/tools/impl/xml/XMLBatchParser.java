@@ -0,0 +1,228 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.anaptecs.jeaf.tools.api.ToolsMessages;
+import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
+
+/**
+ * Class parses many XML files in parallel using a bounded number of worker threads. Results are passed to a consumer
+ * on the calling thread either in input order or in completion order. Problems with single files do not abort the
+ * whole batch but are reported as part of the result of the affected file.
+ *
+ * In order to limit the amount of memory that is required for large batches only a limited number of files is
+ * scheduled at the same time.
+ *
+ * @author JEAF Development Team
+ */
+final class XMLBatchParser {
+  /**
+   * Max. number of scheduled files per worker thread.
+   */
+  private static final int SCHEDULED_FILES_PER_THREAD = 4;
+
+  /**
+   * Counter is used to create unique names for worker threads.
+   */
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  /**
+   * XML tools that are used to parse the files.
+   */
+  private final XMLToolsImpl xmlTools;
+
+  /**
+   * Parameter defines if files should be validated or not.
+   */
+  private final boolean validating;
+
+  /**
+   * Number of worker threads.
+   */
+  private final int parallelism;
+
+  /**
+   * Initialize object.
+   *
+   * @param pXMLTools XML tools that are used to parse the files. The parameter must not be null.
+   * @param pValidating Parameter defines if files should be validated or not.
+   * @param pParallelism Number of worker threads. The parameter must be greater than zero.
+   */
+  XMLBatchParser( XMLToolsImpl pXMLTools, boolean pValidating, int pParallelism ) {
+    xmlTools = pXMLTools;
+    validating = pValidating;
+    parallelism = pParallelism;
+  }
+
+  /**
+   * Method parses all passed files. If the calling thread is interrupted then the batch will be cancelled, no further
+   * results will be passed and an exception is thrown. This way callers can never mistake a cancelled batch for a
+   * complete one.
+   *
+   * @param pFileNames Names of all files that should be parsed. The parameter must not be null.
+   * @param pOrder Order in which results are passed to the consumer. The parameter must not be null.
+   * @param pConsumer Consumer to which the results are passed. The consumer is always called by the calling thread.
+   * The parameter must not be null.
+   * @throws JEAFSystemException in case that the calling thread was interrupted before all results were passed. The
+   * exception refers to the first file whose result was not passed. The interrupted status of the thread will be set
+   * again.
+   */
+  void parse( Collection<String> pFileNames, ParseResultOrder pOrder, Consumer<ParseResult> pConsumer ) {
+    ExecutorService lExecutor = Executors.newFixedThreadPool(parallelism, this::newThread);
+    SortedMap<Integer, String> lPendingFiles = new TreeMap<>();
+    Consumer<ParseResult> lConsumer = pResult -> {
+      lPendingFiles.remove(pResult.getIndex());
+      pConsumer.accept(pResult);
+    };
+    try {
+      if (pOrder == ParseResultOrder.INPUT) {
+        this.parseInInputOrder(pFileNames.iterator(), lExecutor, lPendingFiles, lConsumer);
+      }
+      else {
+        this.parseInCompletionOrder(pFileNames.iterator(), lExecutor, lPendingFiles, lConsumer);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      String lFileName = lPendingFiles.get(lPendingFiles.firstKey());
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, lFileName);
+    }
+    finally {
+      lExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Method parses all passed files and passes the results in input order.
+   *
+   * @param pFileNames Names of all files that should be parsed. The parameter must not be null.
+   * @param pExecutor Executor that is used to parse the files. The parameter must not be null.
+   * @param pPendingFiles Map to which all scheduled files are added by their index. The parameter must not be null.
+   * @param pConsumer Consumer to which the results are passed. The parameter must not be null.
+   * @throws InterruptedException in case that the calling thread was interrupted.
+   */
+  private void parseInInputOrder( Iterator<String> pFileNames, ExecutorService pExecutor,
+      Map<Integer, String> pPendingFiles, Consumer<ParseResult> pConsumer ) throws InterruptedException {
+
+    int lMaxScheduledFiles = (int) Math.min((long) parallelism * SCHEDULED_FILES_PER_THREAD, Integer.MAX_VALUE);
+    Deque<Future<ParseResult>> lScheduledFiles = new ArrayDeque<>(lMaxScheduledFiles);
+    int lIndex = 0;
+    while (pFileNames.hasNext() == true || lScheduledFiles.isEmpty() == false) {
+      // Schedule further files.
+      while (pFileNames.hasNext() == true && lScheduledFiles.size() < lMaxScheduledFiles) {
+        String lFileName = pFileNames.next();
+        int lFileIndex = lIndex++;
+        pPendingFiles.put(lFileIndex, lFileName);
+        lScheduledFiles.add(pExecutor.submit(( ) -> this.parseFile(lFileName, lFileIndex)));
+      }
+
+      // Wait for oldest file.
+      pConsumer.accept(this.getResult(lScheduledFiles.poll()));
+    }
+  }
+
+  /**
+   * Method parses all passed files and passes the results in completion order.
+   *
+   * @param pFileNames Names of all files that should be parsed. The parameter must not be null.
+   * @param pExecutor Executor that is used to parse the files. The parameter must not be null.
+   * @param pPendingFiles Map to which all scheduled files are added by their index. The parameter must not be null.
+   * @param pConsumer Consumer to which the results are passed. The parameter must not be null.
+   * @throws InterruptedException in case that the calling thread was interrupted.
+   */
+  private void parseInCompletionOrder( Iterator<String> pFileNames, ExecutorService pExecutor,
+      Map<Integer, String> pPendingFiles, Consumer<ParseResult> pConsumer ) throws InterruptedException {
+
+    int lMaxScheduledFiles = (int) Math.min((long) parallelism * SCHEDULED_FILES_PER_THREAD, Integer.MAX_VALUE);
+    CompletionService<ParseResult> lCompletionService = new ExecutorCompletionService<>(pExecutor);
+    int lScheduledFiles = 0;
+    int lIndex = 0;
+    while (pFileNames.hasNext() == true || lScheduledFiles > 0) {
+      // Schedule further files.
+      while (pFileNames.hasNext() == true && lScheduledFiles < lMaxScheduledFiles) {
+        String lFileName = pFileNames.next();
+        int lFileIndex = lIndex++;
+        pPendingFiles.put(lFileIndex, lFileName);
+        lCompletionService.submit(( ) -> this.parseFile(lFileName, lFileIndex));
+        lScheduledFiles++;
+      }
+
+      // Wait for whatever file is parsed next.
+      Future<ParseResult> lFuture = lCompletionService.take();
+      lScheduledFiles--;
+      pConsumer.accept(this.getResult(lFuture));
+    }
+  }
+
+  /**
+   * Method parses a single file. Exceptions are not thrown but returned as part of the result.
+   *
+   * @param pFileName Name of the file that should be parsed.
+   * @param pIndex Position of the file within the batch.
+   * @return {@link ParseResult} Result of the parsing. The method never returns null.
+   */
+  private ParseResult parseFile( String pFileName, int pIndex ) {
+    ParseResult lResult;
+    try {
+      lResult = new ParseResult(pFileName, pIndex, xmlTools.parseFile(pFileName, validating), null);
+    }
+    catch (RuntimeException e) {
+      lResult = new ParseResult(pFileName, pIndex, null, e);
+    }
+    return lResult;
+  }
+
+  /**
+   * Method waits for the result of the passed future.
+   *
+   * @param pFuture Future whose result should be returned. The parameter must not be null.
+   * @return {@link ParseResult} Result of the parsing. The method never returns null.
+   * @throws InterruptedException in case that the calling thread was interrupted.
+   */
+  private ParseResult getResult( Future<ParseResult> pFuture ) throws InterruptedException {
+    try {
+      return pFuture.get();
+    }
+    // Parsing itself never throws runtime exceptions so only errors are possible here.
+    catch (ExecutionException e) {
+      Throwable lCause = e.getCause();
+      if (lCause instanceof Error) {
+        throw (Error) lCause;
+      }
+      else {
+        throw new IllegalStateException(lCause);
+      }
+    }
+  }
+
+  /**
+   * Method creates a new worker thread.
+   *
+   * @param pRunnable Runnable that should be executed by the thread. The parameter must not be null.
+   * @return {@link Thread} New daemon thread. The method never returns null.
+   */
+  private Thread newThread( Runnable pRunnable ) {
+    Thread lThread = new Thread(pRunnable, "JEAF-XML-Batch-Parser-" + THREAD_COUNTER.incrementAndGet());
+    lThread.setDaemon(true);
+    return lThread;
+  }
+}
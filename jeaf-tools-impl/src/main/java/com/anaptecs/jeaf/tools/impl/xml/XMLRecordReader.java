@@ -0,0 +1,248 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Class reads single elements (records) of a XML document from a StAX stream and converts each of them into a small
+ * DOM fragment. This way arbitrary large documents can be processed with the convenience of the DOM API while the
+ * memory consumption only depends on the size of the largest record.
+ *
+ * Elements and attributes are created using their qualified names (like for non namespace aware document builders).
+ * Namespace declarations are kept as "xmlns" attributes. Comments and processing instructions are ignored.
+ *
+ * @author JEAF Development Team
+ */
+final class XMLRecordReader {
+  /**
+   * StAX reader from which the records are read.
+   */
+  private final XMLStreamReader reader;
+
+  /**
+   * Document builder that is used to create a new document for every record.
+   */
+  private final DocumentBuilder documentBuilder;
+
+  /**
+   * Initialize object.
+   *
+   * @param pReader StAX reader from which the records are read. The parameter must not be null.
+   * @param pDocumentBuilder Document builder that is used to create a new document for every record. The parameter may
+   * only be null if no elements are read.
+   */
+  XMLRecordReader( XMLStreamReader pReader, DocumentBuilder pDocumentBuilder ) {
+    reader = pReader;
+    documentBuilder = pDocumentBuilder;
+  }
+
+  /**
+   * Method returns the next element with the passed name. The element may be located anywhere in the document.
+   * Elements with the same name that are nested inside a record are part of the record and not returned separately.
+   *
+   * @param pElementName Qualified name of the elements that should be returned. The parameter must not be null.
+   * @return {@link Element} Next record as document element of its own document or null if the end of the document is
+   * reached.
+   * @throws XMLStreamException in case that the XML document could not be read.
+   */
+  Element nextRecord( String pElementName ) throws XMLStreamException {
+    Element lRecord = null;
+    while (lRecord == null && reader.hasNext()) {
+      int lEvent = reader.next();
+      if (lEvent == XMLStreamConstants.START_ELEMENT && pElementName.equals(getQualifiedName(reader))) {
+        lRecord = this.readElement();
+      }
+    }
+    return lRecord;
+  }
+
+  /**
+   * Method moves the reader to the first element whose path matches the passed predicate. The path of an element
+   * consists of the qualified names of all its ancestors and of the element itself, each of them prefixed by "/", e.g.
+   * "/Root/Header/MessageID". Content after the matching element is not read.
+   *
+   * @param pPathMatcher Predicate that is used to check the path of every element. The parameter must not be null.
+   * @return boolean Method returns true if the reader is positioned on the start tag of a matching element and false if
+   * the end of the document is reached.
+   * @throws XMLStreamException in case that the XML document could not be read.
+   */
+  boolean skipTo( Predicate<String> pPathMatcher ) throws XMLStreamException {
+    StringBuilder lPath = new StringBuilder(128);
+    Deque<Integer> lPathLengths = new ArrayDeque<>();
+    boolean lFound = false;
+    while (lFound == false && reader.hasNext()) {
+      int lEvent = reader.next();
+      if (lEvent == XMLStreamConstants.START_ELEMENT) {
+        lPathLengths.push(lPath.length());
+        lPath.append('/').append(getQualifiedName(reader));
+        lFound = pPathMatcher.test(lPath.toString());
+      }
+      else if (lEvent == XMLStreamConstants.END_ELEMENT) {
+        lPath.setLength(lPathLengths.pop());
+      }
+      else {
+        // Nothing to do.
+      }
+    }
+    return lFound;
+  }
+
+  /**
+   * Method returns all attributes of the element on which the reader is currently positioned. Namespace declarations
+   * are returned as "xmlns" attributes.
+   *
+   * @return {@link Map} Attributes of the element in the order in which they are defined. Key of the map is the
+   * qualified name of the attribute. The method never returns null.
+   */
+  Map<String, String> readAttributes( ) {
+    Map<String, String> lAttributes = new LinkedHashMap<>();
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      lAttributes.put(getNamespaceAttributeName(reader.getNamespacePrefix(i)), reader.getNamespaceURI(i));
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      lAttributes.put(this.getAttributeName(i), reader.getAttributeValue(i));
+    }
+    return lAttributes;
+  }
+
+  /**
+   * Method reads the element on which the reader is currently positioned including all its children. Afterwards the
+   * reader is positioned on the end tag of the element.
+   *
+   * @return {@link Element} Element that was read as document element of a new document. The method never returns null.
+   * @throws XMLStreamException in case that the XML document could not be read.
+   */
+  Element readElement( ) throws XMLStreamException {
+    Document lDocument = documentBuilder.newDocument();
+    Element lRoot = this.createElement(lDocument);
+    lDocument.appendChild(lRoot);
+
+    // Read content of the element until its end tag is reached.
+    Node lCurrent = lRoot;
+    int lDepth = 1;
+    while (lDepth > 0) {
+      int lEvent = reader.next();
+      switch (lEvent) {
+        case XMLStreamConstants.START_ELEMENT:
+          Element lElement = this.createElement(lDocument);
+          lCurrent.appendChild(lElement);
+          lCurrent = lElement;
+          lDepth++;
+          break;
+
+        case XMLStreamConstants.END_ELEMENT:
+          lCurrent = lCurrent.getParentNode();
+          lDepth--;
+          break;
+
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          lCurrent.appendChild(lDocument.createTextNode(reader.getText()));
+          break;
+
+        case XMLStreamConstants.CDATA:
+          lCurrent.appendChild(lDocument.createCDATASection(reader.getText()));
+          break;
+
+        default:
+          // Nothing to do. Comments, processing instructions etc. are ignored.
+      }
+    }
+    // Merge adjacent text nodes like a parsed document would have them.
+    lRoot.normalize();
+    return lRoot;
+  }
+
+  /**
+   * Method creates a new element for the start tag on which the reader is currently positioned. Attributes and
+   * namespace declarations are added to the element.
+   *
+   * @param pDocument Document that should be used to create the element. The parameter must not be null.
+   * @return {@link Element} Created element. The method never returns null.
+   */
+  private Element createElement( Document pDocument ) {
+    Element lElement = pDocument.createElement(getQualifiedName(reader));
+
+    // Add namespace declarations.
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      lElement.setAttribute(getNamespaceAttributeName(reader.getNamespacePrefix(i)), reader.getNamespaceURI(i));
+    }
+
+    // Add attributes.
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      lElement.setAttribute(this.getAttributeName(i), reader.getAttributeValue(i));
+    }
+    return lElement;
+  }
+
+  /**
+   * Method returns the qualified name of the attribute with the passed index of the current start tag.
+   *
+   * @param pIndex Index of the attribute.
+   * @return {@link String} Qualified name of the attribute. The method never returns null.
+   */
+  private String getAttributeName( int pIndex ) {
+    String lPrefix = reader.getAttributePrefix(pIndex);
+    String lLocalName = reader.getAttributeLocalName(pIndex);
+    String lAttributeName;
+    if (lPrefix == null || lPrefix.isEmpty()) {
+      lAttributeName = lLocalName;
+    }
+    else {
+      lAttributeName = lPrefix + ":" + lLocalName;
+    }
+    return lAttributeName;
+  }
+
+  /**
+   * Method returns the name of the attribute that declares a namespace with the passed prefix.
+   *
+   * @param pPrefix Prefix of the namespace. The parameter may be null in case of the default namespace.
+   * @return {@link String} Name of the attribute, e.g. "xmlns" or "xmlns:ns". The method never returns null.
+   */
+  private static String getNamespaceAttributeName( String pPrefix ) {
+    String lAttributeName;
+    if (pPrefix == null || pPrefix.isEmpty()) {
+      lAttributeName = "xmlns";
+    }
+    else {
+      lAttributeName = "xmlns:" + pPrefix;
+    }
+    return lAttributeName;
+  }
+
+  /**
+   * Method returns the qualified name (prefix and local name) of the element on which the passed reader is positioned.
+   *
+   * @param pReader Reader that is positioned on a start or end tag. The parameter must not be null.
+   * @return {@link String} Qualified name of the element. The method never returns null.
+   */
+  static String getQualifiedName( XMLStreamReader pReader ) {
+    String lPrefix = pReader.getPrefix();
+    String lQualifiedName;
+    if (lPrefix == null || lPrefix.isEmpty()) {
+      lQualifiedName = pReader.getLocalName();
+    }
+    else {
+      lQualifiedName = lPrefix + ":" + pReader.getLocalName();
+    }
+    return lQualifiedName;
+  }
+}
@@ -0,0 +1,491 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.anaptecs.jeaf.tools.api.ToolsMessages;
+import com.anaptecs.jeaf.tools.api.xml.DocumentProperties;
+import com.anaptecs.jeaf.xfun.api.checks.Check;
+import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
+
+/**
+ * Class writes XML documents directly to an output stream without building a DOM first. This way arbitrary large
+ * documents can be generated while the memory consumption stays constant. The output is formatted in the same way as
+ * the output of {@link XMLToolsImpl#writeDocument(org.w3c.dom.Document, DocumentProperties, OutputStream)} including
+ * encoding, indentation, DOCTYPE and CDATA section elements as defined by the document properties.
+ *
+ * Output is collected in a buffer that is reused by all writers of the same thread and written to the stream in
+ * blocks. All methods return the writer itself so calls can be chained:
+ *
+ * <pre>
+ * try (XMLStreamingWriter lWriter = lXMLTools.createStreamingWriter(lOutputStream, lProperties)) {
+ *   lWriter.startElement("Orders").attribute("count", "2");
+ *   lWriter.startElement("Order").attribute("id", "1").element("Item", "Book").endElement();
+ *   lWriter.startElement("Order").attribute("id", "2").element("Item", "Pen").endElement();
+ * }
+ * </pre>
+ *
+ * Element and attribute names are written as they are passed. Namespaces have to be declared explicitly using
+ * "xmlns" attributes. Instances of this class are not thread safe.
+ *
+ * @author JEAF Development Team
+ */
+public final class XMLStreamingWriter implements AutoCloseable {
+  /**
+   * Size of the buffer after which its content is written to the output stream.
+   */
+  private static final int FLUSH_THRESHOLD = 8192;
+
+  /**
+   * Max. capacity of a buffer that will be reused. Larger buffers may result from very large text values and are
+   * released to avoid that they stay in memory.
+   */
+  private static final int MAX_POOLED_CAPACITY = FLUSH_THRESHOLD * 8;
+
+  /**
+   * Buffers that are currently not in use by a writer of the thread.
+   */
+  private static final ThreadLocal<Buffer> BUFFERS = new ThreadLocal<>();
+
+  /**
+   * Writer that encodes the output and writes it to the output stream.
+   */
+  private final Writer writer;
+
+  /**
+   * Encoder is used to check if a character can be represented in the output charset. Reference is null for Unicode
+   * charsets as they can represent all characters.
+   */
+  private final CharsetEncoder encoder;
+
+  /**
+   * Parameter defines whether the output is indented or not.
+   */
+  private final boolean indent;
+
+  /**
+   * Public ID of the DOCTYPE declaration. The reference may be null.
+   */
+  private final String doctypePublic;
+
+  /**
+   * System ID of the DOCTYPE declaration. The reference may be null.
+   */
+  private final String doctypeSystem;
+
+  /**
+   * Names of all elements whose text content is written as CDATA section. The reference may be null.
+   */
+  private final Set<String> cdataSectionElements;
+
+  /**
+   * Names of all elements that are currently open.
+   */
+  private final List<String> openElements = new ArrayList<>();
+
+  /**
+   * Levels whose element already has child elements.
+   */
+  private final BitSet childElements = new BitSet();
+
+  /**
+   * Levels whose element already has text content.
+   */
+  private final BitSet textContent = new BitSet();
+
+  /**
+   * Buffer to which the output is written. The reference is null after the writer was closed.
+   */
+  private Buffer buffer;
+
+  /**
+   * Flag indicates whether the start tag of the current element is not yet closed so attributes can still be added.
+   */
+  private boolean startTagOpen;
+
+  /**
+   * Flag indicates whether the root element was already started.
+   */
+  private boolean rootStarted;
+
+  /**
+   * Initialize object. Therefore the XML declaration will be written if it is not omitted.
+   *
+   * @param pOutputStream Output stream to which the document is written. The parameter must not be null.
+   * @param pDocumentProperties Document properties that define the output. The parameter must not be null.
+   */
+  XMLStreamingWriter( OutputStream pOutputStream, DocumentProperties pDocumentProperties ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pOutputStream, "pOutputStream");
+    Check.checkInvalidParameterNull(pDocumentProperties, "pDocumentProperties");
+
+    Charset lCharset = DOMSerializer.lookupCharset(pDocumentProperties.getEncoding());
+    if (lCharset == null) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_WRITE_XML,
+          "Unsupported encoding " + pDocumentProperties.getEncoding());
+    }
+    writer = new OutputStreamWriter(pOutputStream, lCharset);
+    encoder = DOMSerializer.newEncoder(lCharset);
+    indent = pDocumentProperties.isIndent();
+    doctypePublic = pDocumentProperties.getDoctypePublic();
+    doctypeSystem = pDocumentProperties.getDoctypeSystem();
+
+    // Resolve elements whose content should be written as CDATA sections.
+    String lCDataSectionElements = pDocumentProperties.getCDataSectionElements();
+    if (lCDataSectionElements != null && lCDataSectionElements.trim().isEmpty() == false) {
+      cdataSectionElements = new HashSet<>();
+      for (String lName : lCDataSectionElements.trim().split("\\s+")) {
+        cdataSectionElements.add(lName);
+      }
+    }
+    else {
+      cdataSectionElements = null;
+    }
+
+    // Take buffer of the current thread if it is not used by another writer.
+    buffer = BUFFERS.get();
+    if (buffer != null) {
+      BUFFERS.set(null);
+    }
+    else {
+      buffer = new Buffer();
+    }
+
+    // Write XML declaration if required.
+    if (pDocumentProperties.omitXMLDeclaration() == false) {
+      StringBuilder lBuilder = buffer.builder;
+      lBuilder.append("<?xml version=\"").append(pDocumentProperties.getVersion());
+      lBuilder.append("\" encoding=\"").append(pDocumentProperties.getEncoding()).append("\" standalone=\"no\"?>");
+      if (indent == true) {
+        lBuilder.append(DOMSerializer.LINE_SEPARATOR);
+      }
+    }
+  }
+
+  /**
+   * Method starts a new element. Attributes can be added until any content is written.
+   *
+   * @param pName Qualified name of the element. The parameter must not be null.
+   * @return {@link XMLStreamingWriter} The writer itself. The method never returns null.
+   */
+  public XMLStreamingWriter startElement( String pName ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pName, "pName");
+
+    StringBuilder lBuilder = this.getBuilder();
+    int lDepth = openElements.size();
+    if (lDepth > 0) {
+      this.closeStartTag();
+      childElements.set(lDepth - 1);
+      if (indent == true && textContent.get(lDepth - 1) == false) {
+        DOMSerializer.appendIndentation(lBuilder, lDepth);
+      }
+    }
+    // DOCTYPE declaration is written right in front of the root element.
+    else if (rootStarted == false) {
+      rootStarted = true;
+      this.writeDoctype(pName);
+    }
+    else {
+      throw new IllegalStateException("XML document must only have one root element.");
+    }
+
+    lBuilder.append('<').append(pName);
+    openElements.add(pName);
+    childElements.clear(lDepth);
+    textContent.clear(lDepth);
+    startTagOpen = true;
+    return this;
+  }
+
+  /**
+   * Method adds an attribute to the element that was just started.
+   *
+   * @param pName Qualified name of the attribute. The parameter must not be null.
+   * @param pValue Value of the attribute. The parameter may be null. In this case no attribute will be written.
+   * @return {@link XMLStreamingWriter} The writer itself. The method never returns null.
+   */
+  public XMLStreamingWriter attribute( String pName, String pValue ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pName, "pName");
+    if (startTagOpen == false) {
+      throw new IllegalStateException("Attribute " + pName + " can only be written directly after a start tag.");
+    }
+
+    if (pValue != null) {
+      StringBuilder lBuilder = this.getBuilder();
+      lBuilder.append(' ').append(pName).append("=\"");
+      DOMSerializer.appendEscaped(lBuilder, pValue, true, encoder);
+      lBuilder.append('"');
+      this.flushIfRequired();
+    }
+    return this;
+  }
+
+  /**
+   * Method writes the passed text as content of the current element. If the current element is configured as CDATA
+   * section element then the text is written as CDATA section.
+   *
+   * @param pText Text that should be written. The parameter may be null. In this case nothing will be written.
+   * @return {@link XMLStreamingWriter} The writer itself. The method never returns null.
+   */
+  public XMLStreamingWriter text( String pText ) {
+    int lDepth = this.getRequiredDepth();
+    if (pText != null && pText.isEmpty() == false) {
+      this.closeStartTag();
+      textContent.set(lDepth - 1);
+      StringBuilder lBuilder = this.getBuilder();
+      if (cdataSectionElements != null && cdataSectionElements.contains(openElements.get(lDepth - 1)) == true) {
+        DOMSerializer.appendCData(lBuilder, pText, encoder);
+      }
+      else {
+        DOMSerializer.appendEscaped(lBuilder, pText, false, encoder);
+      }
+      this.flushIfRequired();
+    }
+    return this;
+  }
+
+  /**
+   * Method writes the passed text as CDATA section.
+   *
+   * @param pText Text that should be written. The parameter must not be null.
+   * @return {@link XMLStreamingWriter} The writer itself. The method never returns null.
+   */
+  public XMLStreamingWriter cdata( String pText ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pText, "pText");
+
+    int lDepth = this.getRequiredDepth();
+    this.closeStartTag();
+    textContent.set(lDepth - 1);
+    DOMSerializer.appendCData(this.getBuilder(), pText, encoder);
+    this.flushIfRequired();
+    return this;
+  }
+
+  /**
+   * Method writes the passed comment as content of the current element.
+   *
+   * @param pComment Comment that should be written. The comment must not contain "--". The parameter must not be null.
+   * @return {@link XMLStreamingWriter} The writer itself. The method never returns null.
+   */
+  public XMLStreamingWriter comment( String pComment ) {
+    // Check parameter
+    Check.checkInvalidParameterNull(pComment, "pComment");
+
+    int lDepth = this.getRequiredDepth();
+    this.closeStartTag();
+    childElements.set(lDepth - 1);
+    StringBuilder lBuilder = this.getBuilder();
+    if (indent == true && textContent.get(lDepth - 1) == false) {
+      DOMSerializer.appendIndentation(lBuilder, lDepth);
+    }
+    lBuilder.append("<!--").append(pComment).append("-->");
+    this.flushIfRequired();
+    return this;
+  }
+
+  /**
+   * Method writes a complete element that only contains the passed text. This is a shortcut for calling
+   * {@link #startElement(String)}, {@link #text(String)} and {@link #endElement()}.
+   *
+   * @param pName Qualified name of the element. The parameter must not be null.
+   * @param pText Text content of the element. The parameter may be null. In this case an empty element will be
+   * written.
+   * @return {@link XMLStreamingWriter} The writer itself. The method never returns null.
+   */
+  public XMLStreamingWriter element( String pName, String pText ) {
+    return this.startElement(pName).text(pText).endElement();
+  }
+
+  /**
+   * Method ends the current element.
+   *
+   * @return {@link XMLStreamingWriter} The writer itself. The method never returns null.
+   */
+  public XMLStreamingWriter endElement( ) {
+    int lDepth = this.getRequiredDepth();
+    StringBuilder lBuilder = this.getBuilder();
+    String lName = openElements.remove(lDepth - 1);
+    if (startTagOpen == true) {
+      lBuilder.append("/>");
+      startTagOpen = false;
+    }
+    else {
+      if (indent == true && childElements.get(lDepth - 1) == true && textContent.get(lDepth - 1) == false) {
+        DOMSerializer.appendIndentation(lBuilder, lDepth - 1);
+      }
+      lBuilder.append("</").append(lName).append('>');
+    }
+    this.flushIfRequired();
+    return this;
+  }
+
+  /**
+   * Method returns the number of elements that are currently open.
+   *
+   * @return int Number of open elements.
+   */
+  public int getDepth( ) {
+    return openElements.size();
+  }
+
+  /**
+   * Method writes all buffered output to the output stream and flushes it.
+   */
+  public void flush( ) {
+    try {
+      this.writeBuffer();
+      writer.flush();
+    }
+    catch (IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_WRITE_XML, e, e.getMessage());
+    }
+  }
+
+  /**
+   * Method ends all elements that are still open and writes all remaining output to the output stream. The output
+   * stream itself will not be closed. Calling this method more than once has no effect.
+   */
+  @Override
+  public void close( ) {
+    if (buffer != null) {
+      try {
+        while (openElements.isEmpty() == false) {
+          this.endElement();
+        }
+        if (indent == true && rootStarted == true) {
+          buffer.builder.append(DOMSerializer.LINE_SEPARATOR);
+        }
+        this.flush();
+      }
+      finally {
+        // Return buffer so that it can be reused by the next writer of this thread.
+        Buffer lBuffer = buffer;
+        buffer = null;
+        lBuffer.builder.setLength(0);
+        if (lBuffer.builder.capacity() <= MAX_POOLED_CAPACITY) {
+          BUFFERS.set(lBuffer);
+        }
+      }
+    }
+  }
+
+  /**
+   * Method returns the builder to which the output is written.
+   *
+   * @return {@link StringBuilder} Builder for the output. The method never returns null.
+   */
+  private StringBuilder getBuilder( ) {
+    if (buffer == null) {
+      throw new IllegalStateException("XMLStreamingWriter is already closed.");
+    }
+    return buffer.builder;
+  }
+
+  /**
+   * Method returns the number of open elements and ensures that there is at least one.
+   *
+   * @return int Number of open elements. The method always returns a value greater than zero.
+   */
+  private int getRequiredDepth( ) {
+    int lDepth = openElements.size();
+    if (lDepth == 0) {
+      throw new IllegalStateException("No element is open.");
+    }
+    return lDepth;
+  }
+
+  /**
+   * Method closes the start tag of the current element if it is still open.
+   */
+  private void closeStartTag( ) {
+    if (startTagOpen == true) {
+      this.getBuilder().append('>');
+      startTagOpen = false;
+    }
+  }
+
+  /**
+   * Method writes the DOCTYPE declaration if it is defined by the document properties.
+   *
+   * @param pRootElementName Name of the root element. The parameter must not be null.
+   */
+  private void writeDoctype( String pRootElementName ) {
+    if (doctypeSystem != null) {
+      StringBuilder lBuilder = this.getBuilder();
+      lBuilder.append("<!DOCTYPE ").append(pRootElementName);
+      if (doctypePublic != null) {
+        lBuilder.append(" PUBLIC \"").append(doctypePublic).append("\" \"");
+      }
+      else {
+        lBuilder.append(" SYSTEM \"");
+      }
+      lBuilder.append(doctypeSystem).append("\">");
+      if (indent == true) {
+        lBuilder.append(DOMSerializer.LINE_SEPARATOR);
+      }
+    }
+  }
+
+  /**
+   * Method writes the buffered output to the output stream if the buffer exceeds its threshold.
+   */
+  private void flushIfRequired( ) {
+    if (buffer.builder.length() >= FLUSH_THRESHOLD) {
+      try {
+        this.writeBuffer();
+      }
+      catch (IOException e) {
+        throw new JEAFSystemException(ToolsMessages.UNABLE_TO_WRITE_XML, e, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Method writes the buffered output to the output stream and clears the buffer.
+   *
+   * @throws IOException if the output could not be written.
+   */
+  private void writeBuffer( ) throws IOException {
+    StringBuilder lBuilder = this.getBuilder();
+    char[] lChars = buffer.chars;
+    int lLength = lBuilder.length();
+    for (int lStart = 0; lStart < lLength; lStart = lStart + lChars.length) {
+      int lEnd = Math.min(lStart + lChars.length, lLength);
+      lBuilder.getChars(lStart, lEnd, lChars, 0);
+      writer.write(lChars, 0, lEnd - lStart);
+    }
+    lBuilder.setLength(0);
+  }
+
+  /**
+   * Class holds the buffers of a writer so that they can be reused.
+   */
+  private static final class Buffer {
+    /**
+     * Builder to which the output is written.
+     */
+    private final StringBuilder builder = new StringBuilder(FLUSH_THRESHOLD * 2);
+
+    /**
+     * Array that is used to pass the content of the builder to the output stream writer.
+     */
+    private final char[] chars = new char[FLUSH_THRESHOLD];
+  }
+}
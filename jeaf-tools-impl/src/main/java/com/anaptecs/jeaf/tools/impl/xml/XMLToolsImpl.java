@@ -5,7 +5,7 @@
  */
 package com.anaptecs.jeaf.tools.impl.xml;
 
-import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -13,34 +13,69 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 import com.anaptecs.jeaf.tools.annotations.ToolsImplementation;
 import com.anaptecs.jeaf.tools.api.Tools;
 import com.anaptecs.jeaf.tools.api.ToolsMessages;
 import com.anaptecs.jeaf.tools.api.xml.DocumentProperties;
 import com.anaptecs.jeaf.tools.api.xml.XMLTools;
+import com.anaptecs.jeaf.tools.impl.file.FileHasher;
+import com.anaptecs.jeaf.tools.impl.monitoring.ToolsMetrics;
 import com.anaptecs.jeaf.xfun.annotations.StartupInfoWriterImpl;
 import com.anaptecs.jeaf.xfun.api.XFun;
 import com.anaptecs.jeaf.xfun.api.checks.Check;
@@ -49,11 +84,7 @@ import com.anaptecs.jeaf.xfun.api.trace.StartupInfoWriter;
 import com.anaptecs.jeaf.xfun.api.trace.Trace;
 import com.anaptecs.jeaf.xfun.api.trace.TraceLevel;
 
-import stormpot.BlazePool;
-import stormpot.Config;
-import stormpot.Pool;
 import stormpot.PoolException;
-import stormpot.Timeout;
 
 /**
  * Class simplifies the handling of XML documents. Thus the class offers method to easily create DOM documents. However
@@ -71,17 +102,89 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
   public static final String DOCUMENT_BUILDER_POOL_SIZE_PROPERTY = "jeaf.tools.xml.document.builder.pool.size";
 
   /**
-   * Counter is used to monitor the amount of times when we were not able to used a pooled document builder.
+   * Constant for name of system property that can be used to enable adaptive document builder pools. Adaptive pools
+   * grow if no pooled document builder is available over and over again. By default adaptive mode is disabled.
    */
-  private static int noPooledObjectCounter = 0;
+  public static final String DOCUMENT_BUILDER_POOL_ADAPTIVE_PROPERTY = "jeaf.tools.xml.document.builder.pool.adaptive";
 
   /**
-   * Timeout for max. waiting time for a new document builder.
-   * 
-   * Max. waiting time must be greater than 0 in order to avoid too many objects instead of taking them from the pool.
-   * Behavior is only visible in load test with high pressure on XML parsing.
+   * Constant for name of system property that can be used to define the max. size up to which adaptive document
+   * builder pools may grow. By default adaptive pools may grow up to 4 times of their initial size.
+   */
+  public static final String DOCUMENT_BUILDER_POOL_MAX_SIZE_PROPERTY = "jeaf.tools.xml.document.builder.pool.max.size";
+
+  /**
+   * StAX input factories are not guaranteed to be thread-safe. So we keep one secured factory per thread.
+   */
+  private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY =
+      ThreadLocal.withInitial(XMLToolsImpl::createSecuredXMLInputFactory);
+
+  /**
+   * SAX parser factories are not guaranteed to be thread-safe. So we keep one secured and namespace aware factory per
+   * thread. The factory is created lazily.
+   */
+  private static final ThreadLocal<SAXParserFactory> NAMESPACE_AWARE_SAX_PARSER_FACTORY = new ThreadLocal<>();
+
+  /**
+   * Constant for name of system property that can be used to define the max. number of pooled transformers per
+   * combination of output settings.
+   */
+  public static final String TRANSFORMER_POOL_SIZE_PROPERTY = "jeaf.tools.xml.transformer.pool.size";
+
+  /**
+   * Constant for name of system property that can be used to enable the document cache for parsed XML files. The
+   * property defines the max. number of cached documents. By default the cache is disabled.
+   */
+  public static final String DOCUMENT_CACHE_SIZE_PROPERTY = "jeaf.tools.xml.document.cache.size";
+
+  /**
+   * Constant for name of system property that can be used to define the size of the validator pool of every XML schema.
+   */
+  public static final String VALIDATOR_POOL_SIZE_PROPERTY = "jeaf.tools.xml.validator.pool.size";
+
+  /**
+   * Constant for name of system property that can be used to disable the direct serialization of DOM nodes. If it is
+   * disabled then all nodes are serialized using JAXP transformers. By default direct serialization is enabled. Direct
+   * serialization produces the same output as the JDK's built-in transformer. So it is only used if the JDK's built-in
+   * transformer factory is configured. With any other JAXP implementation all nodes are serialized using transformers.
+   */
+  public static final String DIRECT_SERIALIZATION_PROPERTY = "jeaf.tools.xml.direct.serialization";
+
+  /**
+   * Class name of the JDK's built-in transformer factory. Direct serialization is only used together with this factory.
+   */
+  private static final String BUILT_IN_TRANSFORMER_FACTORY =
+      "com.sun.org.apache.xalan.internal.xsltc.trax.TransformerFactoryImpl";
+
+  /**
+   * Default size of the validator pool of every XML schema.
+   */
+  private static final int DEFAULT_VALIDATOR_POOL_SIZE = 10;
+
+  /**
+   * Default max. number of pooled transformers per combination of output settings.
+   */
+  private static final int DEFAULT_TRANSFORMER_POOL_SIZE = 32;
+
+  /**
+   * Algorithm that is used to identify snapshots of XML files by their content.
+   */
+  private static final String SNAPSHOT_HASH_ALGORITHM = "SHA-256";
+
+  /**
+   * File extension of XML document snapshots.
+   */
+  private static final String SNAPSHOT_FILE_EXTENSION = ".jxs";
+
+  /**
+   * Suffix that is added to the names of snapshots of validated XML files.
+   */
+  private static final String SNAPSHOT_VALIDATING_SUFFIX = "-validating";
+
+  /**
+   * Document properties that are used if no document properties are passed.
    */
-  private static final Timeout TIMEOUT = new Timeout(1, TimeUnit.NANOSECONDS);
+  private static final DocumentProperties DEFAULT_DOCUMENT_PROPERTIES = DocumentProperties.Builder.newBuilder().build();
 
   /**
    * Size of the document builder pools. Default size is 100 entries per pool.
@@ -91,12 +194,42 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
   /**
    * Pool with all validating document builders.
    */
-  private final Pool<PooledDocumentBuilder> validatingPool;
+  private final DocumentBuilderPool validatingPool;
 
   /**
    * Pool with all non-validating document builders.
    */
-  private final Pool<PooledDocumentBuilder> nonValidatingPool;
+  private final DocumentBuilderPool nonValidatingPool;
+
+  /**
+   * Pool with all transformers that are used to serialize XML documents.
+   */
+  private final TransformerPool transformerPool;
+
+  /**
+   * Cache for parsed XML files. Reference is null if caching is disabled.
+   */
+  private volatile DocumentCache documentCache;
+
+  /**
+   * Attribute defines if metrics of the document cache were already registered.
+   */
+  private final AtomicBoolean cacheMetricsRegistered = new AtomicBoolean();
+
+  /**
+   * Size of the validator pool of every XML schema.
+   */
+  private final int validatorPoolSize;
+
+  /**
+   * Compiled XML schemas together with their validator pools. Key of the map is the schema location.
+   */
+  private final Map<String, SchemaValidatorPool> schemas = new ConcurrentHashMap<>();
+
+  /**
+   * Flag indicates whether DOM nodes are serialized directly instead of using a transformation.
+   */
+  private final boolean directSerialization;
 
   /**
    * Constructor of this class is private in order to ensure that no instances of this class can be created.
@@ -107,18 +240,107 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     XMLToolsConfiguration lConfiguration = new XMLToolsConfiguration();
     poolSize = lConfiguration.getDocumentBuilderPoolSize();
 
-    // Create new pool for validating document builders
-    Config<PooledDocumentBuilder> lConfig = new Config<>();
-    lConfig.setAllocator(new DocumentBuilderAllocator(true));
-    lConfig.setBackgroundExpirationEnabled(false).setSize(poolSize);
-    validatingPool = new BlazePool<>(lConfig);
+    // Lookup if document builder pools should grow in case of persisting fallbacks.
+    boolean lAdaptive = Boolean.getBoolean(DOCUMENT_BUILDER_POOL_ADAPTIVE_PROPERTY);
+    int lMaxPoolSize = Integer.getInteger(DOCUMENT_BUILDER_POOL_MAX_SIZE_PROPERTY, poolSize * 4);
+
+    // Create new pools for validating and non-validating document builders
+    validatingPool = new DocumentBuilderPool(true, poolSize, lAdaptive, lMaxPoolSize);
+    nonValidatingPool = new DocumentBuilderPool(false, poolSize, lAdaptive, lMaxPoolSize);
+
+    // Create pool for transformers.
+    int lTransformerPoolSize = Integer.getInteger(TRANSFORMER_POOL_SIZE_PROPERTY, DEFAULT_TRANSFORMER_POOL_SIZE);
+    TransformerFactory lTransformerFactory = createSecuredTransformerFactory();
+    transformerPool = new TransformerPool(lTransformerFactory, lTransformerPoolSize);
+
+    // Lookup size of validator pools.
+    validatorPoolSize = Integer.getInteger(VALIDATOR_POOL_SIZE_PROPERTY, DEFAULT_VALIDATOR_POOL_SIZE);
+
+    // Lookup if DOM nodes should be serialized directly. As the direct serializer reproduces the output of the JDK's
+    // built-in transformer it must not be used together with any other JAXP implementation.
+    boolean lDirectSerialization = Boolean.parseBoolean(System.getProperty(DIRECT_SERIALIZATION_PROPERTY, "true"));
+    if (lDirectSerialization == true && isBuiltInTransformerFactory(lTransformerFactory) == false) {
+      XFun.getTrace().info("Direct serialization of DOM nodes is disabled as transformer factory "
+          + lTransformerFactory.getClass().getName() + " is not the JDK's built-in one.");
+      lDirectSerialization = false;
+    }
+    directSerialization = lDirectSerialization;
+
+    // Document cache is only enabled if explicitly configured.
+    int lDocumentCacheSize = Integer.getInteger(DOCUMENT_CACHE_SIZE_PROPERTY, 0);
+    if (lDocumentCacheSize > 0) {
+      this.enableDocumentCache(lDocumentCacheSize);
+    }
+  }
+
+  /**
+   * Method enables caching of XML files that are parsed using {@link #parseFile(String, boolean, String)}. An already
+   * existing cache will be replaced.
+   * 
+   * @param pMaxSize Max. number of cached documents. If the cache is full the least recently used document will be
+   * evicted. The parameter must not be negative. 0 disables the cache.
+   */
+  public void enableDocumentCache( int pMaxSize ) {
+    // Check parameters.
+    Check.checkIsZeroOrGreater(pMaxSize, "pMaxSize");
+
+    if (pMaxSize > 0) {
+      documentCache = new DocumentCache(pMaxSize);
+    }
+    else {
+      documentCache = null;
+    }
+  }
+
+  /**
+   * Method disables caching of parsed XML files. All cached documents will be released.
+   */
+  public void disableDocumentCache( ) {
+    documentCache = null;
+  }
+
+  /**
+   * Method registers the metrics of the document cache if tools metrics are enabled. The metrics always refer to the
+   * current document cache so that they stay valid if the cache is replaced.
+   */
+  private void registerDocumentCacheMetrics( ) {
+    if (cacheMetricsRegistered.compareAndSet(false, true) == true) {
+      ToolsMetrics.monitorObject(this, pTools -> pTools.getDocumentCacheStatistic(DocumentCache::getSize),
+          DocumentCache.SIZE_METRIC);
+      ToolsMetrics.monitorObject(this, pTools -> pTools.getDocumentCacheStatistic(DocumentCache::getHits),
+          DocumentCache.HITS_METRIC);
+      ToolsMetrics.monitorObject(this, pTools -> pTools.getDocumentCacheStatistic(DocumentCache::getMisses),
+          DocumentCache.MISSES_METRIC);
+      ToolsMetrics.monitorObject(this, pTools -> pTools.getDocumentCacheStatistic(DocumentCache::getEvictions),
+          DocumentCache.EVICTIONS_METRIC);
+    }
+  }
+
+  /**
+   * Method returns a statistic value of the current document cache.
+   * 
+   * @param pStatistic Function that returns the statistic value. The parameter must not be null.
+   * @return long Statistic value or 0 if caching of parsed XML files is disabled.
+   */
+  private long getDocumentCacheStatistic( ToLongFunction<DocumentCache> pStatistic ) {
+    DocumentCache lDocumentCache = documentCache;
+    long lValue;
+    if (lDocumentCache != null) {
+      lValue = pStatistic.applyAsLong(lDocumentCache);
+    }
+    else {
+      lValue = 0;
+    }
+    return lValue;
+  }
 
-    // Create new pool for non-validating document builders
-    lConfig = new Config<>();
-    lConfig.setAllocator(new DocumentBuilderAllocator(false));
-    lConfig.setBackgroundExpirationEnabled(false);
-    lConfig.setSize(poolSize);
-    nonValidatingPool = new BlazePool<>(lConfig);
+  /**
+   * Method returns the document cache e.g. to access its statistics.
+   * 
+   * @return {@link DocumentCache} Document cache or null if caching of parsed XML files is disabled.
+   */
+  public DocumentCache getDocumentCache( ) {
+    return documentCache;
   }
 
   /**
@@ -198,6 +420,118 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     return lFactory;
   }
 
+  /**
+   * Method creates a new secured SAX parser factory. The factory is secured against XXE attacks in the same way as
+   * {@link #createSecuredDocumentBuilderFactory(boolean)}.
+   * 
+   * @return {@link SAXParserFactory} Created factory. The method never returns null.
+   * @throws ParserConfigurationException
+   * @throws SAXException
+   */
+  static SAXParserFactory createSecuredSAXParserFactory( ) throws ParserConfigurationException, SAXException {
+    // Create new SAX parser factory and afterwards secure it as much as possible.
+    SAXParserFactory lFactory = SAXParserFactory.newInstance();
+    lFactory.setValidating(false);
+
+    // Same settings as for document builder factories (see createSecuredDocumentBuilderFactory(...))
+    lFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+    lFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+    lFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    lFactory.setXIncludeAware(false);
+
+    // Return secured factory.
+    return lFactory;
+  }
+
+  /**
+   * Method creates a new secured StAX input factory. DTDs and external entities are not supported at all in order to
+   * prevent XXE attacks (see OWASP recommendations mentioned at {@link #createSecuredDocumentBuilderFactory(boolean)}).
+   * 
+   * @return {@link XMLInputFactory} Created factory. The method never returns null.
+   */
+  static XMLInputFactory createSecuredXMLInputFactory( ) {
+    XMLInputFactory lFactory = XMLInputFactory.newInstance();
+    lFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    lFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    lFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return lFactory;
+  }
+
+  /**
+   * Method creates a new schema factory for W3C XML schemas. The factory is configured in a way that it does not access
+   * any external DTDs. Other schemas can only be included or imported from local files.
+   * 
+   * @return {@link SchemaFactory} Secured schema factory. The method never returns null.
+   * @throws SAXException in case that the factory could not be configured.
+   */
+  static SchemaFactory createSecuredSchemaFactory( ) throws SAXException {
+    SchemaFactory lFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+    lFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    lFactory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+    lFactory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "file");
+    return lFactory;
+  }
+
+  /**
+   * Method creates a new validator for the passed schema. The validator does not access any external DTDs or schemas.
+   * 
+   * @param pSchema Schema for which a validator should be created. The parameter must not be null.
+   * @return {@link Validator} Secured validator. The method never returns null.
+   */
+  static Validator createSecuredValidator( Schema pSchema ) {
+    Validator lValidator = pSchema.newValidator();
+
+    // Depending on the JAXP implementation properties might not be supported, but that's the only way to find out.
+    try {
+      lValidator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+      lValidator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+    }
+    catch (SAXNotRecognizedException | SAXNotSupportedException e) {
+      // Nothing to do.
+    }
+    return lValidator;
+  }
+
+  /**
+   * Method checks whether the passed transformer factory is the JDK's built-in one. Only its output is reproduced by
+   * {@link DOMSerializer}.
+   * 
+   * @param pFactory Transformer factory that should be checked. The parameter must not be null.
+   * @return boolean Method returns true if the passed factory is the JDK's built-in transformer factory.
+   */
+  static boolean isBuiltInTransformerFactory( TransformerFactory pFactory ) {
+    return BUILT_IN_TRANSFORMER_FACTORY.equals(pFactory.getClass().getName());
+  }
+
+  /**
+   * Method creates a new transformer factory. The factory is configured in a way that it does not access any external
+   * DTDs or schemas.
+   * 
+   * @return {@link TransformerFactory} Secured transformer factory. The method never returns null.
+   */
+  static TransformerFactory createSecuredTransformerFactory( ) {
+    try {
+      // For security reasons we have to restrict resolution of external DTD and schemas
+      TransformerFactory lFactory = TransformerFactory.newInstance();
+      lFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      lFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+
+      // Try to restrict access to external schemas. As this feature is only supported by some implementations.
+      // Unfortunately there is no other way then trying and catching a may be thrown exception.
+      try {
+        lFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+      }
+      // Depending on the JAXP implementation attribute might not be supported, but that's the only way to find out.
+      catch (IllegalArgumentException e) {
+        // Nothing to do.
+      }
+      return lFactory;
+    }
+    catch (TransformerException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_WRITE_XML, e, e.getMessage());
+    }
+  }
+
   /**
    * Method creates a new DOM document out of the file with the passed file name. Therefore a DocumentBuilder object is
    * used that is depending on parameter pValidating either validated or not.
@@ -232,166 +566,1049 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     // Check parameter pXMLFile
     Check.checkInvalidParameterNull(pFileName, "pFileName");
 
-    // Create input stream from passed file and parse it.
+    // Use cached document if caching is enabled.
     File lResourceFile = new File(pFileName);
-    try (InputStream lResourceStream = new FileInputStream(lResourceFile);) {
-      return this.parseInputStream(lResourceStream, pValidating, pSystemID, pFileName);
+    DocumentCache lDocumentCache = documentCache;
+    Document lDocument;
+    if (lDocumentCache != null) {
+      // Register metrics with first usage as monitoring tools might not be available yet when the cache is enabled.
+      if (cacheMetricsRegistered.get() == false) {
+        this.registerDocumentCacheMetrics();
+      }
+      lDocument = lDocumentCache.getDocument(lResourceFile, pValidating, pSystemID,
+          ( ) -> this.parseFile(lResourceFile, pValidating, pSystemID, pFileName));
     }
-    // Error during file access.
-    catch (IOException e) {
+    else {
+      lDocument = this.parseFile(lResourceFile, pValidating, pSystemID, pFileName);
+    }
+    return lDocument;
+  }
+
+  /**
+   * Method parses all passed XML files in parallel. Problems with single files do not abort the batch but are reported
+   * as part of the result of the affected file. The document builder pool will be increased to the passed parallelism
+   * if it is smaller but never beyond its max. size. The parallelism is limited to the max. pool size too.
+   * 
+   * @param pFileNames Names of all files that should be parsed. The parameter must not be null.
+   * @param pValidating Parameter defines whether the files should be parsed validating or not.
+   * @param pParallelism Max. number of files that are parsed in parallel. The parameter must be greater than zero.
+   * @return {@link List} Results of all files in the same order as the file names were passed. The method never returns
+   * null.
+   * @throws JEAFSystemException in case that the calling thread is interrupted. In this case no partial result is
+   * returned.
+   */
+  public List<ParseResult> parseFiles( Collection<String> pFileNames, boolean pValidating, int pParallelism ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pFileNames, "pFileNames");
+
+    List<ParseResult> lResults = new ArrayList<>(pFileNames.size());
+    this.parseFiles(pFileNames, pValidating, pParallelism, ParseResultOrder.INPUT, lResults::add);
+    return lResults;
+  }
+
+  /**
+   * Method parses all passed XML files in parallel and passes the results to the passed consumer as soon as they are
+   * available. Problems with single files do not abort the batch but are reported as part of the result of the affected
+   * file. The document builder pool will be increased to the passed parallelism if it is smaller but never beyond its
+   * max. size. The parallelism is limited to the max. pool size too as further threads would not get a pooled document
+   * builder anyway.
+   * 
+   * Only a limited number of files is parsed ahead. So even very large batches can be processed with a small memory
+   * footprint as long as the consumer does not keep the documents.
+   * 
+   * @param pFileNames Names of all files that should be parsed. The parameter must not be null.
+   * @param pValidating Parameter defines whether the files should be parsed validating or not.
+   * @param pParallelism Max. number of files that are parsed in parallel. The parameter must be greater than zero.
+   * @param pOrder Order in which the results should be passed to the consumer. The parameter must not be null.
+   * @param pConsumer Consumer to which the results are passed. The consumer is always called from the calling thread.
+   * The parameter must not be null.
+   * @throws JEAFSystemException in case that the calling thread is interrupted. Results that were already passed to the
+   * consumer are not complete in this case.
+   */
+  public void parseFiles( Collection<String> pFileNames, boolean pValidating, int pParallelism, ParseResultOrder pOrder,
+      Consumer<ParseResult> pConsumer ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pFileNames, "pFileNames");
+    Check.checkIsGreaterZero(pParallelism, "pParallelism");
+    Check.checkInvalidParameterNull(pOrder, "pOrder");
+    Check.checkInvalidParameterNull(pConsumer, "pConsumer");
+
+    // Ensure that there are enough pooled document builders for all worker threads.
+    DocumentBuilderPool lPool = this.getDocumentBuilderPool(pValidating);
+    int lParallelism = Math.min(pParallelism, lPool.getMaxPoolSize());
+    lPool.ensurePoolSize(lParallelism);
+
+    XMLBatchParser lParser = new XMLBatchParser(this, pValidating, lParallelism);
+    lParser.parse(pFileNames, pOrder, pConsumer);
+  }
+
+  /**
+   * Method creates a new DOM document out of the file with the passed name using a binary snapshot of the parsed
+   * document if one is available. Snapshots are stored in the passed directory and identified by the SHA-256 hashes of
+   * the file path and the file content. If no snapshot exists yet then the file is parsed and a snapshot is written for
+   * the next time. Loading a snapshot is much faster than parsing large XML files. Whenever a new snapshot is written
+   * all older snapshots of the same file are deleted. So the directory contains at most one snapshot per file (and
+   * validation mode).
+   * 
+   * Snapshots do not contain the internal subset of DOCTYPE declarations and the information of the XML declaration.
+   * Entity references are replaced by their content.
+   * 
+   * @param pFileName Name of the file out of which the DOM document should be created. The parameter must not be null.
+   * @param pValidating Parameter indicates whether the file should be validated when it is parsed. Validating and non
+   * validating snapshots are stored separately.
+   * @param pSnapshotDirectory Directory in which snapshots are stored. The directory will be created if it does not
+   * exist. The parameter must not be null.
+   * @return {@link Document} Created DOM document. The method never returns null.
+   * @throws JEAFSystemException if an error occurs during the parsing process or while reading from the file with the
+   * passed name.
+   */
+  public Document parseFileWithSnapshot( String pFileName, boolean pValidating, String pSnapshotDirectory )
+    throws JEAFSystemException {
+
+    // Check parameters
+    Check.checkInvalidParameterNull(pFileName, "pFileName");
+    Check.checkInvalidParameterNull(pSnapshotDirectory, "pSnapshotDirectory");
+
+    // Resolve snapshot file from hashes of the file path and the file content. The hash of the path is used as prefix
+    // so that older snapshots of the same file can be found.
+    File lFile = new File(pFileName);
+    File lSnapshotFile;
+    String lSnapshotPrefix;
+    try {
+      String lPath = lFile.toPath().toAbsolutePath().normalize().toString();
+      MessageDigest lDigest = MessageDigest.getInstance(SNAPSHOT_HASH_ALGORITHM);
+      StringBuilder lName = new StringBuilder(160);
+      appendHex(lName, lDigest.digest(lPath.getBytes(StandardCharsets.UTF_8)));
+      lName.append('-');
+      lSnapshotPrefix = lName.toString();
+      appendHex(lName, FileHasher.hash(lFile, SNAPSHOT_HASH_ALGORITHM));
+      if (pValidating == true) {
+        lName.append(SNAPSHOT_VALIDATING_SUFFIX);
+      }
+      lName.append(".v").append(DocumentSnapshot.FORMAT_VERSION).append(SNAPSHOT_FILE_EXTENSION);
+      lSnapshotFile = new File(pSnapshotDirectory, lName.toString());
+    }
+    catch (IOException | NoSuchAlgorithmException e) {
       throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, pFileName);
     }
+
+    // Try to load existing snapshot. Broken snapshots are replaced. As snapshots are only an optimization any problem
+    // while loading them results in parsing the file.
+    Document lDocument = null;
+    if (lSnapshotFile.isFile() == true) {
+      try (InputStream lInputStream = new FileInputStream(lSnapshotFile)) {
+        lDocument = DocumentSnapshot.read(lInputStream, this.newDocument());
+      }
+      catch (IOException | RuntimeException e) {
+        XFun.getTrace().warn("Unable to read XML document snapshot " + lSnapshotFile.getPath() + ".", e);
+      }
+    }
+
+    // Parse file and write snapshot for the next time. As snapshots are only an optimization problems when writing
+    // them are only traced.
+    if (lDocument == null) {
+      lDocument = this.parseFile(lFile, pValidating, null, pFileName);
+      try {
+        Path lDirectory = Files.createDirectories(lSnapshotFile.getParentFile().toPath());
+        Path lTempFile = Files.createTempFile(lDirectory, lSnapshotFile.getName(), ".tmp");
+        try {
+          try (OutputStream lOutputStream = new BufferedOutputStream(Files.newOutputStream(lTempFile))) {
+            DocumentSnapshot.write(lDocument, lOutputStream);
+          }
+          Files.move(lTempFile, lSnapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+          Files.deleteIfExists(lTempFile);
+        }
+        this.deleteOutdatedSnapshots(lSnapshotFile, lSnapshotPrefix, pValidating);
+      }
+      catch (IOException e) {
+        XFun.getTrace().warn("Unable to write XML document snapshot " + lSnapshotFile.getPath() + ".", e);
+      }
+    }
+    return lDocument;
   }
 
   /**
-   * Method creates a new DOM document out of the file with the passed file name. Therefore a DocumentBuilder object is
-   * used that is depending on parameter pValidating either validated or not.
+   * Method deletes all snapshots of the same file and validation mode except the passed current one. Problems are only
+   * traced as outdated snapshots are never used again anyway.
    * 
-   * @param pInputStream Input stream which is used as input for the XML parser to create the DOM document. The
-   * parameter must not be null. In order to improve the parsing performance the input stream will be buffered.
-   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
-   * DOM document. If the parameter is true, the document is validated, otherwise not.
-   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
-   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
-   * process or an error occurs while reading from the file with the passed name.
+   * @param pSnapshotFile Current snapshot that must not be deleted. The parameter must not be null.
+   * @param pSnapshotPrefix Prefix of the names of all snapshots of the same file. The parameter must not be null.
+   * @param pValidating Validation mode of the current snapshot.
+   */
+  private void deleteOutdatedSnapshots( File pSnapshotFile, String pSnapshotPrefix, boolean pValidating ) {
+    String lValidatingMarker = SNAPSHOT_VALIDATING_SUFFIX + ".v";
+    File[] lSnapshots = pSnapshotFile.getParentFile().listFiles(( pDirectory, pName ) -> pName.startsWith(
+        pSnapshotPrefix) && pName.endsWith(SNAPSHOT_FILE_EXTENSION) && pName.contains(lValidatingMarker) == pValidating);
+    if (lSnapshots != null) {
+      for (File lSnapshot : lSnapshots) {
+        if (lSnapshot.getName().equals(pSnapshotFile.getName()) == false) {
+          try {
+            Files.deleteIfExists(lSnapshot.toPath());
+          }
+          catch (IOException e) {
+            XFun.getTrace().warn("Unable to delete outdated XML document snapshot " + lSnapshot.getPath() + ".", e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Method appends the passed bytes as hex string to the passed builder.
+   * 
+   * @param pBuilder Builder to which the hex string is appended. The parameter must not be null.
+   * @param pBytes Bytes that should be appended. The parameter must not be null.
+   */
+  private static void appendHex( StringBuilder pBuilder, byte[] pBytes ) {
+    for (byte lByte : pBytes) {
+      pBuilder.append(Character.forDigit((lByte >> 4) & 0x0F, 16)).append(Character.forDigit(lByte & 0x0F, 16));
+    }
+  }
+
+  /**
+   * Method writes a binary snapshot of the passed document to the passed stream. The snapshot can be loaded again using
+   * {@link #readSnapshot(InputStream, String)} which is much faster than parsing the XML of the document. Snapshots do
+   * not contain the internal subset of DOCTYPE declarations and entity references are replaced by their content.
+   * 
+   * @param pDocument Document that should be written. The parameter must not be null.
+   * @param pOutputStream Stream to which the snapshot is written. The parameter must not be null. The stream will not
+   * be closed.
+   * @throws JEAFSystemException if the snapshot could not be written.
+   */
+  public void writeSnapshot( Document pDocument, OutputStream pOutputStream ) throws JEAFSystemException {
+    // Check parameters
+    Check.checkInvalidParameterNull(pDocument, "pDocument");
+    Check.checkInvalidParameterNull(pOutputStream, "pOutputStream");
+
+    try {
+      DocumentSnapshot.write(pDocument, pOutputStream);
+    }
+    catch (IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_WRITE_XML, e, e.getMessage());
+    }
+  }
+
+  /**
+   * Method reads a document from a binary snapshot that was written using
+   * {@link #writeSnapshot(Document, OutputStream)}.
+   * 
+   * @param pInputStream Stream from which the snapshot is read. The parameter must not be null. The stream will not be
+   * closed.
+   * @param pStreamName Name of the stream that is read. The parameter is only used in cases that an exception occurs.
+   * The parameter may be null.
+   * @return {@link Document} Document of the snapshot. The method never returns null.
+   * @throws JEAFSystemException if the snapshot could not be read or is invalid.
+   */
+  public Document readSnapshot( InputStream pInputStream, String pStreamName ) throws JEAFSystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pInputStream, "pInputStream");
+
+    try {
+      return DocumentSnapshot.read(pInputStream, this.newDocument());
+    }
+    catch (IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, this.getStreamName(pStreamName));
+    }
+  }
+
+  /**
+   * Method creates a new empty document using a pooled non validating document builder.
+   * 
+   * @return {@link Document} Empty document. The method never returns null.
+   */
+  private Document newDocument( ) {
+    PooledDocumentBuilder lPooledProxy = null;
+    try {
+      lPooledProxy = nonValidatingPool.claim();
+      DocumentBuilder lDocumentBuilder;
+      if (lPooledProxy != null) {
+        lDocumentBuilder = lPooledProxy.getDocumentBuilder();
+      }
+      else {
+        lDocumentBuilder = nonValidatingPool.newDocumentBuilder();
+      }
+      return lDocumentBuilder.newDocument();
+    }
+    catch (ParserConfigurationException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, e.getMessage());
+    }
+    // Unable to claim document builder from pool.
+    catch (PoolException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CLAIM_POOLED_DOCUMENT_BUILDER, e,
+          Integer.toString(nonValidatingPool.getPoolSize()));
+    }
+    catch (InterruptedException e) {
+      XFun.getTrace().warn("Thread interrupted when trying to get XML Document Builder from pool.", e);
+      Thread.currentThread().interrupt();
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CLAIM_POOLED_DOCUMENT_BUILDER, e,
+          Integer.toString(nonValidatingPool.getPoolSize()));
+    }
+    finally {
+      if (lPooledProxy != null) {
+        lPooledProxy.release();
+      }
+    }
+  }
+
+  /**
+   * Method parses the passed XML file.
+   * 
+   * @param pFile File that should be parsed. The parameter must not be null.
+   * @param pValidating Parameter defines whether the file should be parsed validating or not.
+   * @param pSystemID System ID that is used to resolve relative URIs. The parameter may be null.
+   * @param pFileName Name of the file as passed by the caller. The parameter must not be null.
+   * @return {@link Document} Parsed document. The method never returns null.
+   */
+  private Document parseFile( File pFile, boolean pValidating, String pSystemID, String pFileName ) {
+    // Create input stream from passed file and parse it.
+    try (InputStream lResourceStream = new FileInputStream(pFile);) {
+      return this.parseInputStream(lResourceStream, pValidating, pSystemID, pFileName);
+    }
+    // Error during file access.
+    catch (IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, pFileName);
+    }
+  }
+
+  /**
+   * Method creates a new DOM document out of the file with the passed file name. Therefore a DocumentBuilder object is
+   * used that is depending on parameter pValidating either validated or not.
+   * 
+   * @param pInputStream Input stream which is used as input for the XML parser to create the DOM document. The
+   * parameter must not be null. The stream does not need to be buffered as the XML parser reads it in blocks.
+   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
+   * DOM document. If the parameter is true, the document is validated, otherwise not.
+   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
+   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
+   * process or an error occurs while reading from the file with the passed name.
+   */
+  @Override
+  public Document parseInputStream( InputStream pInputStream, boolean pValidating ) throws JEAFSystemException {
+    return this.parseInputStream(pInputStream, pValidating, null, null);
+  }
+
+  /**
+   * Method creates a new DOM document out of the file with the passed file name. Therefore a DocumentBuilder object is
+   * used that is depending on parameter pValidating either validated or not.
+   * 
+   * @param pInputStream Input stream which is used as input for the XML parser to create the DOM document. The
+   * parameter must not be null. The stream does not need to be buffered as the XML parser reads it in blocks.
+   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
+   * DOM document. If the parameter is true, the document is validated, otherwise not.
+   * @param pSystemID The system id provides the base for resolving relative URIs during the parsing process. The
+   * parameter may be null.
+   * @param pStreamName Name of the stream that is read. The parameter is only used in cases that an exception occurs.
+   * The parameter may be null.
+   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
+   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
+   * process or an error occurs while reading from the file with the passed name.
+   */
+  @Override
+  public Document parseInputStream( InputStream pInputStream, boolean pValidating, String pSystemID,
+      String pStreamName )
+    throws JEAFSystemException {
+
+    // Check parameter pInputStream
+    Check.checkInvalidParameterNull(pInputStream, "pInputStream");
+
+    // XML parser reads the stream in blocks on its own, so there is no need for an additional buffer.
+    InputSource lInputSource = new InputSource(pInputStream);
+    lInputSource.setSystemId(pSystemID);
+    return this.parse(lInputSource, pValidating, pStreamName);
+  }
+
+  /**
+   * Method creates a new DOM document out of the passed XML encoded bytes. The bytes are parsed directly without any
+   * copying.
+   * 
+   * @param pXMLBytes Bytes which are used as input for the XML parser. The encoding is detected from the XML
+   * declaration. The parameter must not be null.
+   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
+   * DOM document. If the parameter is true, the document is validated, otherwise not.
+   * @param pSystemID The system id provides the base for resolving relative URIs during the parsing process. The
+   * parameter may be null.
+   * @param pStreamName Name of the data that is read. The parameter is only used in cases that an exception occurs. The
+   * parameter may be null.
+   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
+   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
+   * process.
+   */
+  public Document parse( byte[] pXMLBytes, boolean pValidating, String pSystemID, String pStreamName )
+    throws JEAFSystemException {
+
+    // Check parameter
+    Check.checkInvalidParameterNull(pXMLBytes, "pXMLBytes");
+
+    InputSource lInputSource = new InputSource(new ByteArrayInputStream(pXMLBytes));
+    lInputSource.setSystemId(pSystemID);
+    return this.parse(lInputSource, pValidating, pStreamName);
+  }
+
+  /**
+   * Method creates a new DOM document out of the remaining bytes of the passed buffer. Heap buffers are parsed directly
+   * from their backing array. Direct buffers are read without copying them into an array first.
+   * 
+   * @param pXMLBuffer Buffer whose remaining bytes are used as input for the XML parser. The encoding is detected from
+   * the XML declaration. The position of the buffer will not be changed. The parameter must not be null.
+   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
+   * DOM document. If the parameter is true, the document is validated, otherwise not.
+   * @param pSystemID The system id provides the base for resolving relative URIs during the parsing process. The
+   * parameter may be null.
+   * @param pStreamName Name of the data that is read. The parameter is only used in cases that an exception occurs. The
+   * parameter may be null.
+   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
+   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
+   * process.
+   */
+  public Document parse( ByteBuffer pXMLBuffer, boolean pValidating, String pSystemID, String pStreamName )
+    throws JEAFSystemException {
+
+    // Check parameter
+    Check.checkInvalidParameterNull(pXMLBuffer, "pXMLBuffer");
+
+    InputStream lInputStream;
+    if (pXMLBuffer.hasArray() == true) {
+      lInputStream = new ByteArrayInputStream(pXMLBuffer.array(), pXMLBuffer.arrayOffset() + pXMLBuffer.position(),
+          pXMLBuffer.remaining());
+    }
+    else {
+      lInputStream = new ByteBufferInputStream(pXMLBuffer);
+    }
+    InputSource lInputSource = new InputSource(lInputStream);
+    lInputSource.setSystemId(pSystemID);
+    return this.parse(lInputSource, pValidating, pStreamName);
+  }
+
+  /**
+   * Method creates a new DOM document out of the characters of the passed reader. As the content is already decoded an
+   * encoding in the XML declaration is ignored.
+   * 
+   * @param pReader Reader which is used as input for the XML parser. The reader does not need to be buffered. The
+   * parameter must not be null.
+   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
+   * DOM document. If the parameter is true, the document is validated, otherwise not.
+   * @param pSystemID The system id provides the base for resolving relative URIs during the parsing process. The
+   * parameter may be null.
+   * @param pStreamName Name of the data that is read. The parameter is only used in cases that an exception occurs. The
+   * parameter may be null.
+   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
+   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
+   * process or while reading from the passed reader.
+   */
+  public Document parse( Reader pReader, boolean pValidating, String pSystemID, String pStreamName )
+    throws JEAFSystemException {
+
+    // Check parameter
+    Check.checkInvalidParameterNull(pReader, "pReader");
+
+    InputSource lInputSource = new InputSource(pReader);
+    lInputSource.setSystemId(pSystemID);
+    return this.parse(lInputSource, pValidating, pStreamName);
+  }
+
+  /**
+   * Method creates a new DOM document out of the passed input source using a pooled document builder.
+   * 
+   * @param pInputSource Input source that should be parsed. The parameter must not be null.
+   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used.
+   * @param pStreamName Name of the data that is read. The parameter is only used in cases that an exception occurs. The
+   * parameter may be null.
+   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
+   */
+  private Document parse( InputSource pInputSource, boolean pValidating, String pStreamName ) {
+    // Create document builder.
+    DocumentBuilderPool lPool = this.getDocumentBuilderPool(pValidating);
+    PooledDocumentBuilder lPooledProxy = null;
+    try {
+      lPooledProxy = lPool.claim();
+
+      DocumentBuilder lDocumentBuilder;
+      if (lPooledProxy != null) {
+        lDocumentBuilder = lPooledProxy.getDocumentBuilder();
+      }
+      // During startup or under high load it may happen that no pooled document builder is available.
+      else {
+        lDocumentBuilder = lPool.newDocumentBuilder();
+      }
+
+      // Parse input source. System ID is already part of the input source.
+      Document lDocument = lDocumentBuilder.parse(pInputSource);
+      lDocument.getDocumentElement().normalize();
+      return lDocument;
+    }
+    // Unable to parse XML
+    catch (SAXException | IOException | ParserConfigurationException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, this.getStreamName(pStreamName));
+    }
+    // Unable to claim document builder from pool.
+    catch (PoolException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CLAIM_POOLED_DOCUMENT_BUILDER, e,
+          Integer.toString(lPool.getPoolSize()));
+    }
+    catch (InterruptedException e) {
+      XFun.getTrace().warn("Thread interrupted when trying to get XML Document Builder from pool.", e);
+      Thread.currentThread().interrupt();
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CLAIM_POOLED_DOCUMENT_BUILDER, e,
+          Integer.toString(lPool.getPoolSize()));
+    }
+    finally {
+      if (lPooledProxy != null) {
+        lPooledProxy.release();
+      }
+    }
+  }
+
+  /**
+   * Method creates a new DOM document out of the passed xml encoded string. Therefore a DocumentBuilder object is used
+   * that is depending on parameter pValidating either validated or not.
+   * 
+   * @param pXMLEncodedString String which is used as input for the XML parser to create the DOM document. The parameter
+   * must not be null.
+   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
+   * DOM document. If the parameter is true, the document is validated, otherwise not.
+   * @param pSystemID The system id provides the base for resolving relative URIs during the parsing process. The
+   * parameter may be null.
+   * @param pStringName Name of the string that is read. The parameter is only used in cases that an exception occurs.
+   * The parameter may be null.
+   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
+   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
+   * process or an error occurs while reading from the file with the passed name.
+   */
+  @Override
+  public Document parseString( String pXMLEncodedString, boolean pValidating, String pSystemID, String pStringName )
+    throws JEAFSystemException {
+
+    // Check parameters.
+    Check.checkInvalidParameterNull(pXMLEncodedString, "pXMLEncodedString");
+    Check.checkInvalidParameterNull(pStringName, "pStringName");
+
+    // String is parsed as characters. This avoids encoding it into bytes and ensures that non ASCII characters are not
+    // affected by the platform's default charset.
+    InputSource lInputSource = new InputSource(new StringReader(pXMLEncodedString));
+    lInputSource.setSystemId(pSystemID);
+    return this.parse(lInputSource, pValidating, pStringName);
+  }
+
+  /**
+   * Method parses the file with the passed name using a SAX parser. In contrast to the methods that create DOM
+   * documents the memory consumption does not depend on the size of the document. All events are passed to the passed
+   * handler. The parser is secured against XXE attacks and does not validate.
+   * 
+   * @param pFileName Name of the file that should be parsed. The parameter must not be null.
+   * @param pHandler Handler to which all events are passed. The parameter must not be null.
+   * @throws JEAFSystemException if no parser could be created or an error occurs during the parsing process or while
+   * reading from the file with the passed name.
+   */
+  public void parseStreaming( String pFileName, DefaultHandler pHandler ) throws JEAFSystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pFileName, "pFileName");
+
+    try (InputStream lInputStream = new FileInputStream(pFileName)) {
+      this.parseStreaming(lInputStream, pHandler, pFileName);
+    }
+    // Error during file access.
+    catch (IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, pFileName);
+    }
+  }
+
+  /**
+   * Method parses the passed input stream using a SAX parser. In contrast to the methods that create DOM documents the
+   * memory consumption does not depend on the size of the document. All events are passed to the passed handler. The
+   * parser is secured against XXE attacks and does not validate.
+   * 
+   * @param pInputStream Input stream that should be parsed. The parameter must not be null. The stream will not be
+   * closed.
+   * @param pHandler Handler to which all events are passed. The parameter must not be null.
+   * @param pStreamName Name of the stream that is read. The parameter is only used in cases that an exception occurs.
+   * The parameter may be null.
+   * @throws JEAFSystemException if no parser could be created or an error occurs during the parsing process or while
+   * reading from the passed stream.
+   */
+  public void parseStreaming( InputStream pInputStream, DefaultHandler pHandler, String pStreamName )
+    throws JEAFSystemException {
+
+    // Check parameters
+    Check.checkInvalidParameterNull(pInputStream, "pInputStream");
+    Check.checkInvalidParameterNull(pHandler, "pHandler");
+
+    try {
+      SAXParser lParser = XMLToolsImpl.createSecuredSAXParserFactory().newSAXParser();
+      lParser.parse(pInputStream, pHandler);
+    }
+    // Unable to parse XML
+    catch (SAXException | IOException | ParserConfigurationException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, this.getStreamName(pStreamName));
+    }
+  }
+
+  /**
+   * Method reads all elements with the passed name (records) from the file with the passed name and passes each of them
+   * as small DOM fragment to the passed consumer. The file is read using a StAX reader so the memory consumption only
+   * depends on the size of the largest record but not on the size of the whole document.
+   * 
+   * @param pFileName Name of the file that should be parsed. The parameter must not be null.
+   * @param pRecordElementName Qualified name of the elements that represent the records, e.g. "item" or "ns:item". The
+   * parameter must not be null.
+   * @param pConsumer Consumer to which the records are passed. Each record is the document element of its own DOM
+   * document. The parameter must not be null.
+   * @return int Number of records that were passed to the consumer.
+   * @throws JEAFSystemException if an error occurs during the parsing process or while reading from the file with the
+   * passed name.
+   */
+  public int parseRecords( String pFileName, String pRecordElementName, Consumer<Element> pConsumer )
+    throws JEAFSystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pFileName, "pFileName");
+
+    try (InputStream lInputStream = new FileInputStream(pFileName)) {
+      return this.parseRecords(lInputStream, pRecordElementName, pConsumer, pFileName);
+    }
+    // Error during file access.
+    catch (IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, pFileName);
+    }
+  }
+
+  /**
+   * Method reads all elements with the passed name (records) from the passed input stream and passes each of them as
+   * small DOM fragment to the passed consumer. The stream is read using a StAX reader so the memory consumption only
+   * depends on the size of the largest record but not on the size of the whole document.
+   * 
+   * @param pInputStream Input stream that should be parsed. The parameter must not be null. The stream will not be
+   * closed.
+   * @param pRecordElementName Qualified name of the elements that represent the records, e.g. "item" or "ns:item". The
+   * parameter must not be null.
+   * @param pConsumer Consumer to which the records are passed. Each record is the document element of its own DOM
+   * document. The parameter must not be null.
+   * @param pStreamName Name of the stream that is read. The parameter is only used in cases that an exception occurs.
+   * The parameter may be null.
+   * @return int Number of records that were passed to the consumer.
+   * @throws JEAFSystemException if an error occurs during the parsing process or while reading from the passed stream.
+   */
+  public int parseRecords( InputStream pInputStream, String pRecordElementName, Consumer<Element> pConsumer,
+      String pStreamName )
+    throws JEAFSystemException {
+
+    // Check parameters
+    Check.checkInvalidParameterNull(pInputStream, "pInputStream");
+    Check.checkInvalidParameterNull(pRecordElementName, "pRecordElementName");
+    Check.checkInvalidParameterNull(pConsumer, "pConsumer");
+
+    XMLStreamReader lStreamReader = null;
+    try {
+      lStreamReader = XML_INPUT_FACTORY.get().createXMLStreamReader(pInputStream);
+      XMLRecordReader lRecordReader = new XMLRecordReader(lStreamReader, this.createDocumentBuilder(false));
+
+      // Pass all records to consumer.
+      int lCount = 0;
+      Element lRecord = lRecordReader.nextRecord(pRecordElementName);
+      while (lRecord != null) {
+        pConsumer.accept(lRecord);
+        lCount++;
+        lRecord = lRecordReader.nextRecord(pRecordElementName);
+      }
+      return lCount;
+    }
+    // Unable to parse XML
+    catch (XMLStreamException | ParserConfigurationException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, this.getStreamName(pStreamName));
+    }
+    finally {
+      this.closeQuietly(lStreamReader);
+    }
+  }
+
+  /**
+   * Method reads the first element with the passed path from the file with the passed name. Parsing stops as soon as
+   * the element is complete so the rest of the file is not read at all. This is much faster than building the DOM of
+   * the whole file if only some header information of a large document is required.
+   * 
+   * @param pFileName Name of the file that should be parsed. The parameter must not be null.
+   * @param pElementPath Absolute path of the element with all qualified element names separated by "/", e.g.
+   * "/Message/Header" or "/ns:Message/ns:Header". The parameter must not be null.
+   * @return {@link Element} Found element including all its children as document element of its own DOM document. The
+   * method returns null if the file does not contain an element with the passed path.
+   * @throws JEAFSystemException if an error occurs during the parsing process or while reading from the file with the
+   * passed name.
+   */
+  public Element parsePartial( String pFileName, String pElementPath ) throws JEAFSystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pFileName, "pFileName");
+
+    try (InputStream lInputStream = new FileInputStream(pFileName)) {
+      return this.parsePartial(lInputStream, pElementPath, pFileName);
+    }
+    // Error during file access.
+    catch (IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, pFileName);
+    }
+  }
+
+  /**
+   * Method reads the first element with the passed path from the passed input stream. Parsing stops as soon as the
+   * element is complete so the rest of the stream is not read.
+   * 
+   * @param pInputStream Input stream that should be parsed. The parameter must not be null. The stream will not be
+   * closed.
+   * @param pElementPath Absolute path of the element with all qualified element names separated by "/", e.g.
+   * "/Message/Header" or "/ns:Message/ns:Header". The parameter must not be null.
+   * @param pStreamName Name of the stream that is read. The parameter is only used in cases that an exception occurs.
+   * The parameter may be null.
+   * @return {@link Element} Found element including all its children as document element of its own DOM document. The
+   * method returns null if the stream does not contain an element with the passed path.
+   * @throws JEAFSystemException if an error occurs during the parsing process or while reading from the passed stream.
+   */
+  public Element parsePartial( InputStream pInputStream, String pElementPath, String pStreamName )
+    throws JEAFSystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pElementPath, "pElementPath");
+
+    return this.parsePartial(pInputStream, this.toPathMatcher(pElementPath), pStreamName);
+  }
+
+  /**
+   * Method reads the first element whose path matches the passed predicate from the passed input stream. Parsing stops
+   * as soon as the element is complete so the rest of the stream is not read.
+   * 
+   * @param pInputStream Input stream that should be parsed. The parameter must not be null. The stream will not be
+   * closed.
+   * @param pPathMatcher Predicate that is called with the absolute path of every element until it returns true, e.g.
+   * "/Message/Header/MessageID". Paths consist of the qualified element names. The parameter must not be null.
+   * @param pStreamName Name of the stream that is read. The parameter is only used in cases that an exception occurs.
+   * The parameter may be null.
+   * @return {@link Element} Found element including all its children as document element of its own DOM document. The
+   * method returns null if the stream does not contain a matching element.
+   * @throws JEAFSystemException if an error occurs during the parsing process or while reading from the passed stream.
+   */
+  public Element parsePartial( InputStream pInputStream, Predicate<String> pPathMatcher, String pStreamName )
+    throws JEAFSystemException {
+
+    // Check parameters
+    Check.checkInvalidParameterNull(pInputStream, "pInputStream");
+    Check.checkInvalidParameterNull(pPathMatcher, "pPathMatcher");
+
+    XMLStreamReader lStreamReader = null;
+    PooledDocumentBuilder lPooledProxy = null;
+    try {
+      // Move to the requested element. Document builder is only required if the element could be found.
+      lStreamReader = XML_INPUT_FACTORY.get().createXMLStreamReader(pInputStream);
+      Element lElement;
+      if (new XMLRecordReader(lStreamReader, null).skipTo(pPathMatcher) == true) {
+        lPooledProxy = nonValidatingPool.claim();
+        DocumentBuilder lDocumentBuilder;
+        if (lPooledProxy != null) {
+          lDocumentBuilder = lPooledProxy.getDocumentBuilder();
+        }
+        else {
+          lDocumentBuilder = nonValidatingPool.newDocumentBuilder();
+        }
+        lElement = new XMLRecordReader(lStreamReader, lDocumentBuilder).readElement();
+      }
+      else {
+        lElement = null;
+      }
+      return lElement;
+    }
+    // Unable to parse XML
+    catch (XMLStreamException | ParserConfigurationException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, this.getStreamName(pStreamName));
+    }
+    // Unable to claim document builder from pool.
+    catch (PoolException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CLAIM_POOLED_DOCUMENT_BUILDER, e,
+          Integer.toString(nonValidatingPool.getPoolSize()));
+    }
+    catch (InterruptedException e) {
+      XFun.getTrace().warn("Thread interrupted when trying to get XML Document Builder from pool.", e);
+      Thread.currentThread().interrupt();
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CLAIM_POOLED_DOCUMENT_BUILDER, e,
+          Integer.toString(nonValidatingPool.getPoolSize()));
+    }
+    finally {
+      if (lPooledProxy != null) {
+        lPooledProxy.release();
+      }
+      this.closeQuietly(lStreamReader);
+    }
+  }
+
+  /**
+   * Method reads the attributes of the first element with the passed path from the passed input stream. Parsing stops
+   * directly after the start tag of the element. No DOM is created at all. This is the cheapest way to read routing
+   * information like the attributes of the root element of a large message.
+   * 
+   * @param pInputStream Input stream that should be parsed. The parameter must not be null. The stream will not be
+   * closed.
+   * @param pElementPath Absolute path of the element with all qualified element names separated by "/", e.g. "/Message"
+   * for the root element. The parameter must not be null.
+   * @param pStreamName Name of the stream that is read. The parameter is only used in cases that an exception occurs.
+   * The parameter may be null.
+   * @return {@link Map} Attributes of the element in the order in which they are defined. Key of the map is the
+   * qualified name of the attribute. Namespace declarations are contained as "xmlns" attributes. The method returns
+   * null if the stream does not contain an element with the passed path.
+   * @throws JEAFSystemException if an error occurs during the parsing process or while reading from the passed stream.
+   */
+  public Map<String, String> parseAttributes( InputStream pInputStream, String pElementPath, String pStreamName )
+    throws JEAFSystemException {
+
+    // Check parameters
+    Check.checkInvalidParameterNull(pInputStream, "pInputStream");
+    Check.checkInvalidParameterNull(pElementPath, "pElementPath");
+
+    XMLStreamReader lStreamReader = null;
+    try {
+      lStreamReader = XML_INPUT_FACTORY.get().createXMLStreamReader(pInputStream);
+      XMLRecordReader lRecordReader = new XMLRecordReader(lStreamReader, null);
+      Map<String, String> lAttributes;
+      if (lRecordReader.skipTo(this.toPathMatcher(pElementPath)) == true) {
+        lAttributes = lRecordReader.readAttributes();
+      }
+      else {
+        lAttributes = null;
+      }
+      return lAttributes;
+    }
+    // Unable to parse XML
+    catch (XMLStreamException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, this.getStreamName(pStreamName));
+    }
+    finally {
+      this.closeQuietly(lStreamReader);
+    }
+  }
+
+  /**
+   * Method creates a predicate that matches exactly the passed element path.
+   * 
+   * @param pElementPath Absolute element path. A missing leading "/" will be added. The parameter must not be null.
+   * @return {@link Predicate} Predicate that matches the passed path. The method never returns null.
+   */
+  private Predicate<String> toPathMatcher( String pElementPath ) {
+    String lElementPath;
+    if (pElementPath.startsWith("/")) {
+      lElementPath = pElementPath;
+    }
+    else {
+      lElementPath = "/" + pElementPath;
+    }
+    return lElementPath::equals;
+  }
+
+  /**
+   * Method returns the name of a stream that is used in error messages.
+   * 
+   * @param pStreamName Name of the stream. The parameter may be null.
+   * @return {@link String} Passed name or "unknown" if no name was passed. The method never returns null.
+   */
+  private String getStreamName( String pStreamName ) {
+    String lStreamName;
+    if (pStreamName != null) {
+      lStreamName = pStreamName;
+    }
+    else {
+      lStreamName = "unknown";
+    }
+    return lStreamName;
+  }
+
+  /**
+   * Method closes the passed StAX reader. Problems when closing the reader will only be traced.
+   * 
+   * @param pStreamReader Reader that should be closed. The parameter may be null.
+   */
+  private void closeQuietly( XMLStreamReader pStreamReader ) {
+    if (pStreamReader != null) {
+      try {
+        pStreamReader.close();
+      }
+      catch (XMLStreamException e) {
+        XFun.getTrace().error(e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Method returns the compiled XML schema from the passed location. Compiled schemas are cached.
+   * 
+   * @param pSchemaLocation Location of the schema. This can either be the name of a file or an URL. The parameter must
+   * not be null.
+   * @return {@link Schema} Compiled schema. The method never returns null.
+   * @throws JEAFSystemException in case that the schema could not be read or compiled.
+   */
+  public Schema getSchema( String pSchemaLocation ) throws JEAFSystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pSchemaLocation, "pSchemaLocation");
+
+    return this.getSchemaValidatorPool(pSchemaLocation).getSchema();
+  }
+
+  /**
+   * Method validates the passed DOM document against the XML schema from the passed location.
+   * 
+   * Please be aware that documents with namespaces can only be validated if they were created namespace aware.
+   * Documents returned by {@link #parseFile(String, boolean)} are not namespace aware. Such documents should be parsed
+   * using {@link #parseAndValidate(String, String)} instead.
+   * 
+   * @param pDocument Document that should be validated. The parameter must not be null.
+   * @param pSchemaLocation Location of the schema. This can either be the name of a file or an URL. The parameter must
+   * not be null.
+   * @throws JEAFSystemException in case that the document is not valid or the schema could not be compiled.
+   */
+  public void validate( Document pDocument, String pSchemaLocation ) throws JEAFSystemException {
+    // Check parameters
+    Check.checkInvalidParameterNull(pDocument, "pDocument");
+    Check.checkInvalidParameterNull(pSchemaLocation, "pSchemaLocation");
+
+    SchemaValidatorPool lValidatorPool = this.getSchemaValidatorPool(pSchemaLocation);
+    try {
+      lValidatorPool.validate(new DOMSource(pDocument), null);
+    }
+    // Document is not valid
+    catch (SAXException | IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e,
+          this.getStreamName(pDocument.getDocumentURI()));
+    }
+  }
+
+  /**
+   * Method parses the XML file with the passed name and validates it against the XML schema from the passed location.
+   * Validation takes place during parsing. The returned document is namespace aware and contains default values that
+   * are defined by the schema.
+   * 
+   * @param pFileName Name of the file that should be parsed. The parameter must not be null.
+   * @param pSchemaLocation Location of the schema. This can either be the name of a file or an URL. The parameter must
+   * not be null.
+   * @return {@link Document} Parsed and validated document. The method never returns null.
+   * @throws JEAFSystemException in case that the file could not be parsed or is not valid.
    */
-  @Override
-  public Document parseInputStream( InputStream pInputStream, boolean pValidating ) throws JEAFSystemException {
-    return this.parseInputStream(pInputStream, pValidating, null, null);
+  public Document parseAndValidate( String pFileName, String pSchemaLocation ) throws JEAFSystemException {
+    // Check parameter
+    Check.checkInvalidParameterNull(pFileName, "pFileName");
+
+    try (InputStream lInputStream = new FileInputStream(pFileName)) {
+      return this.parseAndValidate(lInputStream, pSchemaLocation, pFileName);
+    }
+    // Error during file access.
+    catch (IOException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, pFileName);
+    }
   }
 
   /**
-   * Method creates a new DOM document out of the file with the passed file name. Therefore a DocumentBuilder object is
-   * used that is depending on parameter pValidating either validated or not.
+   * Method parses the passed input stream and validates it against the XML schema from the passed location. Validation
+   * takes place during parsing. The returned document is namespace aware and contains default values that are defined
+   * by the schema.
    * 
-   * @param pInputStream Input stream which is used as input for the XML parser to create the DOM document. The
-   * parameter must not be null. In order to improve the parsing performance the input stream will be buffered.
-   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
-   * DOM document. If the parameter is true, the document is validated, otherwise not.
-   * @param pSystemID The system id provides the base for resolving relative URIs during the parsing process. The
-   * parameter may be null.
-   * @param pStreamName Name of the stream that is read. The parameter is only used in cases that an exception occurs.
-   * The parameter may be null.
-   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
-   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
-   * process or an error occurs while reading from the file with the passed name.
+   * @param pInputStream Input stream that should be parsed. The parameter must not be null. The method won't close the
+   * passed stream.
+   * @param pSchemaLocation Location of the schema. This can either be the name of a file or an URL. The parameter must
+   * not be null.
+   * @param pStreamName Name of the stream that is used in error messages. The parameter may be null.
+   * @return {@link Document} Parsed and validated document. The method never returns null.
+   * @throws JEAFSystemException in case that the stream could not be parsed or is not valid.
    */
-  @Override
-  public Document parseInputStream( InputStream pInputStream, boolean pValidating, String pSystemID,
-      String pStreamName )
+  public Document parseAndValidate( InputStream pInputStream, String pSchemaLocation, String pStreamName )
     throws JEAFSystemException {
 
-    // Check parameter pInputStream
+    // Check parameters
     Check.checkInvalidParameterNull(pInputStream, "pInputStream");
-    String lStreamName = pStreamName;
-    if (lStreamName == null) {
-      lStreamName = "unknown";
-    }
-
-    // Check if the input stream has to be buffered.
-    BufferedInputStream lBufferedInputStream;
+    Check.checkInvalidParameterNull(pSchemaLocation, "pSchemaLocation");
 
-    // Input stream is already buffered.
-    if (pInputStream instanceof BufferedInputStream) {
-      lBufferedInputStream = (BufferedInputStream) pInputStream;
+    SchemaValidatorPool lValidatorPool = this.getSchemaValidatorPool(pSchemaLocation);
+    try {
+      // Parsed SAX events are passed through the validator and then used to build the DOM tree.
+      XMLReader lReader = this.getNamespaceAwareSAXParserFactory().newSAXParser().getXMLReader();
+      SAXSource lSource = new SAXSource(lReader, new InputSource(pInputStream));
+      DOMResult lDOMResult = new DOMResult();
+      TransformerHandler lHandler = transformerPool.newTransformerHandler();
+      lHandler.setResult(lDOMResult);
+      lValidatorPool.validate(lSource, new SAXResult(lHandler));
+
+      Document lDocument = (Document) lDOMResult.getNode();
+      lDocument.getDocumentElement().normalize();
+      return lDocument;
     }
-    // In order to improve the performance of the parsing process the input stream will be buffered.
-    else {
-      lBufferedInputStream = new BufferedInputStream(pInputStream);
+    // Unable to parse XML or XML is not valid.
+    catch (SAXException | IOException | ParserConfigurationException | TransformerException e) {
+      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, this.getStreamName(pStreamName));
     }
+  }
 
-    // Create document builder.
-    PooledDocumentBuilder lPooledProxy = null;
-    try {
-      if (pValidating == true) {
-        lPooledProxy = validatingPool.claim(TIMEOUT);
+  /**
+   * Method returns the compiled schema together with its validator pool. If the schema is not yet compiled then this
+   * will be done.
+   * 
+   * @param pSchemaLocation Location of the schema. This can either be the name of a file or an URL. The parameter must
+   * not be null.
+   * @return {@link SchemaValidatorPool} Schema together with its validator pool. The method never returns null.
+   */
+  private SchemaValidatorPool getSchemaValidatorPool( String pSchemaLocation ) {
+    return schemas.computeIfAbsent(pSchemaLocation, l -> {
+      // Schema location might either be a local file or an URL.
+      File lFile = new File(l);
+      StreamSource lSource;
+      if (lFile.isFile() == true) {
+        lSource = new StreamSource(lFile);
       }
       else {
-        lPooledProxy = nonValidatingPool.claim(TIMEOUT);
+        lSource = new StreamSource(l);
       }
 
-      DocumentBuilder lDocumentBuilder;
-      if (lPooledProxy != null) {
-        lDocumentBuilder = lPooledProxy.getDocumentBuilder();
+      // Schema factories are not thread-safe and schemas are compiled only once. So we use a new factory every time.
+      try {
+        Schema lSchema = createSecuredSchemaFactory().newSchema(lSource);
+        return new SchemaValidatorPool(l, lSchema, validatorPoolSize);
       }
-      // During startup it may happen that the document builder pool is not yet ready.
-      else {
-        int lCount = 0;
-        synchronized (XMLToolsImpl.class) {
-          noPooledObjectCounter++;
-          lCount = noPooledObjectCounter;
-        }
-        if (noPooledObjectCounter > 1) {
-          XFun.getTrace().writeEmergencyTrace("Max. waiting time for pooled document builder exeeded. Waited "
-              + TIMEOUT.getTimeout()
-              + "ns. This problem may occur once during startup. If you see this message more often inside your logs then please check your environment configuration. The pool size can be configured using system property '"
-              + DOCUMENT_BUILDER_POOL_SIZE_PROPERTY + "'. Current pool size is " + poolSize + ". Problem occurred "
-              + lCount + " times.", null, TraceLevel.INFO);
-        }
-        lDocumentBuilder = this.createDocumentBuilder(pValidating);
+      catch (SAXException e) {
+        throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, l);
       }
+    });
+  }
 
-      // Parse input stream either with reference to system ID or not.
-      Document lDocument;
-      if (pSystemID != null) {
-        lDocument = lDocumentBuilder.parse(lBufferedInputStream, pSystemID);
-      }
-      else {
-        lDocument = lDocumentBuilder.parse(lBufferedInputStream);
-      }
-      lDocument.getDocumentElement().normalize();
-      return lDocument;
-    }
-    // Unable to parse XML
-    catch (SAXException | IOException | ParserConfigurationException e) {
-      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e, lStreamName);
-    }
-    // Unable to claim document builder from pool.
-    catch (PoolException e) {
-      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CLAIM_POOLED_DOCUMENT_BUILDER, e,
-          Integer.toString(poolSize));
-    }
-    catch (InterruptedException e) {
-      XFun.getTrace().warn("Thread interrupted when trying to get XML Document Builder from pool.", e);
-      Thread.currentThread().interrupt();
-      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_CLAIM_POOLED_DOCUMENT_BUILDER, e,
-          Integer.toString(poolSize));
-    }
-    finally {
-      if (lPooledProxy != null) {
-        lPooledProxy.release();
-      }
+  /**
+   * Method returns the secured and namespace aware SAX parser factory of the current thread.
+   * 
+   * @return {@link SAXParserFactory} SAX parser factory of the current thread. The method never returns null.
+   * @throws ParserConfigurationException in case that the factory could not be created.
+   * @throws SAXException in case that the factory could not be created.
+   */
+  private SAXParserFactory getNamespaceAwareSAXParserFactory( ) throws ParserConfigurationException, SAXException {
+    SAXParserFactory lFactory = NAMESPACE_AWARE_SAX_PARSER_FACTORY.get();
+    if (lFactory == null) {
+      lFactory = createSecuredSAXParserFactory();
+      lFactory.setNamespaceAware(true);
+      NAMESPACE_AWARE_SAX_PARSER_FACTORY.set(lFactory);
     }
+    return lFactory;
   }
 
   /**
-   * Method creates a new DOM document out of the passed xml encoded string. Therefore a DocumentBuilder object is used
-   * that is depending on parameter pValidating either validated or not.
+   * Method creates a writer that writes a XML document directly to the passed output stream without building a DOM.
+   * This is the preferred way to generate large documents as the memory consumption does not depend on the size of the
+   * document.
    * 
-   * @param pXMLEncodedString String which is used as input for the XML parser to create the DOM document. The parameter
-   * must not be null.
-   * @param pValidating Parameter indicates whether a validating DocumentBuilder object should be used to create the new
-   * DOM document. If the parameter is true, the document is validated, otherwise not.
-   * @param pSystemID The system id provides the base for resolving relative URIs during the parsing process. The
-   * parameter may be null.
-   * @param pStringName Name of the string that is read. The parameter is only used in cases that an exception occurs.
-   * The parameter may be null.
-   * @return Document Created DOM document. The returned document is already normalized. The method never returns null.
-   * @throws JEAFSystemException if no DocumentBuilder object could be created or an error occurs during the parsing
-   * process or an error occurs while reading from the file with the passed name.
+   * @param pOutputStream Output stream to which the document should be written. The parameter must not be null and the
+   * stream must be open. The writer won't close the passed stream.
+   * @param pDocumentProperties Document properties define encoding, indentation and the XML Prolog. The parameter may
+   * be null. In this case default values will be used.
+   * @return {@link XMLStreamingWriter} Writer for the passed stream. The writer has to be closed in order to write all
+   * remaining output. The method never returns null.
    */
-  @Override
-  public Document parseString( String pXMLEncodedString, boolean pValidating, String pSystemID, String pStringName )
-    throws JEAFSystemException {
-
-    // Check parameters.
-    Check.checkInvalidParameterNull(pStringName, "pStringName");
-
-    // Convert string to input stream.
-    InputStream lInputStream = new ByteArrayInputStream(pXMLEncodedString.getBytes(Charset.defaultCharset()));
-
-    // Parse input stream and return result.
-    return this.parseInputStream(lInputStream, pValidating, pSystemID, pStringName);
+  public XMLStreamingWriter createStreamingWriter( OutputStream pOutputStream,
+      DocumentProperties pDocumentProperties ) {
+    // If no document properties are defined then we use default settings.
+    DocumentProperties lDocumentProperties;
+    if (pDocumentProperties != null) {
+      lDocumentProperties = pDocumentProperties;
+    }
+    else {
+      lDocumentProperties = DEFAULT_DOCUMENT_PROPERTIES;
+    }
+    return new XMLStreamingWriter(pOutputStream, lDocumentProperties);
   }
 
   /**
@@ -437,20 +1654,102 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     Check.checkInvalidParameterNull(pNode, "pNode");
     Check.checkInvalidParameterNull(pOutputStream, "pOutputStream");
 
-    // Create source and result objects for transformation.
-    DOMSource lSource = new DOMSource(pNode);
-    StreamResult lStreamResult = new StreamResult(pOutputStream);
+    // If no document properties are defined then we use default settings.
+    if (pDocumentProperties == null) {
+      pDocumentProperties = DEFAULT_DOCUMENT_PROPERTIES;
+    }
+
+    // Serialize node directly if possible as this is much faster than a transformation.
+    DOMSerializer lSerializer = this.newDOMSerializer(pNode, pDocumentProperties);
+    if (lSerializer != null) {
+      try {
+        lSerializer.serialize(pNode, new OutputStreamWriter(pOutputStream, lSerializer.getCharset()));
+      }
+      catch (IOException e) {
+        throw new JEAFSystemException(ToolsMessages.UNABLE_TO_WRITE_XML, e, e.getMessage());
+      }
+    }
+    // Take transformer from pool and run transformation. Transformers are only returned to the pool if the
+    // transformation was successful.
+    else {
+      this.transformNode(pNode, pDocumentProperties, pOutputStream);
+    }
+  }
 
-    // Create new transformer and run transformation.
+  /**
+   * Method writes the passed DOM node to the passed output stream using a JAXP transformer.
+   * 
+   * @param pNode DOM node that should be written to the output stream. The parameter must not be null.
+   * @param pDocumentProperties Document properties define additional information like the XML Prolog and references to
+   * a DTD. The parameter must not be null.
+   * @param pOutputStream Output stream to which the document should be written. The parameter must not be null.
+   */
+  private void transformNode( Node pNode, DocumentProperties pDocumentProperties, OutputStream pOutputStream ) {
     try {
-      Transformer lTransformer = this.createTransformer(pDocumentProperties);
-      lTransformer.transform(lSource, lStreamResult);
+      Transformer lTransformer = transformerPool.acquire(pDocumentProperties);
+      lTransformer.transform(new DOMSource(pNode), new StreamResult(pOutputStream));
+      transformerPool.release(pDocumentProperties, lTransformer);
     }
     catch (TransformerException e) {
       throw new JEAFSystemException(ToolsMessages.UNABLE_TO_WRITE_XML, e, e.getMessage());
     }
   }
 
+  /**
+   * Method converts the passed DOM node to a string.
+   * 
+   * @param pNode DOM node that should be converted. The parameter must not be null.
+   * @param pDocumentProperties Document properties define additional information like the XML Prolog and references to
+   * a DTD. The parameter may be null. In this case default values will be used.
+   * @return {@link String} XML representation of the passed node. The method never returns null.
+   */
+  private String toXMLString( Node pNode, DocumentProperties pDocumentProperties ) {
+    // If no document properties are defined then we use default settings.
+    if (pDocumentProperties == null) {
+      pDocumentProperties = DEFAULT_DOCUMENT_PROPERTIES;
+    }
+
+    // Serialize node directly if possible. In this case no encoding and decoding of the string is required.
+    DOMSerializer lSerializer = this.newDOMSerializer(pNode, pDocumentProperties);
+    String lXML;
+    if (lSerializer != null) {
+      lXML = lSerializer.serialize(pNode);
+    }
+    // Node can not be serialized directly so we have to use a transformation.
+    else {
+      ByteArrayOutputStream lOutputStream = new ByteArrayOutputStream();
+      this.transformNode(pNode, pDocumentProperties, lOutputStream);
+      Charset lCharset = DOMSerializer.lookupCharset(pDocumentProperties.getEncoding());
+      if (lCharset == null) {
+        lCharset = Charset.defaultCharset();
+      }
+      lXML = new String(lOutputStream.toByteArray(), lCharset);
+    }
+    return lXML;
+  }
+
+  /**
+   * Method creates a new serializer for direct serialization of the passed DOM node.
+   * 
+   * @param pNode Node that should be serialized. The parameter must not be null.
+   * @param pDocumentProperties Document properties that define the output. The parameter must not be null.
+   * @return {@link DOMSerializer} Serializer that should be used or null if the node has to be serialized using a
+   * transformation.
+   */
+  private DOMSerializer newDOMSerializer( Node pNode, DocumentProperties pDocumentProperties ) {
+    DOMSerializer lSerializer;
+    if (directSerialization == true) {
+      lSerializer = DOMSerializer.newSerializer(pDocumentProperties);
+      if (lSerializer != null && lSerializer.isSupported(pNode) == false) {
+        lSerializer = null;
+      }
+    }
+    else {
+      lSerializer = null;
+    }
+    return lSerializer;
+  }
+
   /**
    * Method converts the passed XML document object to a string.
    * 
@@ -472,82 +1771,10 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
    */
   @Override
   public String toString( Document pDocument, DocumentProperties pDocumentProperties ) {
-    ByteArrayOutputStream lOutputStream = new ByteArrayOutputStream();
-    this.writeDocument(pDocument, pDocumentProperties, lOutputStream);
-    return lOutputStream.toString();
-  }
-
-  /**
-   * Method creates a new transformer that can be used to serialize a XML document.
-   * 
-   * @param pDocumentProperties configuration parameters for the generation of the XML document. The parameter may be
-   * null.
-   * @return {@link Transformer} Created transformer. The method never returns null.
-   * @throws TransformerException
-   */
-  private Transformer createTransformer( DocumentProperties pDocumentProperties ) {
-    // If no document properties are defined then we use default settings.
-    if (pDocumentProperties == null) {
-      pDocumentProperties = DocumentProperties.Builder.newBuilder().build();
-    }
-
-    // Create new transformer
-    try {
-      // For security reasons we have to restrict resolution of external DTD and schemas
-      TransformerFactory lFactory = TransformerFactory.newInstance();
-      lFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-      lFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-
-      // Try to restrict access to external schemas. As this feature is only supported by some implementations.
-      // Unfortunately there is no other way then trying and catching a may be thrown exception.
-      try {
-        lFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
-      }
-      // Depending on the JAXP implementation attribute might not be supported, but that's the only way to find out.
-      catch (IllegalArgumentException e) {
-        // Nothing to do.
-      }
-
-      // Create new transformer
-      Transformer lTransformer = lFactory.newTransformer();
-
-      // Use passed document properties as settings for the transformer.
-      lTransformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION,
-          this.booleanToYesNo(pDocumentProperties.omitXMLDeclaration()));
-
-      // Configure transformer based on the passed document properties.
-      lTransformer.setOutputProperty(OutputKeys.VERSION, pDocumentProperties.getVersion());
-      lTransformer.setOutputProperty(OutputKeys.ENCODING, pDocumentProperties.getEncoding());
-
-      String lDoctypePublic = pDocumentProperties.getDoctypePublic();
-      if (lDoctypePublic != null) {
-        lTransformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, lDoctypePublic);
-      }
-      String lDoctypeSystem = pDocumentProperties.getDoctypeSystem();
-      if (lDoctypeSystem != null) {
-        lTransformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, lDoctypeSystem);
-      }
-
-      lTransformer.setOutputProperty(OutputKeys.METHOD, "xml");
-      lTransformer.setOutputProperty(OutputKeys.CDATA_SECTION_ELEMENTS, pDocumentProperties.getCDataSectionElements());
-      lTransformer.setOutputProperty(OutputKeys.INDENT, this.booleanToYesNo(pDocumentProperties.isIndent()));
-
-      return lTransformer;
-    }
-    catch (TransformerException e) {
-      throw new JEAFSystemException(ToolsMessages.UNABLE_TO_WRITE_XML, e, e.getMessage());
-    }
-  }
+    // Check parameters.
+    Check.checkInvalidParameterNull(pDocument, "pDocument");
 
-  private String booleanToYesNo( boolean pValue ) {
-    String lYesNo;
-    if (pValue == true) {
-      lYesNo = "yes";
-    }
-    else {
-      lYesNo = "no";
-    }
-    return lYesNo;
+    return this.toXMLString(pDocument, pDocumentProperties);
   }
 
   /**
@@ -582,10 +1809,7 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     else {
       lBuilder.setIndent(false);
     }
-    ByteArrayOutputStream lOutputStream = new ByteArrayOutputStream();
-
-    this.writeNode(pElement, lBuilder.build(), lOutputStream);
-    return lOutputStream.toString();
+    return this.toXMLString(pElement, lBuilder.build());
   }
 
   /**
@@ -606,12 +1830,22 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     Check.checkInvalidParameterNull(pElement, "pElement");
     Check.checkInvalidParameterNull(pElementName, pElementName);
 
-    // Get element by name and ensure that there is only on element
-    NodeList lElementsByTagName = pElement.getElementsByTagName(pElementName);
+    // Get element by name and ensure that there is only on element. If the document is indexed then we do not have to
+    // traverse the subtree.
+    List<Element> lIndexedElements = this.getIndexedDescendants(pElementName, pElement);
+    NodeList lElementsByTagName;
+    int lSize;
+    if (lIndexedElements != null) {
+      lElementsByTagName = null;
+      lSize = lIndexedElements.size();
+    }
+    else {
+      lElementsByTagName = pElement.getElementsByTagName(pElementName);
+      lSize = lElementsByTagName.getLength();
+    }
 
     // Check occurrence of element.
     Element lElement;
-    int lSize = lElementsByTagName.getLength();
 
     // Element not found
     if (lSize == 0) {
@@ -624,7 +1858,12 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     }
     // Found searched element. Now we have to get its value.
     else if (lSize == 1) {
-      lElement = (Element) lElementsByTagName.item(0);
+      if (lIndexedElements != null) {
+        lElement = lIndexedElements.get(0);
+      }
+      else {
+        lElement = (Element) lElementsByTagName.item(0);
+      }
     }
     // Element exists more than once.
     else {
@@ -669,16 +1908,26 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     Check.checkInvalidParameterNull(pElementName, "pElementName");
     Check.checkInvalidParameterNull(pElement, "pElement");
 
-    NodeList lNodeList = pElement.getElementsByTagName(pElementName);
-    int lElementCount = lNodeList.getLength();
-    List<Element> lElements;
-    if (lElementCount > 0) {
+    // If the document is indexed then we do not have to traverse the subtree.
+    List<Element> lIndexedElements = this.getIndexedDescendants(pElementName, pElement);
+    List<Element> lFoundElements;
+    if (lIndexedElements != null) {
+      lFoundElements = new ArrayList<>(lIndexedElements);
+    }
+    else {
       // Create list with all elements
-      lElements = new ArrayList<>(lElementCount);
+      NodeList lNodeList = pElement.getElementsByTagName(pElementName);
+      int lElementCount = lNodeList.getLength();
+      lFoundElements = new ArrayList<>(lElementCount);
       for (int i = 0; i < lElementCount; i++) {
-        lElements.add((Element) lNodeList.item(i));
+        lFoundElements.add((Element) lNodeList.item(i));
       }
     }
+
+    List<Element> lElements;
+    if (lFoundElements.isEmpty() == false) {
+      lElements = lFoundElements;
+    }
     else if (pRequired == false) {
       lElements = Collections.emptyList();
     }
@@ -707,6 +1956,57 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     return this.getDescendantElements(pElementName, pDocument.getDocumentElement(), pRequired);
   }
 
+  /**
+   * Method creates an index of all elements of the passed document by their name. Once a document is indexed methods
+   * like {@link #getSingleElement(String, Element, boolean)}, {@link #getDescendantElements(String, Element, boolean)}
+   * or {@link #getElementValueFromSubtree(String, Element, boolean)} use the index instead of traversing the document
+   * with every call. This is useful if many values are read from the same document.
+   * 
+   * As soon as nodes are added to or removed from the document the index becomes invalid and all lookups use the DOM
+   * again. Renaming elements is not reported by the DOM. In this case the index has to be removed or created again.
+   * 
+   * @param pDocument Document that should be indexed. The parameter must not be null.
+   * @return {@link IndexedDocument} Index of the passed document. The method never returns null.
+   */
+  public IndexedDocument indexDocument( Document pDocument ) {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pDocument, "pDocument");
+
+    return IndexedDocument.index(pDocument);
+  }
+
+  /**
+   * Method removes the index of the passed document. If the document is not indexed then nothing will happen.
+   * 
+   * @param pDocument Document whose index should be removed. The parameter must not be null.
+   */
+  public void removeIndex( Document pDocument ) {
+    // Check parameter.
+    Check.checkInvalidParameterNull(pDocument, "pDocument");
+
+    IndexedDocument.removeIndex(pDocument);
+  }
+
+  /**
+   * Method returns all descendants with the passed name of the passed element using the index of its document.
+   * 
+   * @param pElementName Name of the elements. The parameter must not be null.
+   * @param pElement Element whose descendants should be returned. The parameter must not be null.
+   * @return {@link List} All descendants with the passed name in document order. The method returns null if the
+   * document of the element is not indexed or if the index can not be used for the lookup.
+   */
+  private List<Element> getIndexedDescendants( String pElementName, Element pElement ) {
+    IndexedDocument lIndex = IndexedDocument.getIndex(pElement);
+    List<Element> lElements;
+    if (lIndex != null && "*".equals(pElementName) == false) {
+      lElements = lIndex.getDescendants(pElementName, pElement);
+    }
+    else {
+      lElements = null;
+    }
+    return lElements;
+  }
+
   /**
    * Method returns the value of the passed element.
    * 
@@ -862,6 +2162,60 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     }
   }
 
+  /**
+   * Method evaluates the passed XPath expression and returns the result as string. Compiled expressions are cached.
+   * 
+   * @param pExpression XPath expression that should be evaluated. The parameter must not be null.
+   * @param pContext Node that is used as context for the evaluation, e.g. a document or an element. The parameter must
+   * not be null.
+   * @return {@link String} Result of the evaluation. If the expression does not match then an empty string is returned.
+   * The method never returns null.
+   * @throws JEAFSystemException if the expression is invalid.
+   */
+  public String evaluateString( String pExpression, Node pContext ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pExpression, "pExpression");
+    Check.checkInvalidParameterNull(pContext, "pContext");
+
+    return XPathEvaluator.getEvaluator().evaluateString(pExpression, pContext);
+  }
+
+  /**
+   * Method evaluates the passed XPath expression and returns the result as number. Compiled expressions are cached.
+   * 
+   * @param pExpression XPath expression that should be evaluated. The parameter must not be null.
+   * @param pContext Node that is used as context for the evaluation, e.g. a document or an element. The parameter must
+   * not be null.
+   * @return double Result of the evaluation. If the result is not a number then {@link Double#NaN} is returned.
+   * @throws JEAFSystemException if the expression is invalid.
+   */
+  public double evaluateNumber( String pExpression, Node pContext ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pExpression, "pExpression");
+    Check.checkInvalidParameterNull(pContext, "pContext");
+
+    return XPathEvaluator.getEvaluator().evaluateNumber(pExpression, pContext);
+  }
+
+  /**
+   * Method evaluates the passed XPath expression and returns all elements that are part of the result. Compiled
+   * expressions are cached.
+   * 
+   * @param pExpression XPath expression that should be evaluated. The expression has to result in a node set. Nodes
+   * that are not elements (e.g. attributes) are ignored. The parameter must not be null.
+   * @param pContext Node that is used as context for the evaluation, e.g. a document or an element. The parameter must
+   * not be null.
+   * @return {@link List} All elements of the result in document order. The method never returns null.
+   * @throws JEAFSystemException if the expression is invalid or does not result in a node set.
+   */
+  public List<Element> evaluateElements( String pExpression, Node pContext ) {
+    // Check parameters.
+    Check.checkInvalidParameterNull(pExpression, "pExpression");
+    Check.checkInvalidParameterNull(pContext, "pContext");
+
+    return XPathEvaluator.getEvaluator().evaluateElements(pExpression, pContext);
+  }
+
   /**
    * Method returns the attribute with the passed name from the passed element
    * 
@@ -902,8 +2256,27 @@ public class XMLToolsImpl implements XMLTools, StartupInfoWriter {
     }
   }
 
+  /**
+   * Method returns the pool with either validating or non-validating document builders. The pool also provides
+   * statistics about its usage.
+   *
+   * @param pValidating Parameter defines if the pool with validating or non-validating document builders should be
+   * returned.
+   * @return {@link DocumentBuilderPool} Requested pool. The method never returns null.
+   */
+  public DocumentBuilderPool getDocumentBuilderPool( boolean pValidating ) {
+    DocumentBuilderPool lPool;
+    if (pValidating == true) {
+      lPool = validatingPool;
+    }
+    else {
+      lPool = nonValidatingPool;
+    }
+    return lPool;
+  }
+
   public static int getNoPooledObjectCounter( ) {
-    return noPooledObjectCounter;
+    return (int) DocumentBuilderPool.getTotalFallbacks();
   }
 
   @Override
@@ -0,0 +1,199 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.impl.xml;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFactoryConfigurationException;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.anaptecs.jeaf.tools.impl.ToolsImplMessages;
+import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
+
+/**
+ * Class evaluates XPath expressions. Compiling an XPath expression is rather expensive compared to evaluating it
+ * against small documents. Therefore compiled expressions are cached.
+ *
+ * Neither {@link XPath} nor {@link XPathExpression} objects are thread-safe. So every thread has its own XPath object
+ * and its own cache of compiled expressions. The cache of every thread is limited in size. If it is exceeded then the
+ * least recently used expression will be removed.
+ *
+ * @author JEAF Development Team
+ */
+final class XPathEvaluator {
+  /**
+   * Max. number of compiled expressions that are cached per thread.
+   */
+  private static final int MAX_CACHED_EXPRESSIONS = 256;
+
+  /**
+   * XPath objects and compiled expressions of the current thread.
+   */
+  private static final ThreadLocal<XPathEvaluator> EVALUATORS = ThreadLocal.withInitial(XPathEvaluator::new);
+
+  /**
+   * XPath object of the current thread.
+   */
+  private final XPath xpath;
+
+  /**
+   * Compiled expressions of the current thread in order of their last usage.
+   */
+  private final Map<String, XPathExpression> expressions;
+
+  /**
+   * Initialize object.
+   */
+  private XPathEvaluator( ) {
+    xpath = createSecuredXPathFactory().newXPath();
+    expressions = new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<String, XPathExpression> pEldest ) {
+        return this.size() > MAX_CACHED_EXPRESSIONS;
+      }
+    };
+  }
+
+  /**
+   * Method returns the evaluator of the current thread.
+   *
+   * @return {@link XPathEvaluator} Evaluator of the current thread. The method never returns null.
+   */
+  static XPathEvaluator getEvaluator( ) {
+    return EVALUATORS.get();
+  }
+
+  /**
+   * Method creates a new XPath factory with secure processing enabled.
+   *
+   * @return {@link XPathFactory} Secured XPath factory. The method never returns null.
+   */
+  private static XPathFactory createSecuredXPathFactory( ) {
+    XPathFactory lFactory = XPathFactory.newInstance();
+    try {
+      lFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    }
+    // Depending on the JAXP implementation feature might not be supported, but that's the only way to find out.
+    catch (XPathFactoryConfigurationException e) {
+      // Nothing to do.
+    }
+    return lFactory;
+  }
+
+  /**
+   * Method evaluates the passed expression and returns the result as string.
+   *
+   * @param pExpression XPath expression that should be evaluated. The parameter must not be null.
+   * @param pContext Node that is used as context for the evaluation. The parameter must not be null.
+   * @return {@link String} Result of the evaluation. The method never returns null.
+   */
+  String evaluateString( String pExpression, Node pContext ) {
+    return (String) this.evaluate(pExpression, pContext, XPathConstants.STRING);
+  }
+
+  /**
+   * Method evaluates the passed expression and returns the result as number.
+   *
+   * @param pExpression XPath expression that should be evaluated. The parameter must not be null.
+   * @param pContext Node that is used as context for the evaluation. The parameter must not be null.
+   * @return double Result of the evaluation. If the result is not a number then {@link Double#NaN} is returned.
+   */
+  double evaluateNumber( String pExpression, Node pContext ) {
+    return (Double) this.evaluate(pExpression, pContext, XPathConstants.NUMBER);
+  }
+
+  /**
+   * Method evaluates the passed expression and returns all elements of the resulting node set. Other nodes like
+   * attributes or text nodes are ignored.
+   *
+   * @param pExpression XPath expression that should be evaluated. The expression has to result in a node set. The
+   * parameter must not be null.
+   * @param pContext Node that is used as context for the evaluation. The parameter must not be null.
+   * @return {@link List} All elements of the result in document order. The method never returns null.
+   */
+  List<Element> evaluateElements( String pExpression, Node pContext ) {
+    NodeList lNodes = (NodeList) this.evaluate(pExpression, pContext, XPathConstants.NODESET);
+    List<Element> lElements = new ArrayList<>(lNodes.getLength());
+    for (int i = 0; i < lNodes.getLength(); i++) {
+      Node lNode = lNodes.item(i);
+      if (lNode.getNodeType() == Node.ELEMENT_NODE) {
+        lElements.add((Element) lNode);
+      }
+    }
+    return lElements;
+  }
+
+  /**
+   * Method evaluates the passed expression.
+   *
+   * @param pExpression XPath expression that should be evaluated. The parameter must not be null.
+   * @param pContext Node that is used as context for the evaluation. The parameter must not be null.
+   * @param pReturnType Expected result type. The parameter must not be null.
+   * @return {@link Object} Result of the evaluation.
+   * @throws JEAFSystemException if the expression is invalid or can not be evaluated.
+   */
+  private Object evaluate( String pExpression, Node pContext, QName pReturnType ) {
+    XPathExpression lExpression = this.getExpression(pExpression);
+    try {
+      return lExpression.evaluate(pContext, pReturnType);
+    }
+    catch (XPathExpressionException e) {
+      throw new JEAFSystemException(ToolsImplMessages.UNABLE_TO_EVALUATE_XPATH_EXPRESSION, e, pExpression,
+          getMessage(e));
+    }
+  }
+
+  /**
+   * Method returns the compiled version of the passed expression. If the expression is not yet cached it will be
+   * compiled.
+   *
+   * @param pExpression XPath expression. The parameter must not be null.
+   * @return {@link XPathExpression} Compiled expression. The method never returns null.
+   * @throws JEAFSystemException if the expression is invalid.
+   */
+  private XPathExpression getExpression( String pExpression ) {
+    XPathExpression lExpression = expressions.get(pExpression);
+    if (lExpression == null) {
+      try {
+        lExpression = xpath.compile(pExpression);
+        expressions.put(pExpression, lExpression);
+      }
+      catch (XPathExpressionException e) {
+        throw new JEAFSystemException(ToolsImplMessages.INVALID_XPATH_EXPRESSION, e, pExpression, getMessage(e));
+      }
+    }
+    return lExpression;
+  }
+
+  /**
+   * Method returns the message of the passed exception. XPath exceptions often only contain a message in their cause.
+   *
+   * @param pException Exception whose message should be returned. The parameter must not be null.
+   * @return {@link String} Message of the exception. The method may return null.
+   */
+  private static String getMessage( XPathExpressionException pException ) {
+    String lMessage = pException.getMessage();
+    if (lMessage == null && pException.getCause() != null) {
+      lMessage = pException.getCause().getMessage();
+    }
+    return lMessage;
+  }
+}
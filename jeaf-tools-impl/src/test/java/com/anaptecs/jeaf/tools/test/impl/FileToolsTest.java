@@ -24,16 +24,32 @@ import java.io.RandomAccessFile;
 import java.net.URL;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.anaptecs.jeaf.tools.api.ToolsMessages;
 import com.anaptecs.jeaf.tools.api.file.FileTools;
 import com.anaptecs.jeaf.tools.impl.file.ExtensionFileFilter;
+import com.anaptecs.jeaf.tools.impl.file.FileAttributeSnapshot;
 import com.anaptecs.jeaf.tools.impl.file.FileNameComparator;
+import com.anaptecs.jeaf.tools.impl.file.FileTailReader;
+import com.anaptecs.jeaf.tools.impl.file.FileToolsImpl;
 import com.anaptecs.jeaf.xfun.api.XFun;
 import com.anaptecs.jeaf.xfun.api.checks.Assert;
 import com.anaptecs.jeaf.xfun.api.errorhandling.JEAFSystemException;
@@ -1283,4 +1299,260 @@ public class FileToolsTest {
       assertEquals("Stream Closed", e.getMessage());
     }
   }
+
+  /**
+   * Method tests asynchronous reading, writing and copying of files.
+   */
+  @Test
+  public void testAsyncFileOperations( ) throws IOException, InterruptedException, ExecutionException {
+    FileToolsImpl lFileTools = (FileToolsImpl) FileTools.getFileTools();
+    String lSourceFileName = "./testdata/Screenshot_Maps_1.jpg";
+    File lDestinationFile = new File(DESTINATION_DIRECTORY + "/AsyncCopy.jpg");
+    lFileTools.tryDelete(lDestinationFile);
+
+    // Read file asynchronously and compare with synchronous read.
+    byte[] lSourceContent = lFileTools.getFileContent(lSourceFileName);
+    byte[] lAsyncContent = lFileTools.getFileContentAsync(new File(lSourceFileName)).get();
+    assertTrue(Arrays.equals(lSourceContent, lAsyncContent), "Async read returned different content.");
+
+    // Copy file asynchronously.
+    long lCopiedBytes = lFileTools.copyFileAsync(lSourceFileName, lDestinationFile.getPath()).get();
+    assertEquals(lSourceContent.length, lCopiedBytes);
+    assertTrue(Arrays.equals(lSourceContent, lFileTools.getFileContent(lDestinationFile)));
+
+    // Copying to an existing file is not allowed.
+    try {
+      lFileTools.copyFileAsync(new File(lSourceFileName), lDestinationFile).get();
+      fail("Copying to an existing file must fail.");
+    }
+    catch (ExecutionException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_CREATE_NEW_FILE, ((JEAFSystemException) e.getCause()).getErrorCode());
+    }
+
+    // Write content asynchronously using an explicit executor.
+    ExecutorService lExecutor = Executors.newFixedThreadPool(2);
+    try {
+      File lWriteFile = new File(DESTINATION_DIRECTORY + "/AsyncWrite.jpg");
+      lFileTools.writeFileContentAsync(lWriteFile, lSourceContent, lExecutor).get();
+      assertTrue(Arrays.equals(lSourceContent, lFileTools.getFileContentAsync(lWriteFile, lExecutor).get()));
+
+      // Overwrite file with empty content.
+      lFileTools.writeFileContentAsync(lWriteFile, null, lExecutor).get();
+      assertEquals(0, lFileTools.getFileContentAsync(lWriteFile, lExecutor).get().length);
+      lFileTools.delete(lWriteFile);
+    }
+    finally {
+      lExecutor.shutdown();
+    }
+
+    // Reading a not existing file is reported through the future.
+    try {
+      lFileTools.getFileContentAsync(new File("./testdata/not-existing.txt")).get();
+      fail("Reading not existing file must fail.");
+    }
+    catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+    lFileTools.delete(lDestinationFile);
+  }
+
+  /**
+   * Method tests durable writing of files with and without group commit.
+   */
+  @Test
+  public void testDurableWrite( ) throws IOException, InterruptedException, ExecutionException {
+    FileToolsImpl lFileTools = (FileToolsImpl) FileTools.getFileTools();
+    File lFile = new File(DESTINATION_DIRECTORY + "/Durable.txt");
+
+    // Write file and overwrite it again.
+    lFileTools.writeFileContentDurable(lFile, "Hello".getBytes());
+    assertEquals("Hello", lFileTools.getFileContentAsString(lFile));
+    lFileTools.writeFileContentDurable(lFile, "Hello World!".getBytes());
+    assertEquals("Hello World!", lFileTools.getFileContentAsString(lFile));
+    lFileTools.writeFileContentDurable(lFile, null);
+    assertEquals(0, lFile.length());
+
+    // Write many files concurrently using group commit.
+    ExecutorService lExecutor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Void>> lFutures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final int lIndex = i;
+        lFutures.add(lExecutor.submit(( ) -> {
+          File lBatchFile = new File(DESTINATION_DIRECTORY + "/Durable_" + (lIndex % 10) + ".txt");
+          lFileTools.writeFileContentDurable(lBatchFile, String.valueOf(lIndex).getBytes(), true);
+          return null;
+        }));
+      }
+      for (Future<Void> lFuture : lFutures) {
+        lFuture.get();
+      }
+    }
+    finally {
+      lExecutor.shutdown();
+    }
+
+    // Check that all files were written and no temporary files are left.
+    for (int i = 0; i < 10; i++) {
+      File lBatchFile = new File(DESTINATION_DIRECTORY + "/Durable_" + i + ".txt");
+      int lValue = Integer.parseInt(lFileTools.getFileContentAsString(lBatchFile));
+      assertEquals(i, lValue % 10);
+      lFileTools.delete(lBatchFile);
+    }
+    lFileTools.delete(lFile);
+    assertEquals(0, lFileTools.listFiles(new File(DESTINATION_DIRECTORY), Arrays.asList("tmp"), null).size());
+  }
+
+  /**
+   * Method tests following of growing files including truncation and rotation.
+   */
+  @Test
+  public void testTailFile( ) throws IOException {
+    FileToolsImpl lFileTools = (FileToolsImpl) FileTools.getFileTools();
+    File lFile = new File(DESTINATION_DIRECTORY + "/Tail.log");
+    File lRotatedFile = new File(DESTINATION_DIRECTORY + "/Tail.log.1");
+    lFileTools.tryDelete(lFile);
+    lFileTools.tryDelete(lRotatedFile);
+
+    List<String> lLines = new ArrayList<>();
+    try (FileTailReader lReader = lFileTools.tailFile(lFile, false, lLines::addAll)) {
+      // File does not exist yet.
+      assertEquals(0, lReader.poll());
+
+      // Incomplete lines are only delivered when they are completed.
+      Files.write(lFile.toPath(), "first\nsecond\r\nthi".getBytes());
+      assertEquals(2, lReader.poll());
+      assertEquals(Arrays.asList("first", "second"), lLines);
+      assertEquals(0, lReader.poll());
+      Files.write(lFile.toPath(), "rd\nfourth\n".getBytes(), StandardOpenOption.APPEND);
+      assertEquals(2, lReader.poll());
+      assertEquals(Arrays.asList("first", "second", "third", "fourth"), lLines);
+
+      // Truncate file.
+      lLines.clear();
+      Files.write(lFile.toPath(), "truncated\n".getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+      assertEquals(1, lReader.poll());
+      assertEquals(Arrays.asList("truncated"), lLines);
+
+      // Rotate file. Remaining data of the old file must not get lost.
+      lLines.clear();
+      Files.write(lFile.toPath(), "old\n".getBytes(), StandardOpenOption.APPEND);
+      Files.move(lFile.toPath(), lRotatedFile.toPath());
+      Files.write(lFile.toPath(), "new\n".getBytes());
+      assertEquals(2, lReader.poll());
+      assertEquals(Arrays.asList("old", "new"), lLines);
+      assertEquals(4, lReader.getPosition());
+    }
+    lFileTools.delete(lFile);
+    lFileTools.delete(lRotatedFile);
+  }
+
+  /**
+   * Method tests access to file attribute snapshots.
+   */
+  @Test
+  public void testFileAttributeSnapshots( ) throws IOException {
+    FileToolsImpl lFileTools = (FileToolsImpl) FileTools.getFileTools();
+    File lFile = new File("./testdata/Screenshot_Maps_1.jpg");
+    BasicFileAttributes lAttributes = Files.readAttributes(lFile.toPath(), BasicFileAttributes.class);
+
+    FileAttributeSnapshot lSnapshot = lFileTools.getFileAttributeSnapshot(lFile);
+    assertEquals(lFile, lSnapshot.getFile());
+    assertEquals(lAttributes.size(), lSnapshot.getSize());
+    assertEquals(lAttributes.creationTime().toMillis(), lSnapshot.getCreationTime());
+    assertEquals(lAttributes.lastModifiedTime().toMillis(), lSnapshot.getLastModificationTime());
+    assertEquals(lAttributes.lastAccessTime().toMillis(), lSnapshot.getLastAccessTime());
+    assertTrue(lSnapshot.isRegularFile());
+    assertFalse(lSnapshot.isDirectory());
+    assertFalse(lSnapshot.isSymbolicLink());
+    assertFalse(lSnapshot.isOther());
+
+    // Test bulk access. Order of the result has to match the order of the passed files.
+    List<File> lFiles = new ArrayList<>(lFileTools.listFiles(new File("./testdata")));
+    lFiles.add(new File("./testdata"));
+    for (boolean lParallel : new boolean[] { false, true }) {
+      List<FileAttributeSnapshot> lSnapshots = lFileTools.getFileAttributeSnapshots(lFiles, lParallel);
+      assertEquals(lFiles.size(), lSnapshots.size());
+      for (int i = 0; i < lFiles.size(); i++) {
+        assertEquals(lFiles.get(i), lSnapshots.get(i).getFile());
+        assertEquals(lFiles.get(i).isDirectory(), lSnapshots.get(i).isDirectory());
+        assertEquals(lFiles.get(i).lastModified(), lSnapshots.get(i).getLastModificationTime());
+      }
+    }
+
+    // Test error handling
+    try {
+      lFileTools.getFileAttributeSnapshots(Arrays.asList(lFile, new File("./testdata/Not_existing_file.txt")), true);
+      fail("Accessing attributes of not existing file must fail.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_ACCESS_FILE_ATTRIBUTES, e.getErrorCode());
+    }
+  }
+
+  /**
+   * Method tests hashing of files.
+   */
+  @Test
+  public void testFileHashing( ) throws IOException, NoSuchAlgorithmException {
+    FileToolsImpl lFileTools = (FileToolsImpl) FileTools.getFileTools();
+    File lFile = new File("./testdata/Screenshot_Maps_1.jpg");
+    byte[] lContent = lFileTools.getFileContent(lFile);
+
+    // Standard digests have to match the ones of the JDK.
+    for (String lAlgorithm : new String[] { "SHA-256", "MD5" }) {
+      byte[] lExpected = MessageDigest.getInstance(lAlgorithm).digest(lContent);
+      assertTrue(Arrays.equals(lExpected, lFileTools.hashFile(lFile, lAlgorithm)), lAlgorithm);
+    }
+
+    // If the file fits into one chunk then the tree hash is the hash of the only leaf.
+    MessageDigest lDigest = MessageDigest.getInstance("SHA-256");
+    lDigest.update((byte) 0x00);
+    assertTrue(Arrays.equals(lDigest.digest(lContent), lFileTools.hashFileTree(lFile)));
+
+    // Tree hash must not depend on the executor but on the chunk size.
+    ExecutorService lExecutor = Executors.newFixedThreadPool(3);
+    try {
+      byte[] lTreeHash = lFileTools.hashFileTree(lFile, 10 * 1024, lExecutor);
+      assertTrue(Arrays.equals(lTreeHash, lFileTools.hashFileTree(lFile, 10 * 1024, ForkJoinPool.commonPool())));
+      assertFalse(Arrays.equals(lTreeHash, lFileTools.hashFileTree(lFile, 16 * 1024, lExecutor)));
+    }
+    finally {
+      lExecutor.shutdown();
+    }
+
+    // If hashing of one leaf fails then all other leaves are cancelled. Executor is blocked and can only queue 2 leaves.
+    ThreadPoolExecutor lBoundedExecutor =
+        new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(2));
+    CountDownLatch lBlocker = new CountDownLatch(1);
+    try {
+      lBoundedExecutor.execute(( ) -> {
+        try {
+          lBlocker.await();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      lFileTools.hashFileTree(lFile, 10 * 1024, lBoundedExecutor);
+      fail("Rejected leaf must fail.");
+    }
+    catch (RejectedExecutionException e) {
+      lBoundedExecutor.purge();
+      assertTrue(lBoundedExecutor.getQueue().isEmpty());
+    }
+    finally {
+      lBlocker.countDown();
+      lBoundedExecutor.shutdown();
+    }
+
+    // Test error handling
+    try {
+      lFileTools.hashFile(lFile, "UNKNOWN");
+      fail("Unknown algorithm must fail.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNKNOWN_ALGORITHM, e.getErrorCode());
+    }
+  }
 }
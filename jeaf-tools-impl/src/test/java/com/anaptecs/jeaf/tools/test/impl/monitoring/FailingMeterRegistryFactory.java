@@ -0,0 +1,43 @@
+/**
+ * Copyright 2004 - 2022 anaptecs GmbH, Burgstr. 96, 72764 Reutlingen, Germany
+ *
+ * All rights reserved.
+ */
+package com.anaptecs.jeaf.tools.test.impl.monitoring;
+
+import com.anaptecs.jeaf.tools.annotations.MonitoringToolsConfig;
+import com.anaptecs.jeaf.tools.api.monitoring.MeterRegistryFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.cumulative.CumulativeCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Meter registry factory creates a registry whose counters fail if their name starts with "failing.".
+ */
+@MonitoringToolsConfig(meterRegistryFactory = FailingMeterRegistryFactory.class)
+public class FailingMeterRegistryFactory implements MeterRegistryFactory {
+  @Override
+  public MeterRegistry createMeterRegistry( String pDomain ) {
+    return new SimpleMeterRegistry() {
+      @Override
+      protected Counter newCounter( Meter.Id pId ) {
+        Counter lCounter;
+        if (pId.getName().startsWith("failing.")) {
+          lCounter = new CumulativeCounter(pId) {
+            @Override
+            public void increment( double pAmount ) {
+              throw new IllegalStateException("Counter " + pId.getName() + " failed.");
+            }
+          };
+        }
+        else {
+          lCounter = super.newCounter(pId);
+        }
+        return lCounter;
+      }
+    };
+  }
+}
@@ -9,12 +9,17 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.ToDoubleFunction;
 import java.util.function.ToIntFunction;
 
+import com.anaptecs.jeaf.tools.annotations.StreamToolsConfig;
 import com.anaptecs.jeaf.tools.api.Tools;
 import com.anaptecs.jeaf.tools.api.monitoring.CounterInfo;
 import com.anaptecs.jeaf.tools.api.monitoring.GaugeInfo;
@@ -25,8 +30,16 @@ import com.anaptecs.jeaf.tools.api.monitoring.TimerInfo;
 import com.anaptecs.jeaf.tools.api.monitoring.TimerSample;
 import com.anaptecs.jeaf.tools.api.performance.Stopwatch;
 import com.anaptecs.jeaf.tools.api.performance.TimePrecision;
+import com.anaptecs.jeaf.tools.impl.monitoring.CounterHandle;
 import com.anaptecs.jeaf.tools.impl.monitoring.EmptyMonitoringTokenImpl;
+import com.anaptecs.jeaf.tools.impl.monitoring.MonitoringToolsConfiguration;
 import com.anaptecs.jeaf.tools.impl.monitoring.MonitoringToolsImpl;
+import com.anaptecs.jeaf.tools.impl.monitoring.OverflowPolicy;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerHandle;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerHistogramConfig;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerInfoImpl;
+import com.anaptecs.jeaf.tools.impl.monitoring.TimerSamplingConfig;
+import com.anaptecs.jeaf.tools.impl.stream.StreamToolsImpl;
 import org.junit.jupiter.api.Test;
 
 public class MonitoringToolsTest {
@@ -139,6 +152,318 @@ public class MonitoringToolsTest {
     lStopwatch.stopAndTrace(lCount);
   }
 
+  @Test
+  public void testAllocationFreeTimerRecording( ) throws InterruptedException {
+    MonitoringToolsImpl lMonitoringTools = new MonitoringToolsImpl();
+    TimerHandle lTimerHandle = lMonitoringTools.getTimer("my.primitive.timer");
+
+    // Record single sample using primitive start timestamp.
+    long lBefore = System.nanoTime();
+    long lStart = lTimerHandle.start();
+    Thread.sleep(5);
+    long lDuration = lTimerHandle.stop(lStart);
+    long lAfter = System.nanoTime();
+    assertTrue(lDuration >= TimeUnit.MILLISECONDS.toNanos(5), "Duration is too short: " + lDuration);
+    assertTrue(lDuration <= lAfter - lBefore);
+
+    TimerInfo lTimerInfo = lTimerHandle.getTimerInfo();
+    assertEquals(1, lTimerInfo.getCount());
+    assertEquals((double) lDuration, lTimerInfo.getTotalTime(TimeUnit.NANOSECONDS), 0.5);
+
+    // Record many samples.
+    int lCount = 1000000;
+    Stopwatch lStopwatch = Tools.getPerformanceTools().createStopwatch("Handle-Recording", TimePrecision.NANOS).start();
+    for (int i = 0; i < lCount; i++) {
+      lTimerHandle.stop(lTimerHandle.start());
+    }
+    lStopwatch.stopAndTrace(lCount);
+    assertEquals(lCount + 1, lTimerInfo.getCount());
+  }
+
+  @Test
+  public void testAsyncRecording( ) throws InterruptedException {
+    MonitoringToolsImpl lMonitoringTools = new MonitoringToolsImpl();
+    assertEquals(false, lMonitoringTools.isAsyncRecordingEnabled());
+    lMonitoringTools.enableAsyncRecording(1024, OverflowPolicy.BLOCK);
+    assertEquals(true, lMonitoringTools.isAsyncRecordingEnabled());
+
+    // Record concurrently from several threads. With policy BLOCK no recording must get lost.
+    TimerHandle lTimerHandle = lMonitoringTools.getTimer("my.async.timer");
+    CounterHandle lCounterHandle = lMonitoringTools.getCounter("my.async.counter");
+    int lThreadCount = 4;
+    int lCount = 100000;
+    List<Thread> lThreads = new ArrayList<>();
+    for (int i = 0; i < lThreadCount; i++) {
+      Thread lThread = new Thread(( ) -> {
+        for (int j = 0; j < lCount; j++) {
+          lTimerHandle.record(1, TimeUnit.MICROSECONDS);
+          lCounterHandle.increment();
+        }
+      });
+      lThreads.add(lThread);
+      lThread.start();
+    }
+    for (Thread lNext : lThreads) {
+      lNext.join();
+    }
+    lMonitoringTools.recordTimerSample(lMonitoringTools.newTimerSample("my.async.timer"));
+    lMonitoringTools.incrementCounter("my.async.counter");
+    lMonitoringTools.flushRecordings();
+
+    TimerInfo lTimerInfo = lTimerHandle.getTimerInfo();
+    assertEquals(lThreadCount * lCount + 1, lTimerInfo.getCount());
+    assertEquals(lThreadCount * lCount + 1, lCounterHandle.getCounterInfo().getCount());
+    assertEquals(0, lMonitoringTools.getCounterInfo(MonitoringToolsImpl.DROPPED_RECORDINGS_COUNTER).getCount());
+
+    // With policy DROP recordings may get lost but all of them are either recorded or counted as dropped.
+    lMonitoringTools.enableAsyncRecording(16, OverflowPolicy.DROP);
+    CounterHandle lDroppingHandle = lMonitoringTools.getCounter("my.async.dropping.counter");
+    for (int i = 0; i < lCount; i++) {
+      lDroppingHandle.increment();
+    }
+    lMonitoringTools.flushRecordings();
+    int lRecorded = lDroppingHandle.getCounterInfo().getCount();
+    int lDropped = lMonitoringTools.getCounterInfo(MonitoringToolsImpl.DROPPED_RECORDINGS_COUNTER).getCount();
+    assertEquals(lCount, lRecorded + lDropped);
+
+    // After async mode was disabled recordings are passed directly to the registry.
+    lMonitoringTools.disableAsyncRecording();
+    assertEquals(false, lMonitoringTools.isAsyncRecordingEnabled());
+    lDroppingHandle.increment();
+    assertEquals(lRecorded + 1, lDroppingHandle.getCounterInfo().getCount());
+    lMonitoringTools.getCounter("my.async.counter").increment();
+    assertEquals(lThreadCount * lCount + 2, lMonitoringTools.getCounterInfo("my.async.counter").getCount());
+
+    // Invalid configuration values must not prevent monitoring tools from being created.
+    System.setProperty(MonitoringToolsImpl.ASYNC_RECORDING_PROPERTY, "true");
+    System.setProperty(MonitoringToolsImpl.ASYNC_BUFFER_SIZE_PROPERTY, "-1");
+    System.setProperty(MonitoringToolsImpl.ASYNC_OVERFLOW_POLICY_PROPERTY, "SOMETIMES");
+    try {
+      lMonitoringTools = new MonitoringToolsImpl();
+      assertEquals(true, lMonitoringTools.isAsyncRecordingEnabled());
+      lMonitoringTools.disableAsyncRecording();
+    }
+    finally {
+      System.clearProperty(MonitoringToolsImpl.ASYNC_RECORDING_PROPERTY);
+      System.clearProperty(MonitoringToolsImpl.ASYNC_BUFFER_SIZE_PROPERTY);
+      System.clearProperty(MonitoringToolsImpl.ASYNC_OVERFLOW_POLICY_PROPERTY);
+    }
+  }
+
+  @Test
+  public void testAsyncRecordingWithFailingMeter( ) throws InterruptedException {
+    MonitoringToolsConfiguration lConfiguration =
+        new MonitoringToolsConfiguration("FailingMonitoringTools", "META-INF", true);
+    MonitoringToolsImpl lMonitoringTools = new MonitoringToolsImpl(lConfiguration);
+    lMonitoringTools.enableAsyncRecording(16, OverflowPolicy.BLOCK);
+
+    // Failing meters must not block the ring buffer. Otherwise the following recordings would block forever.
+    CounterHandle lFailingHandle = lMonitoringTools.getCounter("failing.async.counter");
+    CounterHandle lCounterHandle = lMonitoringTools.getCounter("my.async.survivor");
+    for (int i = 0; i < 100; i++) {
+      lFailingHandle.increment();
+      lCounterHandle.increment();
+    }
+    lMonitoringTools.flushRecordings();
+    assertEquals(100, lCounterHandle.getCounterInfo().getCount());
+
+    // Recordings that are published while the recorder is closed are neither lost nor dropped.
+    Thread lThread = new Thread(( ) -> {
+      for (int i = 0; i < 10000; i++) {
+        lCounterHandle.increment();
+      }
+    });
+    lThread.start();
+    lMonitoringTools.disableAsyncRecording();
+    lThread.join();
+    assertEquals(10100, lCounterHandle.getCounterInfo().getCount());
+    lMonitoringTools.disableAsyncRecording();
+  }
+
+  @Test
+  public void testTimerPercentiles( ) {
+    MonitoringToolsImpl lMonitoringTools = new MonitoringToolsImpl();
+    TimerHistogramConfig lHistogramConfig = new TimerHistogramConfig(TimerHistogramConfig.DEFAULT_PERCENTILES,
+        Duration.ofMillis(10), Duration.ofMillis(100));
+    lMonitoringTools.configureTimerHistogram("my.slo.*", lHistogramConfig);
+    lMonitoringTools.configureTimerHistogram("my.slo.exact", new TimerHistogramConfig(new double[] { 0.9 }));
+
+    // Record 1000 samples from 1 to 1000 microseconds and 10 slow ones with 50 milliseconds.
+    TimerHandle lTimerHandle = lMonitoringTools.getTimer("my.slo.timer");
+    for (int i = 1; i <= 1000; i++) {
+      lTimerHandle.record(i, TimeUnit.MICROSECONDS);
+    }
+    for (int i = 0; i < 10; i++) {
+      lTimerHandle.record(50, TimeUnit.MILLISECONDS);
+    }
+
+    // Check percentiles. HdrHistogram based percentiles are only approximations.
+    TimerInfoImpl lTimerInfo = lTimerHandle.getTimerInfo();
+    double lMedian = lTimerInfo.getPercentile(0.5, TimeUnit.MICROSECONDS);
+    assertTrue(lMedian > 450 && lMedian < 550, "Unexpected median: " + lMedian);
+    double lP999 = lTimerInfo.getPercentile(0.999, TimeUnit.MILLISECONDS);
+    assertTrue(lP999 > 45 && lP999 < 55, "Unexpected p99.9: " + lP999);
+    assertTrue(Double.isNaN(lTimerInfo.getPercentile(0.75, TimeUnit.MICROSECONDS)));
+
+    // Check SLO buckets.
+    SortedMap<Double, Long> lBuckets = lTimerInfo.getBucketCounts(TimeUnit.MILLISECONDS);
+    assertEquals(2, lBuckets.size());
+    assertEquals(1000, lBuckets.get(10.0));
+    assertEquals(1010, lBuckets.get(100.0));
+
+    // Percentiles are also published as gauges.
+    GaugeInfo lGaugeInfo = lMonitoringTools.getGaugeInfo("my.slo.timer.percentile", Tag.of("phi", "0.99"));
+    assertTrue(lGaugeInfo.getValue() > 0);
+
+    // Exact names have priority and timers without configuration have no percentiles.
+    lMonitoringTools.getTimer("my.slo.exact").record(1, TimeUnit.MILLISECONDS);
+    lTimerInfo = lMonitoringTools.getTimerInfo("my.slo.exact");
+    assertEquals(1, lTimerInfo.getPercentile(0.9, TimeUnit.MILLISECONDS), 0.1);
+    assertTrue(Double.isNaN(lTimerInfo.getPercentile(0.5, TimeUnit.MILLISECONDS)));
+    assertEquals(0, lTimerInfo.getBucketCounts(TimeUnit.MILLISECONDS).size());
+    lMonitoringTools.getTimer("my.other.timer").record(1, TimeUnit.MILLISECONDS);
+    assertTrue(Double.isNaN(lMonitoringTools.getTimerInfo("my.other.timer").getPercentile(0.5, TimeUnit.SECONDS)));
+
+    // Invalid configuration values are replaced by defaults.
+    System.setProperty(MonitoringToolsImpl.HISTOGRAM_TIMERS_PROPERTY, "my.invalid.*");
+    System.setProperty(MonitoringToolsImpl.HISTOGRAM_PERCENTILES_PROPERTY, "0.5,high");
+    System.setProperty(MonitoringToolsImpl.HISTOGRAM_SLO_PROPERTY, "10,-5");
+    try {
+      lMonitoringTools = new MonitoringToolsImpl();
+      lMonitoringTools.getTimer("my.invalid.timer").record(1, TimeUnit.MILLISECONDS);
+      lTimerInfo = lMonitoringTools.getTimerInfo("my.invalid.timer");
+      assertEquals(1, lTimerInfo.getPercentile(0.99, TimeUnit.MILLISECONDS), 0.1);
+      assertEquals(0, lTimerInfo.getBucketCounts(TimeUnit.MILLISECONDS).size());
+    }
+    finally {
+      System.clearProperty(MonitoringToolsImpl.HISTOGRAM_TIMERS_PROPERTY);
+      System.clearProperty(MonitoringToolsImpl.HISTOGRAM_PERCENTILES_PROPERTY);
+      System.clearProperty(MonitoringToolsImpl.HISTOGRAM_SLO_PROPERTY);
+    }
+  }
+
+  @Test
+  public void testTimerSampling( ) throws InterruptedException {
+    MonitoringToolsImpl lMonitoringTools = new MonitoringToolsImpl();
+    lMonitoringTools.configureTimerSampling("my.sampled.fixed", TimerSamplingConfig.fixedRate(100));
+    TimerSamplingConfig lSlowConfig = TimerSamplingConfig.fixedRate(1000).withSlowThreshold(Duration.ofMillis(2));
+    lMonitoringTools.configureTimerSampling("my.sampled.threshold", lSlowConfig);
+    lMonitoringTools.configureTimerSampling("my.sampled.adaptive", TimerSamplingConfig.adaptive(1000));
+
+    // With a fixed rate only every 100th call is recorded but all calls are counted.
+    TimerHandle lTimerHandle = lMonitoringTools.getTimer("my.sampled.fixed");
+    int lRecorded = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (lTimerHandle.stop(lTimerHandle.start()) >= 0) {
+        lRecorded++;
+      }
+    }
+    assertEquals(1000, lRecorded);
+    assertEquals(1000, lTimerHandle.getTimerInfo().getCount());
+    assertEquals(100000, lTimerHandle.getCallCount());
+    assertEquals(100000, lMonitoringTools.getCounterInfo("my.sampled.fixed.calls").getCount());
+
+    // Slow calls are always recorded but to a separate timer so that the sampled statistics are not biased.
+    lTimerHandle = lMonitoringTools.getTimer("my.sampled.threshold");
+    long lStart = lTimerHandle.start();
+    assertEquals(-1, lTimerHandle.stop(lTimerHandle.start()));
+    Thread.sleep(3);
+    assertTrue(lTimerHandle.stop(lStart) >= TimeUnit.MILLISECONDS.toNanos(2));
+    assertEquals(0, lTimerHandle.getTimerInfo().getCount());
+    String lSlowTimerName = "my.sampled.threshold" + MonitoringToolsImpl.SLOW_CALLS_SUFFIX;
+    assertEquals(1, lMonitoringTools.getTimerInfo(lSlowTimerName).getCount());
+
+    // Sampled calls are recorded to the timer and in addition to the slow timer if they are slow.
+    for (int i = 0; i < 997; i++) {
+      assertEquals(-1, lTimerHandle.stop(lTimerHandle.start()));
+    }
+    lStart = lTimerHandle.start();
+    Thread.sleep(3);
+    assertTrue(lTimerHandle.stop(lStart) >= TimeUnit.MILLISECONDS.toNanos(2));
+    assertEquals(1, lTimerHandle.getTimerInfo().getCount());
+    assertEquals(2, lMonitoringTools.getTimerInfo(lSlowTimerName).getCount());
+    assertEquals(1000, lTimerHandle.getCallCount());
+
+    // Adaptive sampling limits the number of recordings per second.
+    lTimerHandle = lMonitoringTools.getTimer("my.sampled.adaptive");
+    long lEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(2500);
+    long lCalls = 0;
+    while (System.nanoTime() < lEnd) {
+      lTimerHandle.stop(lTimerHandle.start());
+      lCalls++;
+    }
+    long lCount = lTimerHandle.getTimerInfo().getCount();
+    assertTrue(lCount < 5000, "Too many recordings: " + lCount);
+    assertTrue(lTimerHandle.getCallCount() > lCalls * 0.99, "Unexpected calls: " + lTimerHandle.getCallCount());
+    assertTrue(lTimerHandle.getCallCount() <= lCalls);
+
+    // Timers without sampling configuration record every call.
+    lTimerHandle = lMonitoringTools.getTimer("my.not.sampled");
+    for (int i = 0; i < 100; i++) {
+      assertTrue(lTimerHandle.stop(lTimerHandle.start()) >= 0);
+    }
+    assertEquals(100, lTimerHandle.getCallCount());
+
+    // Invalid configuration values must not prevent monitoring tools from being created.
+    System.setProperty(MonitoringToolsImpl.SAMPLING_TIMERS_PROPERTY, "my.property.sampled");
+    System.setProperty(MonitoringToolsImpl.SAMPLING_RATE_PROPERTY, "0");
+    System.setProperty(MonitoringToolsImpl.SAMPLING_MAX_PER_SECOND_PROPERTY, "-5");
+    System.setProperty(MonitoringToolsImpl.SAMPLING_SLOW_THRESHOLD_PROPERTY, "-1");
+    try {
+      lMonitoringTools = new MonitoringToolsImpl();
+      lTimerHandle = lMonitoringTools.getTimer("my.property.sampled");
+      for (int i = 0; i < 1000; i++) {
+        lTimerHandle.stop(lTimerHandle.start());
+      }
+      assertEquals(10, lTimerHandle.getTimerInfo().getCount());
+      assertEquals(1000, lTimerHandle.getCallCount());
+    }
+    finally {
+      System.clearProperty(MonitoringToolsImpl.SAMPLING_TIMERS_PROPERTY);
+      System.clearProperty(MonitoringToolsImpl.SAMPLING_RATE_PROPERTY);
+      System.clearProperty(MonitoringToolsImpl.SAMPLING_MAX_PER_SECOND_PROPERTY);
+      System.clearProperty(MonitoringToolsImpl.SAMPLING_SLOW_THRESHOLD_PROPERTY);
+    }
+  }
+
+  @Test
+  public void testMeterBinders( ) throws IOException {
+    MonitoringToolsImpl lMonitoringTools = new MonitoringToolsImpl();
+
+    // JVM metrics are only bound once.
+    lMonitoringTools.bindJvmMetrics();
+    lMonitoringTools.bindJvmMetrics();
+    assertTrue(lMonitoringTools.getGaugeInfo("jvm.threads.live").getValue() > 0);
+    assertTrue(lMonitoringTools.getGaugeInfo("jvm.classes.loaded").getValue() > 0);
+    assertTrue(lMonitoringTools.getGaugeInfo("jvm.memory.used", Tag.of("area", "heap")).getValue() > 0);
+
+    // Application specific binders
+    lMonitoringTools.bindTo(pRegistry -> pRegistry.gauge("my.bound.gauge", 42));
+    assertEquals(42, lMonitoringTools.getGaugeInfo("my.bound.gauge").getValue());
+
+    // Internal state of tools is only published if it is enabled.
+    System.setProperty(MonitoringToolsImpl.TOOLS_METRICS_PROPERTY, "true");
+    StreamToolsImpl lStreamTools = new StreamToolsImpl();
+    try {
+      assertEquals(3, lStreamTools.getStreamContent(new ByteArrayInputStream(new byte[] { 1, 2, 3 })).length);
+    }
+    finally {
+      System.clearProperty(MonitoringToolsImpl.TOOLS_METRICS_PROPERTY);
+    }
+    MonitoringToolsImpl lDefaultMonitoringTools = (MonitoringToolsImpl) Tools.getMonitoringTools();
+    GaugeInfo lPoolSize = lDefaultMonitoringTools.getGaugeInfo(StreamToolsImpl.BUFFER_POOL_SIZE_METRIC);
+    assertEquals(StreamToolsConfig.DEFAULT_BUFFER_POOL_SIZE, lPoolSize.getValue());
+    assertTrue(lDefaultMonitoringTools.getTimerInfo(StreamToolsImpl.BUFFER_CLAIM_TIME_METRIC).getCount() >= 1);
+
+    // Monotonic counts are published as function counters and not as gauges.
+    lDefaultMonitoringTools.bindTo(pRegistry -> assertEquals(lStreamTools.getUnpooledBuffers(),
+        pRegistry.get(StreamToolsImpl.UNPOOLED_BUFFERS_METRIC).functionCounter().count()));
+    List<String> lCountedObjects = new ArrayList<>();
+    lCountedObjects.add("1");
+    lMonitoringTools.monitorCount(lCountedObjects, List::size, "my.monitored.count");
+    lMonitoringTools.bindTo(pRegistry -> assertEquals(1, pRegistry.get("my.monitored.count").functionCounter().count()));
+  }
+
   @Test
   public void testCounterUsage( ) {
     MonitoringTools lMonitoringTools = Tools.getMonitoringTools();
@@ -159,6 +484,38 @@ public class MonitoringToolsTest {
     assertEquals("value", lTags.get(0).getValue());
   }
 
+  @Test
+  public void testMeterHandles( ) {
+    MonitoringToolsImpl lMonitoringTools = new MonitoringToolsImpl();
+
+    // Record through timer handle and check that recordings end up at the same timer.
+    TimerHandle lTimerHandle = lMonitoringTools.getTimer("my.handle.timer", Tag.of("env", "prod"));
+    assertEquals("my.handle.timer", lTimerHandle.getName());
+    lTimerHandle.record(10, TimeUnit.MILLISECONDS);
+    TimerSample lTimerSample = lTimerHandle.newTimerSample(TimeUnit.NANOSECONDS);
+    assertEquals("my.handle.timer", lTimerSample.getTimerName());
+    assertEquals(1, lTimerSample.getTimerTags().length);
+    lTimerHandle.recordTimerSample(lTimerSample);
+    lMonitoringTools.recordTimerSample(lTimerSample);
+
+    TimerInfo lTimerInfo = lMonitoringTools.getTimerInfo("my.handle.timer", Tag.of("env", "prod"));
+    assertEquals(3, lTimerInfo.getCount());
+    assertEquals(3, lTimerHandle.getTimerInfo().getCount());
+    assertTrue(lTimerInfo.getTotalTime(TimeUnit.MILLISECONDS) >= 10);
+    assertEquals(0, lMonitoringTools.getTimerInfo("my.handle.timer").getCount());
+
+    // Increment through counter handle.
+    CounterHandle lCounterHandle = lMonitoringTools.getCounter("my.handle.counter");
+    assertEquals("my.handle.counter", lCounterHandle.getName());
+    lCounterHandle.increment();
+    lCounterHandle.increment(2);
+    lMonitoringTools.incrementCounter("my.handle.counter");
+    assertEquals(4, lCounterHandle.getCounterInfo().getCount());
+    assertEquals(4, lMonitoringTools.getCounterInfo("my.handle.counter").getCount());
+    lCounterHandle = lMonitoringTools.getCounter("my.handle.counter", Tag.of("key", "value"));
+    assertEquals(0, lCounterHandle.getCounterInfo().getCount());
+  }
+
   @Test
   public void testGaugeUsage( ) {
     MonitoringTools lMonitoringTools = Tools.getMonitoringTools();
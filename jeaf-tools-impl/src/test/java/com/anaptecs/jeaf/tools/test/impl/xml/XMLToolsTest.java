@@ -5,6 +5,7 @@
  */
 package com.anaptecs.jeaf.tools.test.impl.xml;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -13,18 +14,34 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
+import javax.xml.validation.Schema;
 
 import com.anaptecs.jeaf.tools.annotations.XMLToolsConfig;
 import com.anaptecs.jeaf.tools.api.Tools;
@@ -34,9 +51,16 @@ import com.anaptecs.jeaf.tools.api.xml.DocumentProperties;
 import com.anaptecs.jeaf.tools.api.xml.DocumentProperties.Builder;
 import com.anaptecs.jeaf.tools.api.xml.XMLTools;
 import com.anaptecs.jeaf.tools.impl.DefaultToolsConfiguration;
+import com.anaptecs.jeaf.tools.impl.ToolsImplMessages;
 import com.anaptecs.jeaf.tools.impl.xml.DocumentBuilderAllocator;
+import com.anaptecs.jeaf.tools.impl.xml.DocumentBuilderPool;
+import com.anaptecs.jeaf.tools.impl.xml.DocumentCache;
 import com.anaptecs.jeaf.tools.impl.xml.ErrorHandlerImpl;
+import com.anaptecs.jeaf.tools.impl.xml.IndexedDocument;
+import com.anaptecs.jeaf.tools.impl.xml.ParseResult;
+import com.anaptecs.jeaf.tools.impl.xml.ParseResultOrder;
 import com.anaptecs.jeaf.tools.impl.xml.PooledDocumentBuilder;
+import com.anaptecs.jeaf.tools.impl.xml.XMLStreamingWriter;
 import com.anaptecs.jeaf.tools.impl.xml.XMLToolsConfiguration;
 import com.anaptecs.jeaf.tools.impl.xml.XMLToolsImpl;
 import com.anaptecs.jeaf.xfun.api.XFun;
@@ -47,9 +71,11 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.xml.sax.Attributes;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
 import stormpot.Poolable;
 import stormpot.Slot;
 
@@ -731,6 +757,912 @@ public class XMLToolsTest {
 
     lAllocator.deallocate(lPool);
   }
+
+  @Test
+  public void testStreamingParsing( ) throws IOException {
+    XMLToolsImpl lXMLTools = (XMLToolsImpl) Tools.getXMLTools();
+
+    // Count elements using SAX.
+    List<String> lMessageNames = new ArrayList<>();
+    lXMLTools.parseStreaming("./src/test/resources/Test.xml", new DefaultHandler() {
+      @Override
+      public void startElement( String pURI, String pLocalName, String pQName, Attributes pAttributes ) {
+        if ("Message".equals(pQName)) {
+          lMessageNames.add(pAttributes.getValue("name"));
+        }
+      }
+    });
+    assertEquals(49, lMessageNames.size());
+    assertEquals("UNABLE_TO_LOCATE_VERSION_BUNDLE", lMessageNames.get(0));
+
+    // Read records as DOM fragments.
+    List<Element> lRecords = new ArrayList<>();
+    int lCount = lXMLTools.parseRecords("./src/test/resources/Test.xml", "Message", lRecords::add);
+    assertEquals(49, lCount);
+    assertEquals(49, lRecords.size());
+    for (int i = 0; i < lCount; i++) {
+      assertEquals(lMessageNames.get(i), lXMLTools.getAttributeValue(lRecords.get(i), "name", true));
+    }
+    assertEquals("13", lRecords.get(0).getAttribute("messageID"));
+    assertEquals(lRecords.get(0), lRecords.get(0).getOwnerDocument().getDocumentElement());
+
+    // Records with nested elements.
+    String lXML = "<Root><Item id=\"1\"><Name>A &amp; B</Name></Item><Group><Item id=\"2\"/></Group></Root>";
+    lRecords.clear();
+    lCount = lXMLTools.parseRecords(new ByteArrayInputStream(lXML.getBytes()), "Item", lRecords::add, "Items");
+    assertEquals(2, lCount);
+    assertEquals("A & B", lXMLTools.getElementValueFromSubtree("Name", lRecords.get(0), true));
+    assertEquals("<Item id=\"1\"><Name>A &amp; B</Name></Item>", lXMLTools.toString(lRecords.get(0), false));
+    assertEquals("2", lRecords.get(1).getAttribute("id"));
+
+    // External entities must not be resolved.
+    String lEvilXML = "<?xml version=\"1.0\"?><!DOCTYPE Root [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+        + "<Root><Item>&xxe;</Item></Root>";
+    try {
+      lXMLTools.parseRecords(new ByteArrayInputStream(lEvilXML.getBytes()), "Item", lRecords::add, "Evil");
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+
+    // Test error handling
+    try {
+      lXMLTools.parseStreaming("./src/test/resources/NotExisting.xml", new DefaultHandler());
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+  }
+
+  /**
+   * Test checks that pooled transformers are reused correctly, also in case that different output settings are used
+   * concurrently.
+   */
+  @Test
+  public void testTransformerPooling( ) throws ParserConfigurationException, InterruptedException, ExecutionException {
+    XMLTools lXMLTools = Tools.getXMLTools();
+    Document lDocument = lXMLTools.createDocument();
+    Element lRoot = lDocument.createElement("Root");
+    lDocument.appendChild(lRoot);
+    Element lChild = lDocument.createElement("Child");
+    lChild.setAttribute("id", "4711");
+    lRoot.appendChild(lChild);
+
+    String lExpectedDocument = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" + System.lineSeparator()
+        + lXMLTools.toString(lRoot, true);
+    String lExpectedElement = "<Root><Child id=\"4711\"/></Root>";
+
+    // Serialize document and element with different settings using many threads.
+    ExecutorService lExecutor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> lFutures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        lFutures.add(lExecutor.submit(( ) -> {
+          boolean lOK = true;
+          for (int j = 0; j < 20; j++) {
+            lOK = lOK && lExpectedDocument.equals(lXMLTools.toString(lDocument));
+            lOK = lOK && lExpectedElement.equals(lXMLTools.toString(lRoot, false));
+          }
+          return lOK;
+        }));
+      }
+      for (Future<Boolean> lFuture : lFutures) {
+        assertTrue(lFuture.get());
+      }
+    }
+    finally {
+      lExecutor.shutdown();
+    }
+
+    // Settings of a pooled transformer must not influence other settings.
+    Builder lBuilder = DocumentProperties.Builder.newBuilder();
+    lBuilder.setEncoding("ISO-8859-1");
+    String lString = lXMLTools.toString(lDocument, lBuilder.build());
+    assertTrue(lString.startsWith("<?xml version=\"1.0\" encoding=\"ISO-8859-1\""), lString);
+    assertEquals(lExpectedDocument, lXMLTools.toString(lDocument));
+  }
+
+  /**
+   * Test checks caching of parsed XML files including invalidation, LRU eviction and both cache modes.
+   */
+  @Test
+  public void testDocumentCache( ) throws IOException {
+    XMLToolsImpl lXMLTools = new XMLToolsImpl();
+    assertNull(lXMLTools.getDocumentCache());
+
+    File lFile = File.createTempFile("jeaf-test-", ".xml");
+    Files.write(lFile.toPath(), "<Root><Value>1</Value></Root>".getBytes(StandardCharsets.UTF_8));
+    String lFileName = lFile.getPath();
+
+    // Cached documents are cloned.
+    lXMLTools.enableDocumentCache(2);
+    DocumentCache lCache = lXMLTools.getDocumentCache();
+    assertEquals(2, lCache.getMaxSize());
+    Document lDocument = lXMLTools.parseFile(lFileName, false);
+    Document lCachedDocument = lXMLTools.parseFile(lFileName, false);
+    assertEquals(1, lCache.getMisses());
+    assertEquals(1, lCache.getHits());
+    assertTrue(lDocument != lCachedDocument);
+    assertEquals("<Root><Value>1</Value></Root>", lXMLTools.toString(lCachedDocument.getDocumentElement(), false));
+
+    // Changes of a returned document must not influence the cache.
+    lCachedDocument.getDocumentElement().setAttribute("changed", "true");
+    lDocument = lXMLTools.parseFile(lFileName, false);
+    assertEquals("<Root><Value>1</Value></Root>", lXMLTools.toString(lDocument.getDocumentElement(), false));
+    assertEquals(2, lCache.getHits());
+
+    // Changed file has to be parsed again.
+    Files.write(lFile.toPath(), "<Root><Value>2</Value></Root>".getBytes(StandardCharsets.UTF_8));
+    lFile.setLastModified(lFile.lastModified() + 10000);
+    lDocument = lXMLTools.parseFile(lFileName, false);
+    assertEquals("<Root><Value>2</Value></Root>", lXMLTools.toString(lDocument.getDocumentElement(), false));
+    assertEquals(2, lCache.getMisses());
+
+    // System ID is part of the key. So the cache gets full and the least recently used entry is evicted.
+    lXMLTools.parseFile(lFileName, false, "./src/test/resources/");
+    assertEquals(2, lCache.getSize());
+    assertEquals(0, lCache.getEvictions());
+    lXMLTools.parseFile(lFileName, false, "./src/test/");
+    assertEquals(2, lCache.getSize());
+    assertEquals(1, lCache.getEvictions());
+    lCache.clear();
+    assertEquals(0, lCache.getSize());
+
+    // Every caller gets its own instance.
+    lXMLTools.enableDocumentCache(10);
+    lCache = lXMLTools.getDocumentCache();
+    lDocument = lXMLTools.parseFile(lFileName, false);
+    assertTrue(lDocument != lXMLTools.parseFile(lFileName, false));
+    assertEquals(1, lCache.getHits());
+
+    // Errors are not cached.
+    try {
+      lXMLTools.parseFile("./src/test/resources/NotExisting.xml", false);
+      fail("Exception expected");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+    assertEquals(1, lCache.getSize());
+
+    // Disable cache again.
+    lXMLTools.enableDocumentCache(0);
+    assertNull(lXMLTools.getDocumentCache());
+    lXMLTools.enableDocumentCache(10);
+    lXMLTools.disableDocumentCache();
+    assertNull(lXMLTools.getDocumentCache());
+    lFile.delete();
+
+    // Cache can be configured using system properties.
+    System.setProperty(XMLToolsImpl.DOCUMENT_CACHE_SIZE_PROPERTY, "5");
+    try {
+      lCache = new XMLToolsImpl().getDocumentCache();
+      assertEquals(5, lCache.getMaxSize());
+    }
+    finally {
+      System.clearProperty(XMLToolsImpl.DOCUMENT_CACHE_SIZE_PROPERTY);
+    }
+  }
+
+  /**
+   * Test checks evaluation of XPath expressions including reuse of compiled expressions by several threads.
+   */
+  @Test
+  public void testXPathEvaluation( ) throws InterruptedException, ExecutionException {
+    XMLToolsImpl lXMLTools = (XMLToolsImpl) Tools.getXMLTools();
+    Document lDocument = lXMLTools.parseFile("./src/test/resources/Test.xml", true, "./src/test/resources/Test.dtd");
+
+    assertEquals("XFunMessages", lXMLTools.evaluateString("/Root/ClassInfo/@className", lDocument));
+    assertEquals("", lXMLTools.evaluateString("/Root/NotExisting", lDocument));
+    assertEquals(8, lXMLTools.evaluateNumber("count(//MessageFolder)", lDocument));
+    assertEquals(49, lXMLTools.evaluateNumber("count(//Message)", lDocument));
+    assertTrue(Double.isNaN(lXMLTools.evaluateNumber("/Root/ClassInfo/@className", lDocument)));
+
+    List<Element> lFolders = lXMLTools.evaluateElements("/Root/MessageFolder/MessageFolder", lDocument);
+    assertEquals("VersionInfo", lFolders.get(0).getAttribute("name"));
+
+    // Evaluate relative to an element.
+    Element lVersionInfo = lFolders.get(0);
+    assertEquals("UNABLE_TO_LOCATE_VERSION_BUNDLE", lXMLTools.evaluateString("Message[1]/@name", lVersionInfo));
+    assertEquals(0, lXMLTools.evaluateElements("ClassInfo", lVersionInfo).size());
+
+    // Attributes are not returned as elements.
+    assertEquals(0, lXMLTools.evaluateElements("/Root/ClassInfo/@className", lDocument).size());
+
+    // Use same expressions concurrently.
+    ExecutorService lExecutor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> lFutures = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        lFutures.add(lExecutor.submit(( ) -> {
+          Document lThreadDocument =
+              lXMLTools.parseFile("./src/test/resources/Test.xml", true, "./src/test/resources/Test.dtd");
+          return lXMLTools.evaluateElements("//Message", lThreadDocument).size();
+        }));
+      }
+      for (Future<Integer> lFuture : lFutures) {
+        assertEquals(49, lFuture.get());
+      }
+    }
+    finally {
+      lExecutor.shutdown();
+    }
+
+    // Test exception handling.
+    try {
+      lXMLTools.evaluateString("/Root/[", lDocument);
+      fail("Exception expected");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsImplMessages.INVALID_XPATH_EXPRESSION, e.getErrorCode());
+      assertEquals("/Root/[", e.getMessageParameters()[0]);
+    }
+    try {
+      lXMLTools.evaluateElements("count(//Message)", lDocument);
+      fail("Exception expected");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsImplMessages.UNABLE_TO_EVALUATE_XPATH_EXPRESSION, e.getErrorCode());
+      assertEquals("count(//Message)", e.getMessageParameters()[0]);
+    }
+    try {
+      lXMLTools.evaluateString(null, lDocument);
+      fail("Exception expected");
+    }
+    catch (IllegalArgumentException e) {
+      // Nothing to do.
+    }
+    try {
+      lXMLTools.evaluateNumber("count(//Message)", null);
+      fail("Exception expected");
+    }
+    catch (IllegalArgumentException e) {
+      // Nothing to do.
+    }
+  }
+
+  /**
+   * Test checks validation against XML schemas during parsing and of existing documents.
+   */
+  @Test
+  public void testSchemaValidation( ) throws IOException {
+    XMLToolsImpl lXMLTools = (XMLToolsImpl) Tools.getXMLTools();
+    String lSchemaLocation = "./src/test/resources/Test.xsd";
+
+    // Schemas are only compiled once.
+    Schema lSchema = lXMLTools.getSchema(lSchemaLocation);
+    assertNotNull(lSchema);
+    assertTrue(lSchema == lXMLTools.getSchema(lSchemaLocation));
+
+    // Validate during parsing. Default values from the schema are added.
+    Document lDocument = lXMLTools.parseAndValidate("./src/test/resources/TestNoDTD.xml", lSchemaLocation);
+    assertEquals("Root", lDocument.getDocumentElement().getLocalName());
+    assertEquals(49, lXMLTools.evaluateNumber("count(//Message)", lDocument));
+    assertEquals(0, lXMLTools.evaluateNumber("count(//Message[not(@traceLevel)])", lDocument));
+
+    // Validate existing document.
+    lDocument = lXMLTools.parseFile("./src/test/resources/TestNoDTD.xml", false);
+    lXMLTools.validate(lDocument, lSchemaLocation);
+
+    // Validate many documents concurrently so that pooled validators are reused.
+    byte[] lXML = Files.readAllBytes(new File("./src/test/resources/TestNoDTD.xml").toPath());
+    ExecutorService lExecutor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Document>> lFutures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        lFutures.add(lExecutor.submit(
+            ( ) -> lXMLTools.parseAndValidate(new ByteArrayInputStream(lXML), lSchemaLocation, "TestNoDTD.xml")));
+      }
+      for (Future<Document> lFuture : lFutures) {
+        assertEquals("Root", lFuture.get().getDocumentElement().getNodeName());
+      }
+    }
+    catch (InterruptedException | ExecutionException e) {
+      fail("Unexpected exception " + e.getMessage());
+    }
+    finally {
+      lExecutor.shutdown();
+    }
+
+    // Invalid documents have to be detected.
+    String lInvalidXML = "<Root><MessageFolder name=\"Test\" idRangeBegin=\"A\"/></Root>";
+    try {
+      lXMLTools.parseAndValidate(new ByteArrayInputStream(lInvalidXML.getBytes(StandardCharsets.UTF_8)),
+          lSchemaLocation, "Invalid");
+      fail("Exception expected");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+    lDocument = lXMLTools.parseString(lInvalidXML, false, null, "Invalid");
+    try {
+      lXMLTools.validate(lDocument, lSchemaLocation);
+      fail("Exception expected");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+
+    // External entities must not be resolved.
+    String lXXE = "<?xml version=\"1.0\"?><!DOCTYPE Root [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+        + "<Root><MessageFolder name=\"&xxe;\"/></Root>";
+    try {
+      Document lXXEDocument = lXMLTools.parseAndValidate(
+          new ByteArrayInputStream(lXXE.getBytes(StandardCharsets.UTF_8)), lSchemaLocation, "XXE");
+      assertEquals("", lXMLTools.evaluateString("/Root/MessageFolder/@name", lXXEDocument));
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+
+    // Test exception handling.
+    try {
+      lXMLTools.getSchema("./src/test/resources/NotExisting.xsd");
+      fail("Exception expected");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+    try {
+      lXMLTools.validate(null, lSchemaLocation);
+      fail("Exception expected");
+    }
+    catch (IllegalArgumentException e) {
+      // Nothing to do.
+    }
+  }
+
+  /**
+   * Test checks the usage statistics of the document builder pools and that adaptive pools stay within their limits.
+   */
+  @Test
+  public void testDocumentBuilderPoolMetrics( ) throws InterruptedException, ExecutionException {
+    XMLToolsImpl lXMLTools = new XMLToolsImpl();
+    DocumentBuilderPool lPool = lXMLTools.getDocumentBuilderPool(false);
+    assertFalse(lPool.isValidating());
+    assertTrue(lXMLTools.getDocumentBuilderPool(true).isValidating());
+    assertFalse(lPool.isAdaptive());
+    assertEquals(0, lPool.getClaims());
+
+    // Every parsing claims a document builder.
+    String lXML = "<Root><Value>1</Value></Root>";
+    for (int i = 0; i < 10; i++) {
+      lXMLTools.parseString(lXML, false, null, "Test");
+    }
+    assertEquals(10, lPool.getClaims());
+    assertEquals(0, lXMLTools.getDocumentBuilderPool(true).getClaims());
+    assertTrue(lPool.getBuilds() > 0);
+    assertTrue(lPool.getBuildTime() > 0);
+    assertTrue(lPool.getFallbacks() <= lPool.getClaims());
+
+    // Adaptive pools grow in case of fallbacks but never beyond their max. size.
+    System.setProperty(XMLToolsImpl.DOCUMENT_BUILDER_POOL_ADAPTIVE_PROPERTY, "true");
+    System.setProperty(XMLToolsImpl.DOCUMENT_BUILDER_POOL_MAX_SIZE_PROPERTY, "1000");
+    try {
+      lXMLTools = new XMLToolsImpl();
+    }
+    finally {
+      System.clearProperty(XMLToolsImpl.DOCUMENT_BUILDER_POOL_ADAPTIVE_PROPERTY);
+      System.clearProperty(XMLToolsImpl.DOCUMENT_BUILDER_POOL_MAX_SIZE_PROPERTY);
+    }
+    DocumentBuilderPool lAdaptivePool = lXMLTools.getDocumentBuilderPool(false);
+    assertTrue(lAdaptivePool.isAdaptive());
+    assertEquals(1000, lAdaptivePool.getMaxPoolSize());
+    int lInitialSize = lAdaptivePool.getPoolSize();
+
+    XMLToolsImpl lAdaptiveXMLTools = lXMLTools;
+    ExecutorService lExecutor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<?>> lFutures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        lFutures.add(lExecutor.submit(( ) -> {
+          for (int j = 0; j < 20; j++) {
+            lAdaptiveXMLTools.parseString(lXML, false, null, "Test");
+          }
+        }));
+      }
+      for (Future<?> lFuture : lFutures) {
+        lFuture.get();
+      }
+    }
+    finally {
+      lExecutor.shutdown();
+    }
+    assertEquals(2000, lAdaptivePool.getClaims());
+    assertTrue(lAdaptivePool.getPoolSize() >= lInitialSize);
+    assertTrue(lAdaptivePool.getPoolSize() <= lAdaptivePool.getMaxPoolSize());
+  }
+
+  /**
+   * Test checks that direct serialization of DOM nodes produces the same output as a JAXP transformation.
+   */
+  @Test
+  public void testDirectSerialization( ) throws ParserConfigurationException {
+    XMLToolsImpl lXMLTools = new XMLToolsImpl();
+    System.setProperty(XMLToolsImpl.DIRECT_SERIALIZATION_PROPERTY, "false");
+    XMLToolsImpl lTransformingXMLTools;
+    try {
+      lTransformingXMLTools = new XMLToolsImpl();
+    }
+    finally {
+      System.clearProperty(XMLToolsImpl.DIRECT_SERIALIZATION_PROPERTY);
+    }
+
+    // Build document with namespaces, special characters, comments and CDATA sections.
+    Document lDocument = lXMLTools.createDocument();
+    lDocument.appendChild(lDocument.createComment("Test document"));
+    Element lRoot = lDocument.createElementNS("https://jeaf.de/xml/test", "Root");
+    lDocument.appendChild(lRoot);
+    Element lChild = lDocument.createElementNS("https://jeaf.de/xml/test", "Child");
+    lChild.setAttribute("value", "a\nb\t\"c\" <&> 'd' \u20ac");
+    lChild.appendChild(lDocument.createTextNode("Text <&> \"quoted\" \u00e4\u00f6\u00fc \u20ac \ud83d\ude00 ]]>"));
+    lRoot.appendChild(lChild);
+    Element lPrefixed = lDocument.createElementNS("urn:p", "p:Prefixed");
+    lPrefixed.setAttributeNS("urn:q", "q:attribute", "1");
+    lPrefixed.setAttributeNS("urn:p", "p:attribute", "2");
+    lRoot.appendChild(lPrefixed);
+    lRoot.appendChild(lDocument.createElementNS(null, "NoNamespace"));
+    Element lNested = lDocument.createElement("Nested");
+    lNested.appendChild(lDocument.createElement("Level1")).appendChild(lDocument.createElement("Level2"))
+        .appendChild(lDocument.createTextNode("deep"));
+    lNested.appendChild(lDocument.createComment("comment"));
+    lNested.appendChild(lDocument.createProcessingInstruction("target", "data"));
+    lRoot.appendChild(lNested);
+    Element lCData = lDocument.createElement("CData");
+    lCData.appendChild(lDocument.createCDATASection("<not parsed>"));
+    lRoot.appendChild(lCData);
+    Element lMixed = lDocument.createElement("Mixed");
+    lMixed.appendChild(lDocument.createTextNode("text"));
+    lMixed.appendChild(lDocument.createElement("Inner"));
+    lRoot.appendChild(lMixed);
+
+    // Compare output for different document properties.
+    List<DocumentProperties> lPropertiesList = new ArrayList<>();
+    lPropertiesList.add(DocumentProperties.Builder.newBuilder().build());
+    lPropertiesList.add(DocumentProperties.Builder.newBuilder().setIndent(false).build());
+    lPropertiesList.add(DocumentProperties.Builder.newBuilder().omitXMLDeclaration(true).setIndent(false).build());
+    lPropertiesList.add(DocumentProperties.Builder.newBuilder().setEncoding("ISO-8859-1").setIndent(false).build());
+    lPropertiesList.add(DocumentProperties.Builder.newBuilder().setCDataSectionElements("Level2").build());
+    for (DocumentProperties lProperties : lPropertiesList) {
+      assertEquals(lTransformingXMLTools.toString(lDocument, lProperties), lXMLTools.toString(lDocument, lProperties));
+
+      ByteArrayOutputStream lExpected = new ByteArrayOutputStream();
+      lTransformingXMLTools.writeDocument(lDocument, lProperties, lExpected);
+      ByteArrayOutputStream lActual = new ByteArrayOutputStream();
+      lXMLTools.writeDocument(lDocument, lProperties, lActual);
+      assertArrayEquals(lExpected.toByteArray(), lActual.toByteArray());
+    }
+
+    // Compare serialization of single elements.
+    for (Element lElement : new Element[] { lRoot, lChild, lPrefixed, lNested, lCData, lMixed }) {
+      assertEquals(lTransformingXMLTools.toString(lElement), lXMLTools.toString(lElement));
+      assertEquals(lTransformingXMLTools.toString(lElement, false), lXMLTools.toString(lElement, false));
+    }
+
+    // Compare serialization of parsed document.
+    Document lParsedDocument = lXMLTools.parseFile("./src/test/resources/Test.xml", false);
+    assertEquals(lTransformingXMLTools.toString(lParsedDocument), lXMLTools.toString(lParsedDocument));
+    Element lMessage = lXMLTools.getDescendantElements("Message", lParsedDocument.getDocumentElement(), true).get(0);
+    assertEquals(lTransformingXMLTools.toString(lMessage, false), lXMLTools.toString(lMessage, false));
+
+    // Large documents are written to the output stream in chunks.
+    Document lLargeDocument = lXMLTools.createDocument();
+    Element lLargeRoot = lLargeDocument.createElement("Large");
+    lLargeDocument.appendChild(lLargeRoot);
+    for (int i = 0; i < 5000; i++) {
+      Element lEntry = lLargeDocument.createElement("Entry");
+      lEntry.setAttribute("id", String.valueOf(i));
+      lEntry.appendChild(lLargeDocument.createTextNode("Value \u20ac " + i));
+      lLargeRoot.appendChild(lEntry);
+    }
+    for (DocumentProperties lProperties : lPropertiesList) {
+      ByteArrayOutputStream lExpected = new ByteArrayOutputStream();
+      lTransformingXMLTools.writeDocument(lLargeDocument, lProperties, lExpected);
+      ByteArrayOutputStream lActual = new ByteArrayOutputStream();
+      lXMLTools.writeDocument(lLargeDocument, lProperties, lActual);
+      assertArrayEquals(lExpected.toByteArray(), lActual.toByteArray());
+    }
+  }
+
+  /**
+   * Test checks that lookups on indexed documents return the same results as lookups on the DOM itself.
+   */
+  @Test
+  public void testIndexedDocument( ) {
+    XMLToolsImpl lXMLTools = (XMLToolsImpl) Tools.getXMLTools();
+    Document lDocument = lXMLTools.parseFile("./src/test/resources/Test.xml", false);
+    Element lRoot = lDocument.getDocumentElement();
+
+    // Collect expected results before the document is indexed.
+    List<Element> lFolders = lXMLTools.getDescendantElements("MessageFolder", lRoot, true);
+    List<List<Element>> lExpectedMessages = new ArrayList<>();
+    for (Element lFolder : lFolders) {
+      lExpectedMessages.add(lXMLTools.getDescendantElements("Message", lFolder, false));
+    }
+    Element lClassInfo = lXMLTools.getSingleElement("ClassInfo", lRoot, true);
+    int lMessageCount = lXMLTools.getDescendantElements("Message", lRoot, true).size();
+
+    // Index document and compare results.
+    IndexedDocument lIndex = lXMLTools.indexDocument(lDocument);
+    assertEquals(lDocument, lIndex.getDocument());
+    assertEquals(lRoot.getElementsByTagName("*").getLength() + 1, lIndex.getElementCount());
+    assertEquals(lFolders, lIndex.getElements("MessageFolder"));
+    assertEquals(0, lIndex.getElements("Unknown").size());
+    assertEquals(lFolders, lXMLTools.getDescendantElements("MessageFolder", lDocument, true));
+    for (int i = 0; i < lFolders.size(); i++) {
+      assertEquals(lExpectedMessages.get(i), lXMLTools.getDescendantElements("Message", lFolders.get(i), false));
+    }
+    assertEquals(lClassInfo, lXMLTools.getSingleElement("ClassInfo", lRoot, true));
+    assertEquals(lClassInfo, lXMLTools.getSingleElement("ClassInfo", lDocument, true));
+    assertEquals(0, lXMLTools.getDescendantElements("Root", lRoot, false).size());
+    assertEquals("My value ...", lXMLTools.getElementValueFromSubtree("ElementWithValue", lRoot, true));
+    assertNull(lXMLTools.getSingleElement("Unknown", lRoot, false));
+
+    // Required and unique checks still have to work.
+    try {
+      lXMLTools.getSingleElement("Message", lRoot, true);
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.ELEMENT_NOT_UNIQUE, e.getErrorCode());
+    }
+    try {
+      lXMLTools.getDescendantElements("Unknown", lRoot, true);
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.REQUIRED_ELEMENT_NOT_FOUND, e.getErrorCode());
+    }
+
+    // Changing the document invalidates the index so that lookups use the DOM again.
+    assertTrue(lIndex.isValid());
+    Element lNewElement = lDocument.createElement("NewElement");
+    lNewElement.appendChild(lDocument.createElement("Message"));
+    lRoot.appendChild(lNewElement);
+    assertFalse(lIndex.isValid());
+    assertEquals(1, lXMLTools.getDescendantElements("Message", lNewElement, true).size());
+    assertEquals(lMessageCount + 1, lXMLTools.getDescendantElements("Message", lRoot, true).size());
+    assertEquals(lMessageCount + 1, lIndex.getElements("Message").size());
+
+    // Remove index again.
+    lIndex = lXMLTools.indexDocument(lDocument);
+    assertTrue(lIndex.isValid());
+    assertEquals(lMessageCount + 1, lXMLTools.getDescendantElements("Message", lRoot, true).size());
+    lXMLTools.removeIndex(lDocument);
+    assertFalse(lIndex.isValid());
+    assertEquals(lMessageCount + 1, lXMLTools.getDescendantElements("Message", lRoot, true).size());
+  }
+
+  /**
+   * Test checks parallel parsing of many files including error handling for single files and both result orders.
+   */
+  @Test
+  public void testBatchParsing( ) throws IOException {
+    XMLToolsImpl lXMLTools = new XMLToolsImpl();
+
+    // Create some files to parse.
+    List<String> lFileNames = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      File lFile = File.createTempFile("jeaf-batch-", ".xml");
+      lFile.deleteOnExit();
+      String lContent;
+      if (i % 10 == 7) {
+        lContent = "<Root><Broken></Root>";
+      }
+      else {
+        lContent = "<Root><Value>" + i + "</Value></Root>";
+      }
+      Files.write(lFile.toPath(), lContent.getBytes(StandardCharsets.UTF_8));
+      lFileNames.add(lFile.getAbsolutePath());
+    }
+    lFileNames.add("./src/test/resources/NotExisting.xml");
+
+    // Results in input order.
+    List<ParseResult> lResults = lXMLTools.parseFiles(lFileNames, false, 4);
+    assertEquals(lFileNames.size(), lResults.size());
+    for (int i = 0; i < lResults.size(); i++) {
+      ParseResult lResult = lResults.get(i);
+      assertEquals(i, lResult.getIndex());
+      assertEquals(lFileNames.get(i), lResult.getFileName());
+      if (i % 10 == 7 || i == 50) {
+        assertFalse(lResult.isSuccessful());
+        assertNull(lResult.getDocument());
+        JEAFSystemException lException = (JEAFSystemException) lResult.getException();
+        assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, lException.getErrorCode());
+      }
+      else {
+        assertTrue(lResult.isSuccessful());
+        assertNull(lResult.getException());
+        assertEquals(Integer.toString(i),
+            lXMLTools.getElementValueFromSubtree("Value", lResult.getDocument().getDocumentElement(), true));
+      }
+    }
+    assertTrue(lXMLTools.getDocumentBuilderPool(false).getPoolSize() >= 4);
+
+    // Parallelism and pool size are limited by the max. pool size.
+    DocumentBuilderPool lPool = lXMLTools.getDocumentBuilderPool(false);
+    assertEquals(10, lXMLTools.parseFiles(lFileNames.subList(0, 10), false, Integer.MAX_VALUE).size());
+    assertEquals(lPool.getMaxPoolSize(), lPool.getPoolSize());
+
+    // Results in completion order.
+    Set<Integer> lIndexes = new HashSet<>();
+    List<String> lThreads = new ArrayList<>();
+    lXMLTools.parseFiles(lFileNames, false, 3, ParseResultOrder.COMPLETION, pResult -> {
+      lIndexes.add(pResult.getIndex());
+      lThreads.add(Thread.currentThread().getName());
+    });
+    assertEquals(lFileNames.size(), lIndexes.size());
+    assertEquals(Collections.nCopies(lFileNames.size(), Thread.currentThread().getName()), lThreads);
+
+    // Interrupted batches must not be mistaken for complete ones.
+    Thread.currentThread().interrupt();
+    try {
+      lXMLTools.parseFiles(lFileNames, false, 2);
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+      assertTrue(lFileNames.contains(e.getMessageParameters()[0]));
+      assertTrue(Thread.interrupted());
+    }
+
+    // Test parameter checks.
+    try {
+      lXMLTools.parseFiles(lFileNames, false, 0);
+      fail("Exception expected.");
+    }
+    catch (IllegalArgumentException e) {
+      // Nothing to do.
+    }
+  }
+
+  @Test
+  public void testPartialParsing( ) {
+    XMLToolsImpl lXMLTools = (XMLToolsImpl) Tools.getXMLTools();
+
+    // Body of the message is broken. As parsing stops after the header this must not cause any problem.
+    String lXML = "<Message xmlns:m=\"urn:msg\" type=\"order\" version=\"2\"><Header><m:ID>4711</m:ID>"
+        + "<Receiver>B</Receiver></Header><Body><Unclosed></Body></Message>";
+    Element lHeader = lXMLTools.parsePartial(new ByteArrayInputStream(lXML.getBytes()), "/Message/Header", "Msg");
+    assertNotNull(lHeader);
+    assertEquals(lHeader, lHeader.getOwnerDocument().getDocumentElement());
+    assertEquals("4711", lXMLTools.getElementValueFromSubtree("m:ID", lHeader, true));
+    assertEquals("<Header><m:ID>4711</m:ID><Receiver>B</Receiver></Header>", lXMLTools.toString(lHeader, false));
+
+    // Path without leading "/" and predicate.
+    Element lID = lXMLTools.parsePartial(new ByteArrayInputStream(lXML.getBytes()), "Message/Header/m:ID", null);
+    assertEquals("4711", lID.getTextContent());
+    Element lReceiver = lXMLTools.parsePartial(new ByteArrayInputStream(lXML.getBytes()),
+        p -> p.endsWith("/Receiver"), null);
+    assertEquals("B", lReceiver.getTextContent());
+
+    // Unknown path requires to parse the whole document.
+    String lValidXML = "<Message><Header/><Body/></Message>";
+    assertNull(lXMLTools.parsePartial(new ByteArrayInputStream(lValidXML.getBytes()), "/Message/Trailer", "Msg"));
+    try {
+      lXMLTools.parsePartial(new ByteArrayInputStream(lXML.getBytes()), "/Message/Trailer", "Msg");
+      fail("Expecting exception as broken body has to be parsed.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+
+    // Read attributes of root element only.
+    Map<String, String> lAttributes =
+        lXMLTools.parseAttributes(new ByteArrayInputStream(lXML.getBytes()), "/Message", "Msg");
+    assertEquals(3, lAttributes.size());
+    assertEquals("urn:msg", lAttributes.get("xmlns:m"));
+    assertEquals("order", lAttributes.get("type"));
+    assertEquals("2", lAttributes.get("version"));
+    assertNull(lXMLTools.parseAttributes(new ByteArrayInputStream(lValidXML.getBytes()), "/Header", "Msg"));
+
+    // Read from file.
+    Element lMessage =
+        lXMLTools.parsePartial("./src/test/resources/Test.xml", "/Root/MessageFolder/MessageFolder/Message");
+    assertEquals("UNABLE_TO_LOCATE_VERSION_BUNDLE", lMessage.getAttribute("name"));
+  }
+
+  @Test
+  public void testParseEntryPoints( ) {
+    XMLToolsImpl lXMLTools = (XMLToolsImpl) Tools.getXMLTools();
+
+    // Strings are parsed as characters so non ASCII characters and the declared encoding do not cause problems.
+    String lName = "Gr\u00FC\u00DFe \u20AC \uD83D\uDE00";
+    String lXML = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><Root><Name>" + lName + "</Name></Root>";
+    Document lDocument = lXMLTools.parseString(lXML, false, null, "String");
+    assertEquals(lName, lXMLTools.getElementValueFromSubtree("Name", lDocument.getDocumentElement(), true));
+    lDocument = lXMLTools.parse(new StringReader(lXML), false, null, "Reader");
+    assertEquals(lName, lXMLTools.getElementValueFromSubtree("Name", lDocument.getDocumentElement(), true));
+
+    // Bytes are decoded using the encoding from the XML declaration.
+    lName = "Gr\u00FC\u00DFe";
+    String lUTF8XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Root><Name>" + lName + "</Name></Root>";
+    byte[] lBytes = lUTF8XML.getBytes(StandardCharsets.UTF_8);
+    lDocument = lXMLTools.parse(lBytes, false, null, "Bytes");
+    assertEquals(lName, lXMLTools.getElementValueFromSubtree("Name", lDocument.getDocumentElement(), true));
+
+    // Only remaining bytes of heap and direct buffers are parsed and their position is not changed.
+    byte[] lPadded = new byte[lBytes.length + 6];
+    System.arraycopy(lBytes, 0, lPadded, 3, lBytes.length);
+    ByteBuffer lHeapBuffer = ByteBuffer.wrap(lPadded, 3, lBytes.length).slice();
+    lDocument = lXMLTools.parse(lHeapBuffer, false, null, "HeapBuffer");
+    assertEquals(lName, lXMLTools.getElementValueFromSubtree("Name", lDocument.getDocumentElement(), true));
+    assertEquals(0, lHeapBuffer.position());
+    ByteBuffer lDirectBuffer = ByteBuffer.allocateDirect(lBytes.length);
+    lDirectBuffer.put(lBytes).flip();
+    lDocument = lXMLTools.parse(lDirectBuffer, false, null, "DirectBuffer");
+    assertEquals(lName, lXMLTools.getElementValueFromSubtree("Name", lDocument.getDocumentElement(), true));
+    assertEquals(lBytes.length, lDirectBuffer.remaining());
+
+    // Error handling.
+    try {
+      lXMLTools.parse("<Root>".getBytes(StandardCharsets.UTF_8), false, null, "Broken");
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+  }
+
+  @Test
+  public void testStreamingWriter( ) throws IOException {
+    XMLToolsImpl lXMLTools = (XMLToolsImpl) Tools.getXMLTools();
+
+    // Output must be the same as if the same document would be created as DOM.
+    String lXML = "<Orders count=\"2\" note=\"a &amp; &quot;b&quot;\"><Order id=\"1\"><Item>Book &lt;1&gt;</Item>"
+        + "<Script><![CDATA[x < y]]></Script><Empty/></Order><Order id=\"2\"><Item>Caf\u00E9 \u20AC</Item>"
+        + "<Script><![CDATA[a]]]]><![CDATA[>b]]></Script></Order></Orders>";
+    Document lDocument = lXMLTools.parseString(lXML, false, null, "Orders");
+    for (boolean lIndent : new boolean[] { true, false }) {
+      for (String lEncoding : new String[] { "UTF-8", "ISO-8859-1" }) {
+        DocumentProperties lProperties = DocumentProperties.Builder.newBuilder().setIndent(lIndent)
+            .setEncoding(lEncoding).setCDataSectionElements("Script").build();
+        ByteArrayOutputStream lExpected = new ByteArrayOutputStream();
+        lXMLTools.writeDocument(lDocument, lProperties, lExpected);
+
+        ByteArrayOutputStream lOutputStream = new ByteArrayOutputStream();
+        try (XMLStreamingWriter lWriter = lXMLTools.createStreamingWriter(lOutputStream, lProperties)) {
+          lWriter.startElement("Orders").attribute("count", "2").attribute("note", "a & \"b\"").attribute("x", null);
+          lWriter.startElement("Order").attribute("id", "1").element("Item", "Book <1>").element("Script", "x < y");
+          lWriter.element("Empty", null).endElement();
+          lWriter.startElement("Order").attribute("id", "2").element("Item", "Caf\u00E9 \u20AC");
+          lWriter.startElement("Script").text("a]]>b");
+          assertEquals(3, lWriter.getDepth());
+        }
+        assertEquals(lExpected.toString(lEncoding), lOutputStream.toString(lEncoding));
+      }
+    }
+
+    // Large documents are written in blocks.
+    ByteArrayOutputStream lOutputStream = new ByteArrayOutputStream();
+    XMLStreamingWriter lWriter = lXMLTools.createStreamingWriter(lOutputStream, null);
+    lWriter.startElement("Records");
+    for (int i = 0; i < 10000; i++) {
+      lWriter.startElement("Record").attribute("id", Integer.toString(i)).element("Value", "Value " + i).endElement();
+    }
+    assertTrue(lOutputStream.size() > 0);
+    lWriter.close();
+    lWriter.close();
+    Document lRecords = lXMLTools.parse(lOutputStream.toByteArray(), false, null, "Records");
+    assertEquals(10000, lXMLTools.getChildren("Record", lRecords.getDocumentElement(), true).size());
+
+    // Invalid usage.
+    lWriter = lXMLTools.createStreamingWriter(new ByteArrayOutputStream(), null);
+    try {
+      lWriter.text("No element");
+      fail("Exception expected.");
+    }
+    catch (IllegalStateException e) {
+      // Expected.
+    }
+    lWriter.startElement("Root").text("Text");
+    try {
+      lWriter.attribute("late", "true");
+      fail("Exception expected.");
+    }
+    catch (IllegalStateException e) {
+      // Expected.
+    }
+    lWriter.endElement();
+    try {
+      lWriter.startElement("SecondRoot");
+      fail("Exception expected.");
+    }
+    catch (IllegalStateException e) {
+      // Expected.
+    }
+    lWriter.close();
+  }
+
+  @Test
+  public void testDocumentSnapshot( ) throws IOException, ParserConfigurationException {
+    XMLToolsImpl lXMLTools = (XMLToolsImpl) Tools.getXMLTools();
+
+    // Snapshot must contain all nodes of the document.
+    String lXML = "<?xml version=\"1.0\"?><!DOCTYPE Root SYSTEM \"Root.dtd\"><?app mode=\"test\"?>"
+        + "<Root a=\"1\" b=\"2\"><!-- Comment --><n:Item xmlns:n=\"urn:test\" n:id=\"4\">Gr\u00FC\u00DFe &amp; more"
+        + "</n:Item><Data><![CDATA[<x>]]></Data><Empty/><Item>Gr\u00FC\u00DFe &amp; more</Item></Root>";
+    DocumentProperties lProperties = DocumentProperties.Builder.newBuilder().setIndent(false).build();
+    Document lNamespaceDocument = lXMLTools.createDocument();
+    Element lRoot = lNamespaceDocument.createElementNS("urn:test", "n:Root");
+    lRoot.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "xmlns:n", "urn:test");
+    lRoot.setAttributeNS("urn:test", "n:id", "1");
+    lRoot.appendChild(lNamespaceDocument.createElementNS("urn:test", "n:Item")).setTextContent("Value");
+    lNamespaceDocument.appendChild(lRoot);
+    for (Document lDocument : Arrays.asList(lXMLTools.parseString(lXML, false, null, "Snapshot"), lNamespaceDocument)) {
+      ByteArrayOutputStream lOutputStream = new ByteArrayOutputStream();
+      lXMLTools.writeSnapshot(lDocument, lOutputStream);
+      Document lSnapshot = lXMLTools.readSnapshot(new ByteArrayInputStream(lOutputStream.toByteArray()), "Snapshot");
+      assertEquals(lXMLTools.toString(lDocument, lProperties), lXMLTools.toString(lSnapshot, lProperties));
+      assertEquals(lDocument.getDocumentElement().getNamespaceURI(),
+          lSnapshot.getDocumentElement().getNamespaceURI());
+    }
+
+    // Invalid snapshots.
+    try {
+      lXMLTools.readSnapshot(new ByteArrayInputStream(lXML.getBytes(StandardCharsets.UTF_8)), "Invalid");
+      fail("Exception expected.");
+    }
+    catch (JEAFSystemException e) {
+      assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+    }
+
+    // Snapshots on disk are created on first access and are used afterwards.
+    File lDirectory = Files.createTempDirectory("snapshots").toFile();
+    String lFileName = "./src/test/resources/Test.xml";
+    String lParsed = lXMLTools.toString(lXMLTools.parseFile(lFileName, false).getDocumentElement(), false);
+    Document lDocument = lXMLTools.parseFileWithSnapshot(lFileName, false, lDirectory.getPath());
+    assertEquals(lParsed, lXMLTools.toString(lDocument.getDocumentElement(), false));
+    File[] lSnapshots = lDirectory.listFiles();
+    assertEquals(1, lSnapshots.length);
+    assertTrue(lSnapshots[0].getName().endsWith(".jxs"));
+    lDocument = lXMLTools.parseFileWithSnapshot(lFileName, false, lDirectory.getPath());
+    assertEquals(lParsed, lXMLTools.toString(lDocument.getDocumentElement(), false));
+
+    // Broken snapshot will be replaced.
+    Files.write(lSnapshots[0].toPath(), new byte[] { 1, 2, 3 });
+    lDocument = lXMLTools.parseFileWithSnapshot(lFileName, false, lDirectory.getPath());
+    assertEquals(lParsed, lXMLTools.toString(lDocument.getDocumentElement(), false));
+    assertTrue(lSnapshots[0].length() > 3);
+
+    // Snapshots with valid header but corrupt content will be replaced as well.
+    byte[] lHeader = Arrays.copyOf(Files.readAllBytes(lSnapshots[0].toPath()), 8);
+    byte[][] lCorruptContents =
+        { { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F }, { 0x7F }, { 0, 5, 2, 2, 0, 0, 1 } };
+    for (byte[] lCorruptContent : lCorruptContents) {
+      ByteArrayOutputStream lCorruptSnapshot = new ByteArrayOutputStream();
+      lCorruptSnapshot.write(lHeader);
+      lCorruptSnapshot.write(lCorruptContent);
+      try {
+        lXMLTools.readSnapshot(new ByteArrayInputStream(lCorruptSnapshot.toByteArray()), "Corrupt");
+        fail("Exception expected.");
+      }
+      catch (JEAFSystemException e) {
+        assertEquals(ToolsMessages.UNABLE_TO_PARSE_XML_FILE, e.getErrorCode());
+      }
+      Files.write(lSnapshots[0].toPath(), lCorruptSnapshot.toByteArray());
+      lDocument = lXMLTools.parseFileWithSnapshot(lFileName, false, lDirectory.getPath());
+      assertEquals(lParsed, lXMLTools.toString(lDocument.getDocumentElement(), false));
+      assertTrue(lSnapshots[0].length() > lCorruptSnapshot.size());
+    }
+
+    // Snapshots of changed files replace the outdated ones. Snapshots of other files are kept.
+    File lSourceFile = new File(lDirectory, "Source.xml");
+    Files.write(lSourceFile.toPath(), "<root><a/></root>".getBytes(StandardCharsets.UTF_8));
+    lXMLTools.parseFileWithSnapshot(lSourceFile.getPath(), false, lDirectory.getPath());
+    assertEquals(3, lDirectory.listFiles().length);
+    Files.write(lSourceFile.toPath(), "<root><b/></root>".getBytes(StandardCharsets.UTF_8));
+    lDocument = lXMLTools.parseFileWithSnapshot(lSourceFile.getPath(), false, lDirectory.getPath());
+    assertEquals("b", lDocument.getDocumentElement().getFirstChild().getNodeName());
+    assertEquals(3, lDirectory.listFiles().length);
+    assertTrue(lSnapshots[0].exists());
+    for (File lFile : lDirectory.listFiles()) {
+      lFile.delete();
+    }
+    lDirectory.delete();
+  }
 }
 
 class FileParser implements Runnable {